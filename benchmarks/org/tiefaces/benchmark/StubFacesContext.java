@@ -0,0 +1,297 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.faces.application.Application;
+import javax.faces.application.FacesMessage;
+import javax.faces.application.FacesMessage.Severity;
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+import javax.faces.context.PartialResponseWriter;
+import javax.faces.context.PartialViewContext;
+import javax.faces.context.ResponseStream;
+import javax.faces.context.ResponseWriter;
+import javax.faces.event.PhaseId;
+import javax.faces.render.RenderKit;
+
+import org.primefaces.component.datatable.DataTable;
+import org.primefaces.context.DefaultRequestContext;
+import org.primefaces.context.RequestContext;
+
+/**
+ * Minimal faces context for benchmarks of the ajax event paths.
+ *
+ * It's set as current instance of the thread when created. The view root
+ * finds one data table for any client id, which shows the first page of
+ * body rows, and client updates are collected into the partial view context
+ * through a primefaces request context. Nothing is rendered.
+ *
+ * @author Jason Jiang
+ *
+ */
+final class StubFacesContext extends FacesContext {
+
+	/** context attributes. */
+	private final Map<Object, Object> attributes = new HashMap<>();
+
+	/** view map. */
+	private final Map<String, Object> viewMap = new HashMap<>();
+
+	/** messages. */
+	private final List<FacesMessage> messages = new ArrayList<>();
+
+	/** partial view context. */
+	private final StubPartialViewContext partialViewContext = new StubPartialViewContext();
+
+	/** view root. */
+	private UIViewRoot viewRoot;
+
+	/**
+	 * Create and set as current instance.
+	 *
+	 * @param rowsToRender
+	 *            the rows in page
+	 * @param rowCount
+	 *            the body rows count
+	 */
+	StubFacesContext(final int rowsToRender, final int rowCount) {
+		super();
+		setCurrentInstance(this);
+		final DataTable table = new DataTable() {
+			@Override
+			public int getFirst() {
+				return 0;
+			}
+
+			@Override
+			public int getRowsToRender() {
+				return rowsToRender;
+			}
+
+			@Override
+			public int getRowCount() {
+				return rowCount;
+			}
+		};
+		viewRoot = new UIViewRoot() {
+			@Override
+			public UIComponent findComponent(final String expr) {
+				return table;
+			}
+
+			@Override
+			public Map<String, Object> getViewMap() {
+				return viewMap;
+			}
+
+			@Override
+			public Map<String, Object> getViewMap(final boolean create) {
+				return viewMap;
+			}
+		};
+		RequestContext.setCurrentInstance(new DefaultRequestContext(this),
+				this);
+	}
+
+	/**
+	 * Client ids updated since last call. Messages added are dropped too.
+	 *
+	 * @return the updated client ids count
+	 */
+	int pollUpdates() {
+		int count = partialViewContext.renderIds.size();
+		partialViewContext.renderIds.clear();
+		messages.clear();
+		return count;
+	}
+
+	@Override
+	public Map<Object, Object> getAttributes() {
+		return attributes;
+	}
+
+	@Override
+	public PartialViewContext getPartialViewContext() {
+		return partialViewContext;
+	}
+
+	@Override
+	public Application getApplication() {
+		return null;
+	}
+
+	@Override
+	public Iterator<String> getClientIdsWithMessages() {
+		return Collections.<String> emptyList().iterator();
+	}
+
+	@Override
+	public ExternalContext getExternalContext() {
+		return null;
+	}
+
+	@Override
+	public Severity getMaximumSeverity() {
+		return null;
+	}
+
+	@Override
+	public Iterator<FacesMessage> getMessages() {
+		return messages.iterator();
+	}
+
+	@Override
+	public Iterator<FacesMessage> getMessages(final String clientId) {
+		return messages.iterator();
+	}
+
+	@Override
+	public RenderKit getRenderKit() {
+		return null;
+	}
+
+	@Override
+	public boolean getRenderResponse() {
+		return false;
+	}
+
+	@Override
+	public boolean getResponseComplete() {
+		return false;
+	}
+
+	@Override
+	public ResponseStream getResponseStream() {
+		return null;
+	}
+
+	@Override
+	public void setResponseStream(final ResponseStream responseStream) {
+		// nothing is rendered
+	}
+
+	@Override
+	public ResponseWriter getResponseWriter() {
+		return null;
+	}
+
+	@Override
+	public void setResponseWriter(final ResponseWriter responseWriter) {
+		// nothing is rendered
+	}
+
+	@Override
+	public UIViewRoot getViewRoot() {
+		return viewRoot;
+	}
+
+	@Override
+	public void setViewRoot(final UIViewRoot root) {
+		this.viewRoot = root;
+	}
+
+	@Override
+	public void addMessage(final String clientId,
+			final FacesMessage message) {
+		messages.add(message);
+	}
+
+	@Override
+	public void release() {
+		attributes.clear();
+		setCurrentInstance(null);
+	}
+
+	@Override
+	public void renderResponse() {
+		// nothing is rendered
+	}
+
+	@Override
+	public void responseComplete() {
+		// nothing is rendered
+	}
+
+	/**
+	 * Partial view context of ajax request. Keeps the render ids only.
+	 */
+	private static final class StubPartialViewContext
+			extends PartialViewContext {
+
+		/** client ids to render. */
+		private final Collection<String> renderIds = new ArrayList<>();
+
+		/** client ids to execute. */
+		private final Collection<String> executeIds = new ArrayList<>();
+
+		@Override
+		public Collection<String> getExecuteIds() {
+			return executeIds;
+		}
+
+		@Override
+		public Collection<String> getRenderIds() {
+			return renderIds;
+		}
+
+		@Override
+		public PartialResponseWriter getPartialResponseWriter() {
+			return null;
+		}
+
+		@Override
+		public boolean isAjaxRequest() {
+			return true;
+		}
+
+		@Override
+		public boolean isPartialRequest() {
+			return true;
+		}
+
+		@Override
+		public boolean isExecuteAll() {
+			return false;
+		}
+
+		@Override
+		public boolean isRenderAll() {
+			return false;
+		}
+
+		@Override
+		public void setRenderAll(final boolean renderAll) {
+			// render ids only
+		}
+
+		@Override
+		public void setPartialRequest(final boolean isPartialRequest) {
+			// always partial
+		}
+
+		@Override
+		public void release() {
+			renderIds.clear();
+			executeIds.clear();
+		}
+
+		@Override
+		public void processPartial(final PhaseId phaseId) {
+			// nothing is processed
+		}
+	}
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Drawing;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Generate template and data of configurable size for benchmarks.
+ *
+ * The template has a form with nested each commands:
+ * <ul>
+ * <li>row 1 : column titles.</li>
+ * <li>next depth rows : group name of each level, merged across the data
+ * columns.</li>
+ * <li>next row : item values, repeated for each item of the inner group.</li>
+ * <li>last row : sub total formula of each column.</li>
+ * </ul>
+ * Column A holds the commands, data starts from column B. Only the top level
+ * has many groups, each group below has one sub group, so the rows count
+ * grows with depth linearly.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class SyntheticTemplate {
+
+	/** first data column. */
+	public static final int FIRST_COL = 1;
+
+	/**
+	 * hide constructor.
+	 */
+	private SyntheticTemplate() {
+		// not called
+	}
+
+	/**
+	 * Row index of first item row after binding.
+	 *
+	 * @param depth
+	 *            the group levels count
+	 * @return the row index
+	 */
+	public static int firstItemRow(final int depth) {
+		return depth + 1;
+	}
+
+	/**
+	 * Create template.
+	 *
+	 * @param cols
+	 *            data columns count
+	 * @param depth
+	 *            the group levels count, at least one
+	 * @param mergeGroupRow
+	 *            whether merge the group name rows
+	 * @return the xlsx bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static byte[] createTemplate(final int cols, final int depth,
+			final boolean mergeGroupRow) throws IOException {
+		try (XSSFWorkbook wb = new XSSFWorkbook()) {
+			Sheet sheet = wb.createSheet("bench");
+			int lastCol = FIRST_COL + cols - 1;
+			int itemRowIndex = firstItemRow(depth);
+			Row title = sheet.createRow(0);
+			for (int level = 0; level < depth; level++) {
+				sheet.createRow(level + 1);
+			}
+			Row item = sheet.createRow(itemRowIndex);
+			Row total = sheet.createRow(itemRowIndex + 1);
+			addComment(sheet, 0, 0, "tie:form(name=\"bench\" length=\""
+					+ (depth + 3)
+					+ "\" headerLength=\"0\" footerLength=\"0\")");
+			for (int level = 0; level < depth; level++) {
+				addGroupRow(sheet, level, depth, lastCol, mergeGroupRow);
+			}
+			addComment(sheet, itemRowIndex, 0,
+					"tie:each(items=\"group" + (depth - 1)
+							+ ".items\", var=\"item\", length=\"1\" allowAdd=\"true\")");
+			String itemRowNum = String.valueOf(itemRowIndex + 1);
+			for (int col = FIRST_COL; col <= lastCol; col++) {
+				title.createCell(col).setCellValue("Column " + col);
+				item.createCell(col)
+						.setCellValue("${item.c" + col + "}");
+				String colName = CellReference.convertNumToColString(col);
+				total.createCell(col).setCellFormula("SUM(" + colName
+						+ itemRowNum + ":" + colName + itemRowNum + ")");
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			wb.write(out);
+			return out.toByteArray();
+		}
+	}
+
+	/**
+	 * Adds the group name row and each command of one level. The each
+	 * command covers the group rows below, the item row and the sub total
+	 * row.
+	 *
+	 * @param sheet
+	 *            the sheet
+	 * @param level
+	 *            the group level, 0 is the top
+	 * @param depth
+	 *            the group levels count
+	 * @param lastCol
+	 *            the last data column
+	 * @param mergeGroupRow
+	 *            whether merge the group name row
+	 */
+	private static void addGroupRow(final Sheet sheet, final int level,
+			final int depth, final int lastCol, final boolean mergeGroupRow) {
+		int rowIndex = level + 1;
+		String items;
+		if (level == 0) {
+			items = "groups";
+		} else {
+			items = "group" + (level - 1) + ".groups";
+		}
+		addComment(sheet, rowIndex, 0,
+				"tie:each(items=\"" + items + "\", var=\"group" + level
+						+ "\", length=\"" + (depth - level + 2) + "\")");
+		sheet.getRow(rowIndex).createCell(FIRST_COL)
+				.setCellValue("${group" + level + ".name}");
+		if (mergeGroupRow && (lastCol > FIRST_COL)) {
+			sheet.addMergedRegion(new CellRangeAddress(rowIndex, rowIndex,
+					FIRST_COL, lastCol));
+		}
+	}
+
+	/**
+	 * Adds the comment.
+	 *
+	 * @param sheet
+	 *            the sheet
+	 * @param row
+	 *            the row
+	 * @param col
+	 *            the col
+	 * @param text
+	 *            the text
+	 */
+	private static void addComment(final Sheet sheet, final int row,
+			final int col, final String text) {
+		CreationHelper factory = sheet.getWorkbook().getCreationHelper();
+		Drawing drawing = sheet.createDrawingPatriarch();
+		ClientAnchor anchor = factory.createClientAnchor();
+		anchor.setRow1(row);
+		anchor.setRow2(row + 2);
+		anchor.setCol1(col);
+		anchor.setCol2(col + 2);
+		Cell cell = sheet.getRow(row).getCell(col,
+				Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
+		Comment comment = drawing.createCellComment(anchor);
+		comment.setString(factory.createRichTextString(text));
+		cell.setCellComment(comment);
+	}
+
+	/**
+	 * Create data context.
+	 *
+	 * @param groups
+	 *            the top level groups count
+	 * @param depth
+	 *            the group levels count, at least one
+	 * @param itemsPerGroup
+	 *            the items per inner group
+	 * @param cols
+	 *            data columns count
+	 * @return the data context
+	 */
+	public static Map<String, Object> createDataContext(final int groups,
+			final int depth, final int itemsPerGroup, final int cols) {
+		List<Map<String, Object>> groupList = new ArrayList<>();
+		for (int g = 0; g < groups; g++) {
+			List<Map<String, Object>> items = new ArrayList<>();
+			for (int i = 0; i < itemsPerGroup; i++) {
+				Map<String, Object> item = new HashMap<>();
+				for (int col = FIRST_COL; col < FIRST_COL + cols; col++) {
+					item.put("c" + col, (double) (g * itemsPerGroup + i + col));
+				}
+				items.add(item);
+			}
+			// build from the inner level up to the top.
+			Map<String, Object> group = new HashMap<>();
+			group.put("name", "Group " + g + "." + (depth - 1));
+			group.put("items", items);
+			for (int level = depth - 2; level >= 0; level--) {
+				List<Map<String, Object>> subGroups = new ArrayList<>();
+				subGroups.add(group);
+				group = new HashMap<>();
+				group.put("name", "Group " + g + "." + level);
+				group.put("groups", subGroups);
+			}
+			groupList.add(group);
+		}
+		Map<String, Object> context = new HashMap<>();
+		context.put("groups", groupList);
+		return context;
+	}
+
+}
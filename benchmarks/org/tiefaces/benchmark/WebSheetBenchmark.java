@@ -0,0 +1,354 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.behavior.AjaxBehavior;
+import javax.faces.component.html.HtmlInputText;
+import javax.faces.event.AjaxBehaviorEvent;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tiefaces.components.websheet.TieWebSheetBean;
+import org.tiefaces.components.websheet.service.BatchReportEngine;
+import org.tiefaces.components.websheet.utility.ExportUtility;
+
+/**
+ * Throughput of load, bind, add row, delete row, edit and export paths over
+ * synthetic templates. Run with gc profiler to get allocation rate. Load is
+ * measured with and without template cache.
+ *
+ * No faces context is created for most benchmarks, the benchmarked paths
+ * skip faces calls when there is no current instance. The edit benchmark
+ * times the formula refresh only. The edit and refresh benchmark runs the
+ * value change event with a stub faces context: save into cell and data
+ * context, validation and refresh of re-evaluated cells and charts in
+ * current page.
+ *
+ * @author Jason Jiang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WebSheetBenchmark {
+
+	/** template id used for loading through template cache. */
+	private static final String TEMPLATE_ID = "synthetic";
+
+	/** top level groups count. */
+	@Param({ "10", "100" })
+	public int groups;
+
+	/** nested group levels count. */
+	@Param({ "1", "3" })
+	public int depth;
+
+	/** items per group. */
+	@Param({ "10", "100" })
+	public int items;
+
+	/** data columns count. */
+	@Param({ "10", "40" })
+	public int cols;
+
+	/** merge group name row. */
+	@Param({ "false", "true" })
+	public boolean merged;
+
+	/** row index of first item row after binding. */
+	private int firstItemRow;
+
+	/** template bytes. */
+	private byte[] template;
+
+	/** engine for bind benchmark. */
+	private BatchReportEngine engine;
+
+	/** bean loaded once for read only benchmarks. */
+	private TieWebSheetBean loadedBean;
+
+	/** counter for edited values. */
+	private double editValue;
+
+	/**
+	 * Output stream discards everything.
+	 */
+	private static final class NullOutputStream extends OutputStream {
+
+		@Override
+		public void write(final int b) {
+			// discard
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			// discard
+		}
+	}
+
+	/**
+	 * Create template and data.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Setup(Level.Trial)
+	public void setUpTrial() throws IOException {
+		template = SyntheticTemplate.createTemplate(cols, depth, merged);
+		firstItemRow = SyntheticTemplate.firstItemRow(depth);
+		engine = new BatchReportEngine(new ByteArrayInputStream(template),
+				null);
+		engine.setEvaluateFormulas(false);
+		loadedBean = loadBean();
+	}
+
+	/**
+	 * Bean loaded before each invocation of benchmarks which change the
+	 * workbook.
+	 */
+	@State(Scope.Thread)
+	public static class FreshBean {
+
+		/** the bean. */
+		private TieWebSheetBean bean;
+
+		/**
+		 * Load new bean.
+		 *
+		 * @param benchmark
+		 *            the benchmark state
+		 */
+		@Setup(Level.Invocation)
+		public void setUp(final WebSheetBenchmark benchmark) {
+			bean = benchmark.loadBean();
+		}
+	}
+
+	/**
+	 * Stub faces context and value change event of the first item cell.
+	 */
+	@State(Scope.Thread)
+	public static class FacesState {
+
+		/** the faces context. */
+		private StubFacesContext context;
+
+		/** the value change event. */
+		private AjaxBehaviorEvent event;
+
+		/**
+		 * Set stub faces context with first page of the loaded bean.
+		 *
+		 * @param benchmark
+		 *            the benchmark state
+		 */
+		@Setup(Level.Trial)
+		public void setUp(final WebSheetBenchmark benchmark) {
+			TieWebSheetBean bean = benchmark.loadedBean;
+			bean.setWebFormClientId("websheet:webSheetGrid");
+			context = new StubFacesContext(bean.getMaxRowsPerPage(),
+					bean.getBodyRows().size());
+			UIComponent input = new HtmlInputText();
+			input.getAttributes().put("data-row", benchmark.firstItemRow);
+			input.getAttributes().put("data-column",
+					SyntheticTemplate.FIRST_COL);
+			event = new AjaxBehaviorEvent(input, new AjaxBehavior());
+		}
+
+		/**
+		 * Release the faces context.
+		 */
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			context.release();
+		}
+	}
+
+	/**
+	 * Load bean with new data context.
+	 *
+	 * @return the tie web sheet bean
+	 */
+	private TieWebSheetBean loadBean() {
+		TieWebSheetBean newBean = new TieWebSheetBean();
+		newBean.init();
+		newBean.loadWebSheet(new ByteArrayInputStream(template),
+				newDataContext());
+		return newBean;
+	}
+
+	/**
+	 * New data context.
+	 *
+	 * @return the data context
+	 */
+	private Map<String, Object> newDataContext() {
+		return SyntheticTemplate.createDataContext(groups, depth, items,
+				cols);
+	}
+
+	/**
+	 * Load workbook: parse, configure and bind template, build first page.
+	 *
+	 * @return the bean
+	 */
+	@Benchmark
+	public TieWebSheetBean load() {
+		TieWebSheetBean newBean = new TieWebSheetBean();
+		newBean.init();
+		newBean.loadWebSheet(new ByteArrayInputStream(template),
+				newDataContext());
+		return newBean;
+	}
+
+	/**
+	 * Load workbook through template cache: configuration is restored from
+	 * the cached template after the first load, then bind and build first
+	 * page. The difference to load is the parse saved by the cache.
+	 *
+	 * @return the bean
+	 */
+	@Benchmark
+	public TieWebSheetBean loadCached() {
+		TieWebSheetBean newBean = new TieWebSheetBean();
+		newBean.init();
+		newBean.loadWebSheet(new ByteArrayInputStream(template),
+				newDataContext(), TEMPLATE_ID);
+		return newBean;
+	}
+
+	/**
+	 * Bind data into configured template (each command build) and write.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public void bind() throws IOException {
+		engine.generate(newDataContext(), new NullOutputStream());
+	}
+
+	/**
+	 * Add one item row into the first group.
+	 *
+	 * @param fresh
+	 *            the fresh bean
+	 * @return the bean
+	 */
+	@Benchmark
+	public TieWebSheetBean addRow(final FreshBean fresh) {
+		fresh.bean.addRepeatRow(firstItemRow);
+		return fresh.bean;
+	}
+
+	/**
+	 * Delete the first item row of the first group.
+	 *
+	 * @param fresh
+	 *            the fresh bean
+	 * @return the bean
+	 */
+	@Benchmark
+	public TieWebSheetBean deleteRow(final FreshBean fresh) {
+		fresh.bean.deleteRepeatRow(firstItemRow);
+		return fresh.bean;
+	}
+
+	/**
+	 * Edit one item cell and recalculate the dependent formulas.
+	 *
+	 * @return the recalculated cells
+	 */
+	@Benchmark
+	public List<Cell> edit() {
+		Sheet sheet = loadedBean.getWb().getSheetAt(0);
+		Cell cell = sheet.getRow(firstItemRow)
+				.getCell(SyntheticTemplate.FIRST_COL);
+		editValue++;
+		cell.setCellValue(editValue);
+		return loadedBean.getCellHelper().reCalc(cell);
+	}
+
+	/**
+	 * Edit one item cell as the cell input does: save the value into cell and
+	 * data context, then run the value change event to validate and refresh
+	 * current page.
+	 *
+	 * @param faces
+	 *            the faces state
+	 * @return the client ids updated
+	 */
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public int editAndRefresh(final FacesState faces) {
+		editValue++;
+		loadedBean.getCellsMap().put(
+				firstItemRow + ":" + SyntheticTemplate.FIRST_COL,
+				String.valueOf(editValue));
+		loadedBean.getValidationHandler().valueChangeEvent(faces.event);
+		return faces.context.pollUpdates();
+	}
+
+	/**
+	 * Export the loaded workbook into memory.
+	 *
+	 * @return the input stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public InputStream export() throws IOException {
+		return ExportUtility.writeToMemory(loadedBean.getWb());
+	}
+
+	/**
+	 * Export the loaded workbook into temp file and read it back as the
+	 * download does. The stream is closed so the temp file is deleted.
+	 *
+	 * @return the exported bytes count
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public long exportToTempFile() throws IOException {
+		try (InputStream in = ExportUtility
+				.writeToTempFile(loadedBean.getWb())) {
+			byte[] buffer = new byte[8192];
+			long count = 0;
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				count += read;
+			}
+			return count;
+		}
+	}
+
+}
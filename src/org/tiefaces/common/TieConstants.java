@@ -167,6 +167,39 @@ public final class TieConstants {
 	/** The Constant defaultMaxRowsPerPage. */
 	public static final int DEFAULT_MAX_ROWS_PER_PAGE = 80;
 
+	/** The Constant DEFAULT_LAZY_PREFETCH_ROWS. */
+	public static final int DEFAULT_LAZY_PREFETCH_ROWS = 20;
+
+	/** The Constant DEFAULT_TEMPLATE_CACHE_SIZE. */
+	public static final int DEFAULT_TEMPLATE_CACHE_SIZE = 32;
+
+	/** The Constant DEFAULT_EXPRESSION_CACHE_SIZE. */
+	public static final int DEFAULT_EXPRESSION_CACHE_SIZE = 5000;
+
+	/** The Constant DEFAULT_EXPORT_BUFFER_SIZE. */
+	public static final int DEFAULT_EXPORT_BUFFER_SIZE = 64 * 1024;
+
+	/** The Constant DEFAULT_BATCH_MAX_PENDING. */
+	public static final int DEFAULT_BATCH_MAX_PENDING = 64;
+
+	/** The Constant DEFAULT_CHART_IMAGE_CACHE_BYTES. */
+	public static final long DEFAULT_CHART_IMAGE_CACHE_BYTES = 32L * 1024 * 1024;
+
+	/** The Constant DEFAULT_CHART_RENDER_THREADS. */
+	public static final int DEFAULT_CHART_RENDER_THREADS = 2;
+
+	/** The Constant DEFAULT_CHART_RENDER_WAIT_SECONDS. */
+	public static final int DEFAULT_CHART_RENDER_WAIT_SECONDS = 10;
+
+	/** The Constant DEFAULT_PICTURE_STORE_BYTES. */
+	public static final long DEFAULT_PICTURE_STORE_BYTES = 128L * 1024 * 1024;
+
+	/** The Constant DEFAULT_PICTURE_MAX_AGE_SECONDS. */
+	public static final int DEFAULT_PICTURE_MAX_AGE_SECONDS = 365 * 24 * 60 * 60;
+
+	/** The Constant HTTP_NOT_MODIFIED. */
+	public static final int HTTP_NOT_MODIFIED = 304;
+
 	/** The Constant defaultTableWidthStyle. */
 	public static final String DEFAULT_TABLE_WIDTH_STYLE = "width: 100%;";
 
@@ -209,7 +242,11 @@ public final class TieConstants {
 	/** The Constant max columns in sheet. = AML */
 	public static final int MAX_COLUMNS_IN_SHEET = 1024;
 
-	/** The Constant hiddenOriginRowNumber. = AML */
+	/**
+	 * The Constant hiddenOriginRowNumber. = AML. Row metadata is kept in
+	 * RowMetadataTable now. hidden columns are only cleared from workbook
+	 * saved by old version.
+	 */
 	public static final int HIDDEN_ORIGIN_ROW_NUMBER_COLUMN = 1025;
 
 	/** The Constant hiddenFullNameColumn. = AMM */
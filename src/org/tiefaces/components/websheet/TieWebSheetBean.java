@@ -5,9 +5,6 @@
 
 package org.tiefaces.components.websheet;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
@@ -47,14 +44,19 @@ import org.tiefaces.components.websheet.dataobjects.CellMap;
 import org.tiefaces.components.websheet.dataobjects.FacesCell;
 import org.tiefaces.components.websheet.dataobjects.FacesRow;
 import org.tiefaces.components.websheet.dataobjects.HeaderCell;
+import org.tiefaces.components.websheet.dataobjects.LazyBodyRows;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
 import org.tiefaces.components.websheet.serializable.SerialDataContext;
 import org.tiefaces.components.websheet.serializable.SerialWorkbook;
 import org.tiefaces.components.websheet.service.CellHelper;
 import org.tiefaces.components.websheet.service.PicturesHelper;
 import org.tiefaces.components.websheet.service.ValidationHandler;
+import org.tiefaces.components.websheet.service.WebSheetInstrumentation;
 import org.tiefaces.components.websheet.service.WebSheetLoader;
+import org.tiefaces.components.websheet.service.WebSheetMetrics;
 import org.tiefaces.components.websheet.utility.CellControlsUtility;
 import org.tiefaces.components.websheet.utility.CellUtility;
+import org.tiefaces.components.websheet.utility.ExportUtility;
 
 /**
  * Main class for web sheet.
@@ -89,13 +91,7 @@ public class TieWebSheetBean extends TieWebSheetView
 	/**
 	 * cell attributes map.
 	 */
-	private CellAttributesMap cellAttributesMap = new CellAttributesMap(
-			new HashMap<String, Map<String, String>>(),
-			new HashMap<String, String>(),
-			new HashMap<String, List<CellFormAttributes>>(),
-			new HashMap<String, Map<String, String>>(),
-			new HashMap<String, String>(),
-			new HashMap<String, List<CellFormAttributes>>());
+	private CellAttributesMap cellAttributesMap;
 
 	/**
 	 * chars data.
@@ -133,6 +129,12 @@ public class TieWebSheetBean extends TieWebSheetView
 	 */
 
 	private CellMap cellsMap = new CellMap(this);
+
+	/**
+	 * whether rebuild of workbook after delta deserialization has been
+	 * tried.
+	 */
+	private transient boolean deltaRestoreTried = false;
 	
 
 	
@@ -158,6 +160,7 @@ public class TieWebSheetBean extends TieWebSheetView
 	 * @return body rows.
 	 */
 	public List<FacesRow> getBodyRows() {
+		restoreDeltaIfPending();
 		if (this.bodyRows == null) {
 			this.bodyRows = new ArrayList<>();
 		}
@@ -180,6 +183,7 @@ public class TieWebSheetBean extends TieWebSheetView
 	 * @return return header row list.
 	 */
 	public List<List<HeaderCell>> getHeaderRows() {
+		restoreDeltaIfPending();
 		if (this.headerRows == null) {
 			this.headerRows = new ArrayList<>();
 		}
@@ -257,6 +261,7 @@ public class TieWebSheetBean extends TieWebSheetView
 	 * @return workbook.
 	 */
 	public Workbook getWb() {
+		restoreDeltaIfPending();
 		return this.getSerialWb().getWb();
 	}
 
@@ -273,6 +278,20 @@ public class TieWebSheetBean extends TieWebSheetView
 		this.wbWrapper = XSSFEvaluationWorkbook.create((XSSFWorkbook) pWb);
 	}
 
+	/**
+	 * Set up workbook with it's indexes. Also create evaluation wrapper.
+	 * 
+	 * @param pWb
+	 *            workbook.
+	 * @param pIndexes
+	 *            indexes of the workbook.
+	 */
+	public void setWb(final Workbook pWb, final WorkbookIndexes pIndexes) {
+
+		this.getSerialWb().setWb(pWb, pIndexes);
+		this.wbWrapper = XSSFEvaluationWorkbook.create((XSSFWorkbook) pWb);
+	}
+
 	/**
 	 * Return evaluation wrapper if needed.
 	 * 
@@ -560,6 +579,25 @@ public class TieWebSheetBean extends TieWebSheetView
 				.loadWorkbook(inputStream, pDataContext);
 	}
 
+	/**
+	 * load web sheet from inputStream file with data object. The parsed
+	 * template is shared through application wide template cache with other
+	 * sessions load the same template id and content.
+	 * 
+	 * @param inputStream
+	 *            input stream file.
+	 * @param pDataContext
+	 *            data object.
+	 * @param templateId
+	 *            template identity. e.g. template file name.
+	 * @return 1 (success) -1 (failed)
+	 */
+	public int loadWebSheet(final InputStream inputStream,
+			final Map<String, Object> pDataContext, final String templateId) {
+		return this.getHelper().getWebSheetLoader()
+				.loadWorkbook(inputStream, pDataContext, templateId);
+	}
+
 	/**
 	 * load web sheet from giving workbook.
 	 * 
@@ -637,25 +675,60 @@ public class TieWebSheetBean extends TieWebSheetView
 		return exportFile;
 	}
 
+	/**
+	 * Close the export file not downloaded yet, so its temp file is deleted.
+	 */
+	private void releaseExportFile() {
+		if (exportFile != null) {
+			ExportUtility.closeQuietly(exportFile.getStream());
+			exportFile = null;
+		}
+	}
+
 	/** download current workbook. */
 	public void doExport() {
+		WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+		long start = metrics.start();
 		try {
-
+			// previous export is replaced. it's abandoned if not downloaded.
+			releaseExportFile();
 			String fileName = this.getExportFileName();
-			ByteArrayOutputStream out = new ByteArrayOutputStream();
-			this.getWb().write(out);
-			InputStream stream = new BufferedInputStream(
-					new ByteArrayInputStream(out.toByteArray()));
+			InputStream stream;
+			if (this.isTempFileExport()) {
+				stream = ExportUtility.writeToTempFile(this.getWb());
+			} else {
+				stream = ExportUtility.writeToMemory(this.getWb());
+			}
 			exportFile = new DefaultStreamedContent(stream,
-					"application/force-download", fileName);
+					ExportUtility.DOWNLOAD_CONTENT_TYPE, fileName);
 
 		} catch (Exception e) {
 			LOG.log(Level.SEVERE,
 					"Error in export file : " + e.getLocalizedMessage(), e);
+		} finally {
+			metrics.stop(WebSheetMetrics.Operation.EXPORT, start);
 		}
 		return;
 	}
 
+	/**
+	 * download current workbook by writing it directly into response. Must be
+	 * called from non ajax request.
+	 */
+	public void doExportToResponse() {
+		WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+		long start = metrics.start();
+		try {
+			ExportUtility.writeToResponse(this.getWb(),
+					this.getExportFileName());
+		} catch (Exception e) {
+			LOG.log(Level.SEVERE,
+					"Error in export file : " + e.getLocalizedMessage(), e);
+		} finally {
+			metrics.stop(WebSheetMetrics.Operation.EXPORT, start);
+		}
+	}
+
 	/**
 	 * Save the current workbooks.
 	 */
@@ -735,6 +808,7 @@ public class TieWebSheetBean extends TieWebSheetView
 	 */
 	@PreDestroy
 	public void finish() {
+		releaseExportFile();
 		if (FacesContext.getCurrentInstance() == null) {
 			LOG.info("session has gone");
 		}
@@ -747,6 +821,7 @@ public class TieWebSheetBean extends TieWebSheetView
 	 * @return sheet config map.
 	 */
 	public Map<String, SheetConfiguration> getSheetConfigMap() {
+		restoreDeltaIfPending();
 		return this.getSerialWb().getSheetConfigMap();
 	}
 
@@ -771,6 +846,15 @@ public class TieWebSheetBean extends TieWebSheetView
 		return cellsMap;
 	}
 
+	/**
+	 * Gets the cells map as cell map, used to edit cells from code.
+	 *
+	 * @return the cell map
+	 */
+	public CellMap getCellMap() {
+		return cellsMap;
+	}
+
 	/**
 	 * initial load process. designed for extension.
 	 */
@@ -788,6 +872,36 @@ public class TieWebSheetBean extends TieWebSheetView
 		this.getHelper().getWebSheetLoader().addRepeatRow(rowIndex);
 	}
 
+	/**
+	 * Add multiple rows after the row. Formulas are rebuilt and recalculated
+	 * once.
+	 * 
+	 * @param rowIndex
+	 *            row index.
+	 * @param count
+	 *            number of rows to add.
+	 */
+	public void addRepeatRows(final int rowIndex, final int count) {
+		this.getHelper().getWebSheetLoader().addRepeatRows(rowIndex, count);
+	}
+
+	/**
+	 * Paste lines from the row and column. One row is added for each line
+	 * after the first one.
+	 * 
+	 * @param rowIndex
+	 *            row index.
+	 * @param colIndex
+	 *            column index.
+	 * @param lines
+	 *            lines of values.
+	 */
+	public void pasteRepeatRows(final int rowIndex, final int colIndex,
+			final List<List<String>> lines) {
+		this.getHelper().getWebSheetLoader().pasteRepeatRows(rowIndex,
+				colIndex, lines);
+	}
+
 	/**
 	 * Triggered when user click delete row button.
 	 * 
@@ -798,15 +912,45 @@ public class TieWebSheetBean extends TieWebSheetView
 		this.getHelper().getWebSheetLoader().deleteRepeatRow(rowIndex);
 	}
 
+	/**
+	 * Delete multiple rows. Formulas are rebuilt and recalculated once.
+	 * 
+	 * @param rowIndexes
+	 *            row indexes.
+	 */
+	public void deleteRepeatRows(final List<Integer> rowIndexes) {
+		this.getHelper().getWebSheetLoader().deleteRepeatRows(rowIndexes);
+	}
+
 	/**
 	 * get cell attributes map.
 	 * 
 	 * @return cell attributes map.
 	 */
 	public CellAttributesMap getCellAttributesMap() {
+		if (this.cellAttributesMap == null) {
+			this.cellAttributesMap = new CellAttributesMap(
+					new HashMap<String, Map<String, String>>(),
+					new HashMap<String, String>(),
+					new HashMap<String, List<CellFormAttributes>>(),
+					new HashMap<String, Map<String, String>>(),
+					new HashMap<String, String>(),
+					new HashMap<String, List<CellFormAttributes>>());
+		}
 		return cellAttributesMap;
 	}
 
+	/**
+	 * set cell attributes map.
+	 * 
+	 * @param pCellAttributesMap
+	 *            cell attributes map.
+	 */
+	public void setCellAttributesMap(
+			final CellAttributesMap pCellAttributesMap) {
+		this.cellAttributesMap = pCellAttributesMap;
+	}
+
 	/**
 	 * get cell default control.
 	 * 
@@ -873,10 +1017,34 @@ public class TieWebSheetBean extends TieWebSheetView
 	 * recover objects after deserilize.
 	 */
 	private void recover() {
-		if (this.getWb() != null) {
+		// workbook saved in delta mode is rebuilt in first request, as
+		// loading worksheet needs faces context.
+		if (!this.getSerialWb().isDeltaPending() && (this.getWb() != null)) {
 			this.getChartHelper().loadChartsMap();
 			this.getPicHelper().loadPicturesMap();
+			if ((this.bodyRows instanceof LazyBodyRows)
+					&& (this.getCurrent().getCurrentTabName() != null)) {
+				((LazyBodyRows) this.bodyRows)
+						.setAssembler(this.getWebSheetLoader()
+								.createBodyRowAssembler(this.getCurrent()
+										.getCurrentTabName()));
+			}
+		}
+	}
+
+	/**
+	 * Rebuild workbook saved in delta mode. Only run once in a request after
+	 * deserialization.
+	 */
+	private void restoreDeltaIfPending() {
+		if (this.deltaRestoreTried || (this.serialWb == null)
+				|| !this.serialWb.isDeltaPending()
+				|| (FacesContext.getCurrentInstance() == null)) {
+			return;
 		}
+		this.deltaRestoreTried = true;
+		// charts and pictures are loaded with the rebuilt workbook.
+		this.getWebSheetLoader().restoreFromDelta();
 	}
 
 
@@ -8,6 +8,8 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.tiefaces.components.websheet.configuration.FullNamePath;
+
 /**
  * Current collections for websheet bean.
  * 
@@ -21,6 +23,8 @@ public class TieWebSheetBeanCurrent implements Serializable {
 	private static final long serialVersionUID = -4330466518786654088L;
 	/** current data context name. */
 	private transient String currentDataContextName;
+	/** current data context path. */
+	private transient FullNamePath currentDataContextPath;
 	/** current data context name list. */
 	private transient List<String> currentDataContextNameList;
 	/** current tab name of display sheet. */
@@ -83,6 +87,36 @@ public class TieWebSheetBeanCurrent implements Serializable {
 	public final void setCurrentDataContextName(
 			final String pcurrentDataContextName) {
 		this.currentDataContextName = pcurrentDataContextName;
+		this.currentDataContextPath = null;
+	}
+
+	/**
+	 * Gets the current data context path.
+	 *
+	 * @return the currentDataContextPath
+	 */
+	public final FullNamePath getCurrentDataContextPath() {
+		if (currentDataContextPath == null) {
+			currentDataContextPath = FullNamePath
+					.parse(getCurrentDataContextName());
+		}
+		return currentDataContextPath;
+	}
+
+	/**
+	 * Sets the current data context path.
+	 *
+	 * @param pcurrentDataContextPath
+	 *            the currentDataContextPath to set
+	 */
+	public final void setCurrentDataContextPath(
+			final FullNamePath pcurrentDataContextPath) {
+		this.currentDataContextPath = pcurrentDataContextPath;
+		if (pcurrentDataContextPath == null) {
+			this.currentDataContextName = null;
+		} else {
+			this.currentDataContextName = pcurrentDataContextPath.toString();
+		}
 	}
 
 	/**
@@ -112,6 +112,40 @@ public class TieWebSheetView {
 	/** The tie command alias list. */
 	private List<TieCommandAlias> tieCommandAliasList;
 
+	/**
+	 * lazy body rows. if true body rows are assembled only for visible page
+	 * window instead of whole sheet.
+	 */
+	private boolean lazyBodyRows = false;
+
+	/** rows assembled ahead of current page in lazy mode. */
+	private int lazyPrefetchRows = TieConstants.DEFAULT_LAZY_PREFETCH_ROWS;
+
+	/**
+	 * delta serialization. if true and workbook loaded through template
+	 * cache, only the template key and cell edits are saved with session.
+	 */
+	private boolean deltaSerialization = false;
+
+	/**
+	 * refresh dependents only. if true only the formula cells depend on the
+	 * edited cell are compared and updated after edit, instead of scan all
+	 * the cells in current page.
+	 */
+	private boolean refreshDependentsOnly = false;
+
+	/**
+	 * temp file export. if true the exported workbook is written into a temp
+	 * file which is streamed to download, instead of kept in heap.
+	 */
+	private boolean tempFileExport = false;
+
+	/**
+	 * downscale pictures. if true pictures larger than their anchor are
+	 * scaled down on server before sending to browser.
+	 */
+	private boolean downscalePictures = false;
+
 	/**
 	 * empty constructor.
 	 */
@@ -518,6 +552,120 @@ public class TieWebSheetView {
 		this.skipConfiguration = pskipConfiguration;
 	}
 
+	/**
+	 * Checks if is lazy body rows.
+	 *
+	 * @return true, if is lazy body rows
+	 */
+	public boolean isLazyBodyRows() {
+		return lazyBodyRows;
+	}
+
+	/**
+	 * Sets the lazy body rows.
+	 *
+	 * @param plazyBodyRows
+	 *            the new lazy body rows
+	 */
+	public void setLazyBodyRows(final boolean plazyBodyRows) {
+		this.lazyBodyRows = plazyBodyRows;
+	}
+
+	/**
+	 * Gets the lazy prefetch rows.
+	 *
+	 * @return the lazy prefetch rows
+	 */
+	public int getLazyPrefetchRows() {
+		return lazyPrefetchRows;
+	}
+
+	/**
+	 * Sets the lazy prefetch rows.
+	 *
+	 * @param plazyPrefetchRows
+	 *            the new lazy prefetch rows
+	 */
+	public void setLazyPrefetchRows(final int plazyPrefetchRows) {
+		this.lazyPrefetchRows = plazyPrefetchRows;
+	}
+
+	/**
+	 * Checks if is delta serialization.
+	 *
+	 * @return true, if is delta serialization
+	 */
+	public boolean isDeltaSerialization() {
+		return deltaSerialization;
+	}
+
+	/**
+	 * Sets the delta serialization.
+	 *
+	 * @param pdeltaSerialization
+	 *            the new delta serialization
+	 */
+	public void setDeltaSerialization(final boolean pdeltaSerialization) {
+		this.deltaSerialization = pdeltaSerialization;
+	}
+
+	/**
+	 * Checks if is refresh dependents only.
+	 *
+	 * @return true, if is refresh dependents only
+	 */
+	public boolean isRefreshDependentsOnly() {
+		return refreshDependentsOnly;
+	}
+
+	/**
+	 * Sets the refresh dependents only.
+	 *
+	 * @param prefreshDependentsOnly
+	 *            the new refresh dependents only
+	 */
+	public void setRefreshDependentsOnly(final boolean prefreshDependentsOnly) {
+		this.refreshDependentsOnly = prefreshDependentsOnly;
+	}
+
+	/**
+	 * Checks if is temp file export.
+	 *
+	 * @return true, if is temp file export
+	 */
+	public boolean isTempFileExport() {
+		return tempFileExport;
+	}
+
+	/**
+	 * Sets the temp file export.
+	 *
+	 * @param ptempFileExport
+	 *            the new temp file export
+	 */
+	public void setTempFileExport(final boolean ptempFileExport) {
+		this.tempFileExport = ptempFileExport;
+	}
+
+	/**
+	 * Checks if is downscale pictures.
+	 *
+	 * @return true, if is downscale pictures
+	 */
+	public boolean isDownscalePictures() {
+		return downscalePictures;
+	}
+
+	/**
+	 * Sets the downscale pictures.
+	 *
+	 * @param pdownscalePictures
+	 *            the new downscale pictures
+	 */
+	public void setDownscalePictures(final boolean pdownscalePictures) {
+		this.downscalePictures = pdownscalePictures;
+	}
+
 	/**
 	 * Gets the active tab index.
 	 *
@@ -49,6 +49,9 @@ public class ChartData {
 	/** categoryList. */
 	private List<ParsedCell> categoryList;
 
+	/** sheet range feeds category list. */
+	private ChartSourceRange categoryRange;
+
 	/** seriesList. */
 	private List<ChartSeries> seriesList;
 
@@ -95,6 +98,45 @@ public class ChartData {
 		this.seriesList = pseriesList;
 	}
 
+	/**
+	 * get category range.
+	 * 
+	 * @return category range. null if not available.
+	 */
+	public final ChartSourceRange getCategoryRange() {
+		return categoryRange;
+	}
+
+	/**
+	 * Whether the cell feeds this chart, i.e. in category range or any
+	 * series source range.
+	 * 
+	 * @param sheetName
+	 *            sheet name.
+	 * @param row
+	 *            row index.
+	 * @param col
+	 *            column index.
+	 * @return true if the cell is a source of the chart.
+	 */
+	public final boolean isSourceCell(final String sheetName, final int row,
+			final int col) {
+		if ((categoryRange != null)
+				&& categoryRange.contains(sheetName, row, col)) {
+			return true;
+		}
+		if (seriesList != null) {
+			for (ChartSeries series : seriesList) {
+				for (ChartSourceRange range : series.getSourceRanges()) {
+					if (range.contains(sheetName, row, col)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * get bg color.
 	 * 
@@ -137,6 +179,7 @@ public class ChartData {
 					cells.add(new ParsedCell(sheetName, row, col));
 				}
 			}
+			this.categoryRange = new ChartSourceRange(sheetName, region);
 
 		} catch (Exception ex) {
 			LOG.log(Level.FINE, "failed in buildCategoryList", ex);
@@ -211,6 +254,15 @@ public class ChartData {
 			}
 		}
 		ctSer.setValueList(cells);
+		ParsedCell label = ctSer.getSeriesLabel();
+		if (label.getSheetName() != null) {
+			ctSer.getSourceRanges().add(new ChartSourceRange(
+					label.getSheetName(),
+					new CellRangeAddress(label.getRow(), label.getRow(),
+							label.getCol(), label.getCol())));
+		}
+		ctSer.getSourceRanges()
+				.add(new ChartSourceRange(sheetName, region));
 		ctSer.setValueColorList(getColorListFromDPTWithValueList(
 				ctObj.getDPtListFromCTSer(ctObjSer), cells,
 				themeTable, ctObj));
@@ -9,11 +9,20 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.imageio.ImageIO;
+
 import org.apache.poi.POIXMLDocumentPart.RelationPart;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.ClientAnchor;
@@ -27,6 +36,8 @@ import org.tiefaces.components.websheet.TieWebSheetBean;
 import org.tiefaces.components.websheet.dataobjects.AnchorSize;
 import org.tiefaces.components.websheet.dataobjects.ParsedCell;
 import org.tiefaces.components.websheet.dataobjects.XColor;
+import org.tiefaces.components.websheet.service.WebSheetInstrumentation;
+import org.tiefaces.components.websheet.service.WebSheetMetrics;
 import org.tiefaces.components.websheet.utility.CellUtility;
 import org.tiefaces.components.websheet.utility.ChartUtility;
 import org.tiefaces.components.websheet.utility.ColorUtility;
@@ -63,6 +74,12 @@ public class ChartHelper {
 	private static final Logger LOG = Logger
 			.getLogger(ChartHelper.class.getName());
 
+	/**
+	 * cell values resolved on request thread, used by background render
+	 * instead of reading workbook. key = sheetName!row:col.
+	 */
+	private final ThreadLocal<Map<String, String>> valueSnapshot = new ThreadLocal<>();
+
 	/**
 	 * Instantiates a new chart helper.
 	 *
@@ -109,6 +126,12 @@ public class ChartHelper {
 	 */
 	public final String getParsedCellValue(final ParsedCell pCell) {
 
+		Map<String, String> snapshot = valueSnapshot.get();
+		if (snapshot != null) {
+			String value = (pCell == null) ? null
+					: snapshot.get(getSnapshotKey(pCell));
+			return (value == null) ? "" : value;
+		}
 		String result = "";
 		try {
 			Cell poiCell = parent.getWb().getSheet(pCell.getSheetName())
@@ -124,6 +147,18 @@ public class ChartHelper {
 
 	}
 
+	/**
+	 * Gets the value snapshot key of parsed cell.
+	 *
+	 * @param pCell
+	 *            parsed cell.
+	 * @return the key
+	 */
+	private static String getSnapshotKey(final ParsedCell pCell) {
+		return pCell.getSheetName() + "!" + pCell.getRow() + ":"
+				+ pCell.getCol();
+	}
+
 	/**
 	 * create default category dataset for JfreeChart with giving chartData.
 	 * 
@@ -656,9 +691,9 @@ public class ChartHelper {
 		Map<String, ClientAnchor> anchorMap = chartsData
 				.getChartAnchorsMap();
 
-		Map<String, BufferedImage> chartMap = chartsData.getChartsMap();
+		Map<String, AnchorSize> chartSizeMap = chartsData.getChartSizeMap();
 		Map<String, ChartData> chartDataMap = chartsData.getChartDataMap();
-		chartMap.clear();
+		chartSizeMap.clear();
 		chartDataMap.clear();
 
 		for (int i = 0; i < wb.getNumberOfSheets(); i++) {
@@ -670,7 +705,7 @@ public class ChartHelper {
 					generateSingleXSSFChart(chart,
 							getChartIdFromParent(chart,
 									sheet.getSheetName()),
-							sheet, anchorMap, chartMap, chartDataMap);
+							sheet, anchorMap, chartSizeMap, chartDataMap);
 				}
 			}
 		}
@@ -724,7 +759,8 @@ public class ChartHelper {
 	}
 
 	/**
-	 * Generate single XSSF chart.
+	 * Generate single XSSF chart. Only chart data and image size are
+	 * gathered here. Image is rendered when browser requests it.
 	 * 
 	 * @param chart
 	 *            the chart
@@ -734,15 +770,15 @@ public class ChartHelper {
 	 *            the sheet
 	 * @param anchorMap
 	 *            the anchor map
-	 * @param chartMap
-	 *            the chart map
+	 * @param chartSizeMap
+	 *            the chart size map
 	 * @param chartDataMap
 	 *            the chart data map
 	 */
 	private void generateSingleXSSFChart(final XSSFChart chart,
 			final String chartId, final XSSFSheet sheet,
 			final Map<String, ClientAnchor> anchorMap,
-			final Map<String, BufferedImage> chartMap,
+			final Map<String, AnchorSize> chartSizeMap,
 			final Map<String, ChartData> chartDataMap) {
 		ClientAnchor anchor;
 		try {
@@ -752,14 +788,8 @@ public class ChartHelper {
 						.initChartDataFromXSSFChart(chartId, chart,
 								(XSSFWorkbook) parent.getWb());
 				chartDataMap.put(chartId, chartData);
-				JFreeChart jchart = createChart(chartData);
-				if (jchart != null) {
-					AnchorSize anchorSize = PicturesUtility
-							.getAnchorSize(sheet, null, null, anchor);
-					BufferedImage img = jchart.createBufferedImage(
-							anchorSize.getWidth(), anchorSize.getHeight());
-					chartMap.put(chartId, img);
-				}
+				chartSizeMap.put(chartId, PicturesUtility
+						.getAnchorSize(sheet, null, null, anchor));
 			}
 		} catch (Exception ex) {
 			LOG.log(Level.SEVERE, "generate chart for " + chartId
@@ -767,4 +797,256 @@ public class ChartHelper {
 		}
 	}
 
+	/**
+	 * Prepare the chart image for browser request. The image is rendered in
+	 * background with values resolved from current workbook, and kept in
+	 * chart image cache. Rendered image is kept in application wide chart
+	 * image cache, so chart with same content and size is rendered only
+	 * once.
+	 *
+	 * @param chartId
+	 *            the chart id
+	 * @return the lazy chart image, or null if chart cannot be rendered
+	 */
+	public final LazyChartImage prepareChartImage(final String chartId) {
+		ChartsData chartsData = parent.getCharsData();
+		ChartData chartData = chartsData.getChartDataMap().get(chartId);
+		AnchorSize anchorSize = chartsData.getChartSizeMap().get(chartId);
+		if ((chartData == null) || (anchorSize == null)) {
+			return null;
+		}
+		return submitRender(chartId, chartData, anchorSize);
+	}
+
+	/**
+	 * Render chart image and put it into chart image cache.
+	 *
+	 * @param chartId
+	 *            the chart id
+	 * @param chartData
+	 *            the chart data
+	 * @param anchorSize
+	 *            the image size
+	 * @param key
+	 *            the cache key
+	 * @return the png bytes or null if chart cannot be rendered
+	 */
+	private byte[] renderChartImage(final String chartId,
+			final ChartData chartData, final AnchorSize anchorSize,
+			final String key) {
+		WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+		long start = metrics.start();
+		try {
+			JFreeChart jchart = createChart(chartData);
+			if (jchart == null) {
+				return null;
+			}
+			BufferedImage img = jchart.createBufferedImage(
+					anchorSize.getWidth(), anchorSize.getHeight());
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			ImageIO.write(img, "png", os);
+			byte[] image = os.toByteArray();
+			ChartImageCache.getInstance().put(key, image);
+			return image;
+		} catch (IOException | RuntimeException ex) {
+			LOG.log(Level.SEVERE, "render chart for " + chartId
+					+ " error = " + ex.getLocalizedMessage(), ex);
+			return null;
+		} finally {
+			metrics.stop(WebSheetMetrics.Operation.CHART_RENDER, start);
+		}
+	}
+
+	/**
+	 * Refresh charts fed by changed cells. Only charts whose source ranges
+	 * contain any of the cells get a new image version, and are re-rendered
+	 * in background. Cell values are resolved here on request thread, so
+	 * background render never reads the workbook.
+	 *
+	 * @param changedCells
+	 *            the changed cells. null means all cells changed, e.g. whole
+	 *            workbook recalced.
+	 * @return the refreshed chart ids
+	 */
+	public final Set<String> refreshCharts(
+			final Collection<Cell> changedCells) {
+		Set<String> refreshed = new LinkedHashSet<>();
+		ChartsData chartsData = parent.getCharsData();
+		for (Map.Entry<String, ChartData> entry : chartsData
+				.getChartDataMap().entrySet()) {
+			String chartId = entry.getKey();
+			AnchorSize anchorSize = chartsData.getChartSizeMap()
+					.get(chartId);
+			if ((anchorSize == null) || ((changedCells != null)
+					&& !isChartSource(entry.getValue(), changedCells))) {
+				continue;
+			}
+			refreshed.add(chartId);
+			chartsData.getChartVersionMap().put(chartId,
+					chartsData.getChartVersion(chartId) + 1);
+			chartsData.addRefreshedChart(chartId);
+			submitRender(chartId, entry.getValue(), anchorSize);
+		}
+		return refreshed;
+	}
+
+	/**
+	 * Whether any of the cells feeds the chart.
+	 *
+	 * @param chartData
+	 *            the chart data
+	 * @param cells
+	 *            the cells
+	 * @return true, if chart need refresh
+	 */
+	private static boolean isChartSource(final ChartData chartData,
+			final Collection<Cell> cells) {
+		for (Cell cell : cells) {
+			if ((cell != null) && chartData.isSourceCell(
+					cell.getSheet().getSheetName(), cell.getRowIndex(),
+					cell.getColumnIndex())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Submit background render of chart with values resolved from current
+	 * workbook.
+	 *
+	 * @param chartId
+	 *            the chart id
+	 * @param chartData
+	 *            the chart data
+	 * @param anchorSize
+	 *            the image size
+	 * @return the lazy chart image, which renders again with same values if
+	 *         image is not in chart image cache when requested.
+	 */
+	private LazyChartImage submitRender(final String chartId,
+			final ChartData chartData, final AnchorSize anchorSize) {
+		final Map<String, String> snapshot = new HashMap<>();
+		final String key = ChartImageCache.buildKey(
+				describeChartContent(chartData, snapshot),
+				anchorSize.getWidth(), anchorSize.getHeight());
+		Callable<byte[]> render = new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				valueSnapshot.set(snapshot);
+				try {
+					return renderChartImage(chartId, chartData, anchorSize,
+							key);
+				} finally {
+					valueSnapshot.remove();
+				}
+			}
+		};
+		LazyChartImage chartImage = new LazyChartImage(chartId, key, render);
+		if (ChartImageCache.getInstance().get(key) != null) {
+			return chartImage;
+		}
+		try {
+			ChartImageCache.getInstance().submitRender(key, render);
+		} catch (Exception ex) {
+			// render on request thread instead.
+			LOG.log(Level.WARNING, "submit background render of " + chartId
+					+ " error = " + ex.getLocalizedMessage(), ex);
+			renderChartImage(chartId, chartData, anchorSize, key);
+		}
+		return chartImage;
+	}
+
+	/**
+	 * Describe everything of chart data which affects the rendered image,
+	 * with series labels, categories and values resolved from current
+	 * workbook.
+	 *
+	 * @param chartData
+	 *            the chart data
+	 * @param snapshot
+	 *            collect resolved values into it if not null
+	 * @return the content description
+	 */
+	private String describeChartContent(final ChartData chartData,
+			final Map<String, String> snapshot) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(chartData.getType()).append('|')
+				.append(chartData.getTitle()).append('|');
+		appendColor(sb, chartData.getBgColor());
+		if (chartData.getCatAx() != null) {
+			sb.append(chartData.getCatAx().getTitle());
+		}
+		sb.append('|');
+		if (chartData.getValAx() != null) {
+			sb.append(chartData.getValAx().getTitle());
+		}
+		sb.append('|');
+		if (chartData.getCategoryList() != null) {
+			for (ParsedCell cell : chartData.getCategoryList()) {
+				sb.append(resolveValue(cell, snapshot)).append(',');
+			}
+		}
+		if (chartData.getSeriesList() != null) {
+			for (ChartSeries series : chartData.getSeriesList()) {
+				sb.append('|');
+				if (series == null) {
+					continue;
+				}
+				if (series.getSeriesLabel() != null) {
+					sb.append(resolveValue(series.getSeriesLabel(),
+							snapshot));
+				}
+				sb.append('|');
+				appendColor(sb, series.getSeriesColor());
+				if (series.getValueList() != null) {
+					for (ParsedCell cell : series.getValueList()) {
+						sb.append(resolveValue(cell, snapshot)).append(',');
+					}
+				}
+				if (series.getValueColorList() != null) {
+					for (XColor color : series.getValueColorList()) {
+						appendColor(sb, color);
+					}
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Resolve value of parsed cell and collect it into snapshot.
+	 *
+	 * @param pCell
+	 *            the parsed cell
+	 * @param snapshot
+	 *            the snapshot. may be null.
+	 * @return the value
+	 */
+	private String resolveValue(final ParsedCell pCell,
+			final Map<String, String> snapshot) {
+		String value = getParsedCellValue(pCell);
+		if (snapshot != null) {
+			snapshot.put(getSnapshotKey(pCell), value);
+		}
+		return value;
+	}
+
+	/**
+	 * Append color to content description.
+	 *
+	 * @param sb
+	 *            the string builder
+	 * @param color
+	 *            the color
+	 */
+	private static void appendColor(final StringBuilder sb,
+			final XColor color) {
+		if ((color != null) && (color.getXssfColor() != null)) {
+			sb.append(color.getXssfColor().getARGBHex()).append('/')
+					.append(color.getAlpha());
+		}
+		sb.append(';');
+	}
+
 }
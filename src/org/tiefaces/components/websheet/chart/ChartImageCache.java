@@ -0,0 +1,305 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.chart;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.tiefaces.common.TieConstants;
+import org.tiefaces.components.websheet.service.TemplateCache;
+
+/**
+ * Application wide cache of rendered chart images in png format.
+ *
+ * Keyed by hash of chart content (type, titles, colors, resolved series
+ * values) and image size. So identical charts in different sessions are
+ * rendered only once. Least recently used entries are evicted when total
+ * size of images exceeds the limit.
+ *
+ * Also holds the executor which re-renders charts off the request thread
+ * after cell changes.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class ChartImageCache {
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(ChartImageCache.class.getName());
+
+	/** single instance. */
+	private static final ChartImageCache INSTANCE = new ChartImageCache();
+
+	/** max total bytes of cached images. */
+	private long maxBytes = TieConstants.DEFAULT_CHART_IMAGE_CACHE_BYTES;
+
+	/** current total bytes of cached images. */
+	private long totalBytes = 0;
+
+	/** entries in access order. */
+	private final Map<String, byte[]> entries = new LinkedHashMap<>(16,
+			0.75f, true);
+
+	/** executor of background renders. created on first use. */
+	private ExecutorService renderExecutor;
+
+	/** true if the render executor is created here and must be shut down. */
+	private boolean ownExecutor = false;
+
+	/** background renders not finished yet. keyed by cache key. */
+	private final Map<String, Future<byte[]>> pendingRenders = new ConcurrentHashMap<>();
+
+	/**
+	 * hide constructor.
+	 */
+	private ChartImageCache() {
+		// not called
+	}
+
+	/**
+	 * Gets the single instance.
+	 *
+	 * @return the chart image cache
+	 */
+	public static ChartImageCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the image.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the png bytes or null if not cached
+	 */
+	public synchronized byte[] get(final String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Gets the image. If it's being rendered in background, wait for it up
+	 * to the seconds.
+	 *
+	 * @param key
+	 *            the key
+	 * @param waitSeconds
+	 *            the max seconds to wait for pending render
+	 * @return the png bytes or null if not available
+	 */
+	public byte[] getImage(final String key, final int waitSeconds) {
+		byte[] image = get(key);
+		if (image != null) {
+			return image;
+		}
+		Future<byte[]> pending = pendingRenders.get(key);
+		if (pending == null) {
+			return null;
+		}
+		try {
+			return pending.get(waitSeconds, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (Exception ex) {
+			LOG.log(Level.WARNING, "wait background render of " + key
+					+ " error = " + ex.getLocalizedMessage(), ex);
+		}
+		return get(key);
+	}
+
+	/**
+	 * Submit background render of the image. If same image is being
+	 * rendered, the pending one is returned.
+	 *
+	 * @param key
+	 *            the key
+	 * @param render
+	 *            the render
+	 * @return the future of png bytes
+	 */
+	public Future<byte[]> submitRender(final String key,
+			final Callable<byte[]> render) {
+		Future<byte[]> pending = pendingRenders.get(key);
+		if (pending != null) {
+			return pending;
+		}
+		FutureTask<byte[]> task = new FutureTask<byte[]>(render) {
+			@Override
+			protected void done() {
+				pendingRenders.remove(key, this);
+			}
+		};
+		pending = pendingRenders.putIfAbsent(key, task);
+		if (pending != null) {
+			return pending;
+		}
+		try {
+			getRenderExecutor().execute(task);
+		} catch (RuntimeException ex) {
+			pendingRenders.remove(key, task);
+			throw ex;
+		}
+		return task;
+	}
+
+	/**
+	 * Put image. Image larger than the limit is not cached.
+	 *
+	 * @param key
+	 *            the key
+	 * @param image
+	 *            the png bytes
+	 */
+	public synchronized void put(final String key, final byte[] image) {
+		if (image.length > maxBytes) {
+			return;
+		}
+		byte[] old = entries.put(key, image);
+		if (old != null) {
+			totalBytes -= old.length;
+		}
+		totalBytes += image.length;
+		evict();
+	}
+
+	/**
+	 * Evict least recently used entries until total bytes within the limit.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, byte[]>> it = entries.entrySet()
+				.iterator();
+		while ((totalBytes > maxBytes) && it.hasNext()) {
+			Map.Entry<String, byte[]> entry = it.next();
+			LOG.fine("evict chart image cache entry : " + entry.getKey());
+			totalBytes -= entry.getValue().length;
+			it.remove();
+		}
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		totalBytes = 0;
+	}
+
+	/**
+	 * Entries count.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Total bytes of cached images.
+	 *
+	 * @return the total bytes
+	 */
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Sets the max total bytes.
+	 *
+	 * @param pmaxBytes
+	 *            the new max bytes
+	 */
+	public synchronized void setMaxBytes(final long pmaxBytes) {
+		this.maxBytes = pmaxBytes;
+		evict();
+	}
+
+	/**
+	 * Gets the executor of background renders. Default one is a small pool
+	 * of daemon threads, shut down by ChartImageCacheListener when
+	 * application stopped.
+	 *
+	 * @return the render executor
+	 */
+	public synchronized ExecutorService getRenderExecutor() {
+		if (renderExecutor == null) {
+			renderExecutor = Executors.newFixedThreadPool(
+					TieConstants.DEFAULT_CHART_RENDER_THREADS,
+					new ThreadFactory() {
+						@Override
+						public Thread newThread(final Runnable r) {
+							Thread thread = new Thread(r,
+									"tiefaces-chart-render");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			ownExecutor = true;
+		}
+		return renderExecutor;
+	}
+
+	/**
+	 * Shut down the default render executor and drop pending renders.
+	 * Executor set from outside is not shut down. Called when application
+	 * stopped.
+	 */
+	public synchronized void shutdown() {
+		if (ownExecutor && (renderExecutor != null)) {
+			renderExecutor.shutdownNow();
+		}
+		renderExecutor = null;
+		ownExecutor = false;
+		pendingRenders.clear();
+	}
+
+	/**
+	 * Sets the executor of background renders, e.g. a container managed
+	 * executor. The previous one is shut down if it's the default one
+	 * created here.
+	 *
+	 * @param prenderExecutor
+	 *            the new render executor
+	 */
+	public synchronized void setRenderExecutor(
+			final ExecutorService prenderExecutor) {
+		if (ownExecutor && (renderExecutor != null)
+				&& (renderExecutor != prenderExecutor)) {
+			renderExecutor.shutdown();
+		}
+		this.renderExecutor = prenderExecutor;
+		this.ownExecutor = false;
+	}
+
+	/**
+	 * Builds the cache key.
+	 *
+	 * @param content
+	 *            the chart content description
+	 * @param width
+	 *            the image width
+	 * @param height
+	 *            the image height
+	 * @return the key
+	 */
+	public static String buildKey(final String content, final int width,
+			final int height) {
+		return width + "x" + height + "|" + TemplateCache
+				.checksum(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
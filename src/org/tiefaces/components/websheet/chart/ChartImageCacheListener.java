@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.chart;
+
+import java.util.logging.Logger;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Release application wide chart image cache when web application stopped.
+ * The background render threads are shut down, so they don't hold the
+ * class loader after undeploy.
+ *
+ * @author Jason Jiang
+ *
+ */
+@WebListener
+public class ChartImageCacheListener implements ServletContextListener {
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(ChartImageCacheListener.class.getName());
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see javax.servlet.ServletContextListener#contextInitialized(javax.
+	 * servlet.ServletContextEvent)
+	 */
+	@Override
+	public void contextInitialized(final ServletContextEvent event) {
+		// render executor is created on first use.
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see javax.servlet.ServletContextListener#contextDestroyed(javax.
+	 * servlet.ServletContextEvent)
+	 */
+	@Override
+	public void contextDestroyed(final ServletContextEvent event) {
+		LOG.fine("shut down chart image cache");
+		ChartImageCache.getInstance().shutdown();
+		ChartImageCache.getInstance().clear();
+	}
+
+}
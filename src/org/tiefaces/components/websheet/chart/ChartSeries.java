@@ -4,6 +4,7 @@
  */
 package org.tiefaces.components.websheet.chart;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.tiefaces.components.websheet.dataobjects.ParsedCell;
 import org.tiefaces.components.websheet.dataobjects.XColor;
@@ -23,6 +24,8 @@ public class ChartSeries {
 	private List<ParsedCell> valueList;
 	/** value color list. */
 	private List<XColor> valueColorList;
+	/** sheet ranges feed the series, i.e. label and values. */
+	private List<ChartSourceRange> sourceRanges = new ArrayList<>();
 	/**
 	 * get series label.
 	 * @return parsed cell.
@@ -79,6 +82,21 @@ public class ChartSeries {
 	public final void setValueColorList(final List<XColor> pvalueColorList) {
 		this.valueColorList = pvalueColorList;
 	}
+	/**
+	 * get source ranges.
+	 * @return list of source range.
+	 */
+	public final List<ChartSourceRange> getSourceRanges() {
+		return sourceRanges;
+	}
+	/**
+	 * set source ranges.
+	 * @param psourceRanges source ranges.
+	 */
+	public final void setSourceRanges(
+			final List<ChartSourceRange> psourceRanges) {
+		this.sourceRanges = psourceRanges;
+	}
 
 	
 	
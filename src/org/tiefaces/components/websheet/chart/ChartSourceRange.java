@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.chart;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * Sheet range which feeds chart, e.g. values of a series.
+ * 
+ * @author Jason Jiang
+ *
+ */
+public class ChartSourceRange {
+
+	/** sheet name. */
+	private final String sheetName;
+
+	/** cell range in the sheet. */
+	private final CellRangeAddress range;
+
+	/**
+	 * Instantiates a new chart source range.
+	 *
+	 * @param psheetName
+	 *            the sheet name
+	 * @param prange
+	 *            the range
+	 */
+	public ChartSourceRange(final String psheetName,
+			final CellRangeAddress prange) {
+		this.sheetName = psheetName;
+		this.range = prange;
+	}
+
+	/**
+	 * Gets the sheet name.
+	 *
+	 * @return the sheet name
+	 */
+	public final String getSheetName() {
+		return sheetName;
+	}
+
+	/**
+	 * Gets the range.
+	 *
+	 * @return the range
+	 */
+	public final CellRangeAddress getRange() {
+		return range;
+	}
+
+	/**
+	 * Whether the cell is in this range.
+	 *
+	 * @param psheetName
+	 *            the sheet name
+	 * @param row
+	 *            the row index
+	 * @param col
+	 *            the column index
+	 * @return true, if in range
+	 */
+	public final boolean contains(final String psheetName, final int row,
+			final int col) {
+		return (sheetName != null) && sheetName.equals(psheetName)
+				&& range.isInRange(row, col);
+	}
+
+	@Override
+	public final String toString() {
+		return sheetName + "!" + range.formatAsString();
+	}
+
+}
@@ -4,11 +4,14 @@
  */
 package org.tiefaces.components.websheet.chart;
 
-import java.awt.image.BufferedImage;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.tiefaces.components.websheet.dataobjects.AnchorSize;
 
 /**
  * Collection class for charts data.
@@ -20,10 +23,10 @@ public class ChartsData  {
 	/** hold chart data for current display sheet. */
 	private Map<String, ChartData> chartDataMap;
 	/**
-	 * hold charts for current display sheet. each chart is a image generated by
-	 * jfreechart.
+	 * hold image size of charts for current display sheet. images are rendered
+	 * on request by chart helper.
 	 */
-	private Map<String, BufferedImage> chartsMap;
+	private Map<String, AnchorSize> chartSizeMap;
 	/** hold chart anchor for each chart in current display sheet. */
 	private Map<String, ClientAnchor> chartAnchorsMap;
 	/**
@@ -31,6 +34,16 @@ public class ChartsData  {
 	 * position. e.g. key = Sheet1!A1 value = chartId of chartAnchorsMap.
 	 */
 	private Map<String, String> chartPositionMap;
+	/**
+	 * image version of each chart. increased when chart is refreshed by cell
+	 * changes, so browser gets new url for the image.
+	 */
+	private Map<String, Integer> chartVersionMap;
+
+	/** last view id of each chart put into session. */
+	private final Map<String, String> chartViewIdMap = new ConcurrentHashMap<>();
+	/** charts refreshed since last poll. */
+	private Set<String> refreshedCharts = new LinkedHashSet<>();
 
 
 	/**
@@ -46,17 +59,17 @@ public class ChartsData  {
 	}
 
 	/**
-	 * return chartsmap.
+	 * return chartsizemap.
 	 * 
-	 * @return chartsmap.
+	 * @return chartsizemap.
 	 */
 
-	public final Map<String, BufferedImage> getChartsMap() {
-		if (this.chartsMap == null) {
-			this.chartsMap = new HashMap<>();
-		}		
-		
-		return chartsMap;
+	public final Map<String, AnchorSize> getChartSizeMap() {
+		if (this.chartSizeMap == null) {
+			this.chartSizeMap = new HashMap<>();
+		}
+
+		return chartSizeMap;
 	}
 
 	/**
@@ -86,6 +99,63 @@ public class ChartsData  {
 		return chartPositionMap;
 	}
 
+	/**
+	 * return chartversionmap.
+	 * 
+	 * @return chartversionmap.
+	 */
+	public final Map<String, Integer> getChartVersionMap() {
+		if (this.chartVersionMap == null) {
+			this.chartVersionMap = new HashMap<>();
+		}
+
+		return chartVersionMap;
+	}
+
+	/**
+	 * return image version of chart.
+	 * 
+	 * @param chartId
+	 *            chart id.
+	 * @return version. 0 if never refreshed.
+	 */
+	public final int getChartVersion(final String chartId) {
+		Integer version = getChartVersionMap().get(chartId);
+		return (version == null) ? 0 : version;
+	}
+
+	/**
+	 * return last view id of each chart put into session. Kept across
+	 * workbook reload, so old image is removed from session when chart
+	 * shown again.
+	 * 
+	 * @return chart view id map.
+	 */
+	public final Map<String, String> getChartViewIdMap() {
+		return chartViewIdMap;
+	}
+
+	/**
+	 * return charts refreshed since last poll, and restart collecting.
+	 * 
+	 * @return refreshed chart ids.
+	 */
+	public final Set<String> pollRefreshedCharts() {
+		Set<String> charts = this.refreshedCharts;
+		this.refreshedCharts = new LinkedHashSet<>();
+		return charts;
+	}
+
+	/**
+	 * add refreshed chart.
+	 * 
+	 * @param chartId
+	 *            chart id.
+	 */
+	public final void addRefreshedChart(final String chartId) {
+		this.refreshedCharts.add(chartId);
+	}
+
 	/**
 	 * set chartdatamap.
 	 * 
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.chart;
+
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.tiefaces.common.TieConstants;
+
+/**
+ * Chart image handed to charts service through session map. The image is
+ * rendered in background and looked up from chart image cache when browser
+ * requests it. Only keys are serialized, so it's safe to be in session. If
+ * the image is not in the cache any more (evicted, failed or timed out), it's
+ * rendered again on request thread with the values of the chart when it was
+ * prepared.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class LazyChartImage implements Serializable {
+
+	/**
+	 * serialVersionUID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(LazyChartImage.class.getName());
+
+	/** chart id. */
+	private final String chartId;
+
+	/** key of the image in chart image cache. */
+	private final String imageKey;
+
+	/** render of the image. not kept after session restored. */
+	private final transient Callable<byte[]> render;
+
+	/**
+	 * Instantiates a new lazy chart image.
+	 *
+	 * @param pchartId
+	 *            the chart id
+	 * @param pimageKey
+	 *            the key of the image in chart image cache
+	 * @param prender
+	 *            the render used when image is not in chart image cache
+	 */
+	public LazyChartImage(final String pchartId, final String pimageKey,
+			final Callable<byte[]> prender) {
+		this.chartId = pchartId;
+		this.imageKey = pimageKey;
+		this.render = prender;
+	}
+
+	/**
+	 * Gets the chart id.
+	 *
+	 * @return the chart id
+	 */
+	public final String getChartId() {
+		return chartId;
+	}
+
+	/**
+	 * Gets the image key.
+	 *
+	 * @return the image key
+	 */
+	public final String getImageKey() {
+		return imageKey;
+	}
+
+	/**
+	 * Get cached png image. Wait if it's still being rendered, render again
+	 * if it's not in the cache.
+	 *
+	 * @return the png bytes or null if chart cannot be rendered
+	 */
+	public final byte[] getPngBytes() {
+		byte[] image = ChartImageCache.getInstance().getImage(imageKey,
+				TieConstants.DEFAULT_CHART_RENDER_WAIT_SECONDS);
+		if ((image != null) || (render == null)) {
+			return image;
+		}
+		try {
+			return render.call();
+		} catch (Exception ex) {
+			LOG.log(Level.SEVERE, "render chart for " + chartId
+					+ " error = " + ex.getLocalizedMessage(), ex);
+			return null;
+		}
+	}
+
+}
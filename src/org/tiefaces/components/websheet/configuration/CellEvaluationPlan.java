@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+import org.apache.commons.jexl2.Expression;
+import org.apache.commons.jexl2.JexlContext;
+import org.apache.commons.jexl2.JexlEngine;
+import org.apache.commons.jexl2.MapContext;
+import org.tiefaces.common.TieConstants;
+import org.tiefaces.exception.EvaluationException;
+
+/**
+ * Precompiled evaluation plan of a template cell string.
+ *
+ * Template cells are copied for every item of each command, so the same cell
+ * string is evaluated many times. The string is scanned only once into
+ * constant fragments and compiled expressions, then each evaluation replays
+ * them without regex. Plans are immutable, and kept per template cell by
+ * CellEvaluationPlanTable of the sheet configuration.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class CellEvaluationPlan {
+
+	/** plan kind : no expression. */
+	private static final int LITERAL = 0;
+
+	/** plan kind : the whole string is one expression. */
+	private static final int SINGLE_EXPRESSION = 1;
+
+	/** plan kind : expressions mixed with constant fragments. */
+	private static final int INTERPOLATED = 2;
+
+	/** the original string. */
+	private final String source;
+
+	/** plan kind. */
+	private final int kind;
+
+	/**
+	 * constant fragments. fragments[i] is before expressions[i], the last one
+	 * is the tail.
+	 */
+	private final String[] fragments;
+
+	/** compiled expressions. */
+	private final Expression[] expressions;
+
+	/**
+	 * Instantiates a new cell evaluation plan.
+	 *
+	 * @param psource
+	 *            the source string
+	 * @param pfragments
+	 *            the constant fragments
+	 * @param pexpressions
+	 *            the compiled expressions
+	 */
+	private CellEvaluationPlan(final String psource,
+			final String[] pfragments, final Expression[] pexpressions) {
+		this.source = psource;
+		this.fragments = pfragments;
+		this.expressions = pexpressions;
+		if (pexpressions.length == 0) {
+			this.kind = LITERAL;
+		} else if ((pexpressions.length == 1) && pfragments[0].isEmpty()
+				&& pfragments[1].isEmpty()) {
+			this.kind = SINGLE_EXPRESSION;
+		} else {
+			this.kind = INTERPOLATED;
+		}
+	}
+
+	/**
+	 * Compile the plan of the string.
+	 *
+	 * @param jexl
+	 *            the jexl engine used to compile
+	 * @param strValue
+	 *            the string value
+	 * @return the cell evaluation plan
+	 */
+	public static CellEvaluationPlan of(final JexlEngine jexl,
+			final String strValue) {
+		return compile(jexl, strValue);
+	}
+
+	/**
+	 * Compile the string into plan.
+	 *
+	 * @param jexl
+	 *            the jexl engine
+	 * @param strValue
+	 *            the string value
+	 * @return the cell evaluation plan
+	 */
+	private static CellEvaluationPlan compile(final JexlEngine jexl,
+			final String strValue) {
+		int beginExpressionLength = TieConstants.METHOD_PREFIX.length();
+		int endExpressionLength = TieConstants.METHOD_END.length();
+		List<String> fragmentList = new ArrayList<>();
+		List<Expression> expressionList = new ArrayList<>();
+		Matcher exprMatcher = TieConstants.EXPRESSION_NOTATION_PATTERN
+				.matcher(strValue);
+		int lastEnd = 0;
+		while (exprMatcher.find()) {
+			String matchedString = exprMatcher.group();
+			String expression = matchedString.substring(
+					beginExpressionLength,
+					matchedString.length() - endExpressionLength);
+			try {
+				expressionList.add(
+						ExpressionCache.getInstance().get(jexl, expression));
+			} catch (Exception e) {
+				throw new EvaluationException(e);
+			}
+			fragmentList.add(strValue.substring(lastEnd, exprMatcher.start()));
+			lastEnd = exprMatcher.end();
+		}
+		fragmentList.add(strValue.substring(lastEnd));
+		return new CellEvaluationPlan(strValue,
+				fragmentList.toArray(new String[fragmentList.size()]),
+				expressionList
+						.toArray(new Expression[expressionList.size()]));
+	}
+
+	/**
+	 * Evaluate the plan with giving context.
+	 *
+	 * @param context
+	 *            the context
+	 * @return the evaluated object
+	 */
+	public Object evaluate(final Map<String, Object> context) {
+		if (kind == LITERAL) {
+			return source;
+		}
+		return evaluate(new MapContext(context));
+	}
+
+	/**
+	 * Evaluate the plan with giving jexl context, which can be reused for
+	 * all cells built with same context. Single expression returns the
+	 * evaluated object, string without expression returns itself, otherwise
+	 * evaluated results are joined with constant fragments.
+	 *
+	 * @param jexlContext
+	 *            the jexl context
+	 * @return the evaluated object
+	 */
+	public Object evaluate(final JexlContext jexlContext) {
+		if (kind == LITERAL) {
+			return source;
+		}
+		if (kind == SINGLE_EXPRESSION) {
+			return evaluateExpression(expressions[0], jexlContext);
+		}
+		StringBuilder sb = new StringBuilder(source.length());
+		for (int i = 0; i < expressions.length; i++) {
+			sb.append(fragments[i]);
+			Object result = evaluateExpression(expressions[i], jexlContext);
+			if (result != null) {
+				sb.append(result.toString());
+			}
+		}
+		sb.append(fragments[expressions.length]);
+		return sb.toString();
+	}
+
+	/**
+	 * Evaluate single expression.
+	 *
+	 * @param expression
+	 *            the expression
+	 * @param jexlContext
+	 *            the jexl context
+	 * @return the object
+	 */
+	private static Object evaluateExpression(final Expression expression,
+			final JexlContext jexlContext) {
+		try {
+			return expression.evaluate(jexlContext);
+		} catch (Exception e) {
+			throw new EvaluationException(e);
+		}
+	}
+
+	/**
+	 * Gets the expressions count.
+	 *
+	 * @return the expression count
+	 */
+	public int getExpressionCount() {
+		return expressions.length;
+	}
+
+	/**
+	 * Gets the source string.
+	 *
+	 * @return the source
+	 */
+	public String getSource() {
+		return source;
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.configuration;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.jexl2.JexlEngine;
+
+/**
+ * Evaluation plans of template cells in a sheet, indexed by origin row of
+ * template and column.
+ *
+ * Rows copied from same template row share the plans, so each template cell
+ * is compiled once. Table belongs to one sheet configuration and is used by
+ * one session only, so it's not synchronized.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class CellEvaluationPlanTable {
+
+	/** plans of template rows. key = origin row index. */
+	private final Map<Integer, CellEvaluationPlan[]> rowPlans = new HashMap<>();
+
+	/**
+	 * Gets the plan of the cell. Compile and keep it if not exist or the
+	 * template cell string changed.
+	 *
+	 * @param jexl
+	 *            the jexl engine used to compile
+	 * @param originRowIndex
+	 *            the origin row index in template. -1 if row is not copied
+	 *            from template, plan is compiled but not kept.
+	 * @param colIndex
+	 *            the column index
+	 * @param strValue
+	 *            the cell string
+	 * @return the cell evaluation plan
+	 */
+	public final CellEvaluationPlan get(final JexlEngine jexl,
+			final int originRowIndex, final int colIndex,
+			final String strValue) {
+		if ((originRowIndex < 0) || (colIndex < 0)) {
+			return CellEvaluationPlan.of(jexl, strValue);
+		}
+		CellEvaluationPlan[] plans = rowPlans.get(originRowIndex);
+		if (plans == null) {
+			plans = new CellEvaluationPlan[colIndex + 1];
+			rowPlans.put(originRowIndex, plans);
+		} else if (plans.length <= colIndex) {
+			plans = Arrays.copyOf(plans, colIndex + 1);
+			rowPlans.put(originRowIndex, plans);
+		}
+		CellEvaluationPlan plan = plans[colIndex];
+		if ((plan == null) || !plan.getSource().equals(strValue)) {
+			plan = CellEvaluationPlan.of(jexl, strValue);
+			plans[colIndex] = plan;
+		}
+		return plan;
+	}
+
+	/**
+	 * Remove all plans.
+	 */
+	public final void clear() {
+		rowPlans.clear();
+	}
+
+}
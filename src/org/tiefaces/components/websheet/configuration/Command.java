@@ -137,7 +137,7 @@ public interface Command {
 	 *            rowsMapping for formula.
 	 * @return build area length.
 	 */
-	int buildAt(String fullName, ConfigBuildRef configBuildRef, int atRow,
+	int buildAt(FullNamePath fullName, ConfigBuildRef configBuildRef, int atRow,
 			Map<String, Object> context,
 			List<RowsMapping> currentRowsMappingList);
 	/**
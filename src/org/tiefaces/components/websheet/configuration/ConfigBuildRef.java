@@ -7,13 +7,13 @@ package org.tiefaces.components.websheet.configuration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
-import java.util.TreeMap;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
+import org.tiefaces.components.websheet.dataobjects.CachedCells;
 import org.tiefaces.components.websheet.dataobjects.CellAttributesMap;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
 import org.tiefaces.components.websheet.service.CellHelper;
 
 /**
@@ -46,10 +46,10 @@ public class ConfigBuildRef {
 	private int insertPosition = -1;
 
 	/**
-	 * Saved configRange attributes for each full name. String : full name.
-	 * ConfigRangeAttrs : include range (top, bottom) and rows mapping.
+	 * Saved configRange attributes for each full name. ConfigRangeAttrs :
+	 * include range (top, bottom) and rows mapping.
 	 */
-	private NavigableMap<String, ConfigRangeAttrs> shiftMap;
+	private ShiftMap shiftMap;
 
 	/**
 	 * Saved formula cells. include original formula and rows mapping for this
@@ -57,6 +57,12 @@ public class ConfigBuildRef {
 	 */
 	private Map<Cell, String> cachedCells;
 
+	/**
+	 * cached values of displayed cells. keys are shifted along with rows
+	 * when add or delete rows. null when building the sheet.
+	 */
+	private CachedCells cachedValues;
+
 	/**
 	 * used for cache origin config range tree.
 	 */
@@ -74,6 +80,18 @@ public class ConfigBuildRef {
 	 */
 	private Map<String, String> collectionObjNameMap = new HashMap<>();
 
+	/**
+	 * indexes of sheets in the workbook. normally the one of workbook holder,
+	 * so indexes are kept consistent when rows shifted.
+	 */
+	private WorkbookIndexes workbookIndexes;
+
+	/**
+	 * evaluation plans of template cells. normally the one of sheet
+	 * configuration, so plans are kept between builds.
+	 */
+	private CellEvaluationPlanTable cellPlanTable;
+
 	/**
 	 * constructor.
 	 * 
@@ -106,7 +124,7 @@ public class ConfigBuildRef {
 		this.cachedCells = pCachedCells;
 		this.cellAttributesMap = pCellAttributesMap;
 		this.finalCommentMap = pFinalCommentMap;
-		this.shiftMap = new TreeMap<>();
+		this.shiftMap = new ShiftMap();
 	}
 
 	/**
@@ -173,6 +191,25 @@ public class ConfigBuildRef {
 		return cachedCells;
 	}
 
+	/**
+	 * Gets the cached values.
+	 *
+	 * @return the cached values
+	 */
+	public final CachedCells getCachedValues() {
+		return cachedValues;
+	}
+
+	/**
+	 * Sets the cached values.
+	 *
+	 * @param pCachedValues
+	 *            the new cached values
+	 */
+	public final void setCachedValues(final CachedCells pCachedValues) {
+		this.cachedValues = pCachedValues;
+	}
+
 	/**
 	 * Put shift attrs.
 	 *
@@ -183,7 +220,7 @@ public class ConfigBuildRef {
 	 * @param unitRowsMapping
 	 *            the unit rows mapping
 	 */
-	public final void putShiftAttrs(final String fullName,
+	public final void putShiftAttrs(final FullNamePath fullName,
 			final ConfigRangeAttrs attrs,
 			final RowsMapping unitRowsMapping) {
 		attrs.setUnitRowsMapping(unitRowsMapping);
@@ -195,7 +232,7 @@ public class ConfigBuildRef {
 	 *
 	 * @return the shift map
 	 */
-	public final NavigableMap<String, ConfigRangeAttrs> getShiftMap() {
+	public final ShiftMap getShiftMap() {
 		return shiftMap;
 	}
 
@@ -205,8 +242,7 @@ public class ConfigBuildRef {
 	 * @param pshiftMap
 	 *            the shift map
 	 */
-	public final void setShiftMap(
-			final NavigableMap<String, ConfigRangeAttrs> pshiftMap) {
+	public final void setShiftMap(final ShiftMap pshiftMap) {
 		this.shiftMap = pshiftMap;
 	}
 
@@ -345,4 +381,51 @@ public class ConfigBuildRef {
 		return finalCommentMap;
 	}
 
+	/**
+	 * Gets the indexes of sheets in the workbook.
+	 *
+	 * @return the workbook indexes
+	 */
+	public final WorkbookIndexes getWorkbookIndexes() {
+		if (workbookIndexes == null) {
+			workbookIndexes = new WorkbookIndexes();
+		}
+		return workbookIndexes;
+	}
+
+	/**
+	 * Sets the indexes of sheets in the workbook.
+	 *
+	 * @param pworkbookIndexes
+	 *            the new workbook indexes
+	 */
+	public final void setWorkbookIndexes(
+			final WorkbookIndexes pworkbookIndexes) {
+		this.workbookIndexes = pworkbookIndexes;
+	}
+
+	/**
+	 * Gets the evaluation plans of template cells. Create one for this
+	 * build if not set.
+	 *
+	 * @return the cell plan table
+	 */
+	public final CellEvaluationPlanTable getCellPlanTable() {
+		if (cellPlanTable == null) {
+			cellPlanTable = new CellEvaluationPlanTable();
+		}
+		return cellPlanTable;
+	}
+
+	/**
+	 * Sets the evaluation plans of template cells.
+	 *
+	 * @param pcellPlanTable
+	 *            the new cell plan table
+	 */
+	public final void setCellPlanTable(
+			final CellEvaluationPlanTable pcellPlanTable) {
+		this.cellPlanTable = pcellPlanTable;
+	}
+
 }
@@ -11,12 +11,16 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.commons.jexl2.JexlContext;
+import org.apache.commons.jexl2.MapContext;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
 import org.tiefaces.components.websheet.serializable.SerialCellAddress;
+import org.tiefaces.components.websheet.service.WebSheetInstrumentation;
+import org.tiefaces.components.websheet.service.WebSheetMetrics;
 import org.tiefaces.components.websheet.utility.CommandUtility;
 import org.tiefaces.components.websheet.utility.ConfigurationUtility;
 
@@ -308,7 +312,7 @@ public class ConfigRange implements Serializable {
 	 *            the current rows mapping list
 	 * @return final length.
 	 */
-	public final int buildAt(final String fullName,
+	public final int buildAt(final FullNamePath fullName,
 			final ConfigBuildRef configBuildRef, final int atRow,
 			final Map<String, Object> context,
 			final List<RowsMapping> currentRowsMappingList) {
@@ -359,7 +363,7 @@ public class ConfigRange implements Serializable {
 	 * @param rowsMappingList
 	 *            the rows mapping list
 	 */
-	private void buildCells(final String fullName,
+	private void buildCells(final FullNamePath fullName,
 			final ConfigBuildRef configBuildRef, final int atRow,
 			final Map<String, Object> context,
 			final List<RowsMapping> rowsMappingList) {
@@ -380,9 +384,11 @@ public class ConfigRange implements Serializable {
 		int lastRowPlus = this.getLastRowPlusRef().getRowIndex();
 		ShiftFormulaRef shiftFormulaRef = new ShiftFormulaRef(
 				configBuildRef.getWatchList(), allRowsMappingList);
+		// same context for all cells in the range.
+		JexlContext jexlContext = new MapContext(context);
 		for (int i = atRow; i < lastRowPlus; i++) {
 			buildCellsForRow(configBuildRef.getSheet().getRow(i), fullName,
-					context, configBuildRef, shiftFormulaRef);
+					context, jexlContext, configBuildRef, shiftFormulaRef);
 		}
 	}
 
@@ -395,23 +401,33 @@ public class ConfigRange implements Serializable {
 	 *            the full name
 	 * @param context
 	 *            the context
+	 * @param jexlContext
+	 *            the jexl context of the context
 	 * @param configBuildRef
 	 *            the config build ref
 	 * @param shiftFormulaRef
 	 *            the shift formula ref
 	 */
-	private void buildCellsForRow(final Row row, final String fullName,
-			final Map<String, Object> context,
+	private void buildCellsForRow(final Row row, final FullNamePath fullName,
+			final Map<String, Object> context, final JexlContext jexlContext,
 			final ConfigBuildRef configBuildRef,
 			ShiftFormulaRef shiftFormulaRef) {
 		if ((row == null)
 				|| !ConfigurationUtility.isStaticRowRef(this, row)) {
 			return;
 		}
+		int originRowIndex = ConfigurationUtility.getRowOriginIndex(
+				configBuildRef.getWorkbookIndexes(), row);
+		int cells = 0;
 		for (Cell cell : row) {
-			buildSingleCell(cell, context, configBuildRef, shiftFormulaRef);
+			buildSingleCell(cell, context, jexlContext, originRowIndex,
+					configBuildRef, shiftFormulaRef);
+			cells++;
 		}
-		ConfigurationUtility.setFullNameInHiddenColumn(row, fullName);
+		WebSheetInstrumentation.getMetrics()
+				.count(WebSheetMetrics.Counter.CELLS_BUILT, cells);
+		ConfigurationUtility.setRowFullName(
+				configBuildRef.getWorkbookIndexes(), row, fullName);
 	}
 
 	/**
@@ -421,18 +437,22 @@ public class ConfigRange implements Serializable {
 	 *            the cell
 	 * @param context
 	 *            the context
+	 * @param jexlContext
+	 *            the jexl context of the context
+	 * @param originRowIndex
+	 *            the origin row index of the cell in template
 	 * @param configBuildRef
 	 *            the config build ref
 	 * @param shiftFormulaRef
 	 *            the shift formula ref
 	 */
 	private void buildSingleCell(final Cell cell,
-			final Map<String, Object> context,
-			final ConfigBuildRef configBuildRef,
+			final Map<String, Object> context, final JexlContext jexlContext,
+			final int originRowIndex, final ConfigBuildRef configBuildRef,
 			final ShiftFormulaRef shiftFormulaRef) {
 		try {
-			CommandUtility.evaluate(context, cell,
-					configBuildRef.getEngine());
+			CommandUtility.evaluate(context, jexlContext, cell,
+					originRowIndex, configBuildRef);
 			if (cell.getCellTypeEnum() == CellType.FORMULA) {
 				// rebuild formula if necessary for dynamic row
 				String originFormula = cell.getCellFormula();
@@ -31,6 +31,10 @@ import org.tiefaces.components.websheet.TieWebSheetBean;
 import org.tiefaces.components.websheet.dataobjects.CellAttributesMap;
 import org.tiefaces.components.websheet.dataobjects.CellFormAttributes;
 import org.tiefaces.components.websheet.dataobjects.CellRange;
+import org.tiefaces.components.websheet.dataobjects.TieCommandAlias;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
+import org.tiefaces.components.websheet.service.WebSheetInstrumentation;
+import org.tiefaces.components.websheet.service.WebSheetMetrics;
 import org.tiefaces.components.websheet.utility.CellUtility;
 import org.tiefaces.components.websheet.utility.ConfigurationUtility;
 import org.tiefaces.components.websheet.utility.ParserUtility;
@@ -55,8 +59,20 @@ public class ConfigurationHandler {
 		commandMap.put(TieConstants.COMMAND_EACH, EachCommand.class);
 	}
 
-	/** refer to parent bean class. */
-	private TieWebSheetBean parent = null;
+	/** the workbook. */
+	private Workbook wb = null;
+
+	/** indexes and row metadata of the workbook. */
+	private WorkbookIndexes workbookIndexes = null;
+
+	/** command alias list. */
+	private List<TieCommandAlias> tieCommandAliasList = null;
+
+	/** cell attributes map. */
+	private CellAttributesMap cellAttributesMap = null;
+
+	/** skip configuration. */
+	private boolean skipConfiguration = false;
 
 	/** logger. */
 	private static final Logger LOG = Logger.getLogger(ConfigurationHandler.class.getName());
@@ -68,8 +84,37 @@ public class ConfigurationHandler {
 	 *            the parent
 	 */
 	public ConfigurationHandler(final TieWebSheetBean pparent) {
+		this(pparent.getWb(), pparent.getSerialWb().getIndexes(),
+				pparent.getTieCommandAliasList(),
+				pparent.getCellAttributesMap(),
+				pparent.isSkipConfiguration());
+	}
+
+	/**
+	 * constructor. Allow build configuration without web sheet bean.
+	 *
+	 * @param pwb
+	 *            the workbook
+	 * @param pworkbookIndexes
+	 *            the indexes and row metadata of the workbook
+	 * @param ptieCommandAliasList
+	 *            the command alias list
+	 * @param pcellAttributesMap
+	 *            the cell attributes map
+	 * @param pskipConfiguration
+	 *            the skip configuration
+	 */
+	public ConfigurationHandler(final Workbook pwb,
+			final WorkbookIndexes pworkbookIndexes,
+			final List<TieCommandAlias> ptieCommandAliasList,
+			final CellAttributesMap pcellAttributesMap,
+			final boolean pskipConfiguration) {
 		super();
-		this.parent = pparent;
+		this.wb = pwb;
+		this.workbookIndexes = pworkbookIndexes;
+		this.tieCommandAliasList = ptieCommandAliasList;
+		this.cellAttributesMap = pcellAttributesMap;
+		this.skipConfiguration = pskipConfiguration;
 	}
 
 	/**
@@ -79,23 +124,26 @@ public class ConfigurationHandler {
 	 */
 	public final Map<String, SheetConfiguration> buildConfiguration() {
 
+		WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+		long start = metrics.start();
 		Map<String, SheetConfiguration> sheetConfigMap = new LinkedHashMap<>();
 		// in buildsheet, it's possible to add sheets in workbook.
 		// so cache the sheetname first here.
 		List<String> sheetNames = new ArrayList<>();
 		String sname;
-		for (int i = 0; i < parent.getWb().getNumberOfSheets(); i++) {
-			sname = parent.getWb().getSheetName(i);
+		for (int i = 0; i < wb.getNumberOfSheets(); i++) {
+			sname = wb.getSheetName(i);
 			if (!sname.startsWith(org.tiefaces.common.TieConstants.COPY_SHEET_PREFIX)) {
 				sheetNames.add(sname);
 			}
 		}
 
 		for (String sheetName : sheetNames) {
-			Sheet sheet = parent.getWb().getSheet(sheetName);
-			ConfigurationUtility.buildSheetCommentFromAlias(sheet, parent.getTieCommandAliasList());
-			buildSheet(sheet, sheetConfigMap, parent.getCellAttributesMap());
+			Sheet sheet = wb.getSheet(sheetName);
+			ConfigurationUtility.buildSheetCommentFromAlias(sheet, tieCommandAliasList);
+			buildSheet(sheet, sheetConfigMap, cellAttributesMap);
 		}
+		metrics.stop(WebSheetMetrics.Operation.CONFIGURATION, start);
 		return sheetConfigMap;
 
 	}
@@ -161,8 +209,8 @@ public class ConfigurationHandler {
 		sheetConfig.setCellFormAttributes(new HashMap<String, List<CellFormAttributes>>());
 
 		// check it's a hidden sheet
-		int sheetIndex = parent.getWb().getSheetIndex(sheet);
-		if (parent.getWb().isSheetHidden(sheetIndex) || parent.getWb().isSheetVeryHidden(sheetIndex)) {
+		int sheetIndex = wb.getSheetIndex(sheet);
+		if (wb.isSheetHidden(sheetIndex) || wb.isSheetVeryHidden(sheetIndex)) {
 			sheetConfig.setHidden(true);
 		}
 
@@ -271,7 +319,6 @@ public class ConfigurationHandler {
 		buildSheetConfigMapFromFormCommand(sheet, sheetConfigMap, commandList, formList, sheetRightCol);
 		// match parent command
 		matchParentCommand(commandList);
-		// setup save attrs in hidden column in the sheet.
 		// loop command list again to assemble other command list into sheet
 		// configuration
 		matchSheetConfigForm(sheetConfigMap, commandList, formList);
@@ -294,7 +341,7 @@ public class ConfigurationHandler {
 					return;
 				}
 			}
-			sheet.removeRow(lastrow);
+			workbookIndexes.removeRow(sheet, lastrow.getRowNum());
 		}
 
 	}
@@ -325,7 +372,7 @@ public class ConfigurationHandler {
 					row = sheet.createRow(index);
 				}
 				if (hasEachCommand) {
-					ConfigurationUtility.setOriginalRowNumInHiddenColumn(row, index);
+					ConfigurationUtility.setRowOriginIndex(workbookIndexes, row, index);
 				}
 
 			}
@@ -353,7 +400,7 @@ public class ConfigurationHandler {
 			final CellAttributesMap cellAttributesMap) {
 		List<ConfigCommand> commandList = new ArrayList<>();
 		// if skip then return empty list.
-		if (parent.isSkipConfiguration()) {
+		if (skipConfiguration) {
 			return commandList;
 		}
 
@@ -436,11 +483,11 @@ public class ConfigurationHandler {
 		}
 
 		// if skip config then return.
-		if (parent.isSkipConfiguration()) {
+		if (skipConfiguration) {
 			return;
 		}
-		SaveAttrsUtility.setSaveAttrsForSheet(sheet, minRowNum, maxRowNum,
-				parent.getCellAttributesMap().getTemplateCommentMap().get(TieConstants.SAVE_COMMENT_KEY_IN_MAP));
+		SaveAttrsUtility.setSaveAttrsForSheet(workbookIndexes, sheet, minRowNum, maxRowNum,
+				cellAttributesMap.getTemplateCommentMap().get(TieConstants.SAVE_COMMENT_KEY_IN_MAP));
 	}
 
 	/**
@@ -567,13 +614,14 @@ public class ConfigurationHandler {
 	 */
 	private void copyTemplateForTieCommands(final Sheet sheet) {
 		// if skip configuration. then return.
-		if (parent.isSkipConfiguration()) {
+		if (skipConfiguration) {
 			return;
 		}
 		Workbook wb = sheet.getWorkbook();
 		String copyName = TieConstants.COPY_SHEET_PREFIX + sheet.getSheetName();
 		if (wb.getSheet(copyName) == null) {
 			Sheet newSheet = wb.cloneSheet(wb.getSheetIndex(sheet));
+			workbookIndexes.copySheet(sheet, newSheet);
 			int sheetIndex = wb.getSheetIndex(newSheet);
 			wb.setSheetName(sheetIndex, copyName);
 			wb.setSheetHidden(sheetIndex, Workbook.SHEET_STATE_VERY_HIDDEN);
@@ -5,12 +5,14 @@
 package org.tiefaces.components.websheet.configuration;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.poi.ss.usermodel.Cell;
 import org.tiefaces.components.websheet.utility.CommandUtility;
 import org.tiefaces.components.websheet.utility.ConfigurationUtility;
 
@@ -191,18 +193,17 @@ public class EachCommand extends ConfigCommand implements Serializable {
 	 * (non-Javadoc)
 	 * 
 	 * @see
-	 * org.tiefaces.components.websheet.configuration.Command#buildAt(java.lang.
-	 * String, org.tiefaces.components.websheet.configuration.ConfigBuildRef,
+	 * org.tiefaces.components.websheet.configuration.Command#buildAt(org.tiefaces.components.websheet.
+	 * configuration.FullNamePath, org.tiefaces.components.websheet.configuration.ConfigBuildRef,
 	 * int, java.util.Map, java.util.List)
 	 */
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
-	public final int buildAt(String fullName,
+	public final int buildAt(final FullNamePath fullName,
 			final ConfigBuildRef configBuildRef, final int atRow,
 			final Map<String, Object> context,
 			final List<RowsMapping> currentRowsMappingList) {
 
-		fullName = fullName + ":" + this.getCommandName();
 		Collection itemsCollection = ConfigurationUtility
 				.transformToCollectionObject(configBuildRef.getEngine(),
 						this.getItems(), context);
@@ -238,7 +239,7 @@ public class EachCommand extends ConfigCommand implements Serializable {
 	 * Builds the each objects.
 	 *
 	 * @param fullName
-	 *            the full name
+	 *            the full name of parent unit
 	 * @param configBuildRef
 	 *            the config build ref
 	 * @param atRow
@@ -254,7 +255,7 @@ public class EachCommand extends ConfigCommand implements Serializable {
 	 * @return the int
 	 */
 	@SuppressWarnings("rawtypes")
-	private int buildEachObjects(String fullName,
+	private int buildEachObjects(final FullNamePath fullName,
 			final ConfigBuildRef configBuildRef, final int atRow,
 			final Map<String, Object> context,
 			final List<RowsMapping> currentRowsMappingList,
@@ -263,6 +264,20 @@ public class EachCommand extends ConfigCommand implements Serializable {
 		int index = 0;
 		int insertPosition = atRow;
 		String thisObjClassName = objClassName;
+		// template without nested command always has same length for each
+		// object, so insert all the copies at once instead of shift rows
+		// for each object.
+		boolean batchInsert = (itemsCollection.size() > 1)
+				&& this.getConfigRange().getCommandList().isEmpty();
+		List<ConfigRange> batchRanges = null;
+		if (batchInsert) {
+			int unitLength = this.getConfigRange().getLastRowPlusAddr()
+					.getRow() - this.getConfigRange().getFirstRowAddr().getRow();
+			CommandUtility.insertEachTemplates(this.getConfigRange(),
+					configBuildRef, atRow + unitLength,
+					itemsCollection.size() - 1);
+			batchRanges = new ArrayList<>();
+		}
 
 		// loop through each object in the collection
 		for (Object obj : itemsCollection) {
@@ -274,14 +289,24 @@ public class EachCommand extends ConfigCommand implements Serializable {
 			}
 			RowsMapping unitRowsMapping = new RowsMapping();
 			context.put(var, obj);
-			CommandUtility.insertEachTemplate(this.getConfigRange(),
-					configBuildRef, index, insertPosition, unitRowsMapping);
+			if (batchInsert) {
+				CommandUtility.mapEachTemplateRows(this.getConfigRange(),
+						configBuildRef, insertPosition, unitRowsMapping);
+			} else {
+				CommandUtility.insertEachTemplate(this.getConfigRange(),
+						configBuildRef, index, insertPosition,
+						unitRowsMapping);
+			}
 			ConfigRange currentRange = ConfigurationUtility
 					.buildCurrentRange(this.getConfigRange(),
 							configBuildRef.getSheet(), insertPosition);
+			if (batchInsert) {
+				batchRanges.add(currentRange);
+			}
 			currentRowsMappingList.add(unitRowsMapping);
 
-			String unitFullName = fullName + "." + index;
+			FullNamePath unitFullName = fullName.child(this.getCommandName(),
+					index);
 			currentRange.getAttrs().setAllowAdd(false);
 			if ((this.allowAdd != null)
 					&& ("true".equalsIgnoreCase(this.allowAdd.trim()))) {
@@ -300,6 +325,15 @@ public class EachCommand extends ConfigCommand implements Serializable {
 			index++;
 			context.remove(var);
 		}
+		if (batchInsert) {
+			// same as one by one insert, the last row plus of every object
+			// end up at the row after the whole collection.
+			Cell lastRowPlusRef = batchRanges.get(batchRanges.size() - 1)
+					.getLastRowPlusRef();
+			for (ConfigRange range : batchRanges) {
+				range.getAttrs().setLastRowPlusRef(lastRowPlusRef);
+			}
+		}
 		return insertPosition;
 	}
 
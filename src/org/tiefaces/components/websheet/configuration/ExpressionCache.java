@@ -0,0 +1,215 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.configuration;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.jexl2.Expression;
+import org.apache.commons.jexl2.JexlEngine;
+import org.tiefaces.common.TieConstants;
+
+/**
+ * Application wide cache of compiled jexl expressions.
+ *
+ * Compiled expressions are thread safe, so all threads share the same
+ * instances. Expressions are keyed by the engine compiled them and the
+ * expression string, so engines with different settings never share them.
+ * Lookups take no lock. Oldest expressions are evicted when the cache is
+ * full. Hits, misses and evictions are counted for monitoring.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class ExpressionCache {
+
+	/** single instance. */
+	private static final ExpressionCache INSTANCE = new ExpressionCache();
+
+	/** max entries. */
+	private volatile int maxEntries = TieConstants.DEFAULT_EXPRESSION_CACHE_SIZE;
+
+	/** entries. */
+	private final ConcurrentMap<CacheKey, Expression> entries = new ConcurrentHashMap<>();
+
+	/** keys in insertion order, used for eviction. */
+	private final Queue<CacheKey> insertionOrder = new ConcurrentLinkedQueue<>();
+
+	/** hits count. */
+	private final AtomicLong hits = new AtomicLong();
+
+	/** misses count. */
+	private final AtomicLong misses = new AtomicLong();
+
+	/** evictions count. */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * hide constructor.
+	 */
+	private ExpressionCache() {
+		// not called
+	}
+
+	/**
+	 * Gets the single instance.
+	 *
+	 * @return the expression cache
+	 */
+	public static ExpressionCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets compiled expression. Compile and cache it if not exist.
+	 *
+	 * @param jexl
+	 *            the jexl engine used to compile
+	 * @param expression
+	 *            the expression
+	 * @return the compiled expression
+	 */
+	public Expression get(final JexlEngine jexl, final String expression) {
+		CacheKey key = new CacheKey(jexl, expression);
+		Expression compiled = entries.get(key);
+		if (compiled != null) {
+			hits.incrementAndGet();
+			return compiled;
+		}
+		misses.incrementAndGet();
+		// concurrent compile of the same expression is harmless, the first
+		// one put is kept.
+		compiled = jexl.createExpression(expression);
+		Expression existing = entries.putIfAbsent(key, compiled);
+		if (existing != null) {
+			return existing;
+		}
+		insertionOrder.add(key);
+		evict();
+		return compiled;
+	}
+
+	/**
+	 * Evict oldest entries until within max entries.
+	 */
+	private void evict() {
+		while (entries.size() > maxEntries) {
+			CacheKey eldest = insertionOrder.poll();
+			if (eldest == null) {
+				return;
+			}
+			if (entries.remove(eldest) != null) {
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public void clear() {
+		entries.clear();
+		insertionOrder.clear();
+	}
+
+	/**
+	 * Entries count.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Sets the max entries.
+	 *
+	 * @param pmaxEntries
+	 *            the new max entries
+	 */
+	public void setMaxEntries(final int pmaxEntries) {
+		this.maxEntries = pmaxEntries;
+		evict();
+	}
+
+	/**
+	 * Gets the hits count.
+	 *
+	 * @return the hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the misses count.
+	 *
+	 * @return the misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Gets the evictions count.
+	 *
+	 * @return the evictions
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Key of compiled expression. Engine is compared by identity.
+	 */
+	private static final class CacheKey {
+
+		/** the engine. */
+		private final JexlEngine engine;
+
+		/** the expression. */
+		private final String expression;
+
+		/** hash code. */
+		private final int hash;
+
+		/**
+		 * Instantiates a new cache key.
+		 *
+		 * @param pengine
+		 *            the engine
+		 * @param pexpression
+		 *            the expression
+		 */
+		CacheKey(final JexlEngine pengine, final String pexpression) {
+			this.engine = pengine;
+			this.expression = pexpression;
+			this.hash = 31 * System.identityHashCode(pengine)
+					+ pexpression.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return (engine == other.engine)
+					&& expression.equals(other.expression);
+		}
+	}
+
+}
@@ -15,7 +15,8 @@ import org.tiefaces.exception.EvaluationException;
 
 /**
  * expEngine use jexl engine evaluate an expression. see apache jexl project for
- * detail. use local thread for thread safe.
+ * detail. jexl engine and compiled expressions are thread safe, so they are
+ * shared by all threads through application wide expression cache.
  * 
  * @author Jason Jiang
  *
@@ -27,22 +28,8 @@ public class ExpressionEngine {
 	/**
 	 * context. private JexlContext jContext;
 	 */
-	/** jexlEngine local map. */
-	private static final ThreadLocal<JexlEngine> 
-	JEXL_LOCAL = new ThreadLocal<JexlEngine>() {
-		@Override
-		protected JexlEngine initialValue() {
-			return new JexlEngine();
-		}
-	};
-	/** jexpmap local map. */
-	private static final ThreadLocal<Map<String, Expression>> 
-	JEXL_MAP_LOCAL = new ThreadLocal<Map<String, Expression>>() {
-		@Override
-		protected Map<String, Expression> initialValue() {
-			return new HashMap<>();
-		}
-	};
+	/** shared jexlEngine. */
+	private static final JexlEngine JEXL = new JexlEngine();
 
 	/**
 	 * empty context used for evaluate single script.
@@ -57,8 +44,7 @@ public class ExpressionEngine {
 	 *            expression.
 	 */
 	public ExpressionEngine(final String pExpression) {
-		JexlEngine jexl = JEXL_LOCAL.get();
-		jExpression = jexl.createExpression(pExpression);
+		jExpression = ExpressionCache.getInstance().get(JEXL, pExpression);
 	}
 
 
@@ -94,13 +80,8 @@ public class ExpressionEngine {
 			final Map<String, Object> context) {
 		JexlContext jexlContext = new MapContext(context);
 		try {
-			JexlEngine jexl = JEXL_LOCAL.get();
-			Map<String, Expression> expMap = JEXL_MAP_LOCAL.get();
-			Expression jexlExpression = expMap.get(expression);
-			if (jexlExpression == null) {
-				jexlExpression = jexl.createExpression(expression);
-				expMap.put(expression, jexlExpression);
-			}
+			Expression jexlExpression = ExpressionCache.getInstance()
+					.get(JEXL, expression);
 			return jexlExpression.evaluate(jexlContext);
 		} catch (Exception e) {
 			throw new EvaluationException(e);
@@ -136,12 +117,12 @@ public class ExpressionEngine {
 	}
 
 	/**
-	 * get local exl engine.
+	 * get shared jexl engine.
 	 * 
 	 * @return jexlengine.
 	 */
 	public final JexlEngine getJexlEngine() {
-		return JEXL_LOCAL.get();
+		return JEXL;
 	}
 
 }
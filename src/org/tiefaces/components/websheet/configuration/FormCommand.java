@@ -348,22 +348,22 @@ public class FormCommand extends ConfigCommand implements Serializable {
 	 * (non-Javadoc)
 	 * 
 	 * @see
-	 * org.tiefaces.components.websheet.configuration.Command#buildAt(java.lang.
-	 * String, org.tiefaces.components.websheet.configuration.ConfigBuildRef,
+	 * org.tiefaces.components.websheet.configuration.Command#buildAt(org.tiefaces.components.websheet.
+	 * configuration.FullNamePath, org.tiefaces.components.websheet.configuration.ConfigBuildRef,
 	 * int, java.util.Map, java.util.List)
 	 */
 	@Override
 	/**
 	 * build the command area at the row.
 	 */
-	public final int buildAt(String fullName,
+	public final int buildAt(FullNamePath fullName,
 			final ConfigBuildRef configBuildRef, final int atRow,
 			final Map<String, Object> context,
 			List<RowsMapping> currentRowsMappingList) {
 
 		configBuildRef.setWatchList(buildFormWatchList(
 				configBuildRef.getWbWrapper(), configBuildRef.getSheet()));
-		fullName = this.getCommandName();
+		fullName = FullNamePath.root(this.getCommandName());
 
 		RowsMapping unitRowsMapping = new RowsMapping();
 		for (Integer index : configBuildRef.getWatchList()) {
@@ -387,13 +387,6 @@ public class FormCommand extends ConfigCommand implements Serializable {
 				atRow, context, currentRowsMappingList);
 		this.getConfigRange().getAttrs().setFinalLength(length);
 		this.setFinalLength(length);
-		configBuildRef.getSheet().setColumnHidden(
-				TieConstants.HIDDEN_FULL_NAME_COLUMN, true);
-		configBuildRef.getSheet().setColumnHidden(
-				TieConstants.HIDDEN_SAVE_OBJECTS_COLUMN, true);
-		configBuildRef.getSheet().setColumnHidden(
-				TieConstants.HIDDEN_ORIGIN_ROW_NUMBER_COLUMN, true);
-
 		return length;
 	}
 
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.configuration;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.tiefaces.common.TieConstants;
+
+/**
+ * Full name of a built unit. e.g. F.departments:E.department.1:E.employee.0
+ *
+ * Each node holds one part of the full name (command name and collection
+ * index) and points to it's parent. Paths are interned, so same full name
+ * is always the same instance. Ancestor check and re-index are done by
+ * walking parent pointers and comparing references instead of string
+ * prefix.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class FullNamePath implements Serializable {
+
+	/**
+	 * serialVersionUID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/** separator of parts. */
+	private static final char PART_SEPARATOR = ':';
+
+	/** separator of command name and index. */
+	private static final char INDEX_SEPARATOR = '.';
+
+	/** interned paths. weak, so unused paths are released. */
+	private static final Map<FullNamePath, WeakReference<FullNamePath>> POOL = new WeakHashMap<>();
+
+	/** parent. null for top level. */
+	private final FullNamePath parent;
+
+	/** command name. e.g. E.employee */
+	private final String commandName;
+
+	/** collection index. -1 if no index. */
+	private final int index;
+
+	/** depth. top level is 1. */
+	private final int depth;
+
+	/** precomputed hash. */
+	private final int hash;
+
+	/** part. e.g. E.employee.0 */
+	private final String part;
+
+	/** full name. */
+	private final String name;
+
+	/**
+	 * Instantiates a new full name path.
+	 *
+	 * @param pparent
+	 *            the parent
+	 * @param pcommandName
+	 *            the command name
+	 * @param pindex
+	 *            the index
+	 */
+	private FullNamePath(final FullNamePath pparent,
+			final String pcommandName, final int pindex) {
+		this.parent = pparent;
+		this.commandName = pcommandName.intern();
+		this.index = pindex;
+		if (pindex >= 0) {
+			this.part = pcommandName + INDEX_SEPARATOR + pindex;
+		} else {
+			this.part = this.commandName;
+		}
+		if (pparent == null) {
+			this.depth = 1;
+			this.name = this.part;
+			this.hash = (31 * this.commandName.hashCode()) + pindex;
+		} else {
+			this.depth = pparent.depth + 1;
+			this.name = pparent.name + PART_SEPARATOR + this.part;
+			this.hash = (31 * ((31 * pparent.hash)
+					+ this.commandName.hashCode())) + pindex;
+		}
+	}
+
+	/**
+	 * Intern the path.
+	 *
+	 * @param path
+	 *            the path
+	 * @return the interned path
+	 */
+	private static FullNamePath intern(final FullNamePath path) {
+		synchronized (POOL) {
+			WeakReference<FullNamePath> ref = POOL.get(path);
+			FullNamePath interned = (ref == null) ? null : ref.get();
+			if (interned == null) {
+				POOL.put(path, new WeakReference<>(path));
+				interned = path;
+			}
+			return interned;
+		}
+	}
+
+	/**
+	 * Top level path. e.g. F.departments
+	 *
+	 * @param commandName
+	 *            the command name
+	 * @return the full name path
+	 */
+	public static FullNamePath root(final String commandName) {
+		return intern(new FullNamePath(null, commandName, -1));
+	}
+
+	/**
+	 * Parse full name string.
+	 *
+	 * @param fullName
+	 *            the full name
+	 * @return the full name path or null if full name is empty
+	 */
+	public static FullNamePath parse(final String fullName) {
+		if ((fullName == null) || fullName.isEmpty()) {
+			return null;
+		}
+		FullNamePath path = null;
+		int start = 0;
+		while (start <= fullName.length()) {
+			int end = fullName.indexOf(PART_SEPARATOR, start);
+			if (end < 0) {
+				end = fullName.length();
+			}
+			path = parsePart(path, fullName.substring(start, end));
+			start = end + 1;
+		}
+		return path;
+	}
+
+	/**
+	 * Parse one part of full name. Index is the number after last dot, only
+	 * if the part has command prefix. e.g. E.employee.0
+	 *
+	 * @param parentPath
+	 *            the parent path
+	 * @param part
+	 *            the part
+	 * @return the full name path
+	 */
+	private static FullNamePath parsePart(final FullNamePath parentPath,
+			final String part) {
+		int dot = part.lastIndexOf(INDEX_SEPARATOR);
+		if ((dot > part.indexOf(INDEX_SEPARATOR)) && (dot < part.length() - 1)) {
+			int partIndex = 0;
+			for (int i = dot + 1; i < part.length(); i++) {
+				char ch = part.charAt(i);
+				if ((ch < '0') || (ch > '9')) {
+					partIndex = -1;
+					break;
+				}
+				partIndex = partIndex * 10 + (ch - '0');
+			}
+			if (partIndex >= 0) {
+				return intern(new FullNamePath(parentPath,
+						part.substring(0, dot), partIndex));
+			}
+		}
+		return intern(new FullNamePath(parentPath, part, -1));
+	}
+
+	/**
+	 * Child path.
+	 *
+	 * @param childCommandName
+	 *            the child command name
+	 * @param childIndex
+	 *            the child index. -1 if no index.
+	 * @return the full name path
+	 */
+	public FullNamePath child(final String childCommandName,
+			final int childIndex) {
+		return intern(new FullNamePath(this, childCommandName, childIndex));
+	}
+
+	/**
+	 * Sibling path with another index.
+	 *
+	 * @param newIndex
+	 *            the new index
+	 * @return the full name path
+	 */
+	public FullNamePath withIndex(final int newIndex) {
+		if (newIndex == index) {
+			return this;
+		}
+		return intern(new FullNamePath(parent, commandName, newIndex));
+	}
+
+	/**
+	 * Gets the ancestor at depth. Return itself if depth is same.
+	 *
+	 * @param ancestorDepth
+	 *            the ancestor depth
+	 * @return the ancestor or null if depth is out of range
+	 */
+	public FullNamePath getAncestor(final int ancestorDepth) {
+		if ((ancestorDepth < 1) || (ancestorDepth > depth)) {
+			return null;
+		}
+		FullNamePath path = this;
+		while (path.depth > ancestorDepth) {
+			path = path.parent;
+		}
+		return path;
+	}
+
+	/**
+	 * Whether this is ancestor of the path. Path is not ancestor of itself.
+	 *
+	 * @param path
+	 *            the path
+	 * @return true, if is ancestor
+	 */
+	public boolean isAncestorOf(final FullNamePath path) {
+		return (path != null) && (path.depth > depth)
+				&& (path.getAncestor(depth) == this);
+	}
+
+	/**
+	 * Whether this is the path or ancestor of it.
+	 *
+	 * @param path
+	 *            the path
+	 * @return true, if is self or ancestor
+	 */
+	public boolean isSelfOrAncestorOf(final FullNamePath path) {
+		return (path != null) && (path.depth >= depth)
+				&& (path.getAncestor(depth) == this);
+	}
+
+	/**
+	 * Whether the path is this or sibling of this. i.e. only index may be
+	 * different.
+	 *
+	 * @param path
+	 *            the path
+	 * @return true, if is sibling
+	 */
+	public boolean isSiblingOf(final FullNamePath path) {
+		return (path != null) && (path.parent == parent)
+				&& (path.commandName == commandName);
+	}
+
+	/**
+	 * Replace ancestor (or itself) with another path. e.g. replace
+	 * F.f1:E.department.1 with F.f1:E.department.2 in
+	 * F.f1:E.department.1:E.employee.0 gives
+	 * F.f1:E.department.2:E.employee.0
+	 *
+	 * @param ancestor
+	 *            the ancestor to replace
+	 * @param replacement
+	 *            the replacement
+	 * @return the full name path
+	 */
+	public FullNamePath replaceAncestor(final FullNamePath ancestor,
+			final FullNamePath replacement) {
+		if (this == ancestor) {
+			return replacement;
+		}
+		if (parent == null) {
+			return this;
+		}
+		FullNamePath newParent = parent.replaceAncestor(ancestor,
+				replacement);
+		if (newParent == parent) {
+			return this;
+		}
+		return newParent.child(commandName, index);
+	}
+
+	/**
+	 * Gets the parent.
+	 *
+	 * @return the parent or null for top level
+	 */
+	public FullNamePath getParent() {
+		return parent;
+	}
+
+	/**
+	 * Gets the command name. e.g. E.employee
+	 *
+	 * @return the command name
+	 */
+	public String getCommandName() {
+		return commandName;
+	}
+
+	/**
+	 * Gets the collection index.
+	 *
+	 * @return the index or -1 if no index
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Gets the depth. top level is 1.
+	 *
+	 * @return the depth
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Gets the part. e.g. E.employee.0
+	 *
+	 * @return the part
+	 */
+	public String getPart() {
+		return part;
+	}
+
+	/**
+	 * Gets the parts from top level.
+	 *
+	 * @return the parts
+	 */
+	public String[] getParts() {
+		String[] parts = new String[depth];
+		for (FullNamePath path = this; path != null; path = path.parent) {
+			parts[path.depth - 1] = path.part;
+		}
+		return parts;
+	}
+
+	/**
+	 * Gets the indexes from top level. -1 for part without index.
+	 *
+	 * @return the indexes
+	 */
+	public int[] getIndexes() {
+		int[] indexes = new int[depth];
+		for (FullNamePath path = this; path != null; path = path.parent) {
+			indexes[path.depth - 1] = path.index;
+		}
+		return indexes;
+	}
+
+	/**
+	 * Whether this is a unit of each command. e.g. E.employee.0
+	 *
+	 * @return true, if is each unit
+	 */
+	public boolean isEachUnit() {
+		return (index >= 0) && commandName
+				.startsWith(TieConstants.EACH_COMMAND_FULL_NAME_PREFIX);
+	}
+
+	/**
+	 * Gets the var name of each command. e.g. employee for E.employee.0
+	 *
+	 * @return the var name or null if not each unit
+	 */
+	public String getVarName() {
+		if (!isEachUnit()) {
+			return null;
+		}
+		return commandName.substring(
+				TieConstants.EACH_COMMAND_FULL_NAME_PREFIX.length());
+	}
+
+	/**
+	 * Intern after deserialization. Parent is already interned.
+	 *
+	 * @return the interned path
+	 */
+	private Object readResolve() {
+		return intern(new FullNamePath(parent, commandName, index));
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof FullNamePath)) {
+			return false;
+		}
+		FullNamePath other = (FullNamePath) obj;
+		return (hash == other.hash) && (index == other.index)
+				&& (parent == other.parent)
+				&& commandName.equals(other.commandName);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
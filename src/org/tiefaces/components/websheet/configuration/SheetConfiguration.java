@@ -10,6 +10,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.logging.Logger;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -86,7 +87,7 @@ public class SheetConfiguration implements Serializable {
 	private FormCommand formCommand;
 
 	/** The shift map. */
-	private NavigableMap<String, ConfigRangeAttrs> shiftMap;
+	private ShiftMap shiftMap;
 
 	/** The command index map. */
 	private HashMap<String, Command> commandIndexMap;
@@ -115,6 +116,9 @@ public class SheetConfiguration implements Serializable {
 	 */
 	private SerialCellMap serialFinalCommentMap = new SerialCellMap();
 
+	/** evaluation plans of template cells. not serialized. */
+	private transient CellEvaluationPlanTable cellPlanTable;
+
 	/** logger. */
 	private static final Logger LOG = Logger
 			.getLogger(SerialWorkbook.class.getName());
@@ -419,18 +423,32 @@ public class SheetConfiguration implements Serializable {
 	 *
 	 * @return the shift map
 	 */
-	public final NavigableMap<String, ConfigRangeAttrs> getShiftMap() {
+	public final ShiftMap getShiftMap() {
 		return shiftMap;
 	}
 
+	/**
+	 * Gets the shift map as sorted map keyed by full name. It's a copy, so
+	 * changes are not written back to the shift map.
+	 *
+	 * @return the shift map or null if not built
+	 * @deprecated use {@link #getShiftMap()} instead.
+	 */
+	@Deprecated
+	public final NavigableMap<String, ConfigRangeAttrs> getShiftMapAsMap() {
+		if (shiftMap == null) {
+			return null;
+		}
+		return new TreeMap<>(shiftMap.toMap());
+	}
+
 	/**
 	 * Sets the shift map.
 	 *
 	 * @param pshiftMap
 	 *            the shift map
 	 */
-	public final void setShiftMap(
-			final NavigableMap<String, ConfigRangeAttrs> pshiftMap) {
+	public final void setShiftMap(final ShiftMap pshiftMap) {
 		this.shiftMap = pshiftMap;
 	}
 
@@ -556,6 +574,18 @@ public class SheetConfiguration implements Serializable {
 		return serialFinalCommentMap;
 	}
 
+	/**
+	 * Gets the evaluation plans of template cells.
+	 *
+	 * @return the cell plan table
+	 */
+	public final CellEvaluationPlanTable getCellPlanTable() {
+		if (cellPlanTable == null) {
+			cellPlanTable = new CellEvaluationPlanTable();
+		}
+		return cellPlanTable;
+	}
+
 	/**
 	 * recover the cell reference to the sheet.
 	 * 
@@ -568,9 +598,8 @@ public class SheetConfiguration implements Serializable {
 		this.getSerialFinalCommentMap().recover(sheet);
 		this.getFormCommand().recover(sheet);
 		if (this.getShiftMap() != null) {
-			for (Map.Entry<String, ConfigRangeAttrs> entry : this
-					.getShiftMap().entrySet()) {
-				entry.getValue().recover(sheet);
+			for (ConfigRangeAttrs attrs : this.getShiftMap().values()) {
+				attrs.recover(sheet);
 			}
 		}
 		if (this.getCommandIndexMap() != null) {
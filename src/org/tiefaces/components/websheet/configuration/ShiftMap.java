@@ -0,0 +1,366 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.configuration;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Saved configRange attributes for each full name, kept in a trie of full
+ * name parts.
+ *
+ * Each node holds one part (command name and collection index) and it's
+ * children grouped by command name and sorted by index. So children of a
+ * unit, or siblings after an index, are found without touching unrelated
+ * units. Nodes keep only their own index, so re-index siblings do not need
+ * to rename their children.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class ShiftMap implements Serializable {
+
+	/**
+	 * serialVersionUID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/** root node. holds top level units. */
+	private final Node root = new Node(null, null, -1);
+
+	/** number of saved attrs. */
+	private int size = 0;
+
+	/**
+	 * Trie node.
+	 */
+	private static final class Node implements Serializable {
+
+		/**
+		 * serialVersionUID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/** parent. null for root. */
+		private final Node parent;
+
+		/** command name. e.g. E.employee */
+		private final String commandName;
+
+		/** collection index. -1 if no index. */
+		private int index;
+
+		/** saved attrs. null if the unit is only a parent of others. */
+		private ConfigRangeAttrs attrs;
+
+		/** children by command name then index. created on first child. */
+		private Map<String, NavigableMap<Integer, Node>> children;
+
+		/**
+		 * Instantiates a new node.
+		 *
+		 * @param pparent
+		 *            the parent
+		 * @param pcommandName
+		 *            the command name
+		 * @param pindex
+		 *            the index
+		 */
+		Node(final Node pparent, final String pcommandName,
+				final int pindex) {
+			this.parent = pparent;
+			this.commandName = pcommandName;
+			this.index = pindex;
+		}
+
+		/**
+		 * Gets the children with the command name.
+		 *
+		 * @param childCommandName
+		 *            the child command name
+		 * @param create
+		 *            create if not exist
+		 * @return the children or null if not exist
+		 */
+		NavigableMap<Integer, Node> getChildren(
+				final String childCommandName, final boolean create) {
+			if (children == null) {
+				if (!create) {
+					return null;
+				}
+				children = new LinkedHashMap<>();
+			}
+			NavigableMap<Integer, Node> map = children.get(childCommandName);
+			if ((map == null) && create) {
+				map = new TreeMap<>();
+				children.put(childCommandName, map);
+			}
+			return map;
+		}
+
+		/**
+		 * Append full name to string builder.
+		 *
+		 * @param sb
+		 *            the string builder
+		 */
+		void appendName(final StringBuilder sb) {
+			if (parent.parent != null) {
+				parent.appendName(sb);
+				sb.append(':');
+			}
+			sb.append(commandName);
+			if (index >= 0) {
+				sb.append('.').append(index);
+			}
+		}
+	}
+
+	/**
+	 * Find node of the path.
+	 *
+	 * @param path
+	 *            the path
+	 * @param create
+	 *            create the node (and it's parents) if not exist
+	 * @return the node or null if not exist
+	 */
+	private Node find(final FullNamePath path, final boolean create) {
+		if (path == null) {
+			return root;
+		}
+		Node parentNode = find(path.getParent(), create);
+		if (parentNode == null) {
+			return null;
+		}
+		NavigableMap<Integer, Node> map = parentNode
+				.getChildren(path.getCommandName(), create);
+		if (map == null) {
+			return null;
+		}
+		Node node = map.get(path.getIndex());
+		if ((node == null) && create) {
+			node = new Node(parentNode, path.getCommandName(),
+					path.getIndex());
+			map.put(path.getIndex(), node);
+		}
+		return node;
+	}
+
+	/**
+	 * Gets the attrs.
+	 *
+	 * @param fullName
+	 *            the full name
+	 * @return the config range attrs or null if not exist
+	 */
+	public final ConfigRangeAttrs get(final String fullName) {
+		return get(FullNamePath.parse(fullName));
+	}
+
+	/**
+	 * Gets the attrs.
+	 *
+	 * @param fullName
+	 *            the full name
+	 * @return the config range attrs or null if not exist
+	 */
+	public final ConfigRangeAttrs get(final FullNamePath fullName) {
+		if (fullName == null) {
+			return null;
+		}
+		Node node = find(fullName, false);
+		return (node == null) ? null : node.attrs;
+	}
+
+	/**
+	 * Put attrs.
+	 *
+	 * @param fullName
+	 *            the full name
+	 * @param attrs
+	 *            the attrs
+	 */
+	public final void put(final FullNamePath fullName,
+			final ConfigRangeAttrs attrs) {
+		Node node = find(fullName, true);
+		if (node.attrs == null) {
+			size++;
+		}
+		node.attrs = attrs;
+	}
+
+	/**
+	 * Remove the unit and all it's children.
+	 *
+	 * @param fullName
+	 *            the full name
+	 */
+	public final void remove(final FullNamePath fullName) {
+		Node node = find(fullName, false);
+		if ((node == null) || (node == root)) {
+			return;
+		}
+		List<ConfigRangeAttrs> list = new ArrayList<>();
+		collect(node, list, true);
+		size -= list.size();
+		NavigableMap<Integer, Node> map = node.parent
+				.getChildren(node.commandName, false);
+		map.remove(node.index);
+		if (map.isEmpty()) {
+			node.parent.children.remove(node.commandName);
+		}
+	}
+
+	/**
+	 * Gets attrs of the unit's children at all levels.
+	 *
+	 * @param fullName
+	 *            the full name
+	 * @param includeSelf
+	 *            include attrs of the unit itself
+	 * @return the list
+	 */
+	public final List<ConfigRangeAttrs> getDescendants(
+			final FullNamePath fullName, final boolean includeSelf) {
+		List<ConfigRangeAttrs> list = new ArrayList<>();
+		Node node = find(fullName, false);
+		if (node != null) {
+			collect(node, list, includeSelf);
+		}
+		return list;
+	}
+
+	/**
+	 * Collect attrs of node and it's children.
+	 *
+	 * @param node
+	 *            the node
+	 * @param list
+	 *            the list
+	 * @param includeSelf
+	 *            include attrs of the node itself
+	 */
+	private static void collect(final Node node,
+			final List<ConfigRangeAttrs> list, final boolean includeSelf) {
+		if (includeSelf && (node.attrs != null)) {
+			list.add(node.attrs);
+		}
+		if (node.children != null) {
+			for (NavigableMap<Integer, Node> map : node.children.values()) {
+				for (Node child : map.values()) {
+					collect(child, list, true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Change index of siblings after the unit. Children of the siblings
+	 * follow them.
+	 *
+	 * @param fullName
+	 *            the unit full name
+	 * @param steps
+	 *            the steps ( 1 add -1 delete ).
+	 */
+	public final void changeSiblingIndexes(final FullNamePath fullName,
+			final int steps) {
+		Node parentNode = find(fullName.getParent(), false);
+		if (parentNode == null) {
+			return;
+		}
+		NavigableMap<Integer, Node> map = parentNode
+				.getChildren(fullName.getCommandName(), false);
+		if (map == null) {
+			return;
+		}
+		NavigableMap<Integer, Node> tail = map
+				.tailMap(fullName.getIndex(), false);
+		List<Node> moved = new ArrayList<>(tail.values());
+		tail.clear();
+		for (Node node : moved) {
+			node.index += steps;
+			map.put(node.index, node);
+		}
+	}
+
+	/**
+	 * Gets all attrs.
+	 *
+	 * @return the list
+	 */
+	public final List<ConfigRangeAttrs> values() {
+		List<ConfigRangeAttrs> list = new ArrayList<>(size);
+		collect(root, list, false);
+		return list;
+	}
+
+	/**
+	 * Number of saved attrs.
+	 *
+	 * @return the size
+	 */
+	public final int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if is empty.
+	 *
+	 * @return true, if is empty
+	 */
+	public final boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Builds map of full name and attrs. Used for debug and the map accessor
+	 * of sheet configuration.
+	 *
+	 * @return the map
+	 */
+	public final Map<String, ConfigRangeAttrs> toMap() {
+		Map<String, ConfigRangeAttrs> map = new TreeMap<>();
+		addToMap(root, map);
+		return map;
+	}
+
+	/**
+	 * Add node and it's children to map.
+	 *
+	 * @param node
+	 *            the node
+	 * @param map
+	 *            the map
+	 */
+	private static void addToMap(final Node node,
+			final Map<String, ConfigRangeAttrs> map) {
+		if (node.attrs != null) {
+			StringBuilder sb = new StringBuilder();
+			node.appendName(sb);
+			map.put(sb.toString(), node.attrs);
+		}
+		if (node.children != null) {
+			for (NavigableMap<Integer, Node> children : node.children
+					.values()) {
+				for (Node child : children.values()) {
+					addToMap(child, map);
+				}
+			}
+		}
+	}
+
+	@Override
+	public final String toString() {
+		return toMap().toString();
+	}
+
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.dataobjects;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Body rows list kept in blocks of rows.
+ *
+ * Each block has a base row index and rows in the block keep only their
+ * offset from it. Insert or remove rows only renumber the rows in the
+ * changed block and move base of the blocks after it. So adding rows near
+ * the top of a large sheet does not touch every row below.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class BlockBodyRows extends AbstractList<FacesRow>
+		implements Serializable {
+
+	/** serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** rows per block after split. */
+	private static final int BLOCK_SIZE = 128;
+
+	/** block is split when it's rows exceed this. */
+	private static final int MAX_BLOCK_SIZE = BLOCK_SIZE * 2;
+
+	/**
+	 * Block of continuous rows.
+	 */
+	static final class Block implements Serializable {
+
+		/** serialVersionUID. */
+		private static final long serialVersionUID = 1L;
+
+		/** row index of first row in block. */
+		private int base;
+
+		/** rows. */
+		private final List<FacesRow> rows;
+
+		/**
+		 * Instantiates a new block.
+		 *
+		 * @param pbase
+		 *            the base
+		 * @param prows
+		 *            the rows
+		 */
+		Block(final int pbase, final List<FacesRow> prows) {
+			this.base = pbase;
+			this.rows = prows;
+		}
+
+		/**
+		 * Gets the base.
+		 *
+		 * @return the base
+		 */
+		int getBase() {
+			return base;
+		}
+
+		/**
+		 * Attach rows from the offset to end of block.
+		 *
+		 * @param from
+		 *            the offset
+		 */
+		void attachFrom(final int from) {
+			for (int i = from; i < rows.size(); i++) {
+				rows.get(i).attach(this, i);
+			}
+		}
+	}
+
+	/** row index of first body row. */
+	private final int top;
+
+	/** blocks in row order. */
+	private final List<Block> blocks = new ArrayList<>();
+
+	/** total rows. */
+	private int size = 0;
+
+	/**
+	 * Instantiates a new block body rows.
+	 *
+	 * @param ptop
+	 *            row index of first body row
+	 */
+	public BlockBodyRows(final int ptop) {
+		super();
+		this.top = ptop;
+	}
+
+	/**
+	 * Find block contain the list index. Index equal to size belongs to last
+	 * block.
+	 *
+	 * @param index
+	 *            the list index
+	 * @return the block position in blocks
+	 */
+	private int findBlock(final int index) {
+		int row = top + index;
+		int low = 0;
+		int high = blocks.size() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (blocks.get(mid).base <= row) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Check index.
+	 *
+	 * @param index
+	 *            the index
+	 * @param max
+	 *            the max allowed index
+	 */
+	private void checkIndex(final int index, final int max) {
+		if ((index < 0) || (index > max)) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	public final FacesRow get(final int index) {
+		checkIndex(index, size - 1);
+		Block block = blocks.get(findBlock(index));
+		return block.rows.get(top + index - block.base);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractList#set(int, java.lang.Object)
+	 */
+	@Override
+	public final FacesRow set(final int index, final FacesRow element) {
+		checkIndex(index, size - 1);
+		Block block = blocks.get(findBlock(index));
+		int offset = top + index - block.base;
+		FacesRow old = block.rows.set(offset, element);
+		old.detach();
+		element.attach(block, offset);
+		return old;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public final int size() {
+		return size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractList#add(int, java.lang.Object)
+	 */
+	@Override
+	public final void add(final int index, final FacesRow element) {
+		insertRows(index, Collections.singletonList(element));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractList#remove(int)
+	 */
+	@Override
+	public final FacesRow remove(final int index) {
+		FacesRow row = get(index);
+		removeRows(index, 1);
+		return row;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractList#clear()
+	 */
+	@Override
+	public final void clear() {
+		for (Block block : blocks) {
+			for (FacesRow row : block.rows) {
+				row.detach();
+			}
+		}
+		blocks.clear();
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Insert rows. Row index of inserted rows and rows after them are
+	 * changed by their position.
+	 *
+	 * @param index
+	 *            the list index of first inserted row
+	 * @param rows
+	 *            the rows
+	 */
+	public final void insertRows(final int index,
+			final Collection<FacesRow> rows) {
+		checkIndex(index, size);
+		if (rows.isEmpty()) {
+			return;
+		}
+		if (blocks.isEmpty()) {
+			blocks.add(new Block(top, new ArrayList<FacesRow>()));
+		}
+		int pos = findBlock(index);
+		Block block = blocks.get(pos);
+		int offset = top + index - block.base;
+		block.rows.addAll(offset, rows);
+		block.attachFrom(offset);
+		size += rows.size();
+		shiftBases(pos + 1, rows.size());
+		if (block.rows.size() > MAX_BLOCK_SIZE) {
+			splitBlock(pos);
+		}
+		modCount++;
+	}
+
+	/**
+	 * Removes rows. Row index of rows after them are changed by their
+	 * position.
+	 *
+	 * @param index
+	 *            the list index of first removed row
+	 * @param length
+	 *            the length
+	 */
+	public final void removeRows(final int index, final int length) {
+		if ((index < 0) || (length < 0) || (index + length > size)) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + index + ", Size: " + size);
+		}
+		if (length == 0) {
+			return;
+		}
+		int pos = findBlock(index);
+		int offset = top + index - blocks.get(pos).base;
+		int remain = length;
+		int current = pos;
+		while (remain > 0) {
+			Block block = blocks.get(current);
+			int end = Math.min(block.rows.size(), offset + remain);
+			List<FacesRow> removed = block.rows.subList(offset, end);
+			for (FacesRow row : removed) {
+				row.detach();
+			}
+			remain -= removed.size();
+			removed.clear();
+			if (block.rows.isEmpty()) {
+				blocks.remove(current);
+			} else {
+				block.attachFrom(offset);
+				current++;
+			}
+			// rest rows are removed from start of next block.
+			offset = 0;
+		}
+		size -= length;
+		rebase(pos);
+		modCount++;
+	}
+
+	/**
+	 * Move base of blocks from the position.
+	 *
+	 * @param from
+	 *            the block position
+	 * @param delta
+	 *            the delta
+	 */
+	private void shiftBases(final int from, final int delta) {
+		for (int i = from; i < blocks.size(); i++) {
+			blocks.get(i).base += delta;
+		}
+	}
+
+	/**
+	 * Reset base of blocks from the position by rows of previous blocks.
+	 *
+	 * @param from
+	 *            the block position
+	 */
+	private void rebase(final int from) {
+		int base = top;
+		if (from > 0) {
+			Block previous = blocks.get(from - 1);
+			base = previous.base + previous.rows.size();
+		}
+		for (int i = from; i < blocks.size(); i++) {
+			Block block = blocks.get(i);
+			block.base = base;
+			base += block.rows.size();
+		}
+	}
+
+	/**
+	 * Split block into blocks of BLOCK_SIZE rows.
+	 *
+	 * @param pos
+	 *            the block position
+	 */
+	private void splitBlock(final int pos) {
+		Block block = blocks.get(pos);
+		List<FacesRow> rows = block.rows;
+		List<Block> split = new ArrayList<>();
+		for (int start = BLOCK_SIZE; start < rows.size(); start += BLOCK_SIZE) {
+			int end = Math.min(rows.size(), start + BLOCK_SIZE);
+			Block newBlock = new Block(block.base + start,
+					new ArrayList<>(rows.subList(start, end)));
+			newBlock.attachFrom(0);
+			split.add(newBlock);
+		}
+		rows.subList(BLOCK_SIZE, rows.size()).clear();
+		blocks.addAll(pos + 1, split);
+	}
+
+	/**
+	 * Gets the blocks count.
+	 *
+	 * @return the block count
+	 */
+	public final int getBlockCount() {
+		return blocks.size();
+	}
+
+	/**
+	 * Gets the top.
+	 *
+	 * @return the top
+	 */
+	public final int getTop() {
+		return top;
+	}
+
+}
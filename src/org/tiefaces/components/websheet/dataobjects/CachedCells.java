@@ -5,18 +5,22 @@
 package org.tiefaces.components.websheet.dataobjects;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
 import org.tiefaces.components.websheet.TieWebSheetBean;
-import org.tiefaces.components.websheet.utility.CellUtility;
 
 /**
  * Use to cache formula cells. The purpose is to compare current cell with
  * cached one. If they are different, then mean need to refresh them. All cached
  * cells are in current display sheet.
- * 
+ *
+ * Cells are keyed by row and column, and the raw evaluated values are cached
+ * instead of formatted strings. So compare doesn't need data formatter.
+ *
  * @author Jason Jiang
  *
  */
@@ -27,12 +31,34 @@ public class CachedCells implements Serializable {
 	 */
 	private static final long serialVersionUID = 916959757743324812L;
 
-	/** The cached map. */
-	private HashMap<Cell, FormulaMapping> cachedMap = new HashMap<>();
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(CachedCells.class.getName());
+
+	/** The cached values. */
+	private CellValueTable cachedTable = new CellValueTable();
 
 	/** The parent. */
 	private TieWebSheetBean parent = null;
 
+	/**
+	 * Holder of raw value. Reused for each compare.
+	 */
+	private static final class RawValue {
+
+		/** value type. */
+		private byte type;
+
+		/** numeric value. */
+		private double number;
+
+		/** string value. */
+		private String string;
+	}
+
+	/** reused raw value holder. */
+	private transient RawValue rawValue;
+
 	/**
 	 * Instantiates a new cached cells.
 	 *
@@ -43,6 +69,108 @@ public class CachedCells implements Serializable {
 		this.parent = pparent;
 	}
 
+	/**
+	 * Cell key.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the key
+	 */
+	private static long cellKey(final Cell cell) {
+		return CellValueTable.cellKey(cell.getRowIndex(),
+				cell.getColumnIndex());
+	}
+
+	/**
+	 * Read raw value of the cell. Formula cell is evaluated.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the raw value
+	 */
+	private RawValue readRawValue(final Cell cell) {
+		if (rawValue == null) {
+			rawValue = new RawValue();
+		}
+		RawValue raw = rawValue;
+		raw.number = 0;
+		raw.string = null;
+		try {
+			CellType cellType = cell.getCellTypeEnum();
+			if (cellType == CellType.FORMULA) {
+				readFormulaValue(cell, raw);
+				return raw;
+			}
+			switch (cellType) {
+			case NUMERIC:
+				raw.type = CellValueTable.TYPE_NUMERIC;
+				raw.number = cell.getNumericCellValue();
+				break;
+			case STRING:
+				raw.type = CellValueTable.TYPE_STRING;
+				raw.string = cell.getStringCellValue();
+				break;
+			case BOOLEAN:
+				raw.type = CellValueTable.TYPE_BOOLEAN;
+				raw.number = cell.getBooleanCellValue() ? 1 : 0;
+				break;
+			case ERROR:
+				raw.type = CellValueTable.TYPE_ERROR;
+				raw.number = cell.getErrorCellValue();
+				break;
+			default:
+				raw.type = CellValueTable.TYPE_BLANK;
+				break;
+			}
+		} catch (Exception e) {
+			LOG.log(Level.FINE, "read raw cell value error row = "
+					+ cell.getRowIndex() + " column = "
+					+ cell.getColumnIndex() + " error = "
+					+ e.getLocalizedMessage(), e);
+			raw.type = CellValueTable.TYPE_ERROR;
+			raw.number = 0;
+			raw.string = null;
+		}
+		return raw;
+	}
+
+	/**
+	 * Read evaluated value of formula cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param raw
+	 *            the raw value
+	 */
+	private void readFormulaValue(final Cell cell, final RawValue raw) {
+		CellValue value = parent.getFormulaEvaluator().evaluate(cell);
+		if (value == null) {
+			raw.type = CellValueTable.TYPE_BLANK;
+			return;
+		}
+		switch (value.getCellTypeEnum()) {
+		case NUMERIC:
+			raw.type = CellValueTable.TYPE_NUMERIC;
+			raw.number = value.getNumberValue();
+			break;
+		case STRING:
+			raw.type = CellValueTable.TYPE_STRING;
+			raw.string = value.getStringValue();
+			break;
+		case BOOLEAN:
+			raw.type = CellValueTable.TYPE_BOOLEAN;
+			raw.number = value.getBooleanValue() ? 1 : 0;
+			break;
+		case ERROR:
+			raw.type = CellValueTable.TYPE_ERROR;
+			raw.number = value.getErrorValue();
+			break;
+		default:
+			raw.type = CellValueTable.TYPE_BLANK;
+			break;
+		}
+	}
+
 	/**
 	 * Put.
 	 *
@@ -52,114 +180,84 @@ public class CachedCells implements Serializable {
 	 *            the cell type
 	 */
 	public final void put(final Cell cell, final CellType formula) {
-		Map<Cell, FormulaMapping> map = cachedMap;
 		// if cellType not null then only specified Type will be put into Cache
 		// e.g. only formula cell will be cached then pass in
 		// Cell.CELL_TYPE_FORMULA
 		if ((cell != null) && ((formula == null)
 				|| (cell.getCellTypeEnum() == formula))) {
-			String value = CellUtility.getCellValueWithFormat(cell,
-					parent.getFormulaEvaluator(),
-					parent.getDataFormatter());
-			FormulaMapping f = map.get(cell);
-			if (f == null) {
-				f = new FormulaMapping();
-			}
-			f.setValue(value);
-			map.put(cell, f);
+			RawValue raw = readRawValue(cell);
+			cachedTable.put(cellKey(cell), raw.type, raw.number,
+					raw.string);
 		}
 	}
 
 	/**
-	 * Put.
+	 * Checks if the cell is cached.
 	 *
 	 * @param cell
 	 *            the cell
-	 * @param originFormula
-	 *            the origin formula
+	 * @return true, if cached
 	 */
-	public final void put(final Cell cell, final String originFormula) {
-		Map<Cell, FormulaMapping> map = cachedMap;
-		// if cellType not null then only specified Type will be put into Cache
-		// e.g. only formula cell will be cached then pass in
-		// Cell.CELL_TYPE_FORMULA
-		if ((cell != null) && (originFormula != null)) {
-			FormulaMapping f = map.get(cell);
-			if (f == null) {
-				f = new FormulaMapping();
-			}
-			f.setOriginFormula(originFormula);
-			String value = CellUtility.getCellValueWithFormat(cell,
-					parent.getFormulaEvaluator(),
-					parent.getDataFormatter());
-			f.setValue(value);
-			map.put(cell, f);
-		}
+	public final boolean contains(final Cell cell) {
+		return (cell != null) && cachedTable.containsKey(cellKey(cell));
 	}
 
 	/**
-	 * Gets the value.
+	 * Removes the cell from cache.
 	 *
 	 * @param cell
 	 *            the cell
-	 * @return the value
 	 */
-	public final String getValue(final Cell cell) {
-		return cachedMap.get(cell).getValue();
+	public final void remove(final Cell cell) {
+		cachedTable.remove(cellKey(cell));
 	}
 
 	/**
-	 * Clear.
+	 * Shift cached cells of rows along with Sheet.shiftRows. Otherwise the
+	 * cached value of moved cell is compared with the cell now at its old
+	 * position.
+	 *
+	 * @param startRow
+	 *            the start row
+	 * @param endRow
+	 *            the end row
+	 * @param n
+	 *            the number of rows to shift. negative is shift up.
 	 */
-	public final void clear() {
-		cachedMap.clear();
+	public final void shiftRows(final int startRow, final int endRow,
+			final int n) {
+		cachedTable.shiftRows(startRow, endRow, n);
 	}
 
 	/**
-	 * Checks if is value changed.
-	 * 
-	 * @param cell
-	 *            the cell
-	 *
-	 * @return true, if is value changed
+	 * Clear.
 	 */
-	public final boolean isValueChanged(final Cell cell) {
-		String newValue = CellUtility.getCellValueWithFormat(cell,
-				parent.getFormulaEvaluator(), parent.getDataFormatter());
-		return isValueChanged(cell, newValue);
+	public final void clear() {
+		cachedTable.clear();
 	}
 
 	/**
-	 * Checks if is value changed.
-	 * 
+	 * Checks if is value changed. Compare raw value of the cell with cached
+	 * one. Not cached cell is treated as changed.
+	 *
 	 * @param cell
 	 *            the cell
-	 * @param pnewValue
-	 *            the new value
 	 *
 	 * @return true, if is value changed
 	 */
-	public final boolean isValueChanged(final Cell cell,
-			final String pnewValue) {
-		Map<Cell, FormulaMapping> map = cachedMap;
-		String oldValue = map.get(cell).getValue();
-		String newValue = pnewValue;
-		if (oldValue == null) {
-			oldValue = "";
-		}
-		if (newValue == null) {
-			newValue = "";
-		}
-		return (!oldValue.equals(newValue));
+	public final boolean isValueChanged(final Cell cell) {
+		RawValue raw = readRawValue(cell);
+		return !cachedTable.isSameValue(cellKey(cell), raw.type,
+				raw.number, raw.string);
 	}
 
 	/**
-	 * Gets the cached map.
+	 * Cached cells count.
 	 *
-	 * @return the cached map
+	 * @return the size
 	 */
-	public final Map<Cell, FormulaMapping> getCachedMap() {
-		return cachedMap;
+	public final int size() {
+		return cachedTable.size();
 	}
 
 }
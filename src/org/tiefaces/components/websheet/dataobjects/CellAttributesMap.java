@@ -5,6 +5,9 @@
 package org.tiefaces.components.websheet.dataobjects;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -95,6 +98,107 @@ public class CellAttributesMap implements Serializable {
 		this.cellValidateAttributes = pCellValidateAttributes;
 	}
 
+	/**
+	 * Create unmodifiable copy. Used to share the attributes between sessions
+	 * on the same template. Inner maps and lists are copied and wrapped as
+	 * well, and form attributes are copied, so nothing is shared with this
+	 * map.
+	 *
+	 * @return the unmodifiable cell attributes map
+	 */
+	public final CellAttributesMap unmodifiableCopy() {
+		return new CellAttributesMap(unmodifiableMapOfMaps(templateCommentMap),
+				unmodifiableMap(cellInputType),
+				unmodifiableMapOfLists(cellInputAttributes),
+				unmodifiableMapOfMaps(cellSelectItemsAttributes),
+				unmodifiableMap(cellDatePattern),
+				unmodifiableMapOfLists(cellValidateAttributes));
+	}
+
+	/**
+	 * Unmodifiable copy of map.
+	 *
+	 * @param <V>
+	 *            the value type
+	 * @param map
+	 *            the map
+	 * @return the unmodifiable map or null if map is null
+	 */
+	private static <V> Map<String, V> unmodifiableMap(
+			final Map<String, V> map) {
+		if (map == null) {
+			return null;
+		}
+		return Collections.unmodifiableMap(new HashMap<>(map));
+	}
+
+	/**
+	 * Unmodifiable copy of map with unmodifiable copy of inner maps.
+	 *
+	 * @param map
+	 *            the map
+	 * @return the unmodifiable map or null if map is null
+	 */
+	private static Map<String, Map<String, String>> unmodifiableMapOfMaps(
+			final Map<String, Map<String, String>> map) {
+		if (map == null) {
+			return null;
+		}
+		Map<String, Map<String, String>> copy = new HashMap<>();
+		for (Map.Entry<String, Map<String, String>> entry : map
+				.entrySet()) {
+			copy.put(entry.getKey(), unmodifiableMap(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(copy);
+	}
+
+	/**
+	 * Unmodifiable copy of map with unmodifiable copy of inner lists. Form
+	 * attributes in the lists are copied.
+	 *
+	 * @param map
+	 *            the map
+	 * @return the unmodifiable map or null if map is null
+	 */
+	private static Map<String, List<CellFormAttributes>> unmodifiableMapOfLists(
+			final Map<String, List<CellFormAttributes>> map) {
+		if (map == null) {
+			return null;
+		}
+		Map<String, List<CellFormAttributes>> copy = new HashMap<>();
+		for (Map.Entry<String, List<CellFormAttributes>> entry : map
+				.entrySet()) {
+			List<CellFormAttributes> list = null;
+			if (entry.getValue() != null) {
+				list = new ArrayList<>(entry.getValue().size());
+				for (CellFormAttributes attr : entry.getValue()) {
+					list.add(copyOf(attr));
+				}
+				list = Collections.unmodifiableList(list);
+			}
+			copy.put(entry.getKey(), list);
+		}
+		return Collections.unmodifiableMap(copy);
+	}
+
+	/**
+	 * Copy of form attributes.
+	 *
+	 * @param attr
+	 *            the attr
+	 * @return the copy or null if attr is null
+	 */
+	private static CellFormAttributes copyOf(final CellFormAttributes attr) {
+		if (attr == null) {
+			return null;
+		}
+		CellFormAttributes copy = new CellFormAttributes();
+		copy.setType(attr.getType());
+		copy.setValue(attr.getValue());
+		copy.setMessage(attr.getMessage());
+		return copy;
+	}
+
 	/**
 	 * clear all the related maps.
 	 */
@@ -8,8 +8,10 @@ package org.tiefaces.components.websheet.dataobjects;
 import java.io.Serializable;
 import java.text.Format;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
@@ -19,6 +21,7 @@ import javax.faces.context.FacesContext;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.tiefaces.components.websheet.TieWebSheetBean;
+import org.tiefaces.components.websheet.chart.LazyChartImage;
 import org.tiefaces.components.websheet.utility.CellUtility;
 
 /**
@@ -159,37 +162,30 @@ public class CellMap implements Serializable, java.util.Map {
 	}
 
 	/**
-	 * Put picture image to session map and return the key to web.
+	 * Put picture into picture store and return the key to web.
 	 * 
 	 * @param rowIndex
 	 *            the row index of the cell which contains picture.
 	 * @param colIndex
 	 *            the column index of the cell which contains picture.
-	 * @return the key of the picture image in the session map.
+	 * @return the key of the picture in the picture store.
 	 */
 	private String loadPicture(final int rowIndex, final int colIndex) {
 
 		FacesCell facesCell = parent.getCellHelper()
 				.getFacesCellWithRowColFromCurrentPage(rowIndex, colIndex);
 		if (facesCell != null && facesCell.isContainPic()) {
-			FacesContext context = FacesContext.getCurrentInstance();
-			String pictureId = facesCell.getPictureId();
-			String pictureViewId = Integer.toHexString(
-					System.identityHashCode(parent.getWb())) + pictureId;
-			Map<String, Object> sessionMap = context.getExternalContext()
-					.getSessionMap();
-			if (sessionMap.get(pictureViewId) == null) {
-				sessionMap.put(pictureViewId, parent.getPicturesMap()
-						.get(pictureId).getPictureData());
-			}
-			return pictureViewId;
+			return parent.getPicHelper()
+					.getPictureStoreKey(facesCell.getPictureId());
 		} else {
 			return null;
 		}
 	}
 
 	/**
-	 * Put chart image to session map and return the key to web.
+	 * Put lazy chart image to session map and return the key to web. The
+	 * image is rendered in background and picked up from chart image cache
+	 * when browser requests it.
 	 * 
 	 * @param rowIndex
 	 *            the row index of the cell which contains picture.
@@ -205,14 +201,31 @@ public class CellMap implements Serializable, java.util.Map {
 		if (facesCell != null && facesCell.isContainChart()) {
 			FacesContext context = FacesContext.getCurrentInstance();
 			String chartId = facesCell.getChartId();
-			String chartViewId = Integer.toHexString(
+			String chartPrefix = Integer.toHexString(
 					System.identityHashCode(parent.getWb())) + chartId;
+			// versioned, so browser requests new image after chart
+			// refreshed by cell changes.
+			int version = parent.getCharsData().getChartVersion(chartId);
+			String chartViewId = chartPrefix + "_v" + version;
 			if (context != null) {
 				Map<String, Object> sessionMap = context
 						.getExternalContext().getSessionMap();
+				Map<String, String> viewIdMap = parent.getCharsData()
+						.getChartViewIdMap();
+				// versions may be skipped when refreshed several times
+				// between requests, so remove the one really put.
+				String lastViewId = viewIdMap.get(chartId);
+				if ((lastViewId != null) && !lastViewId.equals(chartViewId)) {
+					sessionMap.remove(lastViewId);
+					viewIdMap.remove(chartId);
+				}
 				if (sessionMap.get(chartViewId) == null) {
-					sessionMap.put(chartViewId, parent.getCharsData()
-							.getChartsMap().get(chartId));
+					LazyChartImage chartImage = parent.getChartHelper()
+							.prepareChartImage(chartId);
+					if (chartImage != null) {
+						sessionMap.put(chartViewId, chartImage);
+						viewIdMap.put(chartId, chartViewId);
+					}
 				}
 			}
 			return chartViewId;
@@ -279,22 +292,10 @@ public class CellMap implements Serializable, java.util.Map {
 			if (poiCell == null) {
 				return null;
 			}
-			String oldValue = CellUtility
-					.getCellValueWithoutFormat(poiCell);
 			FacesCell facesCell = parent.getCellHelper()
 					.getFacesCellWithRowColFromCurrentPage(
 							mkey.getRowIndex(), mkey.getColIndex());
-			String newValue = assembleNewValue(value, facesCell);
-			if (newValue != null && !newValue.equals(oldValue)) {
-				CellUtility.setCellValue(poiCell, newValue);
-				if (facesCell.isHasSaveAttr()) {
-					parent.getCellHelper().saveDataInContext(poiCell,
-							newValue);
-				}
-				// patch to avoid not updated downloaded file
-				CellUtility.copyCell(poiCell.getSheet(), poiCell.getRow(), poiCell.getRow(), poiCell.getColumnIndex(),false);
-				parent.getCellHelper().reCalc();
-			}
+			editCell(poiCell, facesCell, value);
 
 			return value;
 		} catch (Exception ex) {
@@ -305,6 +306,81 @@ public class CellMap implements Serializable, java.util.Map {
 		return null;
 	}
 
+	/**
+	 * Edit cell with value from web. If value changed, it's saved into
+	 * context, dependents recalced and charts refreshed.
+	 *
+	 * @param poiCell
+	 *            the poi cell
+	 * @param facesCell
+	 *            the faces cell
+	 * @param value
+	 *            the value
+	 * @return true, if value changed
+	 */
+	public final boolean editCell(final Cell poiCell,
+			final FacesCell facesCell, final Object value) {
+		Cell refreshedCell = writeCellValue(poiCell, facesCell, value);
+		if (refreshedCell == null) {
+			return false;
+		}
+		List<Cell> dependents = parent.getCellHelper()
+				.reCalc(refreshedCell);
+		refreshCharts(refreshedCell, dependents);
+		return true;
+	}
+
+	/**
+	 * Write value from web into cell and save it into context. Nothing is
+	 * recalced or refreshed, caller need do it after all the cells written.
+	 *
+	 * @param poiCell
+	 *            the poi cell
+	 * @param facesCell
+	 *            the faces cell
+	 * @param value
+	 *            the value
+	 * @return the refreshed cell. null if value not changed.
+	 */
+	public final Cell writeCellValue(final Cell poiCell,
+			final FacesCell facesCell, final Object value) {
+		String oldValue = CellUtility.getCellValueWithoutFormat(poiCell);
+		String newValue = assembleNewValue(value, facesCell);
+		if (newValue == null || newValue.equals(oldValue)) {
+			return null;
+		}
+		CellUtility.setCellValue(poiCell, newValue);
+		if (facesCell.isHasSaveAttr()) {
+			parent.getCellHelper().saveDataInContext(poiCell, newValue);
+		}
+		// patch to avoid not updated downloaded file
+		Cell refreshedCell = CellUtility.copyCell(poiCell.getSheet(), poiCell.getRow(), poiCell.getRow(), poiCell.getColumnIndex(),false);
+		parent.getSerialWb().recordCellEdit(refreshedCell);
+		return refreshedCell;
+	}
+
+	/**
+	 * Refresh charts fed by the changed cell or its dependents.
+	 *
+	 * @param changedCell
+	 *            the changed cell
+	 * @param dependents
+	 *            the re-evaluated dependents. null if whole workbook
+	 *            recalced.
+	 */
+	private void refreshCharts(final Cell changedCell,
+			final List<Cell> dependents) {
+		if (parent.getCharsData().getChartDataMap().isEmpty()) {
+			return;
+		}
+		List<Cell> changedCells = null;
+		if (dependents != null) {
+			changedCells = new ArrayList<>(dependents);
+			changedCells.add(changedCell);
+		}
+		parent.getChartHelper().refreshCharts(changedCells);
+	}
+
 	/**
 	 * Assemble new value.
 	 *
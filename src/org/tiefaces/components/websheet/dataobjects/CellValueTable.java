@@ -0,0 +1,387 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table of raw cell values keyed by primitive long cell
+ * key. Values are kept in parallel arrays (type, number and string), so no
+ * entry or boxed key is allocated per cell.
+ *
+ * Linear probing with backward shift deletion is used, so no tombstone is
+ * left after remove.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class CellValueTable implements Serializable {
+
+	/**
+	 * serialVersionUID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/** value type : blank. */
+	public static final byte TYPE_BLANK = 0;
+
+	/** value type : numeric. */
+	public static final byte TYPE_NUMERIC = 1;
+
+	/** value type : string. */
+	public static final byte TYPE_STRING = 2;
+
+	/** value type : boolean. number is 1 for true and 0 for false. */
+	public static final byte TYPE_BOOLEAN = 3;
+
+	/** value type : error. number is the error code. */
+	public static final byte TYPE_ERROR = 4;
+
+	/** empty slot key. cell keys are never negative. */
+	private static final long EMPTY = -1L;
+
+	/** initial capacity. must be power of 2. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** keys. */
+	private long[] keys;
+
+	/** value types. */
+	private byte[] types;
+
+	/** numeric values. */
+	private double[] numbers;
+
+	/** string values. */
+	private String[] strings;
+
+	/** entries count. */
+	private int size;
+
+	/**
+	 * Instantiates a new cell value table.
+	 */
+	public CellValueTable() {
+		super();
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Allocate arrays.
+	 *
+	 * @param capacity
+	 *            the capacity
+	 */
+	private void allocate(final int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		types = new byte[capacity];
+		numbers = new double[capacity];
+		strings = new String[capacity];
+		size = 0;
+	}
+
+	/**
+	 * Cell key for row and column.
+	 *
+	 * @param row
+	 *            the row
+	 * @param col
+	 *            the col
+	 * @return the key
+	 */
+	public static long cellKey(final int row, final int col) {
+		return ((long) row << 16) | (col & 0xFFFF);
+	}
+
+	/**
+	 * Home slot of key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the slot
+	 */
+	private int slotOf(final long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+	}
+
+	/**
+	 * Find slot holding the key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the slot or -1 if not found
+	 */
+	private int find(final long key) {
+		int mask = keys.length - 1;
+		int i = slotOf(key);
+		while (keys[i] != EMPTY) {
+			if (keys[i] == key) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Put value.
+	 *
+	 * @param key
+	 *            the key
+	 * @param type
+	 *            the value type
+	 * @param number
+	 *            the numeric value
+	 * @param string
+	 *            the string value
+	 */
+	public final void put(final long key, final byte type,
+			final double number, final String string) {
+		if ((size + 1) * 4 > keys.length * 3) {
+			rehash(keys.length * 2);
+		}
+		int mask = keys.length - 1;
+		int i = slotOf(key);
+		while ((keys[i] != EMPTY) && (keys[i] != key)) {
+			i = (i + 1) & mask;
+		}
+		if (keys[i] == EMPTY) {
+			keys[i] = key;
+			size++;
+		}
+		types[i] = type;
+		numbers[i] = number;
+		strings[i] = string;
+	}
+
+	/**
+	 * Rehash to new capacity.
+	 *
+	 * @param capacity
+	 *            the capacity
+	 */
+	private void rehash(final int capacity) {
+		long[] oldKeys = keys;
+		byte[] oldTypes = types;
+		double[] oldNumbers = numbers;
+		String[] oldStrings = strings;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				put(oldKeys[i], oldTypes[i], oldNumbers[i], oldStrings[i]);
+			}
+		}
+	}
+
+	/**
+	 * Contains key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return true, if successful
+	 */
+	public final boolean containsKey(final long key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * Whether the cached value equals to the giving value. Return false if
+	 * key not found.
+	 *
+	 * @param key
+	 *            the key
+	 * @param type
+	 *            the value type
+	 * @param number
+	 *            the numeric value
+	 * @param string
+	 *            the string value
+	 * @return true, if same value cached
+	 */
+	public final boolean isSameValue(final long key, final byte type,
+			final double number, final String string) {
+		int i = find(key);
+		if (i < 0) {
+			return false;
+		}
+		if (types[i] != type) {
+			return false;
+		}
+		switch (type) {
+		case TYPE_BLANK:
+			return true;
+		case TYPE_STRING:
+			return (strings[i] == null) ? (string == null)
+					: strings[i].equals(string);
+		default:
+			return Double.compare(numbers[i], number) == 0;
+		}
+	}
+
+	/**
+	 * Gets the value type.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the type or -1 if not found
+	 */
+	public final byte getType(final long key) {
+		int i = find(key);
+		return (i < 0) ? -1 : types[i];
+	}
+
+	/**
+	 * Gets the numeric value.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the number
+	 */
+	public final double getNumber(final long key) {
+		int i = find(key);
+		return (i < 0) ? 0 : numbers[i];
+	}
+
+	/**
+	 * Gets the string value.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the string
+	 */
+	public final String getString(final long key) {
+		int i = find(key);
+		return (i < 0) ? null : strings[i];
+	}
+
+	/**
+	 * Removes the key. Following entries in the same probe chain are shifted
+	 * back.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	public final void remove(final long key) {
+		int i = find(key);
+		if (i < 0) {
+			return;
+		}
+		int mask = keys.length - 1;
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			if (keys[j] == EMPTY) {
+				break;
+			}
+			int home = slotOf(keys[j]);
+			// move entry j back to i if its home slot is not in (i, j]
+			boolean inRange = (i <= j) ? ((i < home) && (home <= j))
+					: ((i < home) || (home <= j));
+			if (!inRange) {
+				keys[i] = keys[j];
+				types[i] = types[j];
+				numbers[i] = numbers[j];
+				strings[i] = strings[j];
+				i = j;
+			}
+		}
+		keys[i] = EMPTY;
+		strings[i] = null;
+		size--;
+	}
+
+	/**
+	 * Shift keys of rows same as Sheet.shiftRows. Entries at destination
+	 * rows are overwritten, so entries of removed rows are dropped when rows
+	 * below are shifted up. Only entries of the shifted and destination rows
+	 * are touched, others stay in their slots.
+	 *
+	 * @param startRow
+	 *            the start row
+	 * @param endRow
+	 *            the end row
+	 * @param n
+	 *            the number of rows to shift. negative is shift up.
+	 */
+	public final void shiftRows(final int startRow, final int endRow,
+			final int n) {
+		if ((n == 0) || (endRow < startRow) || (size == 0)) {
+			return;
+		}
+		int destStart = startRow + n;
+		int destEnd = endRow + n;
+		int affected = 0;
+		int moved = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY) {
+				int row = (int) (keys[i] >>> 16);
+				if ((row >= startRow) && (row <= endRow)) {
+					moved++;
+					affected++;
+				} else if ((row >= destStart) && (row <= destEnd)) {
+					affected++;
+				}
+			}
+		}
+		if (affected == 0) {
+			return;
+		}
+		long[] removedKeys = new long[affected];
+		long[] movedKeys = new long[moved];
+		byte[] movedTypes = new byte[moved];
+		double[] movedNumbers = new double[moved];
+		String[] movedStrings = new String[moved];
+		int r = 0;
+		int m = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY) {
+				int row = (int) (keys[i] >>> 16);
+				boolean isMoved = (row >= startRow) && (row <= endRow);
+				if (isMoved || ((row >= destStart) && (row <= destEnd))) {
+					removedKeys[r++] = keys[i];
+				}
+				if (isMoved) {
+					movedKeys[m] = keys[i];
+					movedTypes[m] = types[i];
+					movedNumbers[m] = numbers[i];
+					movedStrings[m] = strings[i];
+					m++;
+				}
+			}
+		}
+		// remove all first, then put moved entries, so they overwrite
+		// destination.
+		for (long key : removedKeys) {
+			remove(key);
+		}
+		long offset = (long) n << 16;
+		for (int i = 0; i < moved; i++) {
+			if ((int) (movedKeys[i] >>> 16) + n >= 0) {
+				put(movedKeys[i] + offset, movedTypes[i], movedNumbers[i],
+						movedStrings[i]);
+			}
+		}
+	}
+
+	/**
+	 * Clear. Shrink to initial capacity.
+	 */
+	public final void clear() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Entries count.
+	 *
+	 * @return the size
+	 */
+	public final int size() {
+		return size;
+	}
+
+}
@@ -20,8 +20,10 @@ public class FacesRow implements Serializable {
 	 * serialVersionUID.
 	 */
 	private static final long serialVersionUID = -1576241602026457797L;
-	/** row number. */
+	/** row number. relative to block base if the row is in a block. */
 	private int rowIndex;
+	/** block of body rows holding the row. null if not in a block. */
+	private BlockBodyRows.Block block;
 	/** whether the row is visible. */
 	private boolean rendered;
 	/** the row height. */
@@ -49,6 +51,9 @@ public class FacesRow implements Serializable {
 	 * @return the row index
 	 */
 	public final int getRowIndex() {
+		if (block != null) {
+			return block.getBase() + rowIndex;
+		}
 		return rowIndex;
 	}
 	
@@ -59,7 +64,32 @@ public class FacesRow implements Serializable {
 	 *            the new row index
 	 */
 	public final void setRowIndex(final int pRowIndex) {
-		this.rowIndex = pRowIndex;
+		if (block != null) {
+			this.rowIndex = pRowIndex - block.getBase();
+		} else {
+			this.rowIndex = pRowIndex;
+		}
+	}
+
+	/**
+	 * Attach row to block. Row index become base of block plus offset.
+	 *
+	 * @param pblock
+	 *            the block
+	 * @param offset
+	 *            the offset in block
+	 */
+	final void attach(final BlockBodyRows.Block pblock, final int offset) {
+		this.block = pblock;
+		this.rowIndex = offset;
+	}
+
+	/**
+	 * Detach row from block. Current row index is kept.
+	 */
+	final void detach() {
+		this.rowIndex = getRowIndex();
+		this.block = null;
 	}
 	
 	/**
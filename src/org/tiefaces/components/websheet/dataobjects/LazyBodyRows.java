@@ -0,0 +1,345 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.dataobjects;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Body rows list which assemble faces rows on demand.
+ *
+ * Only the rows in the accessed page block (plus prefetch rows) are
+ * assembled. Assembled rows are kept in a access ordered window and the least
+ * recently used rows are released when the window is full. So memory is
+ * bounded by the page size instead of the sheet size.
+ *
+ * Insert and remove only change the size and drop the window, rows will be
+ * re-assembled from the sheet with new row index on next access. Removed row
+ * is assembled first if it's not in the window, so it can be returned.
+ *
+ * Faces cells of released rows are dropped with their validation state. The
+ * assembler validates rows again when they are loaded, so error state of a
+ * re-assembled row is same as in eager mode.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class LazyBodyRows extends AbstractList<FacesRow>
+		implements Serializable {
+
+	/** serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** pages kept in window. previous, current and next page. */
+	private static final int WINDOW_PAGES = 3;
+
+	/**
+	 * Assemble faces row from sheet.
+	 */
+	public interface RowAssembler {
+
+		/**
+		 * Assemble faces row.
+		 *
+		 * @param rowIndex
+		 *            the row index in sheet
+		 * @return the faces row
+		 */
+		FacesRow assembleRow(int rowIndex);
+
+		/**
+		 * Called after the whole block assembled and added to the list. Row
+		 * in the block can be accessed from the list at this time. Used to
+		 * validate the row, which restores error state of released rows.
+		 *
+		 * @param row
+		 *            the faces row
+		 */
+		void rowLoaded(FacesRow row);
+
+		/**
+		 * Called when row dropped from window.
+		 *
+		 * @param row
+		 *            the faces row
+		 */
+		void releaseRow(FacesRow row);
+	}
+
+	/** first row index in sheet. */
+	private int top;
+
+	/** total rows. */
+	private int size;
+
+	/** rows per page. */
+	private int pageSize;
+
+	/** rows assembled ahead of the page block. */
+	private int prefetch;
+
+	/** assembled rows window. key is list index. */
+	private transient LinkedHashMap<Integer, FacesRow> window;
+
+	/** row assembler. */
+	private transient RowAssembler assembler;
+
+	/**
+	 * Instantiates a new lazy body rows.
+	 *
+	 * @param ptop
+	 *            first row index in sheet
+	 * @param psize
+	 *            total rows
+	 * @param ppageSize
+	 *            rows per page
+	 * @param pprefetch
+	 *            rows assembled ahead of the page block
+	 * @param passembler
+	 *            the row assembler
+	 */
+	public LazyBodyRows(final int ptop, final int psize,
+			final int ppageSize, final int pprefetch,
+			final RowAssembler passembler) {
+		super();
+		this.top = ptop;
+		this.size = psize;
+		this.pageSize = Math.max(1, ppageSize);
+		this.prefetch = Math.max(0, pprefetch);
+		this.assembler = passembler;
+	}
+
+	/**
+	 * Gets the window.
+	 *
+	 * @return the window
+	 */
+	private Map<Integer, FacesRow> getWindow() {
+		if (this.window == null) {
+			this.window = new LinkedHashMap<>(16, 0.75f, true);
+		}
+		return this.window;
+	}
+
+	/**
+	 * Max rows kept in window.
+	 *
+	 * @return the capacity
+	 */
+	private int getCapacity() {
+		return pageSize * WINDOW_PAGES + prefetch;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	public final FacesRow get(final int index) {
+		if ((index < 0) || (index >= size)) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + index + ", Size: " + size);
+		}
+		FacesRow row = getWindow().get(index);
+		if (row == null) {
+			loadBlock(index);
+			row = getWindow().get(index);
+		}
+		return row;
+	}
+
+	/**
+	 * Assemble the page block contain the index and prefetch rows.
+	 *
+	 * @param index
+	 *            the index
+	 */
+	private void loadBlock(final int index) {
+		if (assembler == null) {
+			throw new IllegalStateException(
+					"LazyBodyRows has no row assembler.");
+		}
+		int start = (index / pageSize) * pageSize;
+		int end = Math.min(size, start + pageSize + prefetch);
+		List<FacesRow> loaded = new ArrayList<>();
+		for (int i = start; i < end; i++) {
+			if (!getWindow().containsKey(i)) {
+				FacesRow row = assembler.assembleRow(top + i);
+				getWindow().put(i, row);
+				loaded.add(row);
+			}
+		}
+		evict();
+		for (FacesRow row : loaded) {
+			assembler.rowLoaded(row);
+		}
+	}
+
+	/**
+	 * Release least recently used rows when window is full.
+	 */
+	private void evict() {
+		Iterator<FacesRow> it = getWindow().values().iterator();
+		while ((getWindow().size() > getCapacity()) && it.hasNext()) {
+			FacesRow row = it.next();
+			it.remove();
+			if (assembler != null) {
+				assembler.releaseRow(row);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public final int size() {
+		return size;
+	}
+
+	/**
+	 * Insert rows. Rows will be assembled on next access.
+	 *
+	 * @param index
+	 *            the list index of first inserted row
+	 * @param length
+	 *            the length
+	 */
+	public final void insertRows(final int index, final int length) {
+		if ((index < 0) || (index > size)) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + index + ", Size: " + size);
+		}
+		this.size += length;
+		invalidate();
+	}
+
+	/**
+	 * Removes rows.
+	 *
+	 * @param index
+	 *            the list index of first removed row
+	 * @param length
+	 *            the length
+	 */
+	public final void removeRows(final int index, final int length) {
+		if ((index < 0) || (index + length > size)) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + index + ", Size: " + size);
+		}
+		this.size -= length;
+		invalidate();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractList#add(int, java.lang.Object)
+	 */
+	@Override
+	public final void add(final int index, final FacesRow element) {
+		insertRows(index, 1);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractList#remove(int)
+	 */
+	@Override
+	public final FacesRow remove(final int index) {
+		if ((index < 0) || (index >= size)) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + index + ", Size: " + size);
+		}
+		FacesRow row = getWindow().get(index);
+		if (row == null) {
+			row = assembleDetachedRow(index);
+		}
+		removeRows(index, 1);
+		return row;
+	}
+
+	/**
+	 * Assemble single row without putting it into window. The row is
+	 * released right away, so nothing is kept for it.
+	 *
+	 * @param index
+	 *            the index
+	 * @return the faces row
+	 */
+	private FacesRow assembleDetachedRow(final int index) {
+		if (assembler == null) {
+			throw new IllegalStateException(
+					"LazyBodyRows has no row assembler.");
+		}
+		FacesRow row = assembler.assembleRow(top + index);
+		assembler.releaseRow(row);
+		return row;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractList#clear()
+	 */
+	@Override
+	public final void clear() {
+		this.size = 0;
+		invalidate();
+	}
+
+	/**
+	 * Drop all assembled rows.
+	 */
+	public final void invalidate() {
+		for (FacesRow row : getWindow().values()) {
+			if (assembler != null) {
+				assembler.releaseRow(row);
+			}
+		}
+		getWindow().clear();
+		modCount++;
+	}
+
+	/**
+	 * Gets the assembled rows count.
+	 *
+	 * @return the assembled count
+	 */
+	public final int getAssembledCount() {
+		return getWindow().size();
+	}
+
+	/**
+	 * Gets the top.
+	 *
+	 * @return the top
+	 */
+	public final int getTop() {
+		return top;
+	}
+
+	/**
+	 * Sets the assembler. Used to re-attach the assembler after
+	 * deserialization.
+	 *
+	 * @param passembler
+	 *            the new assembler
+	 */
+	public final void setAssembler(final RowAssembler passembler) {
+		this.assembler = passembler;
+	}
+
+}
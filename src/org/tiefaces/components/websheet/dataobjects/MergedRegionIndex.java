@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * Spatial index of merged regions in a sheet.
+ *
+ * Regions are bucketed by each row they cover. Merged regions never overlap,
+ * so regions in the same row bucket have disjoint column ranges and are
+ * sorted by first column. Lookup of a cell is a hash of the row plus a
+ * binary search of the columns.
+ *
+ * Index is a snapshot of the regions. Indexes of loaded sheets are kept by
+ * WorkbookIndexes, which drops them when rows shifted or regions added.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class MergedRegionIndex {
+
+	/** order regions by first column. */
+	private static final Comparator<CellRangeAddress> BY_FIRST_COLUMN = new Comparator<CellRangeAddress>() {
+		@Override
+		public int compare(final CellRangeAddress o1,
+				final CellRangeAddress o2) {
+			return Integer.compare(o1.getFirstColumn(), o2.getFirstColumn());
+		}
+	};
+
+	/** order regions by first row. */
+	private static final Comparator<CellRangeAddress> BY_FIRST_ROW = new Comparator<CellRangeAddress>() {
+		@Override
+		public int compare(final CellRangeAddress o1,
+				final CellRangeAddress o2) {
+			return Integer.compare(o1.getFirstRow(), o2.getFirstRow());
+		}
+	};
+
+	/** regions covering each row. sorted by first column. */
+	private final Map<Integer, CellRangeAddress[]> rowBuckets = new HashMap<>();
+
+	/** all regions sorted by first row. */
+	private final CellRangeAddress[] regions;
+
+	/**
+	 * Instantiates a new merged region index.
+	 *
+	 * @param pregions
+	 *            the merged regions
+	 */
+	public MergedRegionIndex(final List<CellRangeAddress> pregions) {
+		List<CellRangeAddress> list = new ArrayList<>();
+		for (CellRangeAddress caddress : pregions) {
+			if (caddress != null) {
+				list.add(caddress);
+			}
+		}
+		this.regions = list.toArray(new CellRangeAddress[list.size()]);
+		Arrays.sort(this.regions, BY_FIRST_ROW);
+
+		Map<Integer, List<CellRangeAddress>> buckets = new HashMap<>();
+		for (CellRangeAddress caddress : this.regions) {
+			for (int row = caddress.getFirstRow(); row <= caddress
+					.getLastRow(); row++) {
+				List<CellRangeAddress> bucket = buckets.get(row);
+				if (bucket == null) {
+					bucket = new ArrayList<>();
+					buckets.put(row, bucket);
+				}
+				bucket.add(caddress);
+			}
+		}
+		for (Map.Entry<Integer, List<CellRangeAddress>> entry : buckets
+				.entrySet()) {
+			CellRangeAddress[] bucket = entry.getValue().toArray(
+					new CellRangeAddress[entry.getValue().size()]);
+			Arrays.sort(bucket, BY_FIRST_COLUMN);
+			rowBuckets.put(entry.getKey(), bucket);
+		}
+	}
+
+	/**
+	 * Gets the region covering the cell.
+	 *
+	 * @param row
+	 *            the row
+	 * @param col
+	 *            the col
+	 * @return the region or null if the cell is not merged
+	 */
+	public final CellRangeAddress getRegion(final int row, final int col) {
+		CellRangeAddress[] bucket = rowBuckets.get(row);
+		if (bucket == null) {
+			return null;
+		}
+		int low = 0;
+		int high = bucket.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			CellRangeAddress caddress = bucket[mid];
+			if (col < caddress.getFirstColumn()) {
+				high = mid - 1;
+			} else if (col > caddress.getLastColumn()) {
+				low = mid + 1;
+			} else {
+				return caddress;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the region which start from the cell (top left cell of the
+	 * region).
+	 *
+	 * @param row
+	 *            the row
+	 * @param col
+	 *            the col
+	 * @return the region or null
+	 */
+	public final CellRangeAddress getRegionStartAt(final int row,
+			final int col) {
+		CellRangeAddress caddress = getRegion(row, col);
+		if ((caddress != null) && (caddress.getFirstRow() == row)
+				&& (caddress.getFirstColumn() == col)) {
+			return caddress;
+		}
+		return null;
+	}
+
+	/**
+	 * Whether the cell is covered by merged region but not the top left
+	 * cell. Those cells are skipped in web form.
+	 *
+	 * @param row
+	 *            the row
+	 * @param col
+	 *            the col
+	 * @return true, if is skipped
+	 */
+	public final boolean isSkipped(final int row, final int col) {
+		CellRangeAddress caddress = getRegion(row, col);
+		return (caddress != null) && ((caddress.getFirstRow() != row)
+				|| (caddress.getFirstColumn() != col));
+	}
+
+	/**
+	 * Gets the regions within rows.
+	 *
+	 * @param firstRow
+	 *            the first row
+	 * @param lastRow
+	 *            the last row
+	 * @return the regions which first row and last row both between the
+	 *         rows
+	 */
+	public final List<CellRangeAddress> getRegionsWithinRows(
+			final int firstRow, final int lastRow) {
+		// first region with first row >= firstRow
+		int low = 0;
+		int high = regions.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (regions[mid].getFirstRow() < firstRow) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		if ((low >= regions.length)
+				|| (regions[low].getFirstRow() > lastRow)) {
+			return Collections.emptyList();
+		}
+		List<CellRangeAddress> list = new ArrayList<>();
+		for (int i = low; (i < regions.length)
+				&& (regions[i].getFirstRow() <= lastRow); i++) {
+			if (regions[i].getLastRow() <= lastRow) {
+				list.add(regions[i]);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Gets the regions cover any of the rows.
+	 *
+	 * @param firstRow
+	 *            the first row
+	 * @param lastRow
+	 *            the last row
+	 * @return the regions
+	 */
+	public final List<CellRangeAddress> getRegionsCrossRows(
+			final int firstRow, final int lastRow) {
+		if (lastRow < firstRow) {
+			return Collections.emptyList();
+		}
+		if ((lastRow - firstRow) >= regions.length) {
+			// more rows than regions. scan the regions instead.
+			List<CellRangeAddress> list = new ArrayList<>();
+			for (CellRangeAddress caddress : regions) {
+				if (caddress.getFirstRow() > lastRow) {
+					break;
+				}
+				if (caddress.getLastRow() >= firstRow) {
+					list.add(caddress);
+				}
+			}
+			return list;
+		}
+		// region covers the rows is in the bucket of first row, or it starts
+		// at one of the following rows.
+		List<CellRangeAddress> list = new ArrayList<>();
+		for (int row = firstRow; row <= lastRow; row++) {
+			CellRangeAddress[] bucket = rowBuckets.get(row);
+			if (bucket == null) {
+				continue;
+			}
+			for (CellRangeAddress caddress : bucket) {
+				if ((row == firstRow) || (caddress.getFirstRow() == row)) {
+					list.add(caddress);
+				}
+			}
+		}
+		Collections.sort(list, BY_FIRST_ROW);
+		return list;
+	}
+
+	/**
+	 * Regions count.
+	 *
+	 * @return the size
+	 */
+	public final int size() {
+		return regions.length;
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import java.io.Serializable;
+
+import org.tiefaces.common.TieConstants;
+import org.tiefaces.components.websheet.configuration.FullNamePath;
+
+/**
+ * Metadata of a row in web sheet. i.e. the template row it's copied from,
+ * the full name of the command path which built it and the save attributes
+ * of it's cells.
+ *
+ * Save attributes are indexed by column and shared by all the rows copied
+ * from the same template row, so the array must not be changed after set.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class RowMetadata implements Serializable {
+
+	/**
+	 * serialVersionUID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/** origin row index in template. -1 if not set. */
+	private int originRowIndex = -1;
+
+	/** full name. */
+	private FullNamePath fullName;
+
+	/** save attributes indexed by column. null if no save attribute. */
+	private String[] saveAttrs;
+
+	/**
+	 * Instantiates a new row metadata.
+	 */
+	public RowMetadata() {
+		super();
+	}
+
+	/**
+	 * Copy constructor. Save attributes array is shared.
+	 *
+	 * @param source
+	 *            the source
+	 */
+	public RowMetadata(final RowMetadata source) {
+		super();
+		this.originRowIndex = source.originRowIndex;
+		this.fullName = source.fullName;
+		this.saveAttrs = source.saveAttrs;
+	}
+
+	/**
+	 * Gets the origin row index.
+	 *
+	 * @return the origin row index or -1 if not set
+	 */
+	public final int getOriginRowIndex() {
+		return originRowIndex;
+	}
+
+	/**
+	 * Sets the origin row index.
+	 *
+	 * @param poriginRowIndex
+	 *            the new origin row index
+	 */
+	public final void setOriginRowIndex(final int poriginRowIndex) {
+		this.originRowIndex = poriginRowIndex;
+	}
+
+	/**
+	 * Gets the full name.
+	 *
+	 * @return the full name
+	 */
+	public final String getFullName() {
+		if (fullName == null) {
+			return null;
+		}
+		return fullName.toString();
+	}
+
+	/**
+	 * Sets the full name.
+	 *
+	 * @param pfullName
+	 *            the new full name
+	 */
+	public final void setFullName(final String pfullName) {
+		this.fullName = FullNamePath.parse(pfullName);
+	}
+
+	/**
+	 * Gets the full name path.
+	 *
+	 * @return the full name path
+	 */
+	public final FullNamePath getFullNamePath() {
+		return fullName;
+	}
+
+	/**
+	 * Sets the full name path.
+	 *
+	 * @param pfullName
+	 *            the new full name path
+	 */
+	public final void setFullNamePath(final FullNamePath pfullName) {
+		this.fullName = pfullName;
+	}
+
+	/**
+	 * Gets the save attributes indexed by column.
+	 *
+	 * @return the save attributes or null
+	 */
+	public final String[] getSaveAttrs() {
+		return saveAttrs;
+	}
+
+	/**
+	 * Sets the save attributes indexed by column.
+	 *
+	 * @param psaveAttrs
+	 *            the new save attributes
+	 */
+	public final void setSaveAttrs(final String[] psaveAttrs) {
+		this.saveAttrs = psaveAttrs;
+	}
+
+	/**
+	 * Gets the save attribute of the column.
+	 *
+	 * @param columnIndex
+	 *            the column index
+	 * @return the save attribute or null
+	 */
+	public final String getSaveAttr(final int columnIndex) {
+		if ((saveAttrs == null) || (columnIndex < 0)
+				|| (columnIndex >= saveAttrs.length)) {
+			return null;
+		}
+		return saveAttrs[columnIndex];
+	}
+
+	/**
+	 * Whether the row has any save attribute.
+	 *
+	 * @return true, if successful
+	 */
+	public final boolean hasSaveAttrs() {
+		return saveAttrs != null;
+	}
+
+	/**
+	 * Format save attributes as list. e.g. $0=employee.name,$1=employee.age,
+	 *
+	 * @return the save attribute list or null if no save attribute
+	 */
+	public final String getSaveAttrList() {
+		if (saveAttrs == null) {
+			return null;
+		}
+		StringBuilder list = new StringBuilder();
+		for (int i = 0; i < saveAttrs.length; i++) {
+			if (saveAttrs[i] != null) {
+				list.append(TieConstants.CELL_ADDR_PRE_FIX).append(i)
+						.append('=').append(saveAttrs[i]).append(',');
+			}
+		}
+		return list.toString();
+	}
+
+}
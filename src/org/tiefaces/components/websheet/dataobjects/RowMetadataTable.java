@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Row metadata of a sheet indexed by row number.
+ *
+ * Metadata is kept aside of the workbook, so it never goes into exported
+ * file. Tables are owned by WorkbookIndexes of the workbook, which keeps
+ * them consistent with the sheets when rows are shifted, copied or
+ * removed.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class RowMetadataTable implements Serializable {
+
+	/**
+	 * serialVersionUID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/** initial capacity. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** metadata indexed by row number. */
+	private RowMetadata[] rows = new RowMetadata[INITIAL_CAPACITY];
+
+	/**
+	 * Gets metadata of the row.
+	 *
+	 * @param rowIndex
+	 *            the row index
+	 * @return the row metadata or null
+	 */
+	public final RowMetadata get(final int rowIndex) {
+		if ((rowIndex < 0) || (rowIndex >= rows.length)) {
+			return null;
+		}
+		return rows[rowIndex];
+	}
+
+	/**
+	 * Gets metadata of the row. Create one if not exist.
+	 *
+	 * @param rowIndex
+	 *            the row index
+	 * @return the row metadata
+	 */
+	public final RowMetadata getOrCreate(final int rowIndex) {
+		ensureCapacity(rowIndex + 1);
+		RowMetadata metadata = rows[rowIndex];
+		if (metadata == null) {
+			metadata = new RowMetadata();
+			rows[rowIndex] = metadata;
+		}
+		return metadata;
+	}
+
+	/**
+	 * Sets metadata of the row.
+	 *
+	 * @param rowIndex
+	 *            the row index
+	 * @param metadata
+	 *            the metadata. null to remove.
+	 */
+	public final void set(final int rowIndex, final RowMetadata metadata) {
+		if (metadata == null) {
+			remove(rowIndex);
+			return;
+		}
+		ensureCapacity(rowIndex + 1);
+		rows[rowIndex] = metadata;
+	}
+
+	/**
+	 * Removes metadata of the row.
+	 *
+	 * @param rowIndex
+	 *            the row index
+	 */
+	public final void remove(final int rowIndex) {
+		if ((rowIndex >= 0) && (rowIndex < rows.length)) {
+			rows[rowIndex] = null;
+		}
+	}
+
+	/**
+	 * Shift metadata of rows same as Sheet.shiftRows. Rows at destination
+	 * are overwritten and rows left behind are cleared.
+	 *
+	 * @param startRow
+	 *            the start row
+	 * @param endRow
+	 *            the end row
+	 * @param n
+	 *            the number of rows to shift. negative is shift up.
+	 */
+	public final void shiftRows(final int startRow, final int endRow,
+			final int n) {
+		if ((n == 0) || (endRow < startRow) || (startRow + n < 0)) {
+			return;
+		}
+		ensureCapacity(Math.max(endRow, endRow + n) + 1);
+		System.arraycopy(rows, startRow, rows, startRow + n,
+				endRow - startRow + 1);
+		if (n > 0) {
+			Arrays.fill(rows, startRow, Math.min(startRow + n, endRow + 1),
+					null);
+		} else {
+			Arrays.fill(rows, Math.max(endRow + n + 1, startRow), endRow + 1,
+					null);
+		}
+	}
+
+	/**
+	 * Copy of the table. Metadata of each row is copied.
+	 *
+	 * @return the row metadata table
+	 */
+	public final RowMetadataTable copy() {
+		RowMetadataTable table = new RowMetadataTable();
+		table.rows = new RowMetadata[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			if (rows[i] != null) {
+				table.rows[i] = new RowMetadata(rows[i]);
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Ensure capacity.
+	 *
+	 * @param capacity
+	 *            the capacity
+	 */
+	private void ensureCapacity(final int capacity) {
+		if (capacity > rows.length) {
+			rows = Arrays.copyOf(rows,
+					Math.max(capacity, rows.length + (rows.length >> 1)));
+		}
+	}
+
+}
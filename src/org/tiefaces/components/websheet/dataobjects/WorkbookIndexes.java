@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * Indexes of sheets in one workbook.
+ *
+ * Owned by the workbook holder (e.g. serial workbook of websheet bean), so
+ * it is used by one session only and not synchronized. Row metadata of the
+ * sheets are kept here too. Rows shift, rows removal and merged regions
+ * change of the sheets should go through this class to keep the indexes and
+ * row metadata consistent.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class WorkbookIndexes {
+
+	/** merged region indexes of sheets. built on first use. */
+	private final Map<Sheet, MergedRegionIndex> mergedRegionIndexes = new IdentityHashMap<>();
+
+	/** row metadata tables of sheets. */
+	private final Map<Sheet, RowMetadataTable> rowMetadataTables = new IdentityHashMap<>();
+
+	/**
+	 * Gets index of merged regions in the sheet. Built on first use and kept
+	 * until merged regions of the sheet changed.
+	 *
+	 * @param sheet
+	 *            the sheet
+	 * @return the merged region index
+	 */
+	public final MergedRegionIndex getMergedRegions(final Sheet sheet) {
+		MergedRegionIndex index = mergedRegionIndexes.get(sheet);
+		if (index == null) {
+			index = new MergedRegionIndex(sheet.getMergedRegions());
+			mergedRegionIndexes.put(sheet, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the row metadata table of the sheet. Create one if not exist.
+	 *
+	 * @param sheet
+	 *            the sheet
+	 * @return the row metadata table
+	 */
+	public final RowMetadataTable getRowMetadataTable(final Sheet sheet) {
+		RowMetadataTable table = rowMetadataTables.get(sheet);
+		if (table == null) {
+			table = new RowMetadataTable();
+			rowMetadataTables.put(sheet, table);
+		}
+		return table;
+	}
+
+	/**
+	 * Gets metadata of the row.
+	 *
+	 * @param row
+	 *            the row
+	 * @return the row metadata or null
+	 */
+	public final RowMetadata getRowMetadata(final Row row) {
+		if (row == null) {
+			return null;
+		}
+		RowMetadataTable table = rowMetadataTables.get(row.getSheet());
+		if (table == null) {
+			return null;
+		}
+		return table.get(row.getRowNum());
+	}
+
+	/**
+	 * Gets metadata of the row. Create one if not exist.
+	 *
+	 * @param row
+	 *            the row
+	 * @return the row metadata
+	 */
+	public final RowMetadata getOrCreateRowMetadata(final Row row) {
+		return getRowMetadataTable(row.getSheet())
+				.getOrCreate(row.getRowNum());
+	}
+
+	/**
+	 * Shift rows in the sheet. Same as Sheet.shiftRows, row metadata are
+	 * shifted together.
+	 *
+	 * @param sheet
+	 *            the sheet
+	 * @param startRow
+	 *            the start row
+	 * @param endRow
+	 *            the end row
+	 * @param n
+	 *            the number of rows to shift. negative is shift up.
+	 * @param copyRowHeight
+	 *            whether to copy the row height during the shift
+	 * @param resetOriginalRowHeight
+	 *            whether to set the original row's height to the default
+	 */
+	public final void shiftRows(final Sheet sheet, final int startRow,
+			final int endRow, final int n, final boolean copyRowHeight,
+			final boolean resetOriginalRowHeight) {
+		sheet.shiftRows(startRow, endRow, n, copyRowHeight,
+				resetOriginalRowHeight);
+		mergedRegionIndexes.remove(sheet);
+		RowMetadataTable table = rowMetadataTables.get(sheet);
+		if (table != null) {
+			table.shiftRows(startRow, endRow, n);
+		}
+	}
+
+	/**
+	 * Remove the row and its metadata from the sheet. Rows below are not
+	 * shifted.
+	 *
+	 * @param sheet
+	 *            the sheet
+	 * @param rowIndex
+	 *            the row index
+	 */
+	public final void removeRow(final Sheet sheet, final int rowIndex) {
+		Row row = sheet.getRow(rowIndex);
+		if (row != null) {
+			sheet.removeRow(row);
+		}
+		RowMetadataTable table = rowMetadataTables.get(sheet);
+		if (table != null) {
+			table.remove(rowIndex);
+		}
+	}
+
+	/**
+	 * Copy row metadata of the source sheet to the cloned sheet.
+	 *
+	 * @param srcSheet
+	 *            the src sheet
+	 * @param destSheet
+	 *            the dest sheet
+	 */
+	public final void copySheet(final Sheet srcSheet, final Sheet destSheet) {
+		RowMetadataTable table = rowMetadataTables.get(srcSheet);
+		if (table != null) {
+			rowMetadataTables.put(destSheet, table.copy());
+		}
+	}
+
+	/**
+	 * Collect row metadata tables of the workbook by sheet name. Used for
+	 * serialization.
+	 *
+	 * @param wb
+	 *            the wb
+	 * @return the map
+	 */
+	public final Map<String, RowMetadataTable> snapshot(final Workbook wb) {
+		Map<String, RowMetadataTable> map = new HashMap<>();
+		for (int i = 0; i < wb.getNumberOfSheets(); i++) {
+			Sheet sheet = wb.getSheetAt(i);
+			RowMetadataTable table = rowMetadataTables.get(sheet);
+			if (table != null) {
+				map.put(sheet.getSheetName(), table);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Set row metadata tables to sheets of the workbook by sheet name. Used
+	 * after deserialization.
+	 *
+	 * @param wb
+	 *            the wb
+	 * @param tables
+	 *            the tables
+	 */
+	public final void restore(final Workbook wb,
+			final Map<String, RowMetadataTable> tables) {
+		if (tables == null) {
+			return;
+		}
+		for (Map.Entry<String, RowMetadataTable> entry : tables.entrySet()) {
+			Sheet sheet = wb.getSheet(entry.getKey());
+			if (sheet != null) {
+				rowMetadataTables.put(sheet, entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Add merged region to the sheet.
+	 *
+	 * @param sheet
+	 *            the sheet
+	 * @param region
+	 *            the region
+	 * @param unsafe
+	 *            skip the overlap check. only when caller makes sure the
+	 *            region doesn't overlap others.
+	 */
+	public final void addMergedRegion(final Sheet sheet,
+			final CellRangeAddress region, final boolean unsafe) {
+		if (unsafe) {
+			sheet.addMergedRegionUnsafe(region);
+		} else {
+			sheet.addMergedRegion(region);
+		}
+		mergedRegionIndexes.remove(sheet);
+	}
+
+	/**
+	 * Drop merged region index of the sheet. Must be called after merged
+	 * regions of the sheet changed outside of this class.
+	 *
+	 * @param sheet
+	 *            the sheet
+	 */
+	public final void invalidate(final Sheet sheet) {
+		mergedRegionIndexes.remove(sheet);
+	}
+
+	/**
+	 * Drop all indexes and row metadata.
+	 */
+	public final void clear() {
+		mergedRegionIndexes.clear();
+		rowMetadataTables.clear();
+	}
+
+}
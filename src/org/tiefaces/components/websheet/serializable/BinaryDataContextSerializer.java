@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.serializable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Default data context serializer. Use java binary serialization which keep
+ * the object types. If any object in the context is not serializable, fall
+ * back to compact json.
+ * 
+ * The first byte of the data is the format tag.
+ * 
+ * @author Jason Jiang
+ *
+ */
+public class BinaryDataContextSerializer implements DataContextSerializer {
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(BinaryDataContextSerializer.class.getName());
+
+	/** format tag for java serialization. */
+	private static final byte FORMAT_BINARY = 'B';
+
+	/** format tag for json. */
+	private static final byte FORMAT_JSON = 'J';
+
+	/** fall back serializer. */
+	private static final GsonDataContextSerializer JSON_SERIALIZER = new GsonDataContextSerializer();
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.tiefaces.components.websheet.serializable.DataContextSerializer
+	 * #serialize(java.util.Map)
+	 */
+	@Override
+	public final byte[] serialize(final Map<String, Object> dataContext)
+			throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		bos.write(FORMAT_BINARY);
+		try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+			out.writeObject(dataContext);
+		} catch (NotSerializableException e) {
+			// message of NotSerializableException is the class name.
+			LOG.log(Level.WARNING,
+					"data context not serializable, use json instead which"
+							+ " does not keep object types. class = "
+							+ e.getMessage());
+			byte[] json = JSON_SERIALIZER.serialize(dataContext);
+			byte[] data = new byte[json.length + 1];
+			data[0] = FORMAT_JSON;
+			System.arraycopy(json, 0, data, 1, json.length);
+			return data;
+		}
+		return bos.toByteArray();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.tiefaces.components.websheet.serializable.DataContextSerializer
+	 * #deserialize(byte[])
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public final Map<String, Object> deserialize(final byte[] data)
+			throws IOException {
+		if ((data == null) || (data.length == 0)) {
+			return null;
+		}
+		if (data[0] == FORMAT_JSON) {
+			return JSON_SERIALIZER
+					.deserialize(Arrays.copyOfRange(data, 1, data.length));
+		}
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(data, 1, data.length - 1))) {
+			return (Map<String, Object>) in.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.serializable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Serializer for data context held in session.
+ * 
+ * Implementation must be thread safe and have public no-arg constructor.
+ * Instance is reused for all sessions. The class name is saved with the
+ * serialized data, so it's used for reading even after the default
+ * serializer changed.
+ * 
+ * @author Jason Jiang
+ *
+ */
+public interface DataContextSerializer {
+
+	/**
+	 * Serialize data context.
+	 *
+	 * @param dataContext
+	 *            the data context
+	 * @return the bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	byte[] serialize(Map<String, Object> dataContext) throws IOException;
+
+	/**
+	 * Deserialize data context.
+	 *
+	 * @param data
+	 *            the bytes
+	 * @return the data context
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	Map<String, Object> deserialize(byte[] data) throws IOException;
+
+}
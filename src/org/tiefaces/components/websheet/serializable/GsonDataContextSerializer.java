@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.serializable;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Serialize data context to compact json. Objects are restored as maps and
+ * lists, so types are not preserved. Support objects not serializable.
+ * 
+ * @author Jason Jiang
+ *
+ */
+public class GsonDataContextSerializer implements DataContextSerializer {
+
+	/** gson is thread safe. shared by all instances. */
+	private static final Gson GSON = new Gson();
+
+	/** type of data context. */
+	private static final Type CONTEXT_TYPE = new TypeToken<Map<String, Object>>() {
+	}.getType();
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.tiefaces.components.websheet.serializable.DataContextSerializer
+	 * #serialize(java.util.Map)
+	 */
+	@Override
+	public final byte[] serialize(final Map<String, Object> dataContext) {
+		return GSON.toJson(dataContext).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.tiefaces.components.websheet.serializable.DataContextSerializer
+	 * #deserialize(byte[])
+	 */
+	@Override
+	public final Map<String, Object> deserialize(final byte[] data) {
+		return GSON.fromJson(new String(data, StandardCharsets.UTF_8),
+				CONTEXT_TYPE);
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.serializable;
+
+import java.io.Serializable;
+
+/**
+ * Cell value edited by user. Saved in delta serialization of workbook.
+ * 
+ * @author Jason Jiang
+ *
+ */
+public class SerialCellEdit implements Serializable {
+
+	/**
+	 * serialVersionUID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/** sheet name. */
+	private final String sheetName;
+
+	/** cell address. */
+	private final SerialCellAddress address;
+
+	/** cell value. */
+	private final String value;
+
+	/**
+	 * Instantiates a new serial cell edit.
+	 *
+	 * @param psheetName
+	 *            the sheet name
+	 * @param prow
+	 *            the row
+	 * @param pcol
+	 *            the col
+	 * @param pvalue
+	 *            the value
+	 */
+	public SerialCellEdit(final String psheetName, final int prow,
+			final int pcol, final String pvalue) {
+		super();
+		this.sheetName = psheetName;
+		this.address = new SerialCellAddress(prow, pcol);
+		this.value = pvalue;
+	}
+
+	/**
+	 * Gets the sheet name.
+	 *
+	 * @return the sheet name
+	 */
+	public final String getSheetName() {
+		return sheetName;
+	}
+
+	/**
+	 * Gets the row.
+	 *
+	 * @return the row
+	 */
+	public final int getRow() {
+		return address.getRow();
+	}
+
+	/**
+	 * Gets the col.
+	 *
+	 * @return the col
+	 */
+	public final int getCol() {
+		return address.getColumn();
+	}
+
+	/**
+	 * Gets the value.
+	 *
+	 * @return the value
+	 */
+	public final String getValue() {
+		return value;
+	}
+
+}
@@ -6,14 +6,11 @@ package org.tiefaces.components.websheet.serializable;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.lang.reflect.Type;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.poi.EncryptedDocumentException;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 
 /**
  * serialize workbook.
@@ -32,13 +29,91 @@ public class SerialDataContext implements Serializable {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/** serializer used for new saving. */
+	private static volatile DataContextSerializer serializer = new BinaryDataContextSerializer();
+
+	/**
+	 * registered serializer instances by class name. only these are used for
+	 * reading, class names from the stream are never instantiated.
+	 */
+	private static final Map<String, DataContextSerializer> SERIALIZERS = new ConcurrentHashMap<>();
+
+	static {
+		register(serializer);
+		register(new GsonDataContextSerializer());
+	}
+
 	/**
 	 * data context map is transient.
 	 */
 	private transient Map<String, Object> dataContext;
 
-	/** convert map to json string. */
-	private String mapToJson;
+	/** serialized data context. */
+	private byte[] contextData;
+
+	/** class name of serializer which saved the context data. */
+	private String serializerName;
+
+	/**
+	 * Gets the serializer used for new saving.
+	 *
+	 * @return the serializer
+	 */
+	public static DataContextSerializer getSerializer() {
+		return serializer;
+	}
+
+	/**
+	 * Sets the serializer used for new saving. Application wide. The
+	 * serializer is also registered for reading the data saved by it, so set
+	 * it again on start up before sessions are restored.
+	 * 
+	 * Delta serialization rebuilds the workbook by binding the restored data
+	 * context into template, so it needs a serializer which keeps the object
+	 * types. e.g. the default binary serializer with serializable objects. A
+	 * json serializer restores plain maps, so bound values and the objects
+	 * seen by application lose their types.
+	 *
+	 * @param pserializer
+	 *            the new serializer
+	 */
+	public static void setSerializer(
+			final DataContextSerializer pserializer) {
+		register(pserializer);
+		serializer = pserializer;
+	}
+
+	/**
+	 * Register serializer for reading.
+	 *
+	 * @param pserializer
+	 *            the serializer
+	 */
+	private static void register(final DataContextSerializer pserializer) {
+		SERIALIZERS.put(pserializer.getClass().getName(), pserializer);
+	}
+
+	/**
+	 * Find registered serializer by class name.
+	 *
+	 * @param name
+	 *            the class name
+	 * @return the data context serializer
+	 * @throws IOException
+	 *             serializer is not registered.
+	 */
+	private static DataContextSerializer findSerializer(final String name)
+			throws IOException {
+		DataContextSerializer found = null;
+		if (name != null) {
+			found = SERIALIZERS.get(name);
+		}
+		if (found == null) {
+			throw new IOException(
+					"data context serializer not registered : " + name);
+		}
+		return found;
+	}
 
 	/**
 	 * save the workbook before serialize.
@@ -50,9 +125,17 @@ public class SerialDataContext implements Serializable {
 	 */
 	private void writeObject(final java.io.ObjectOutputStream out)
 			throws IOException {
-		Gson objGson = new GsonBuilder().setPrettyPrinting().create();
-		this.mapToJson = objGson.toJson(this.dataContext);
+		if (this.dataContext != null) {
+			DataContextSerializer current = serializer;
+			this.serializerName = current.getClass().getName();
+			this.contextData = current.serialize(this.dataContext);
+		} else {
+			this.serializerName = null;
+			this.contextData = null;
+		}
 		out.defaultWriteObject();
+		// release the copy after written.
+		this.contextData = null;
 	}
 
 	/**
@@ -67,10 +150,11 @@ public class SerialDataContext implements Serializable {
 			throws IOException {
 		try {
 			in.defaultReadObject();
-			Gson objGson = new GsonBuilder().setPrettyPrinting().create();
-			Type listType = new TypeToken<Map<String, Object>>() {
-			}.getType();
-			this.dataContext = objGson.fromJson(mapToJson, listType);
+			if (this.contextData != null) {
+				this.dataContext = findSerializer(this.serializerName)
+						.deserialize(this.contextData);
+				this.contextData = null;
+			}
 		} catch (EncryptedDocumentException | ClassNotFoundException e) {
 			LOG.log(Level.SEVERE,
 					" error in readObject of serialWorkbook : "
@@ -6,20 +6,38 @@ package org.tiefaces.components.websheet.serializable;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.tiefaces.components.websheet.configuration.SheetConfiguration;
+import org.tiefaces.components.websheet.dataobjects.RowMetadataTable;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
+import org.tiefaces.components.websheet.utility.CellUtility;
 
 /**
  * serialize workbook.
  * 
+ * In full mode the whole workbook and sheet configurations are saved. In
+ * delta mode (workbook loaded from template cache) only the template key
+ * and cells edited by user are saved. The workbook is rebuilt from template
+ * and data context by the websheet bean after deserialization, then the
+ * edits are applied.
+ * 
  * @author Jason Jiang
  *
  */
@@ -32,17 +50,36 @@ public class SerialWorkbook implements Serializable {
 	/**
 	 * serial id.
 	 */
-	private static final long serialVersionUID = 4711304873642901753L;
+	private static final long serialVersionUID = -3306203718546104713L;
 
 	/**
 	 * workbook is transient.
 	 */
 	private transient Workbook wb;
 
-	/** hold configuration for each sheet. */
-	private Map<String, SheetConfiguration> sheetConfigMap;
+	/** hold configuration for each sheet. saved in full mode only. */
+	private transient Map<String, SheetConfiguration> sheetConfigMap;
+
+	/** template id. only set when loaded from template cache. */
+	private String templateId;
+
+	/** template cache key. only set when loaded from template cache. */
+	private String templateKey;
+
+	/** whether delta mode enabled. */
+	private boolean deltaMode = false;
+
+	/** whether last saving is delta. */
+	private boolean deltaSaved = false;
 
+	/** cell edits saved in delta mode. */
+	private List<SerialCellEdit> cellEdits;
 
+	/** cells edited by user since loaded. */
+	private transient Set<Cell> editedCells;
+
+	/** indexes of sheets in the workbook. */
+	private transient WorkbookIndexes indexes;
 
 	/**
 	 * save the workbook before serialize.
@@ -54,12 +91,59 @@ public class SerialWorkbook implements Serializable {
 	 */
 	private void writeObject(final java.io.ObjectOutputStream out)
 			throws IOException {
-		out.defaultWriteObject();
-		if (wb != null) {
-			wb.write(out);
+		// workbook not rebuilt yet since last delta loading. keep the edits.
+		boolean pending = isDeltaPending();
+		boolean saveDelta = pending
+				|| (deltaMode && (templateKey != null) && (wb != null));
+		List<SerialCellEdit> edits = null;
+		if (pending) {
+			edits = this.cellEdits;
+		} else if (saveDelta) {
+			edits = collectCellEdits();
+		}
+		java.io.ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("templateId", templateId);
+		fields.put("templateKey", templateKey);
+		fields.put("deltaMode", deltaMode);
+		fields.put("deltaSaved", saveDelta);
+		fields.put("cellEdits", edits);
+		out.writeFields();
+		if (!saveDelta) {
+			out.writeObject(sheetConfigMap);
+			out.writeBoolean(wb != null);
+			if (wb != null) {
+				// row metadata is kept aside of workbook. write it before
+				// workbook as workbook reader may read ahead.
+				out.writeObject(getIndexes().snapshot(wb));
+				wb.write(out);
+			}
 		}
 	}
 
+	/**
+	 * Collect current values of edited cells. Cells removed from sheet (e.g.
+	 * row deleted) are skipped.
+	 *
+	 * @return the list of cell edits
+	 */
+	private List<SerialCellEdit> collectCellEdits() {
+		Map<String, SerialCellEdit> map = new LinkedHashMap<>();
+		for (Cell cell : getEditedCells()) {
+			Row row = cell.getRow();
+			Sheet sheet = cell.getSheet();
+			if ((sheet.getRow(row.getRowNum()) == row) && (row
+					.getCell(cell.getColumnIndex()) == cell)) {
+				String key = sheet.getSheetName() + "!"
+						+ CellUtility.getCellIndexNumberKey(
+								cell.getColumnIndex(), cell.getRowIndex());
+				map.put(key, new SerialCellEdit(sheet.getSheetName(),
+						cell.getRowIndex(), cell.getColumnIndex(),
+						CellUtility.getCellValueWithoutFormat(cell)));
+			}
+		}
+		return new ArrayList<>(map.values());
+	}
+
 	/**
 	 * load the workbook from saving.
 	 * 
@@ -68,12 +152,25 @@ public class SerialWorkbook implements Serializable {
 	 * @throws IOException
 	 *             io exception.
 	 */
+	@SuppressWarnings("unchecked")
 	private void readObject(final java.io.ObjectInputStream in)
 			throws IOException {
 		try {
 			in.defaultReadObject();
-			wb = WorkbookFactory.create(in);
-			recover();
+			if (this.deltaSaved) {
+				// workbook will be rebuilt by websheet bean.
+				return;
+			}
+			sheetConfigMap = (Map<String, SheetConfiguration>) in.readObject();
+			if (in.readBoolean()) {
+				Map<String, RowMetadataTable> rowMetadata = (Map<String, RowMetadataTable>) in
+						.readObject();
+				wb = WorkbookFactory.create(in);
+				getIndexes().restore(wb, rowMetadata);
+				if (sheetConfigMap != null) {
+					recover();
+				}
+			}
 		} catch (EncryptedDocumentException | InvalidFormatException
 				| ClassNotFoundException e) {
 			LOG.log(Level.SEVERE,
@@ -83,6 +180,101 @@ public class SerialWorkbook implements Serializable {
 		}
 	}
 
+	/**
+	 * Whether the workbook is waiting for rebuilt from template after delta
+	 * deserialization.
+	 *
+	 * @return true, if is delta pending
+	 */
+	public final boolean isDeltaPending() {
+		return this.deltaSaved && (this.wb == null);
+	}
+
+	/**
+	 * Record cell edited by user.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	public final void recordCellEdit(final Cell cell) {
+		if (deltaMode && (cell != null)) {
+			getEditedCells().add(cell);
+		}
+	}
+
+	/**
+	 * Apply cell edits saved in delta mode to the rebuilt workbook.
+	 */
+	public final void applyCellEdits() {
+		if ((cellEdits == null) || (wb == null)) {
+			return;
+		}
+		for (SerialCellEdit edit : cellEdits) {
+			Sheet sheet = wb.getSheet(edit.getSheetName());
+			if (sheet == null) {
+				continue;
+			}
+			Row row = sheet.getRow(edit.getRow());
+			if (row == null) {
+				row = sheet.createRow(edit.getRow());
+			}
+			Cell cell = row.getCell(edit.getCol(),
+					MissingCellPolicy.CREATE_NULL_AS_BLANK);
+			CellUtility.setCellValue(cell, edit.getValue());
+			recordCellEdit(cell);
+		}
+		cellEdits = null;
+		deltaSaved = false;
+	}
+
+	/**
+	 * Gets the edited cells.
+	 *
+	 * @return the edited cells
+	 */
+	private Set<Cell> getEditedCells() {
+		if (this.editedCells == null) {
+			this.editedCells = new LinkedHashSet<>();
+		}
+		return this.editedCells;
+	}
+
+	/**
+	 * Set template loaded from template cache. Clear all the edits.
+	 *
+	 * @param ptemplateId
+	 *            the template id
+	 * @param ptemplateKey
+	 *            the template cache key
+	 * @param pdeltaMode
+	 *            whether delta mode enabled
+	 */
+	public final void setTemplate(final String ptemplateId,
+			final String ptemplateKey, final boolean pdeltaMode) {
+		this.templateId = ptemplateId;
+		this.templateKey = ptemplateKey;
+		this.deltaMode = pdeltaMode && (ptemplateKey != null);
+		this.editedCells = null;
+	}
+
+	/**
+	 * Gets the template id.
+	 *
+	 * @return the template id
+	 */
+	public final String getTemplateId() {
+		return templateId;
+	}
+
+	/**
+	 * Gets the template key.
+	 *
+	 * @return the template key
+	 */
+	public final String getTemplateKey() {
+		return templateKey;
+	}
+
 	/**
 	 * Gets the wb.
 	 *
@@ -93,13 +285,43 @@ public class SerialWorkbook implements Serializable {
 	}
 
 	/**
-	 * set wb.
+	 * set wb. Indexes are dropped if it's another workbook.
 	 * 
 	 * @param pwb
 	 *            the wb to set.
 	 */
 	public final void setWb(final Workbook pwb) {
+		if (pwb != this.wb) {
+			this.indexes = null;
+		}
+		this.wb = pwb;
+	}
+
+	/**
+	 * Set wb with the indexes built for it. e.g. workbook and row metadata
+	 * restored from template cache.
+	 *
+	 * @param pwb
+	 *            the wb to set.
+	 * @param pindexes
+	 *            the indexes of the wb.
+	 */
+	public final void setWb(final Workbook pwb,
+			final WorkbookIndexes pindexes) {
 		this.wb = pwb;
+		this.indexes = pindexes;
+	}
+
+	/**
+	 * Gets the indexes of sheets in the workbook.
+	 *
+	 * @return the workbook indexes
+	 */
+	public final WorkbookIndexes getIndexes() {
+		if (this.indexes == null) {
+			this.indexes = new WorkbookIndexes();
+		}
+		return this.indexes;
 	}
 
 	/**
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.tiefaces.common.TieConstants;
+import org.tiefaces.components.websheet.configuration.ConfigBuildRef;
+import org.tiefaces.components.websheet.configuration.ConfigurationHandler;
+import org.tiefaces.components.websheet.configuration.ExpressionEngine;
+import org.tiefaces.components.websheet.configuration.RowsMapping;
+import org.tiefaces.components.websheet.configuration.SheetConfiguration;
+import org.tiefaces.components.websheet.dataobjects.CellAttributesMap;
+import org.tiefaces.components.websheet.dataobjects.CellFormAttributes;
+import org.tiefaces.components.websheet.dataobjects.TieCommandAlias;
+import org.tiefaces.components.websheet.serializable.SerialWorkbook;
+
+/**
+ * Fill template with data contexts and write xlsx files without web sheet
+ * bean or faces context.
+ *
+ * The template is parsed and configured once. Each report restores it's own
+ * copy of the configured workbook, so reports can be generated in parallel
+ * on the giving executor.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class BatchReportEngine {
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(BatchReportEngine.class.getName());
+
+	/** shared parsed template. */
+	private final TemplateCacheEntry template;
+
+	/** expression engine. */
+	private final ExpressionEngine engine = new ExpressionEngine();
+
+	/** max reports submitted but not finished. */
+	private int maxPending = TieConstants.DEFAULT_BATCH_MAX_PENDING;
+
+	/** evaluate formulas before write. */
+	private boolean evaluateFormulas = true;
+
+	/**
+	 * Instantiates a new batch report engine.
+	 *
+	 * @param templateStream
+	 *            the template stream. only xlsx is supported.
+	 * @param tieCommandAliasList
+	 *            the command alias list. could be null.
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public BatchReportEngine(final InputStream templateStream,
+			final List<TieCommandAlias> tieCommandAliasList)
+			throws IOException {
+		super();
+		Workbook wb;
+		try {
+			wb = WorkbookFactory.create(templateStream);
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Cannot read template", e);
+		}
+		if (!(wb instanceof XSSFWorkbook)) {
+			throw new IOException("Only xlsx template is supported.");
+		}
+		CellAttributesMap attrsMap = new CellAttributesMap(
+				new HashMap<String, Map<String, String>>(),
+				new HashMap<String, String>(),
+				new HashMap<String, List<CellFormAttributes>>(),
+				new HashMap<String, Map<String, String>>(),
+				new HashMap<String, String>(),
+				new HashMap<String, List<CellFormAttributes>>());
+		SerialWorkbook serialWb = new SerialWorkbook();
+		serialWb.setWb(wb);
+		serialWb.setSheetConfigMap(new ConfigurationHandler(wb,
+				serialWb.getIndexes(), tieCommandAliasList, attrsMap, false).buildConfiguration());
+		this.template = TemplateCacheEntry.create(null, serialWb, attrsMap);
+	}
+
+	/**
+	 * Generate one report.
+	 *
+	 * @param dataContext
+	 *            the data context
+	 * @param out
+	 *            the output stream. not closed by engine.
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void generate(final Map<String, Object> dataContext,
+			final OutputStream out) throws IOException {
+		SerialWorkbook serialWb;
+		try {
+			serialWb = template.restoreWorkbook();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Cannot restore template", e);
+		}
+		Workbook wb = serialWb.getWb();
+		try {
+			WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+			long start = metrics.start();
+			XSSFEvaluationWorkbook wbWrapper = XSSFEvaluationWorkbook
+					.create((XSSFWorkbook) wb);
+			for (SheetConfiguration sheetConfig : serialWb
+					.getSheetConfigMap().values()) {
+				ConfigBuildRef configBuildRef = new ConfigBuildRef(wbWrapper,
+						wb.getSheet(sheetConfig.getSheetName()), engine,
+						null, sheetConfig.getCachedCells(),
+						template.getCellAttributesMap(),
+						sheetConfig.getFinalCommentMap());
+				configBuildRef.setCellPlanTable(sheetConfig.getCellPlanTable());
+				configBuildRef.setWorkbookIndexes(serialWb.getIndexes());
+				sheetConfig.getFormCommand().buildAt(null, configBuildRef,
+						sheetConfig.getFormCommand().getTopRow(),
+						dataContext, (List<RowsMapping>) null);
+			}
+			metrics.stop(WebSheetMetrics.Operation.BIND, start);
+			if (evaluateFormulas) {
+				wb.getCreationHelper().createFormulaEvaluator()
+						.evaluateAll();
+			} else {
+				wb.setForceFormulaRecalculation(true);
+			}
+			wb.write(out);
+		} finally {
+			wb.close();
+		}
+	}
+
+	/**
+	 * Generate reports for all the data contexts on the executor. Data
+	 * contexts are read from iterator only when a worker is free, so the
+	 * whole batch never stays in memory. Block until all reports finished.
+	 *
+	 * @param dataContexts
+	 *            the data contexts
+	 * @param output
+	 *            the report output
+	 * @param executor
+	 *            the executor. not shut down by engine.
+	 * @return count of reports generated successfully. failed reports are
+	 *         passed to output.
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	public int generateAll(final Iterator<Map<String, Object>> dataContexts,
+			final ReportOutput output, final ExecutorService executor)
+			throws InterruptedException {
+		final int permits = maxPending;
+		final Semaphore pending = new Semaphore(permits);
+		final AtomicInteger succeeded = new AtomicInteger();
+		int index = 0;
+		while (dataContexts.hasNext()) {
+			final Map<String, Object> dataContext = dataContexts.next();
+			final int reportIndex = index++;
+			pending.acquire();
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							if (generateToOutput(reportIndex, dataContext,
+									output)) {
+								succeeded.incrementAndGet();
+							}
+						} finally {
+							pending.release();
+						}
+					}
+				});
+			} catch (RuntimeException e) {
+				pending.release();
+				throw e;
+			}
+		}
+		// wait for all submitted reports
+		pending.acquire(permits);
+		pending.release(permits);
+		return succeeded.get();
+	}
+
+	/**
+	 * Generate report into output.
+	 *
+	 * @param index
+	 *            the index
+	 * @param dataContext
+	 *            the data context
+	 * @param output
+	 *            the output
+	 * @return true, if successful
+	 */
+	private boolean generateToOutput(final int index,
+			final Map<String, Object> dataContext,
+			final ReportOutput output) {
+		try (OutputStream out = output.open(index, dataContext)) {
+			generate(dataContext, out);
+			return true;
+		} catch (Exception e) {
+			LOG.log(Level.SEVERE, "Generate report " + index + " failed. error = "
+					+ e.getLocalizedMessage(), e);
+			output.failed(index, dataContext, e);
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the max pending reports.
+	 *
+	 * @return the max pending
+	 */
+	public int getMaxPending() {
+		return maxPending;
+	}
+
+	/**
+	 * Sets the max pending reports. Should be larger than thread count of
+	 * executor.
+	 *
+	 * @param pmaxPending
+	 *            the new max pending. must be at least 1.
+	 */
+	public void setMaxPending(final int pmaxPending) {
+		if (pmaxPending < 1) {
+			throw new IllegalArgumentException(
+					"Max pending reports must be at least 1 : "
+							+ pmaxPending);
+		}
+		this.maxPending = pmaxPending;
+	}
+
+	/**
+	 * Checks if formulas are evaluated before write.
+	 *
+	 * @return true, if is evaluate formulas
+	 */
+	public boolean isEvaluateFormulas() {
+		return evaluateFormulas;
+	}
+
+	/**
+	 * Sets whether evaluate formulas before write. If false excel
+	 * recalculates them when the file opened.
+	 *
+	 * @param pevaluateFormulas
+	 *            the new evaluate formulas
+	 */
+	public void setEvaluateFormulas(final boolean pevaluateFormulas) {
+		this.evaluateFormulas = pevaluateFormulas;
+	}
+
+}
@@ -5,16 +5,21 @@
 
 package org.tiefaces.components.websheet.service;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.primefaces.context.RequestContext;
-import org.tiefaces.common.TieConstants;
 import org.tiefaces.components.websheet.TieWebSheetBean;
+import org.tiefaces.components.websheet.configuration.FullNamePath;
 import org.tiefaces.components.websheet.dataobjects.CollectionObject;
 import org.tiefaces.components.websheet.dataobjects.FacesCell;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
 import org.tiefaces.components.websheet.utility.CellUtility;
 import org.tiefaces.components.websheet.utility.CommandUtility;
 import org.tiefaces.components.websheet.utility.ConfigurationUtility;
@@ -35,6 +40,15 @@ public class CellHelper {
 	private static final Logger LOG = Logger
 			.getLogger(CellHelper.class.getName());
 
+	/** formula dependency graph. built lazily, reset by full recalc. */
+	private FormulaDependencyGraph dependencyGraph = null;
+
+	/**
+	 * formula cells re-evaluated by cell changes since last refresh. null
+	 * means whole workbook recalced.
+	 */
+	private Set<Cell> recalcedCells = null;
+
 	/**
 	 * Instantiates a new cell helper.
 	 */
@@ -64,7 +78,9 @@ public class CellHelper {
 	public final void saveDataInContext(final Cell poiCell,
 			final String strValue) {
 
-		String saveAttr = SaveAttrsUtility.prepareContextAndAttrsForCell(poiCell, ConfigurationUtility.getFullNameFromRow(poiCell.getRow()), this);
+		WorkbookIndexes indexes = parent.getSerialWb().getIndexes();
+		String saveAttr = SaveAttrsUtility.prepareContextAndAttrsForCell(indexes, poiCell,
+				ConfigurationUtility.getFullNamePathFromRow(indexes, poiCell.getRow()), this);
 		if (saveAttr!= null) {
 			SaveAttrsUtility.saveDataToObjectInContext(
 							parent.getSerialDataContext().getDataContext(),
@@ -76,9 +92,16 @@ public class CellHelper {
 
 	/**
 	 * recalc whole workbook.
+	 * 
+	 * Used after structure changes (load, add row, delete row). The formula
+	 * dependency graph is dropped and rebuilt on next cell change.
 	 */
 	public final void reCalc() {
 
+		WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+		long start = metrics.start();
+		this.dependencyGraph = null;
+		this.recalcedCells = null;
 		parent.getFormulaEvaluator().clearAllCachedResultValues();
 		try {
 			parent.getFormulaEvaluator().evaluateAll();
@@ -88,7 +111,87 @@ public class CellHelper {
 					" recalc formula error : " + ex.getLocalizedMessage(),
 					ex);
 		}
+		metrics.stop(WebSheetMetrics.Operation.RECALC, start);
+
+	}
+
+	/**
+	 * recalc formula cells depend on the changed cell only.
+	 * 
+	 * The changed cell is notified to the formula evaluator, which clear
+	 * the cached results of it's dependents. Then only the transitive
+	 * dependents found in the dependency graph are re-evaluated. Fall back
+	 * to whole workbook recalc if the graph cannot be built.
+	 *
+	 * @param changedCell
+	 *            the changed cell.
+	 * @return re-evaluated formula cells. null if whole workbook recalced.
+	 */
+	public final List<Cell> reCalc(final Cell changedCell) {
+
+		WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+		long start = metrics.start();
+		FormulaEvaluator evaluator = parent.getFormulaEvaluator();
+		List<Cell> dependents;
+		try {
+			dependents = getDependencyGraph().getDependentCells(changedCell);
+			evaluator.notifyUpdateCell(changedCell);
+		} catch (Exception ex) {
+			LOG.log(Level.SEVERE, " build formula dependency error : "
+					+ ex.getLocalizedMessage(), ex);
+			reCalc();
+			return null;
+		}
+		for (Cell cell : dependents) {
+			try {
+				evaluator.evaluateFormulaCell(cell);
+			} catch (Exception ex) {
+				// skip the formula exception when recalc but log it
+				LOG.log(Level.SEVERE,
+						" recalc formula error : " + ex.getLocalizedMessage(),
+						ex);
+			}
+		}
+		if (this.recalcedCells != null) {
+			this.recalcedCells.addAll(dependents);
+		}
+		metrics.count(WebSheetMetrics.Counter.FORMULAS_EVALUATED,
+				dependents.size());
+		metrics.stop(WebSheetMetrics.Operation.RECALC, start);
+		return dependents;
+	}
 
+	/**
+	 * Start tracking formula cells re-evaluated by cell changes.
+	 */
+	public final void trackRecalcedCells() {
+		this.recalcedCells = new LinkedHashSet<>();
+	}
+
+	/**
+	 * Return formula cells re-evaluated by cell changes since tracking
+	 * started, and restart tracking.
+	 *
+	 * @return the recalced cells. null if whole workbook recalced or
+	 *         tracking not started.
+	 */
+	public final Collection<Cell> pollRecalcedCells() {
+		Collection<Cell> cells = this.recalcedCells;
+		trackRecalcedCells();
+		return cells;
+	}
+
+	/**
+	 * Gets the formula dependency graph. Build it if not exist.
+	 *
+	 * @return the dependency graph
+	 */
+	public final FormulaDependencyGraph getDependencyGraph() {
+		if (this.dependencyGraph == null) {
+			this.dependencyGraph = new FormulaDependencyGraph(parent.getWb(),
+					parent.getWbWrapper());
+		}
+		return this.dependencyGraph;
 	}
 
 	/**
@@ -167,10 +270,18 @@ public class CellHelper {
 	 *            the full name
 	 */
 	public final void restoreDataContext(final String fullName) {
+		restoreDataContext(FullNamePath.parse(fullName));
+	}
 
-		String[] parts = fullName.split(":");
+	/**
+	 * Restore data context.
+	 *
+	 * @param fullName
+	 *            the full name
+	 */
+	public final void restoreDataContext(final FullNamePath fullName) {
 
-		if (!isNeedRestore(fullName, parts)) {
+		if (!isNeedRestore(fullName)) {
 			return;
 		}
 
@@ -185,12 +296,12 @@ public class CellHelper {
 		// i.e. E.department.1:E.employee.0
 		// need prepare department.1 and employee.0
 
-		for (int i = 0; i < parts.length; i++) {
-			String part = parts[i];
+		for (int depth = 1; depth <= fullName.getDepth(); depth++) {
+			FullNamePath part = fullName.getAncestor(depth);
 			boolean skip = false;
-			if ((!stopSkip) && (i < listSize)) {
-				String listPart = list.get(i);
-				if (part.equalsIgnoreCase(listPart)) {
+			if ((!stopSkip) && (depth <= listSize)) {
+				String listPart = list.get(depth - 1);
+				if (part.getPart().equalsIgnoreCase(listPart)) {
 					skip = true;
 				}
 			}
@@ -200,7 +311,7 @@ public class CellHelper {
 			}
 		}
 		if (stopSkip) {
-			parent.getCurrent().setCurrentDataContextName(fullName);
+			parent.getCurrent().setCurrentDataContextPath(fullName);
 		}
 
 		return;
@@ -216,9 +327,21 @@ public class CellHelper {
 	 * @return the collection object
 	 */
 	public final CollectionObject getLastCollect(final String fullName) {
-		String[] parts = fullName.split(":");
-		String part = parts[parts.length - 1];
-		return startRestoreDataContext(part);
+		return getLastCollect(FullNamePath.parse(fullName));
+	}
+
+	/**
+	 * Get last collect object from full name.
+	 * 
+	 * Last collect contain each command, collection and index.
+	 *
+	 * @param fullName
+	 *            the full name
+	 * @return the collection object
+	 */
+	public final CollectionObject getLastCollect(
+			final FullNamePath fullName) {
+		return startRestoreDataContext(fullName);
 	}
 
 	/**
@@ -226,23 +349,18 @@ public class CellHelper {
 	 *
 	 * @param fullName
 	 *            the full name
-	 * @param parts
-	 *            the parts
 	 * @return true, if is need restore
 	 */
-	private boolean isNeedRestore(final String fullName,
-			final String[] parts) {
+	private boolean isNeedRestore(final FullNamePath fullName) {
 		if (fullName == null) {
 			return false;
 		}
-		if ((parent.getCurrent().getCurrentDataContextName() != null)
-				&& (parent.getCurrent().getCurrentDataContextName()
-						.toLowerCase()
-						.startsWith(fullName.toLowerCase()))) {
+		if (fullName.isSelfOrAncestorOf(
+				parent.getCurrent().getCurrentDataContextPath())) {
 			return false;
 		}
 
-		return ((parts != null) && (parts.length > 1)); 
+		return fullName.getDepth() > 1;
 	}
 
 	/**
@@ -252,24 +370,24 @@ public class CellHelper {
 	 *            the part
 	 * @return the collection object
 	 */
-	private CollectionObject startRestoreDataContext(final String part) {
-		if (part.startsWith(TieConstants.EACH_COMMAND_FULL_NAME_PREFIX)) {
-			String[] varparts = part.split("\\.");
+	private CollectionObject startRestoreDataContext(
+			final FullNamePath part) {
+		if (part.isEachUnit()) {
 			CollectionObject collect = new CollectionObject();
 
 			collect.setEachCommand(
 					CommandUtility
-							.getEachCommandFromPartsName(
+							.getEachCommandFromPath(
 									parent.getCurrentSheetConfig()
 											.getCommandIndexMap(),
-									varparts));
+									part));
 			collect.setLastCollection(ConfigurationUtility
 					.transformToCollectionObject(parent.getExpEngine(),
 							collect.getEachCommand().getItems(),
 							parent.getSerialDataContext()
 									.getDataContext()));
 			collect.setLastCollectionIndex(
-					CommandUtility.prepareCollectionDataInContext(varparts,
+					CommandUtility.prepareCollectionDataInContext(part,
 							collect.getLastCollection(),
 							parent.getSerialDataContext()
 									.getDataContext()));
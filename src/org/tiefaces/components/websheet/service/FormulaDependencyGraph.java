@@ -0,0 +1,452 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.poi.ss.formula.FormulaParser;
+import org.apache.poi.ss.formula.FormulaType;
+import org.apache.poi.ss.formula.ptg.AbstractFunctionPtg;
+import org.apache.poi.ss.formula.ptg.AreaPtgBase;
+import org.apache.poi.ss.formula.ptg.NamePtg;
+import org.apache.poi.ss.formula.ptg.NameXPxg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.Pxg;
+import org.apache.poi.ss.formula.ptg.Pxg3D;
+import org.apache.poi.ss.formula.ptg.RefPtgBase;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
+import org.tiefaces.common.TieConstants;
+
+/**
+ * Cell to dependents graph built from the parsed formula tokens of a
+ * workbook.
+ *
+ * The graph answers which formula cells must be re-evaluated when a
+ * single cell changes, so an edit does not need to re-evaluate the whole
+ * workbook. Single cell references are kept in a hash map. Area references
+ * are kept per sheet and matched by range, otherwise a SUM over a long
+ * column would need one entry per referenced cell. Formulas the graph
+ * cannot follow (names, INDIRECT, OFFSET, volatile functions or formulas
+ * failed to parse) are treated as volatile and always re-evaluated.
+ *
+ * The graph is a snapshot of the workbook structure. It must be rebuilt
+ * after rows are added or deleted.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class FormulaDependencyGraph {
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(FormulaDependencyGraph.class.getName());
+
+	/** bits reserved for column in cell key. */
+	private static final int COLUMN_BITS = 16;
+
+	/** bits reserved for row and column in cell key. */
+	private static final int SHEET_SHIFT = 40;
+
+	/** mask for column in cell key. */
+	private static final long COLUMN_MASK = (1L << COLUMN_BITS) - 1;
+
+	/** mask for row in cell key. */
+	private static final long ROW_MASK = (1L << (SHEET_SHIFT - COLUMN_BITS))
+			- 1;
+
+	/** functions which cannot be followed by reference tokens. */
+	private static final Set<String> VOLATILE_FUNCTIONS = new HashSet<>();
+
+	static {
+		VOLATILE_FUNCTIONS.add("INDIRECT");
+		VOLATILE_FUNCTIONS.add("OFFSET");
+		VOLATILE_FUNCTIONS.add("RAND");
+		VOLATILE_FUNCTIONS.add("RANDBETWEEN");
+		VOLATILE_FUNCTIONS.add("NOW");
+		VOLATILE_FUNCTIONS.add("TODAY");
+		VOLATILE_FUNCTIONS.add("CELL");
+		VOLATILE_FUNCTIONS.add("INFO");
+	}
+
+	/** workbook. */
+	private final Workbook wb;
+
+	/** single cell precedent key -> dependent formula cell keys. */
+	private final Map<Long, Set<Long>> cellDependents = new HashMap<>();
+
+	/** sheet index -> area references in the sheet. */
+	private final Map<Integer, List<AreaDependency>> areaDependents = new HashMap<>();
+
+	/** formula cells which always need re-evaluation. */
+	private final Set<Long> volatileCells = new LinkedHashSet<>();
+
+	/** total formula cells in the graph. */
+	private int formulaCount = 0;
+
+	/**
+	 * Area reference from formula cell.
+	 */
+	private static final class AreaDependency {
+
+		/** first row. */
+		private final int firstRow;
+		/** last row. */
+		private final int lastRow;
+		/** first column. */
+		private final int firstCol;
+		/** last column. */
+		private final int lastCol;
+		/** key of formula cell which reference this area. */
+		private final long dependent;
+
+		/**
+		 * Instantiates a new area dependency.
+		 *
+		 * @param pfirstRow
+		 *            the first row
+		 * @param plastRow
+		 *            the last row
+		 * @param pfirstCol
+		 *            the first col
+		 * @param plastCol
+		 *            the last col
+		 * @param pdependent
+		 *            the dependent formula cell key
+		 */
+		AreaDependency(final int pfirstRow, final int plastRow,
+				final int pfirstCol, final int plastCol,
+				final long pdependent) {
+			this.firstRow = pfirstRow;
+			this.lastRow = plastRow;
+			this.firstCol = pfirstCol;
+			this.lastCol = plastCol;
+			this.dependent = pdependent;
+		}
+
+		/**
+		 * Whether the area contain the cell.
+		 *
+		 * @param row
+		 *            the row
+		 * @param col
+		 *            the col
+		 * @return true, if contains
+		 */
+		boolean contains(final int row, final int col) {
+			return (row >= firstRow) && (row <= lastRow) && (col >= firstCol)
+					&& (col <= lastCol);
+		}
+	}
+
+	/**
+	 * Build the graph for all formula cells in the workbook. Template copy
+	 * sheets are skipped.
+	 *
+	 * @param pwb
+	 *            the workbook
+	 * @param wbWrapper
+	 *            the evaluation wrapper used to parse formulas
+	 */
+	public FormulaDependencyGraph(final Workbook pwb,
+			final XSSFEvaluationWorkbook wbWrapper) {
+		this.wb = pwb;
+		for (int i = 0; i < wb.getNumberOfSheets(); i++) {
+			Sheet sheet = wb.getSheetAt(i);
+			if (!sheet.getSheetName()
+					.startsWith(TieConstants.COPY_SHEET_PREFIX)) {
+				buildSheet(wbWrapper, sheet, i);
+			}
+		}
+	}
+
+	/**
+	 * Builds the dependencies for formula cells in the sheet.
+	 *
+	 * @param wbWrapper
+	 *            the wb wrapper
+	 * @param sheet
+	 *            the sheet
+	 * @param sheetIndex
+	 *            the sheet index
+	 */
+	private void buildSheet(final XSSFEvaluationWorkbook wbWrapper,
+			final Sheet sheet, final int sheetIndex) {
+		for (Row row : sheet) {
+			for (Cell cell : row) {
+				if (cell.getCellTypeEnum() == CellType.FORMULA) {
+					addFormulaCell(wbWrapper, cell, sheetIndex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the formula cell to the graph.
+	 *
+	 * @param wbWrapper
+	 *            the wb wrapper
+	 * @param cell
+	 *            the formula cell
+	 * @param sheetIndex
+	 *            the sheet index
+	 */
+	private void addFormulaCell(final XSSFEvaluationWorkbook wbWrapper,
+			final Cell cell, final int sheetIndex) {
+		long formulaKey = getCellKey(sheetIndex, cell.getRowIndex(),
+				cell.getColumnIndex());
+		formulaCount++;
+		try {
+			Ptg[] ptgs = FormulaParser.parse(cell.getCellFormula(),
+					wbWrapper, FormulaType.CELL, sheetIndex);
+			for (Ptg ptg : ptgs) {
+				addPtg(ptg, sheetIndex, formulaKey);
+			}
+		} catch (Exception ex) {
+			LOG.log(Level.FINE, "cannot parse formula in dependency graph : "
+					+ ex.getLocalizedMessage(), ex);
+			volatileCells.add(formulaKey);
+		}
+	}
+
+	/**
+	 * Adds dependency from one formula token.
+	 *
+	 * @param ptg
+	 *            the ptg
+	 * @param sheetIndex
+	 *            the sheet index of formula cell
+	 * @param formulaKey
+	 *            the formula cell key
+	 */
+	private void addPtg(final Ptg ptg, final int sheetIndex,
+			final long formulaKey) {
+		if ((ptg instanceof NamePtg) || (ptg instanceof NameXPxg)) {
+			volatileCells.add(formulaKey);
+			return;
+		}
+		if (ptg instanceof AbstractFunctionPtg) {
+			if (VOLATILE_FUNCTIONS
+					.contains(((AbstractFunctionPtg) ptg).getName())) {
+				volatileCells.add(formulaKey);
+			}
+			return;
+		}
+		if (!(ptg instanceof RefPtgBase) && !(ptg instanceof AreaPtgBase)) {
+			return;
+		}
+		int firstSheet = sheetIndex;
+		int lastSheet = sheetIndex;
+		if (ptg instanceof Pxg) {
+			Pxg pxg = (Pxg) ptg;
+			if (pxg.getExternalWorkbookNumber() > 0) {
+				// external workbook never changed by web sheet.
+				return;
+			}
+			firstSheet = wb.getSheetIndex(pxg.getSheetName());
+			lastSheet = firstSheet;
+			if ((ptg instanceof Pxg3D)
+					&& (((Pxg3D) ptg).getLastSheetName() != null)) {
+				lastSheet = wb
+						.getSheetIndex(((Pxg3D) ptg).getLastSheetName());
+			}
+			if ((firstSheet < 0) || (lastSheet < 0)) {
+				volatileCells.add(formulaKey);
+				return;
+			}
+		}
+		for (int s = firstSheet; s <= lastSheet; s++) {
+			if (ptg instanceof RefPtgBase) {
+				RefPtgBase ref = (RefPtgBase) ptg;
+				addCellDependency(getCellKey(s, ref.getRow(), ref.getColumn()),
+						formulaKey);
+			} else {
+				AreaPtgBase area = (AreaPtgBase) ptg;
+				addAreaDependency(s, new AreaDependency(area.getFirstRow(),
+						area.getLastRow(), area.getFirstColumn(),
+						area.getLastColumn(), formulaKey));
+			}
+		}
+	}
+
+	/**
+	 * Adds the cell dependency.
+	 *
+	 * @param precedent
+	 *            the precedent cell key
+	 * @param dependent
+	 *            the dependent formula cell key
+	 */
+	private void addCellDependency(final long precedent,
+			final long dependent) {
+		Set<Long> set = cellDependents.get(precedent);
+		if (set == null) {
+			set = new HashSet<>();
+			cellDependents.put(precedent, set);
+		}
+		set.add(dependent);
+	}
+
+	/**
+	 * Adds the area dependency.
+	 *
+	 * @param sheetIndex
+	 *            the sheet index of the area
+	 * @param area
+	 *            the area
+	 */
+	private void addAreaDependency(final int sheetIndex,
+			final AreaDependency area) {
+		List<AreaDependency> list = areaDependents.get(sheetIndex);
+		if (list == null) {
+			list = new ArrayList<>();
+			areaDependents.put(sheetIndex, list);
+		}
+		list.add(area);
+	}
+
+	/**
+	 * Gets the cell key.
+	 *
+	 * @param sheetIndex
+	 *            the sheet index
+	 * @param row
+	 *            the row
+	 * @param col
+	 *            the col
+	 * @return the cell key
+	 */
+	public static long getCellKey(final int sheetIndex, final int row,
+			final int col) {
+		return ((long) sheetIndex << SHEET_SHIFT)
+				| (((long) row & ROW_MASK) << COLUMN_BITS)
+				| ((long) col & COLUMN_MASK);
+	}
+
+	/**
+	 * Collect direct dependents of the cell key into the list.
+	 *
+	 * @param key
+	 *            the cell key
+	 * @param result
+	 *            the result
+	 */
+	private void collectDirectDependents(final long key,
+			final List<Long> result) {
+		Set<Long> set = cellDependents.get(key);
+		if (set != null) {
+			result.addAll(set);
+		}
+		List<AreaDependency> list = areaDependents
+				.get((int) (key >>> SHEET_SHIFT));
+		if (list != null) {
+			int row = (int) ((key >>> COLUMN_BITS) & ROW_MASK);
+			int col = (int) (key & COLUMN_MASK);
+			for (AreaDependency area : list) {
+				if (area.contains(row, col)) {
+					result.add(area.dependent);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets all formula cells need to be re-evaluated when the cell changed.
+	 * Include transitive dependents and volatile cells.
+	 *
+	 * @param sheetIndex
+	 *            the sheet index of changed cell
+	 * @param row
+	 *            the row of changed cell
+	 * @param col
+	 *            the col of changed cell
+	 * @return the dependent formula cell keys in discover order
+	 */
+	public final Set<Long> getDependents(final int sheetIndex,
+			final int row, final int col) {
+		Set<Long> visited = new LinkedHashSet<>();
+		Deque<Long> queue = new ArrayDeque<>();
+		queue.add(getCellKey(sheetIndex, row, col));
+		List<Long> direct = new ArrayList<>();
+		while (!queue.isEmpty()) {
+			direct.clear();
+			collectDirectDependents(queue.poll(), direct);
+			for (Long dependent : direct) {
+				if (visited.add(dependent)) {
+					queue.add(dependent);
+				}
+			}
+		}
+		visited.addAll(volatileCells);
+		return visited;
+	}
+
+	/**
+	 * Gets all formula cells need to be re-evaluated when the cell changed.
+	 *
+	 * @param cell
+	 *            the changed cell
+	 * @return the dependent formula cells
+	 */
+	public final List<Cell> getDependentCells(final Cell cell) {
+		Set<Long> keys = getDependents(
+				wb.getSheetIndex(cell.getSheet()), cell.getRowIndex(),
+				cell.getColumnIndex());
+		List<Cell> cells = new ArrayList<>(keys.size());
+		for (Long key : keys) {
+			Cell dependent = getCellFromKey(key);
+			if ((dependent != null) && (dependent
+					.getCellTypeEnum() == CellType.FORMULA)) {
+				cells.add(dependent);
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Gets the cell from key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the cell or null if not exist
+	 */
+	private Cell getCellFromKey(final long key) {
+		int sheetIndex = (int) (key >>> SHEET_SHIFT);
+		if (sheetIndex >= wb.getNumberOfSheets()) {
+			return null;
+		}
+		Row row = wb.getSheetAt(sheetIndex)
+				.getRow((int) ((key >>> COLUMN_BITS) & ROW_MASK));
+		if (row == null) {
+			return null;
+		}
+		return row.getCell((int) (key & COLUMN_MASK));
+	}
+
+	/**
+	 * Gets the formula count.
+	 *
+	 * @return the formula count
+	 */
+	public final int getFormulaCount() {
+		return formulaCount;
+	}
+
+}
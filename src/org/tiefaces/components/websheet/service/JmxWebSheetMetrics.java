@@ -0,0 +1,283 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics kept in atomic arrays and published as platform MXBean.
+ *
+ * @author Jason Jiang
+ *
+ */
+public class JmxWebSheetMetrics
+		implements WebSheetMetrics, WebSheetMetricsMXBean {
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(JmxWebSheetMetrics.class.getName());
+
+	/** object name of the mbean. */
+	public static final String OBJECT_NAME = "org.tiefaces:type=WebSheetMetrics";
+
+	/** operations. */
+	private static final Operation[] OPERATIONS = Operation.values();
+
+	/** counters. */
+	private static final Counter[] COUNTERS = Counter.values();
+
+	/** separator of template id and operation in template keys. */
+	private static final String TEMPLATE_KEY_SEPARATOR = "|";
+
+	/** slot of count in template figures. */
+	private static final int COUNT = 0;
+
+	/** slot of total nanos in template figures. */
+	private static final int TOTAL_NANOS = 1;
+
+	/** slot of max nanos in template figures. */
+	private static final int MAX_NANOS = 2;
+
+	/** operation counts. */
+	private final AtomicLongArray operationCounts = new AtomicLongArray(
+			OPERATIONS.length);
+
+	/** operation total nanos. */
+	private final AtomicLongArray operationTotalNanos = new AtomicLongArray(
+			OPERATIONS.length);
+
+	/** operation max nanos. */
+	private final AtomicLongArray operationMaxNanos = new AtomicLongArray(
+			OPERATIONS.length);
+
+	/** counters. */
+	private final AtomicLongArray counters = new AtomicLongArray(
+			COUNTERS.length);
+
+	/** count, total nanos and max nanos by template and operation. */
+	private final ConcurrentMap<String, AtomicLongArray> templateFigures = new ConcurrentHashMap<>();
+
+	/**
+	 * Create metrics, register it to platform mbean server and install it
+	 * into web sheet instrumentation.
+	 *
+	 * @return the jmx web sheet metrics
+	 */
+	public static JmxWebSheetMetrics install() {
+		JmxWebSheetMetrics metrics = new JmxWebSheetMetrics();
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(metrics, name);
+		} catch (Exception e) {
+			LOG.log(Level.SEVERE, "Cannot register web sheet metrics mbean. error = "
+					+ e.getLocalizedMessage(), e);
+		}
+		WebSheetInstrumentation.setMetrics(metrics);
+		return metrics;
+	}
+
+	/**
+	 * Uninstall metrics from web sheet instrumentation and unregister the
+	 * mbean.
+	 */
+	public static void uninstall() {
+		WebSheetInstrumentation.setMetrics(null);
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (Exception e) {
+			LOG.log(Level.SEVERE, "Cannot unregister web sheet metrics mbean. error = "
+					+ e.getLocalizedMessage(), e);
+		}
+	}
+
+	@Override
+	public long start() {
+		return System.nanoTime();
+	}
+
+	@Override
+	public void stop(final Operation operation, final long start) {
+		record(operation, System.nanoTime() - start);
+	}
+
+	@Override
+	public void stop(final Operation operation, final String templateId,
+			final long start) {
+		long elapsed = System.nanoTime() - start;
+		record(operation, elapsed);
+		if (templateId == null) {
+			return;
+		}
+		String key = templateId + TEMPLATE_KEY_SEPARATOR + operation.name();
+		AtomicLongArray figures = templateFigures.get(key);
+		if (figures == null) {
+			figures = new AtomicLongArray(MAX_NANOS + 1);
+			AtomicLongArray existing = templateFigures.putIfAbsent(key,
+					figures);
+			if (existing != null) {
+				figures = existing;
+			}
+		}
+		figures.incrementAndGet(COUNT);
+		figures.addAndGet(TOTAL_NANOS, elapsed);
+		updateMax(figures, MAX_NANOS, elapsed);
+	}
+
+	/**
+	 * Record elapsed time of operation.
+	 *
+	 * @param operation
+	 *            the operation
+	 * @param elapsed
+	 *            the elapsed nanos
+	 */
+	private void record(final Operation operation, final long elapsed) {
+		int index = operation.ordinal();
+		operationCounts.incrementAndGet(index);
+		operationTotalNanos.addAndGet(index, elapsed);
+		updateMax(operationMaxNanos, index, elapsed);
+	}
+
+	/**
+	 * Set max of the slot if elapsed is bigger.
+	 *
+	 * @param array
+	 *            the array
+	 * @param index
+	 *            the slot index
+	 * @param elapsed
+	 *            the elapsed nanos
+	 */
+	private static void updateMax(final AtomicLongArray array,
+			final int index, final long elapsed) {
+		long max = array.get(index);
+		while ((elapsed > max) && !array.compareAndSet(index, max, elapsed)) {
+			max = array.get(index);
+		}
+	}
+
+	@Override
+	public void count(final Counter counter, final long delta) {
+		counters.addAndGet(counter.ordinal(), delta);
+	}
+
+	@Override
+	public Map<String, Long> getOperationCounts() {
+		Map<String, Long> map = new LinkedHashMap<>();
+		for (Operation operation : OPERATIONS) {
+			map.put(operation.name(),
+					operationCounts.get(operation.ordinal()));
+		}
+		return map;
+	}
+
+	@Override
+	public Map<String, Long> getOperationTotalMillis() {
+		return toMillisMap(operationTotalNanos);
+	}
+
+	@Override
+	public Map<String, Long> getOperationMaxMillis() {
+		return toMillisMap(operationMaxNanos);
+	}
+
+	/**
+	 * Convert nanos array of operations to millis map.
+	 *
+	 * @param nanos
+	 *            the nanos
+	 * @return the map
+	 */
+	private static Map<String, Long> toMillisMap(final AtomicLongArray nanos) {
+		Map<String, Long> map = new LinkedHashMap<>();
+		for (Operation operation : OPERATIONS) {
+			map.put(operation.name(), TimeUnit.NANOSECONDS
+					.toMillis(nanos.get(operation.ordinal())));
+		}
+		return map;
+	}
+
+	@Override
+	public Map<String, Long> getCounters() {
+		Map<String, Long> map = new LinkedHashMap<>();
+		for (Counter counter : COUNTERS) {
+			map.put(counter.name(), counters.get(counter.ordinal()));
+		}
+		return map;
+	}
+
+	@Override
+	public Map<String, Long> getTemplateOperationCounts() {
+		return toTemplateMap(COUNT, false);
+	}
+
+	@Override
+	public Map<String, Long> getTemplateOperationTotalMillis() {
+		return toTemplateMap(TOTAL_NANOS, true);
+	}
+
+	@Override
+	public Map<String, Long> getTemplateOperationMaxMillis() {
+		return toTemplateMap(MAX_NANOS, true);
+	}
+
+	/**
+	 * Collect one slot of template figures into map sorted by key.
+	 *
+	 * @param slot
+	 *            the slot
+	 * @param nanos
+	 *            whether the slot is nanos to convert to millis
+	 * @return the map
+	 */
+	private Map<String, Long> toTemplateMap(final int slot,
+			final boolean nanos) {
+		Map<String, Long> map = new TreeMap<>();
+		for (Map.Entry<String, AtomicLongArray> entry : templateFigures
+				.entrySet()) {
+			long value = entry.getValue().get(slot);
+			if (nanos) {
+				value = TimeUnit.NANOSECONDS.toMillis(value);
+			}
+			map.put(entry.getKey(), value);
+		}
+		return map;
+	}
+
+	@Override
+	public void reset() {
+		for (int i = 0; i < OPERATIONS.length; i++) {
+			operationCounts.set(i, 0);
+			operationTotalNanos.set(i, 0);
+			operationMaxNanos.set(i, 0);
+		}
+		for (int i = 0; i < COUNTERS.length; i++) {
+			counters.set(i, 0);
+		}
+		templateFigures.clear();
+	}
+
+}
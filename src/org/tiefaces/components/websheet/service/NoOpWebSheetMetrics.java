@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+/**
+ * Metrics which record nothing. Default one, so instrumentation costs only a
+ * virtual call when not enabled.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class NoOpWebSheetMetrics implements WebSheetMetrics {
+
+	/** single instance. */
+	public static final NoOpWebSheetMetrics INSTANCE = new NoOpWebSheetMetrics();
+
+	/**
+	 * hide constructor.
+	 */
+	private NoOpWebSheetMetrics() {
+		// not called
+	}
+
+	@Override
+	public long start() {
+		return 0;
+	}
+
+	@Override
+	public void stop(final Operation operation, final long start) {
+		// no-op
+	}
+
+	@Override
+	public void stop(final Operation operation, final String templateId,
+			final long start) {
+		// no-op
+	}
+
+	@Override
+	public void count(final Counter counter, final long delta) {
+		// no-op
+	}
+
+}
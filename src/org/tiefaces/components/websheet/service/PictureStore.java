@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+
+import org.tiefaces.common.TieConstants;
+
+/**
+ * Application wide store of pictures in workbooks.
+ *
+ * Keyed by SHA-256 of picture content, so same picture in different sessions
+ * or templates is kept only once, and the key can be served with long lived
+ * http caching headers. Downscaled picture is keyed by the content hash plus
+ * the target size. Least recently used entries are evicted when total size
+ * exceeds the limit.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class PictureStore {
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(PictureStore.class.getName());
+
+	/** single instance. */
+	private static final PictureStore INSTANCE = new PictureStore();
+
+	/** max total bytes of stored pictures. */
+	private long maxBytes = TieConstants.DEFAULT_PICTURE_STORE_BYTES;
+
+	/** current total bytes of stored pictures. */
+	private long totalBytes = 0;
+
+	/** entries in access order. */
+	private final Map<String, StoredPicture> entries = new LinkedHashMap<>(
+			16, 0.75f, true);
+
+	/**
+	 * hide constructor.
+	 */
+	private PictureStore() {
+		// not called
+	}
+
+	/**
+	 * Gets the single instance.
+	 *
+	 * @return the picture store
+	 */
+	public static PictureStore getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the picture.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the picture or null if not stored
+	 */
+	public synchronized StoredPicture get(final String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Whether the picture is stored. Counts as access of the entry.
+	 *
+	 * @param key
+	 *            the key
+	 * @return true, if stored
+	 */
+	public synchronized boolean contains(final String key) {
+		return entries.get(key) != null;
+	}
+
+	/**
+	 * Store picture and return the key.
+	 *
+	 * @param data
+	 *            the picture content
+	 * @param mimeType
+	 *            the mime type
+	 * @param maxWidth
+	 *            max width in pixels. picture is downscaled to fit in max
+	 *            width and height if both are positive.
+	 * @param maxHeight
+	 *            max height in pixels
+	 * @return the key
+	 */
+	public String register(final byte[] data, final String mimeType,
+			final int maxWidth, final int maxHeight) {
+		String key = TemplateCache.checksum(data);
+		boolean scale = (maxWidth > 0) && (maxHeight > 0);
+		if (scale) {
+			key = key + "-" + maxWidth + "x" + maxHeight;
+		}
+		if (contains(key)) {
+			return key;
+		}
+		byte[] content = data;
+		String contentType = mimeType;
+		if (scale) {
+			byte[] scaled = downscale(data, maxWidth, maxHeight);
+			if (scaled != null) {
+				content = scaled;
+				contentType = "image/png";
+			}
+		}
+		put(key, new StoredPicture(content, contentType, key,
+				System.currentTimeMillis()));
+		return key;
+	}
+
+	/**
+	 * Put picture. Picture larger than the limit is not stored.
+	 *
+	 * @param key
+	 *            the key
+	 * @param picture
+	 *            the picture
+	 */
+	private synchronized void put(final String key,
+			final StoredPicture picture) {
+		if (picture.getData().length > maxBytes) {
+			LOG.fine("picture too large for picture store : " + key);
+			return;
+		}
+		StoredPicture old = entries.put(key, picture);
+		if (old != null) {
+			totalBytes -= old.getData().length;
+		}
+		totalBytes += picture.getData().length;
+		evict();
+	}
+
+	/**
+	 * Evict least recently used entries until total bytes within the limit.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, StoredPicture>> it = entries.entrySet()
+				.iterator();
+		while ((totalBytes > maxBytes) && it.hasNext()) {
+			Map.Entry<String, StoredPicture> entry = it.next();
+			LOG.fine("evict picture store entry : " + entry.getKey());
+			totalBytes -= entry.getValue().getData().length;
+			it.remove();
+		}
+	}
+
+	/**
+	 * Downscale picture to fit in the size.
+	 *
+	 * @param data
+	 *            the picture content
+	 * @param maxWidth
+	 *            the max width
+	 * @param maxHeight
+	 *            the max height
+	 * @return png content of scaled picture. null if picture is already
+	 *         small enough or cannot be read.
+	 */
+	private static byte[] downscale(final byte[] data, final int maxWidth,
+			final int maxHeight) {
+		try {
+			BufferedImage img = ImageIO.read(new ByteArrayInputStream(data));
+			if ((img == null) || ((img.getWidth() <= maxWidth)
+					&& (img.getHeight() <= maxHeight))) {
+				return null;
+			}
+			double ratio = Math.min((double) maxWidth / img.getWidth(),
+					(double) maxHeight / img.getHeight());
+			int width = Math.max(1, (int) (img.getWidth() * ratio));
+			int height = Math.max(1, (int) (img.getHeight() * ratio));
+			BufferedImage scaled = new BufferedImage(width, height,
+					BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = scaled.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+						RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(img, 0, 0, width, height, null);
+			} finally {
+				g.dispose();
+			}
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			ImageIO.write(scaled, "png", os);
+			if (os.size() >= data.length) {
+				return null;
+			}
+			return os.toByteArray();
+		} catch (IOException ex) {
+			LOG.log(Level.FINE, "downscale picture error = "
+					+ ex.getLocalizedMessage(), ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		totalBytes = 0;
+	}
+
+	/**
+	 * Entries count.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Total bytes of stored pictures.
+	 *
+	 * @return the total bytes
+	 */
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Sets the max total bytes.
+	 *
+	 * @param pmaxBytes
+	 *            the new max bytes
+	 */
+	public synchronized void setMaxBytes(final long pmaxBytes) {
+		this.maxBytes = pmaxBytes;
+		evict();
+	}
+
+}
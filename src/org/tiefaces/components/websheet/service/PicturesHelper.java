@@ -5,16 +5,20 @@
 
 package org.tiefaces.components.websheet.service;
 
-import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Picture;
+import org.apache.poi.ss.usermodel.PictureData;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.tiefaces.components.websheet.TieWebSheetBean;
+import org.tiefaces.components.websheet.dataobjects.AnchorSize;
 import org.tiefaces.components.websheet.dataobjects.FacesCell;
 import org.tiefaces.components.websheet.utility.PicturesUtility;
+import org.tiefaces.components.websheet.utility.WebSheetUtility;
 
 /**
  * The Class PicturesHelper.
@@ -28,6 +32,12 @@ public class PicturesHelper {
 	private static final Logger LOG = Logger
 			.getLogger(PicturesHelper.class.getName());
 
+	/**
+	 * key in picture store of each picture. avoid hashing picture content on
+	 * every page view. key = picture id.
+	 */
+	private final Map<String, String> pictureStoreKeyMap = new HashMap<>();
+
 	/**
 	 * Instantiates a new pictures helper.
 	 *
@@ -42,10 +52,47 @@ public class PicturesHelper {
 	 * initial pictures map for current workbook.
 	 */
 	public final void loadPicturesMap() {
+		pictureStoreKeyMap.clear();
 		PicturesUtility.getPictruesMap(parent.getWb(),
 				parent.getPicturesMap());
 	}
 
+	/**
+	 * Gets the key of picture in application wide picture store. Picture is
+	 * put into the store on first call, or again after evicted.
+	 *
+	 * @param pictureId
+	 *            the picture id
+	 * @return the picture store key. null if picture not found.
+	 */
+	public final String getPictureStoreKey(final String pictureId) {
+		String key = pictureStoreKeyMap.get(pictureId);
+		if ((key != null) && PictureStore.getInstance().contains(key)) {
+			return key;
+		}
+		Picture pic = parent.getPicturesMap().get(pictureId);
+		if (pic == null) {
+			return null;
+		}
+		PictureData picData = pic.getPictureData();
+		int maxWidth = 0;
+		int maxHeight = 0;
+		if (parent.isDownscalePictures()) {
+			AnchorSize anchorSize = PicturesUtility.getAnchorSize(
+					parent.getWb().getSheet(WebSheetUtility
+							.getSheetNameFromFullCellRefName(pictureId)),
+					null, null, pic.getClientAnchor());
+			if (anchorSize != null) {
+				maxWidth = anchorSize.getWidth();
+				maxHeight = anchorSize.getHeight();
+			}
+		}
+		key = PictureStore.getInstance().register(picData.getData(),
+				picData.getMimeType(), maxWidth, maxHeight);
+		pictureStoreKeyMap.put(pictureId, key);
+		return key;
+	}
+
 	/**
 	 * Setup faces cell picture charts.
 	 *
@@ -63,7 +110,7 @@ public class PicturesHelper {
 		if (parent.getPicturesMap() != null) {
 			setupFacesCellPicture(sheet1, fcell, cell, fId);
 		}
-		if (parent.getCharsData().getChartsMap() != null) {
+		if (parent.getCharsData().getChartDataMap() != null) {
 			setupFacesCellCharts(sheet1, fcell, cell, fId);
 		}
 	}
@@ -87,9 +134,8 @@ public class PicturesHelper {
 			String chartId = parent.getCharsData().getChartPositionMap()
 					.get(fId);
 			if (chartId != null) {
-				BufferedImage img = parent.getCharsData().getChartsMap()
-						.get(chartId);
-				if (img != null) {
+				if (parent.getCharsData().getChartSizeMap()
+						.get(chartId) != null) {
 					fcell.setContainChart(true);
 					fcell.setChartId(chartId);
 					fcell.setChartStyle(PicturesUtility.generateChartStyle(
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Destination of reports generated by batch report engine. Called from the
+ * worker threads, so implementation must be thread safe.
+ *
+ * @author Jason Jiang
+ *
+ */
+public interface ReportOutput {
+
+	/**
+	 * Open output stream for the report. The engine closes it after the
+	 * report written.
+	 *
+	 * @param index
+	 *            the index of data context in the batch
+	 * @param dataContext
+	 *            the data context
+	 * @return the output stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	OutputStream open(int index, Map<String, Object> dataContext)
+			throws IOException;
+
+	/**
+	 * Called when the report failed.
+	 *
+	 * @param index
+	 *            the index of data context in the batch
+	 * @param dataContext
+	 *            the data context
+	 * @param ex
+	 *            the exception
+	 */
+	void failed(int index, Map<String, Object> dataContext, Exception ex);
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+/**
+ * Picture kept in picture store. Immutable, shared by all sessions.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class StoredPicture {
+
+	/** picture content. */
+	private final byte[] data;
+
+	/** mime type. */
+	private final String mimeType;
+
+	/** entity tag for http caching. */
+	private final String etag;
+
+	/** time stored in milliseconds. used as last modified. */
+	private final long lastModified;
+
+	/**
+	 * Instantiates a new stored picture.
+	 *
+	 * @param pdata
+	 *            the data
+	 * @param pmimeType
+	 *            the mime type
+	 * @param pkey
+	 *            the key in picture store
+	 * @param plastModified
+	 *            the last modified time
+	 */
+	public StoredPicture(final byte[] pdata, final String pmimeType,
+			final String pkey, final long plastModified) {
+		this.data = pdata;
+		this.mimeType = pmimeType;
+		this.etag = "\"" + pkey + "\"";
+		this.lastModified = plastModified;
+	}
+
+	/**
+	 * Gets the data. Must not be modified.
+	 *
+	 * @return the data
+	 */
+	public byte[] getData() {
+		return data;
+	}
+
+	/**
+	 * Gets the mime type.
+	 *
+	 * @return the mime type
+	 */
+	public String getMimeType() {
+		return mimeType;
+	}
+
+	/**
+	 * Gets the etag, quoted.
+	 *
+	 * @return the etag
+	 */
+	public String getEtag() {
+		return etag;
+	}
+
+	/**
+	 * Gets the last modified time.
+	 *
+	 * @return the last modified time in milliseconds
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+}
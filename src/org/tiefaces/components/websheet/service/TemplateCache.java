@@ -0,0 +1,235 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.apache.poi.util.IOUtils;
+import org.tiefaces.common.TieConstants;
+import org.tiefaces.components.websheet.dataobjects.TieCommandAlias;
+
+/**
+ * Application wide cache of parsed templates.
+ *
+ * Keyed by template id, checksum of template content and the bean settings
+ * which affect configuration. So a changed template file or different
+ * settings never hit a stale entry. Least recently used entries are evicted
+ * when the cache is full.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class TemplateCache {
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(TemplateCache.class.getName());
+
+	/** key separator. */
+	private static final String KEY_SEPARATOR = "|";
+
+	/** single instance. */
+	private static final TemplateCache INSTANCE = new TemplateCache();
+
+	/** max entries. */
+	private int maxEntries = TieConstants.DEFAULT_TEMPLATE_CACHE_SIZE;
+
+	/** entries in access order. */
+	private final Map<String, TemplateCacheEntry> entries = new LinkedHashMap<>(
+			16, 0.75f, true);
+
+	/** template loader. */
+	private volatile TemplateLoader templateLoader;
+
+	/**
+	 * hide constructor.
+	 */
+	private TemplateCache() {
+		// not called
+	}
+
+	/**
+	 * Gets the single instance.
+	 *
+	 * @return the template cache
+	 */
+	public static TemplateCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the entry.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the entry or null if not cached
+	 */
+	public synchronized TemplateCacheEntry get(final String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Put entry.
+	 *
+	 * @param entry
+	 *            the entry
+	 */
+	public synchronized void put(final TemplateCacheEntry entry) {
+		entries.put(entry.getKey(), entry);
+		Iterator<TemplateCacheEntry> it = entries.values().iterator();
+		while ((entries.size() > maxEntries) && it.hasNext()) {
+			LOG.fine("evict template cache entry : " + it.next().getKey());
+			it.remove();
+		}
+	}
+
+	/**
+	 * Remove all entries of the template.
+	 *
+	 * @param templateId
+	 *            the template id
+	 */
+	public synchronized void invalidate(final String templateId) {
+		String prefix = templateId + KEY_SEPARATOR;
+		Iterator<String> it = entries.keySet().iterator();
+		while (it.hasNext()) {
+			if (it.next().startsWith(prefix)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Entries count.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Sets the max entries.
+	 *
+	 * @param pmaxEntries
+	 *            the new max entries
+	 */
+	public synchronized void setMaxEntries(final int pmaxEntries) {
+		this.maxEntries = pmaxEntries;
+	}
+
+	/**
+	 * Gets the template loader.
+	 *
+	 * @return the template loader
+	 */
+	public TemplateLoader getTemplateLoader() {
+		return templateLoader;
+	}
+
+	/**
+	 * Sets the template loader. Required to rebuild workbook from template
+	 * when it's evicted from cache.
+	 *
+	 * @param ptemplateLoader
+	 *            the new template loader
+	 */
+	public void setTemplateLoader(final TemplateLoader ptemplateLoader) {
+		this.templateLoader = ptemplateLoader;
+	}
+
+	/**
+	 * Load template content through template loader.
+	 *
+	 * @param templateId
+	 *            the template id
+	 * @return the template content or null if not available
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public byte[] loadTemplateContent(final String templateId)
+			throws IOException {
+		TemplateLoader loader = this.templateLoader;
+		if (loader == null) {
+			return null;
+		}
+		try (InputStream is = loader.loadTemplate(templateId)) {
+			if (is == null) {
+				return null;
+			}
+			return IOUtils.toByteArray(is);
+		}
+	}
+
+	/**
+	 * Builds the cache key.
+	 *
+	 * @param templateId
+	 *            the template id
+	 * @param content
+	 *            the template content
+	 * @param skipConfiguration
+	 *            the skip configuration setting
+	 * @param aliasList
+	 *            the tie command alias list
+	 * @return the key
+	 */
+	public static String buildKey(final String templateId,
+			final byte[] content, final boolean skipConfiguration,
+			final List<TieCommandAlias> aliasList) {
+		StringBuilder settings = new StringBuilder();
+		settings.append(skipConfiguration);
+		if (aliasList != null) {
+			for (TieCommandAlias alias : aliasList) {
+				settings.append(KEY_SEPARATOR).append(alias.getAlias())
+						.append('=').append(alias.getCommand())
+						.append(alias.isRemove());
+			}
+		}
+		return templateId + KEY_SEPARATOR + checksum(content)
+				+ KEY_SEPARATOR + checksum(settings.toString()
+						.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Checksum of content.
+	 *
+	 * @param content
+	 *            the content
+	 * @return hex string of SHA-256 digest
+	 */
+	public static String checksum(final byte[] content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256")
+					.digest(content);
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is required in every java platform.
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
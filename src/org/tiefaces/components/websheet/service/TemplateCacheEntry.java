@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.tiefaces.components.websheet.configuration.SheetConfiguration;
+import org.tiefaces.components.websheet.dataobjects.CellAttributesMap;
+import org.tiefaces.components.websheet.dataobjects.RowMetadataTable;
+import org.tiefaces.components.websheet.serializable.SerialWorkbook;
+
+/**
+ * Immutable parsed template held in template cache.
+ *
+ * The cache saves parsing of template comments and building of
+ * configuration, not the per session copies. Each session needs it's own
+ * copy of the configured workbook and sheet configurations, as both are
+ * changed by data binding. The workbook is kept as xlsx bytes and read
+ * directly into a new workbook, and the configuration snapshot goes through
+ * java serialization. Only the cell attributes map is read only after
+ * configuration, so it's shared by all sessions as unmodifiable instance.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class TemplateCacheEntry {
+
+	/** cache key. */
+	private final String key;
+
+	/** configured workbook in xlsx format. */
+	private final byte[] workbookBytes;
+
+	/** serialized sheet configurations and row metadata. */
+	private final byte[] configSnapshot;
+
+	/** shared cell attributes map. */
+	private final CellAttributesMap cellAttributesMap;
+
+	/**
+	 * Instantiates a new template cache entry.
+	 *
+	 * @param pkey
+	 *            the key
+	 * @param pworkbookBytes
+	 *            the workbook bytes
+	 * @param pconfigSnapshot
+	 *            the configuration snapshot
+	 * @param pcellAttributesMap
+	 *            the cell attributes map
+	 */
+	private TemplateCacheEntry(final String pkey,
+			final byte[] pworkbookBytes, final byte[] pconfigSnapshot,
+			final CellAttributesMap pcellAttributesMap) {
+		this.key = pkey;
+		this.workbookBytes = pworkbookBytes;
+		this.configSnapshot = pconfigSnapshot;
+		this.cellAttributesMap = pcellAttributesMap;
+	}
+
+	/**
+	 * Create entry from configured workbook. Must be called after
+	 * configuration built and before any data loaded.
+	 *
+	 * @param pkey
+	 *            the key
+	 * @param serialWb
+	 *            the configured serial workbook
+	 * @param attrsMap
+	 *            the cell attributes map
+	 * @return the template cache entry
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static TemplateCacheEntry create(final String pkey,
+			final SerialWorkbook serialWb, final CellAttributesMap attrsMap)
+			throws IOException {
+		Workbook wb = serialWb.getWb();
+		ByteArrayOutputStream configBos = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(configBos)) {
+			out.writeObject(serialWb.getSheetConfigMap());
+			out.writeObject(serialWb.getIndexes().snapshot(wb));
+		}
+		ByteArrayOutputStream wbBos = new ByteArrayOutputStream();
+		wb.write(wbBos);
+		return new TemplateCacheEntry(pkey, wbBos.toByteArray(),
+				configBos.toByteArray(), attrsMap.unmodifiableCopy());
+	}
+
+	/**
+	 * Restore a new copy of configured workbook and sheet configurations.
+	 *
+	 * @return the serial workbook
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws ClassNotFoundException
+	 *             the class not found exception
+	 */
+	@SuppressWarnings("unchecked")
+	public SerialWorkbook restoreWorkbook()
+			throws IOException, ClassNotFoundException {
+		Workbook wb;
+		try {
+			wb = WorkbookFactory
+					.create(new ByteArrayInputStream(workbookBytes));
+		} catch (InvalidFormatException e) {
+			throw new IOException(e);
+		}
+		Map<String, SheetConfiguration> sheetConfigMap;
+		Map<String, RowMetadataTable> rowMetadata;
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(configSnapshot))) {
+			sheetConfigMap = (Map<String, SheetConfiguration>) in
+					.readObject();
+			rowMetadata = (Map<String, RowMetadataTable>) in.readObject();
+		}
+		SerialWorkbook serialWb = new SerialWorkbook();
+		serialWb.setWb(wb);
+		serialWb.getIndexes().restore(wb, rowMetadata);
+		serialWb.setSheetConfigMap(sheetConfigMap);
+		serialWb.recover();
+		return serialWb;
+	}
+
+	/**
+	 * Gets the shared cell attributes map. It's unmodifiable.
+	 *
+	 * @return the cell attributes map
+	 */
+	public CellAttributesMap getCellAttributesMap() {
+		return cellAttributesMap;
+	}
+
+	/**
+	 * Gets the key.
+	 *
+	 * @return the key
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the snapshot size in bytes.
+	 *
+	 * @return the snapshot size
+	 */
+	public int getSnapshotSize() {
+		return workbookBytes.length + configSnapshot.length;
+	}
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Load template content by template id. Used to rebuild workbook from
+ * template when the template is no longer in template cache, e.g. after
+ * session restored on another server.
+ *
+ * @author Jason Jiang
+ *
+ */
+public interface TemplateLoader {
+
+	/**
+	 * Load template.
+	 *
+	 * @param templateId
+	 *            the template id
+	 * @return the template input stream or null if not found
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	InputStream loadTemplate(String templateId) throws IOException;
+
+}
@@ -5,9 +5,7 @@
 
 package org.tiefaces.components.websheet.service;
 
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.logging.Logger;
@@ -15,11 +13,11 @@ import java.util.logging.Logger;
 import javax.enterprise.context.SessionScoped;
 import javax.faces.context.FacesContext;
 import javax.faces.event.PhaseId;
-import javax.imageio.ImageIO;
 import javax.inject.Named;
 
 import org.primefaces.model.DefaultStreamedContent;
 import org.primefaces.model.StreamedContent;
+import org.tiefaces.components.websheet.chart.LazyChartImage;
 
 /**
  * This serve as a managed bean for retrieve chart as picture from session.
@@ -68,15 +66,19 @@ public class TieWebSheetChartsService implements Serializable {
 			String chartId = context.getExternalContext()
 					.getRequestParameterMap().get("chartViewId");
 
-			BufferedImage bufferedImg = (BufferedImage) FacesContext
+			LazyChartImage chartImage = (LazyChartImage) FacesContext
 					.getCurrentInstance().getExternalContext()
 					.getSessionMap().get(chartId);
-			ByteArrayOutputStream os = new ByteArrayOutputStream();
-			ImageIO.write(bufferedImg, "png", os);
 			FacesContext.getCurrentInstance().getExternalContext()
 					.getSessionMap().remove(chartId);
+			byte[] png = (chartImage == null) ? null
+					: chartImage.getPngBytes();
+			if (png == null) {
+				LOG.fine(" chart image not available for " + chartId);
+				return new DefaultStreamedContent();
+			}
 			return new DefaultStreamedContent(new ByteArrayInputStream(
-					os.toByteArray()), "image/png");
+					png), "image/png");
 		}
 	}
 
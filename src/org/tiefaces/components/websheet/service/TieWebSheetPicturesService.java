@@ -6,20 +6,31 @@
 package org.tiefaces.components.websheet.service;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.Serializable;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.enterprise.context.SessionScoped;
+import javax.faces.context.ExternalContext;
 import javax.faces.context.FacesContext;
 import javax.faces.event.PhaseId;
 import javax.inject.Named;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
 
-import org.apache.poi.ss.usermodel.PictureData;
 import org.primefaces.model.DefaultStreamedContent;
 import org.primefaces.model.StreamedContent;
+import org.tiefaces.common.TieConstants;
 
 /**
- * This serve as a managed bean for retrieve picture from session.
+ * This serve as a managed bean for retrieve picture from picture store.
  * 
  * @author Jason Jiang
  *
@@ -45,13 +56,22 @@ public class TieWebSheetPicturesService implements Serializable  {
 		LOG.fine("TieWebSheetPictureService Constructor");
 	}
 
+	/** http date format. */
+	private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
 	/**
-	 * Return picture to web front end.
+	 * Return picture to web front end. Picture is content addressed, so it's
+	 * sent with etag, last modified and long max age headers. Conditional
+	 * request of unchanged picture is answered with not modified. Picture not
+	 * in the store (evicted or too large to store) is answered with not
+	 * found, the page gets a new key when it's rendered again.
 	 *
 	 * @return empty (phase is render_response) or real picture ( browser
 	 *         request).
+	 * @throws IOException
+	 *             exception.
 	 */
-	public StreamedContent getPicture() {
+	public StreamedContent getPicture() throws IOException {
 		FacesContext context = FacesContext.getCurrentInstance();
 
 		if (context.getCurrentPhaseId() == PhaseId.RENDER_RESPONSE) {
@@ -62,19 +82,134 @@ public class TieWebSheetPicturesService implements Serializable  {
 		} else {
 			// So, browser is requesting the image. Return a real
 			// StreamedContent with the image bytes.
-			String pictureId = context.getExternalContext()
-					.getRequestParameterMap().get("pictureViewId");
-
-			PictureData picData = (PictureData) FacesContext
-					.getCurrentInstance().getExternalContext()
-					.getSessionMap().get(pictureId);
-			FacesContext.getCurrentInstance().getExternalContext()
-					.getSessionMap().remove(pictureId);
-			LOG.fine(" return real picture and remove session");
-			return new DefaultStreamedContent(new ByteArrayInputStream(
-					picData.getData()));
+			ExternalContext externalContext = context.getExternalContext();
+			String pictureId = externalContext.getRequestParameterMap()
+					.get("pictureViewId");
+			StoredPicture picture = (pictureId == null) ? null
+					: PictureStore.getInstance().get(pictureId);
+			if (picture == null) {
+				LOG.fine(" picture not available for " + pictureId);
+				externalContext.setResponseStatus(
+						HttpServletResponse.SC_NOT_FOUND);
+				return new DefaultStreamedContent();
+			}
+			externalContext.setResponseHeader("ETag", picture.getEtag());
+			externalContext.setResponseHeader("Last-Modified",
+					formatHttpDate(picture.getLastModified()));
+			externalContext.setResponseHeader("Cache-Control",
+					"private, max-age="
+							+ TieConstants.DEFAULT_PICTURE_MAX_AGE_SECONDS);
+			if ((externalContext
+					.getResponse() instanceof HttpServletResponse)
+					&& isNotModified(externalContext.getRequestHeaderMap(),
+							picture)) {
+				// streamed content handler sets status to ok before
+				// streaming, so keep not modified status in the response.
+				externalContext.setResponse(new NotModifiedResponse(
+						(HttpServletResponse) externalContext
+								.getResponse()));
+				LOG.fine(" return picture not modified");
+				return new DefaultStreamedContent(
+						new ByteArrayInputStream(new byte[0]),
+						picture.getMimeType());
+			}
+			LOG.fine(" return real picture from picture store");
+			return new DefaultStreamedContent(
+					new ByteArrayInputStream(picture.getData()),
+					picture.getMimeType());
+		}
+	}
+
+	/**
+	 * Response of not modified picture. Status is fixed to not modified and
+	 * no content is sent.
+	 */
+	private static final class NotModifiedResponse
+			extends HttpServletResponseWrapper {
+
+		/**
+		 * Instantiates a new not modified response.
+		 *
+		 * @param response
+		 *            the response
+		 */
+		NotModifiedResponse(final HttpServletResponse response) {
+			super(response);
+			super.setStatus(TieConstants.HTTP_NOT_MODIFIED);
+		}
+
+		@Override
+		public void setStatus(final int sc) {
+			// keep not modified
+		}
+
+		@Override
+		public void setContentType(final String type) {
+			// no content
+		}
+
+		@Override
+		public void setContentLength(final int len) {
+			// no content
+		}
+
+		@Override
+		public void setContentLengthLong(final long len) {
+			// no content
+		}
+	}
+
+	/**
+	 * Whether the browser already holds the picture.
+	 *
+	 * @param headers
+	 *            the request headers
+	 * @param picture
+	 *            the picture
+	 * @return true, if not modified
+	 */
+	private static boolean isNotModified(final Map<String, String> headers,
+			final StoredPicture picture) {
+		String ifNoneMatch = headers.get("If-None-Match");
+		if (ifNoneMatch != null) {
+			return ifNoneMatch.contains(picture.getEtag());
+		}
+		String ifModifiedSince = headers.get("If-Modified-Since");
+		if (ifModifiedSince != null) {
+			try {
+				Date since = createHttpDateFormat().parse(ifModifiedSince);
+				// http date has seconds precision.
+				return (picture.getLastModified() / 1000) <= (since
+						.getTime() / 1000);
+			} catch (ParseException ex) {
+				LOG.log(Level.FINE, "invalid If-Modified-Since header : "
+						+ ifModifiedSince, ex);
+			}
 		}
+		return false;
+	}
+
+	/**
+	 * Format time as http date.
+	 *
+	 * @param time
+	 *            the time in milliseconds
+	 * @return the http date
+	 */
+	private static String formatHttpDate(final long time) {
+		return createHttpDateFormat().format(new Date(time));
+	}
+
+	/**
+	 * Creates the http date format. SimpleDateFormat is not thread safe.
+	 *
+	 * @return the date format
+	 */
+	private static SimpleDateFormat createHttpDateFormat() {
+		SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT,
+				Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format;
 	}
-	
 
 }
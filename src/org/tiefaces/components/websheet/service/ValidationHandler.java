@@ -5,9 +5,11 @@
 
 package org.tiefaces.components.websheet.service;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -22,11 +24,13 @@ import org.primefaces.context.RequestContext;
 import org.tiefaces.common.FacesUtility;
 import org.tiefaces.common.TieConstants;
 import org.tiefaces.components.websheet.TieWebSheetBean;
+import org.tiefaces.components.websheet.configuration.FullNamePath;
 import org.tiefaces.components.websheet.configuration.SheetConfiguration;
 import org.tiefaces.components.websheet.dataobjects.CellFormAttributes;
 import org.tiefaces.components.websheet.dataobjects.FacesCell;
 import org.tiefaces.components.websheet.dataobjects.FacesRow;
 import org.tiefaces.components.websheet.dataobjects.TieCell;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
 import org.tiefaces.components.websheet.utility.CellControlsUtility;
 import org.tiefaces.components.websheet.utility.CellUtility;
 import org.tiefaces.components.websheet.utility.ConfigurationUtility;
@@ -178,14 +182,16 @@ public class ValidationHandler {
 			final FacesCell cell, final String value, boolean updateGui) {
 		if (parent.getTieWebSheetValidationBean() != null) {
 			String errormsg = null;
-			String fullName = ConfigurationUtility.getFullNameFromRow(poiCell.getRow());
-			String saveAttr = SaveAttrsUtility.prepareContextAndAttrsForCell(poiCell, fullName, parent.getCellHelper());
+			WorkbookIndexes indexes = parent.getSerialWb().getIndexes();
+			FullNamePath fullName = ConfigurationUtility.getFullNamePathFromRow(indexes, poiCell.getRow());
+			String saveAttr = SaveAttrsUtility.prepareContextAndAttrsForCell(indexes, poiCell, fullName,
+					parent.getCellHelper());
 			if (saveAttr != null) {
 				int row = poiCell.getRowIndex();
 				int col = poiCell.getColumnIndex();
 				errormsg = parent.getTieWebSheetValidationBean().validate(
-						parent.getSerialDataContext().getDataContext(), saveAttr, ConfigurationUtility
-								.getFullNameFromRow(poiCell.getRow()), poiCell.getSheet().getSheetName(),
+						parent.getSerialDataContext().getDataContext(), saveAttr, fullName.toString(),
+						poiCell.getSheet().getSheetName(),
 						row, col, value);
 				if ((errormsg != null) && (!errormsg.isEmpty())) {
 					cell.setErrormsg(errormsg);
@@ -391,15 +397,39 @@ public class ValidationHandler {
 			FacesContext facesContext = FacesContext.getCurrentInstance();
 			String tblName = parent.getWebFormClientId();
 			UIComponent target = event.getComponent();
-			boolean pass = validateCell(target);
+			WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+			boolean pass;
+			long start = metrics.start();
+			try {
+				pass = validateCell(target);
+				if (pass) {
+					// to improve performance, re-validate current row only
+					// page validation take times. will happen when change
+					// tab(page) or reload page.
+					int[] rowcol = CellUtility.getRowColFromComponentAttributes(target);
+					validateRowInCurrentPage(rowcol[0], true);
+				}
+			} finally {
+				metrics.stop(WebSheetMetrics.Operation.VALIDATION, start);
+			}
 			if (pass) {
-				// to improve performance, re-validate current row only
-				// page validation take times. will happen when change tab(page)
-				// or
-				// reload page.
-				int[] rowcol = CellUtility.getRowColFromComponentAttributes(target);
-				validateRowInCurrentPage(rowcol[0], true);
-				refreshCachedCellsInCurrentPage(facesContext, tblName);
+				start = metrics.start();
+				try {
+					Collection<Cell> recalcedCells = parent.getCellHelper().pollRecalcedCells();
+					if (parent.isRefreshDependentsOnly() && (recalcedCells != null)) {
+						refreshRecalcedCellsInCurrentPage(facesContext, tblName, recalcedCells);
+					} else {
+						refreshCachedCellsInCurrentPage(facesContext, tblName);
+					}
+				} finally {
+					metrics.stop(WebSheetMetrics.Operation.CACHED_CELL_REFRESH, start);
+				}
+				start = metrics.start();
+				try {
+					refreshChartsInCurrentPage(facesContext, tblName);
+				} finally {
+					metrics.stop(WebSheetMetrics.Operation.CHART_REFRESH, start);
+				}
 			}
 		} catch (Exception ex) {
 			LOG.log(Level.SEVERE, "Validation error:" + ex.getLocalizedMessage(), ex);
@@ -435,6 +465,86 @@ public class ValidationHandler {
 		}
 	}
 
+	/**
+	 * Refresh the re-evaluated formula cells shown in current page. Only the
+	 * dependents of changed cells are compared and updated, instead of scan
+	 * the whole page.
+	 *
+	 * @param facesContext
+	 *            the faces context
+	 * @param tblName
+	 *            the tbl name
+	 * @param recalcedCells
+	 *            the re-evaluated formula cells
+	 */
+	private void refreshRecalcedCellsInCurrentPage(final FacesContext facesContext, final String tblName,
+			final Collection<Cell> recalcedCells) {
+		if (recalcedCells.isEmpty()) {
+			return;
+		}
+		UIComponent s = facesContext.getViewRoot().findComponent(tblName);
+		if (s == null) {
+			return;
+		}
+		DataTable webDataTable = (DataTable) s;
+		int first = webDataTable.getFirst();
+		int last = Math.min(first + webDataTable.getRowsToRender(), webDataTable.getRowCount() - 1);
+		int top = parent.getCurrent().getCurrentTopRow();
+		int left = parent.getCurrent().getCurrentLeftColumn();
+		Sheet sheet = parent.getWb().getSheet(parent.getSheetConfigMap()
+				.get(parent.getCurrent().getCurrentTabName()).getSheetName());
+
+		for (Cell poiCell : recalcedCells) {
+			if (poiCell.getSheet() != sheet) {
+				continue;
+			}
+			int i = poiCell.getRowIndex() - top;
+			int index = poiCell.getColumnIndex() - left;
+			if ((i < first) || (i > last) || (index < 0)) {
+				continue;
+			}
+			List<FacesCell> cells = parent.getBodyRows().get(i).getCells();
+			if (index < cells.size()) {
+				FacesCell fcell = cells.get(index);
+				if (fcell != null) {
+					parent.getHelper().getWebSheetLoader().refreshCachedCell(tblName, i, index, poiCell, fcell);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Update the charts shown in current page which are refreshed by cell
+	 * changes, so browser requests the images with new version.
+	 *
+	 * @param facesContext
+	 *            the faces context
+	 * @param tblName
+	 *            the tbl name
+	 */
+	private void refreshChartsInCurrentPage(final FacesContext facesContext, final String tblName) {
+		Set<String> refreshedCharts = parent.getCharsData().pollRefreshedCharts();
+		if (refreshedCharts.isEmpty()) {
+			return;
+		}
+		UIComponent s = facesContext.getViewRoot().findComponent(tblName);
+		if (s == null) {
+			return;
+		}
+		DataTable webDataTable = (DataTable) s;
+		int first = webDataTable.getFirst();
+		int last = Math.min(first + webDataTable.getRowsToRender(), webDataTable.getRowCount() - 1);
+		for (int i = first; i <= last; i++) {
+			List<FacesCell> cells = parent.getBodyRows().get(i).getCells();
+			for (int index = 0; index < cells.size(); index++) {
+				FacesCell fcell = cells.get(index);
+				if ((fcell != null) && fcell.isContainChart() && refreshedCharts.contains(fcell.getChartId())) {
+					RequestContext.getCurrentInstance().update(tblName + ":" + i + ":charts" + index);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Refresh cached cells in row.
 	 *
@@ -484,6 +594,22 @@ public class ValidationHandler {
 	 * @return true (pass) false (failed)
 	 */
 	public boolean preValidation() {
+
+		WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+		long start = metrics.start();
+		try {
+			return preValidationAllTabs();
+		} finally {
+			metrics.stop(WebSheetMetrics.Operation.VALIDATION, start);
+		}
+	}
+
+	/**
+	 * Validate all tabs. Stay on the first invalid tab.
+	 *
+	 * @return true, if all tabs are valid
+	 */
+	private boolean preValidationAllTabs() {
 				
 		String currentTabName = parent.getCurrent().getCurrentTabName();
 		String tabName = null;
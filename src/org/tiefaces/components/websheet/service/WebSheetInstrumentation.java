@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+/**
+ * Holder of application wide web sheet metrics. No-op metrics is used until
+ * another implementation installed, e.g. JmxWebSheetMetrics.install().
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class WebSheetInstrumentation {
+
+	/** current metrics. */
+	private static volatile WebSheetMetrics metrics = NoOpWebSheetMetrics.INSTANCE;
+
+	/**
+	 * hide constructor.
+	 */
+	private WebSheetInstrumentation() {
+		// not called
+	}
+
+	/**
+	 * Gets the current metrics.
+	 *
+	 * @return the metrics
+	 */
+	public static WebSheetMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the metrics. Null restores the no-op metrics.
+	 *
+	 * @param pmetrics
+	 *            the new metrics
+	 */
+	public static void setMetrics(final WebSheetMetrics pmetrics) {
+		metrics = (pmetrics == null) ? NoOpWebSheetMetrics.INSTANCE
+				: pmetrics;
+	}
+
+}
@@ -5,9 +5,11 @@
 
 package org.tiefaces.components.websheet.service;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +27,7 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.IOUtils;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.primefaces.component.datatable.DataTable;
 import org.primefaces.context.RequestContext;
@@ -33,14 +36,22 @@ import org.tiefaces.common.TieConstants;
 import org.tiefaces.components.websheet.TieWebSheetBean;
 import org.tiefaces.components.websheet.TieWebSheetView.TabModel;
 import org.tiefaces.components.websheet.configuration.ConfigBuildRef;
+import org.tiefaces.components.websheet.configuration.ConfigRangeAttrs;
 import org.tiefaces.components.websheet.configuration.ConfigurationHandler;
+import org.tiefaces.components.websheet.configuration.FullNamePath;
 import org.tiefaces.components.websheet.configuration.RangeBuildRef;
 import org.tiefaces.components.websheet.configuration.RowsMapping;
 import org.tiefaces.components.websheet.configuration.SheetConfiguration;
+import org.tiefaces.components.websheet.dataobjects.BlockBodyRows;
 import org.tiefaces.components.websheet.dataobjects.FacesCell;
 import org.tiefaces.components.websheet.dataobjects.FacesRow;
 import org.tiefaces.components.websheet.dataobjects.HeaderCell;
+import org.tiefaces.components.websheet.dataobjects.LazyBodyRows;
+import org.tiefaces.components.websheet.dataobjects.MergedRegionIndex;
+import org.tiefaces.components.websheet.dataobjects.RowMetadata;
 import org.tiefaces.components.websheet.dataobjects.TieCell;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
+import org.tiefaces.components.websheet.serializable.SerialWorkbook;
 import org.tiefaces.components.websheet.utility.CellStyleUtility;
 import org.tiefaces.components.websheet.utility.CellUtility;
 import org.tiefaces.components.websheet.utility.CommandUtility;
@@ -80,13 +91,10 @@ public class WebSheetLoader implements Serializable {
 	 *
 	 * @param sheetConfig
 	 *            the sheet config
-	 * @param cellRangeMap
-	 *            the cell range map
-	 * @param skippedRegionCells
-	 *            the skipped region cells
+	 * @param mergedRegions
+	 *            the merged regions
 	 */
-	private void loadHeaderRows(final SheetConfiguration sheetConfig, final Map<String, CellRangeAddress> cellRangeMap,
-			final List<String> skippedRegionCells) {
+	private void loadHeaderRows(final SheetConfiguration sheetConfig, final MergedRegionIndex mergedRegions) {
 
 		int top = sheetConfig.getHeaderCellRange().getTopRow();
 		int bottom = sheetConfig.getHeaderCellRange().getBottomRow();
@@ -121,7 +129,7 @@ public class WebSheetLoader implements Serializable {
 			parent.getHeaderRows().add(loadHeaderRowWithoutConfigurationTab(rangeBuildRef, false));
 			for (int i = top; i <= bottom; i++) {
 				parent.getHeaderRows().add(loadHeaderRowWithConfigurationTab(sheetConfig, rangeBuildRef, i,
-						cellRangeMap, skippedRegionCells));
+						mergedRegions));
 
 			}
 			// set showlinenumber to false as default
@@ -223,15 +231,12 @@ public class WebSheetLoader implements Serializable {
 	 *            the range build ref
 	 * @param currentRow
 	 *            the current row
-	 * @param cellRangeMap
-	 *            the cell range map
-	 * @param skippedRegionCells
-	 *            the skipped region cells
+	 * @param mergedRegions
+	 *            the merged regions
 	 * @return the list
 	 */
 	private List<HeaderCell> loadHeaderRowWithConfigurationTab(final SheetConfiguration sheetConfig,
-			final RangeBuildRef rangeBuildRef, final int currentRow, final Map<String, CellRangeAddress> cellRangeMap,
-			final List<String> skippedRegionCells) {
+			final RangeBuildRef rangeBuildRef, final int currentRow, final MergedRegionIndex mergedRegions) {
 
 		Sheet sheet1 = rangeBuildRef.getSheet();
 		int left = rangeBuildRef.getLeft();
@@ -240,24 +245,22 @@ public class WebSheetLoader implements Serializable {
 		Row row = sheet1.getRow(currentRow);
 		List<HeaderCell> headercells = new ArrayList<>();
 		for (int cindex = left; cindex <= right; cindex++) {
-			String cellindex = CellUtility.getCellIndexNumberKey(cindex, currentRow);
-
-			if (!skippedRegionCells.contains(cellindex) && !sheet1.isColumnHidden(cindex)) {
+			if (!mergedRegions.isSkipped(currentRow, cindex) && !sheet1.isColumnHidden(cindex)) {
 				Cell cell = null;
 				if (row != null) {
 					cell = row.getCell(cindex, MissingCellPolicy.CREATE_NULL_AS_BLANK);
 				}
-				int originRowIndex = ConfigurationUtility.getOriginalRowNumInHiddenColumn(row);
+				int originRowIndex = ConfigurationUtility.getRowOriginIndex(parent.getSerialWb().getIndexes(), row);
 				if (cell != null) {
 					FacesCell fcell = new FacesCell();
 
-					CellUtility.convertCell(sheetConfig, fcell, cell, cellRangeMap, originRowIndex,
+					CellUtility.convertCell(sheetConfig, fcell, cell, mergedRegions, originRowIndex,
 							parent.getCellAttributesMap(), null);
 					parent.getPicHelper().setupFacesCellPictureCharts(sheet1, fcell, cell,
 							WebSheetUtility.getFullCellRefName(sheet1, cell));
 					CellStyleUtility.setupCellStyle(parent.getWb(), fcell, cell, row.getHeightInPoints());
 					fcell.setColumnStyle(fcell.getColumnStyle()
-							+ getColumnWidthStyle(sheet1, cellRangeMap, cellindex, cindex, totalWidth));
+							+ getColumnWidthStyle(sheet1, mergedRegions, currentRow, cindex, totalWidth));
 					fcell.setColumnIndex(cindex);
 
 					headercells.add(
@@ -278,20 +281,20 @@ public class WebSheetLoader implements Serializable {
 	 *
 	 * @param sheet1
 	 *            the sheet 1
-	 * @param cellRangeMap
-	 *            the cell range map
-	 * @param cellindex
-	 *            the cellindex
+	 * @param mergedRegions
+	 *            the merged regions
+	 * @param rowIndex
+	 *            the row index
 	 * @param cindex
 	 *            the cindex
 	 * @param totalWidth
 	 *            the total width
 	 * @return the column width style
 	 */
-	private String getColumnWidthStyle(final Sheet sheet1, final Map<String, CellRangeAddress> cellRangeMap,
-			final String cellindex, final int cindex, final double totalWidth) {
+	private String getColumnWidthStyle(final Sheet sheet1, final MergedRegionIndex mergedRegions,
+			final int rowIndex, final int cindex, final double totalWidth) {
 
-		CellRangeAddress caddress = cellRangeMap.get(cellindex);
+		CellRangeAddress caddress = mergedRegions.getRegionStartAt(rowIndex, cindex);
 		double colWidth;
 		// check whether the cell has rowspan or colspan
 		if (caddress != null) {
@@ -323,11 +326,16 @@ public class WebSheetLoader implements Serializable {
 		parent.setWb(null);
 		parent.getHeaderRows().clear();
 		parent.getBodyRows().clear();
-		parent.getCharsData().getChartsMap().clear();
+		parent.getCharsData().getChartSizeMap().clear();
 		parent.getCharsData().getChartDataMap().clear();
 		parent.getCharsData().getChartAnchorsMap().clear();
 		parent.getCharsData().getChartPositionMap().clear();
-		parent.getCellAttributesMap().clear();
+		parent.getCharsData().getChartVersionMap().clear();
+		parent.getCharsData().pollRefreshedCharts();
+		// may be shared with other sessions by template cache, so replace
+		// it instead of clear.
+		parent.setCellAttributesMap(null);
+		parent.getSerialWb().setTemplate(null, null, false);
 	}
 
 	/**
@@ -353,6 +361,125 @@ public class WebSheetLoader implements Serializable {
 
 	}
 
+	/**
+	 * Load workbook through template cache. Configuration is only built for
+	 * the first load of the template, later loads restore it from cache.
+	 *
+	 * @param fis
+	 *            the fis
+	 * @param dataContext
+	 *            the data context
+	 * @param templateId
+	 *            the template id
+	 * @return the int
+	 */
+	public final int loadWorkbook(final InputStream fis, final Map<String, Object> dataContext,
+			final String templateId) {
+
+		try {
+			byte[] content = IOUtils.toByteArray(fis);
+			fis.close();
+			String key = TemplateCache.buildKey(templateId, content, parent.isSkipConfiguration(),
+					parent.getTieCommandAliasList());
+			return loadTemplate(templateId, key, content, dataContext);
+		} catch (Exception e) {
+			LOG.log(Level.SEVERE, "Web Form loadWorkbook Error Exception = " + e.getLocalizedMessage(), e);
+			return -1;
+		}
+	}
+
+	/**
+	 * Load template from template cache. If not cached then build
+	 * configuration from content and put it into cache.
+	 *
+	 * @param templateId
+	 *            the template id
+	 * @param key
+	 *            the template cache key
+	 * @param content
+	 *            the template content. only required when not cached.
+	 * @param dataContext
+	 *            the data context
+	 * @return the int
+	 * @throws Exception
+	 *             the exception
+	 */
+	private int loadTemplate(final String templateId, final String key, final byte[] content,
+			final Map<String, Object> dataContext) throws Exception {
+		TemplateCacheEntry entry = TemplateCache.getInstance().get(key);
+		int ireturn = 1;
+		if (entry == null) {
+			if (content == null) {
+				return -1;
+			}
+			Workbook wb = WorkbookFactory.create(new ByteArrayInputStream(content));
+			ireturn = loadWorkbook(wb, dataContext, templateId, key);
+		} else {
+			LOG.fine("Load work book from template cache...");
+			WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+			long start = metrics.start();
+			try {
+				clearWorkbook();
+				SerialWorkbook serialWb = entry.restoreWorkbook();
+				// row metadata is restored into the indexes of the copy.
+				parent.setWb(serialWb.getWb(), serialWb.getIndexes());
+				parent.setSheetConfigMap(serialWb.getSheetConfigMap());
+				parent.setCellAttributesMap(entry.getCellAttributesMap());
+				parent.getSerialDataContext().setDataContext(dataContext);
+				initConfiguredWorkbook();
+			} catch (Exception e) {
+				LOG.log(Level.FINE, "Web Form loadWorkbook Error Exception = " + e.getLocalizedMessage(), e);
+				return -1;
+			} finally {
+				metrics.stop(WebSheetMetrics.Operation.LOAD, templateId, start);
+			}
+		}
+		if (ireturn > 0) {
+			parent.getSerialWb().setTemplate(templateId, key, parent.isDeltaSerialization());
+		}
+		return ireturn;
+	}
+
+	/**
+	 * Rebuild workbook after delta deserialization. The template is loaded
+	 * from template cache (or template loader if evicted) and bound with the
+	 * restored data context, which reproduces added or deleted rows. Then
+	 * the saved cell edits are applied.
+	 *
+	 * @return the int
+	 */
+	public final int restoreFromDelta() {
+		SerialWorkbook serialWb = parent.getSerialWb();
+		String templateId = serialWb.getTemplateId();
+		String key = serialWb.getTemplateKey();
+		String tabName = parent.getCurrent().getCurrentTabName();
+		Map<String, Object> dataContext = parent.getSerialDataContext().getDataContext();
+		try {
+			byte[] content = null;
+			if (TemplateCache.getInstance().get(key) == null) {
+				content = TemplateCache.getInstance().loadTemplateContent(templateId);
+				if ((content == null) || !key.equals(TemplateCache.buildKey(templateId, content,
+						parent.isSkipConfiguration(), parent.getTieCommandAliasList()))) {
+					LOG.severe("Cannot restore workbook. Template not available or changed : " + templateId);
+					return -1;
+				}
+			}
+			int ireturn = loadTemplate(templateId, key, content, dataContext);
+			if (ireturn < 0) {
+				return ireturn;
+			}
+			serialWb.applyCellEdits();
+			parent.getCellHelper().reCalc();
+			if ((tabName != null) && parent.getSheetConfigMap().containsKey(tabName)) {
+				prepareWorkShee(tabName);
+			}
+		} catch (Exception e) {
+			LOG.log(Level.SEVERE, "Web Form restoreFromDelta Error Exception = " + e.getLocalizedMessage(), e);
+			return -1;
+		}
+		return 1;
+	}
+
 	/**
 	 * Load workbook.
 	 *
@@ -363,7 +490,29 @@ public class WebSheetLoader implements Serializable {
 	 * @return the int
 	 */
 	public final int loadWorkbook(final Workbook wb, final Map<String, Object> dataContext) {
+		return loadWorkbook(wb, dataContext, null, null);
+	}
+
+	/**
+	 * Load workbook.
+	 *
+	 * @param wb
+	 *            the wb
+	 * @param dataContext
+	 *            the data context
+	 * @param templateId
+	 *            the template id. metrics are recorded by template if not
+	 *            null.
+	 * @param cacheKey
+	 *            template cache key. if not null the configured template is
+	 *            put into template cache.
+	 * @return the int
+	 */
+	private int loadWorkbook(final Workbook wb, final Map<String, Object> dataContext, final String templateId,
+			final String cacheKey) {
 
+		WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+		long start = metrics.start();
 		try {
 			clearWorkbook();
 			// only support xssf workbook now since 2016 July
@@ -375,23 +524,37 @@ public class WebSheetLoader implements Serializable {
 			parent.setWb(wb);
 			parent.getSerialDataContext().setDataContext(dataContext);
 			parent.setSheetConfigMap(new ConfigurationHandler(parent).buildConfiguration());
-			parent.reCalcMaxColCounts();
-			parent.getChartHelper().loadChartsMap();
-			parent.getPicHelper().loadPicturesMap();
-			initSheet();
-			initTabs();
-			if (!parent.getTabs().isEmpty()) {
-				loadWorkSheet(parent.getTabs().get(0).getTitle());
+			if (cacheKey != null) {
+				// snapshot before data loaded.
+				TemplateCache.getInstance().put(
+						TemplateCacheEntry.create(cacheKey, parent.getSerialWb(), parent.getCellAttributesMap()));
 			}
+			initConfiguredWorkbook();
 
 		} catch (Exception e) {
 			LOG.log(Level.FINE, "Web Form loadWorkbook Error Exception = " + e.getLocalizedMessage(), e);
 			return -1;
+		} finally {
+			metrics.stop(WebSheetMetrics.Operation.LOAD, templateId, start);
 		}
 		return 1;
 
 	}
 
+	/**
+	 * Load data and first tab for configured workbook.
+	 */
+	private void initConfiguredWorkbook() {
+		parent.reCalcMaxColCounts();
+		parent.getChartHelper().loadChartsMap();
+		parent.getPicHelper().loadPicturesMap();
+		initSheet();
+		initTabs();
+		if (!parent.getTabs().isEmpty()) {
+			loadWorkSheet(parent.getTabs().get(0).getTitle());
+		}
+	}
+
 	/**
 	 * Inits the tabs.
 	 */
@@ -424,12 +587,16 @@ public class WebSheetLoader implements Serializable {
 		if (parent.isAdvancedContext()) {
 			parent.getSerialDataContext().getDataContext().put("tiecells", new HashMap<String, TieCell>());
 		}
+		WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+		long start = metrics.start();
 
 		for (SheetConfiguration sheetConfig : parent.getSheetConfigMap().values()) {
 			List<RowsMapping> currentRowsMappingList = null;
 			ConfigBuildRef configBuildRef = new ConfigBuildRef(parent.getWbWrapper(),
 					parent.getWb().getSheet(sheetConfig.getSheetName()), parent.getExpEngine(), parent.getCellHelper(),
 					sheetConfig.getCachedCells(), parent.getCellAttributesMap(), sheetConfig.getFinalCommentMap());
+			configBuildRef.setCellPlanTable(sheetConfig.getCellPlanTable());
+			configBuildRef.setWorkbookIndexes(parent.getSerialWb().getIndexes());
 			int length = sheetConfig.getFormCommand().buildAt(null, configBuildRef,
 					sheetConfig.getFormCommand().getTopRow(), parent.getSerialDataContext().getDataContext(),
 					currentRowsMappingList);
@@ -441,6 +608,7 @@ public class WebSheetLoader implements Serializable {
 			sheetConfig.getBodyCellRange().setBottomRow(sheetConfig.getFormCommand().getTopRow() + length - 1);
 			sheetConfig.setBodyPopulated(true);
 		}
+		metrics.stop(WebSheetMetrics.Operation.BIND, start);
 		parent.getCellHelper().reCalc();
 
 	}
@@ -476,35 +644,35 @@ public class WebSheetLoader implements Serializable {
 		if (row == null) {
 			return;
 		}
-		String saveAttrList = SaveAttrsUtility.getSaveAttrListFromRow(row);
-		if (saveAttrList!= null) {
-			String[] saveAttrs = saveAttrList.split(",");
-			for (String fullSaveAttr : saveAttrs) {
-				refreshDataForCell(row, fullSaveAttr);
+		RowMetadata metadata = parent.getSerialWb().getIndexes().getRowMetadata(row);
+		if ((metadata == null) || !metadata.hasSaveAttrs() || (metadata.getFullNamePath() == null)) {
+			return;
+		}
+		String[] saveAttrs = metadata.getSaveAttrs();
+		for (int columnIndex = 0; columnIndex < saveAttrs.length; columnIndex++) {
+			if (saveAttrs[columnIndex] != null) {
+				refreshDataForCell(row, metadata.getFullNamePath(), columnIndex, saveAttrs[columnIndex]);
 			}
-		}	
+		}
 	}
 	
 	/**
 	 * refresh data for single cell.
 	 *
 	 * @param row row.
-	 * @param fullSaveAttr fullSaveAttr.
+	 * @param fullName fullName of the row.
+	 * @param columnIndex columnIndex.
+	 * @param saveAttr saveAttr.
 	 */
 
-	private void refreshDataForCell(Row row, String fullSaveAttr) {
-		if (fullSaveAttr != null) {
-			try {
-				String fullName = ConfigurationUtility.getFullNameFromRow(row);
-				if (fullName != null) {
-					parent.getCellHelper().restoreDataContext(fullName);
-					SaveAttrsUtility.refreshSheetRowFromContext(parent.getSerialDataContext().getDataContext(),
-							fullSaveAttr, row, parent.getExpEngine());
-				}
-			}catch (Exception ex) {
-				LOG.log(Level.SEVERE, "refreshDataForCell with fullAaveAttr ="+fullSaveAttr+" error = " + ex.getMessage(), ex);			
-			}
-
+	private void refreshDataForCell(Row row, FullNamePath fullName, int columnIndex, String saveAttr) {
+		try {
+			parent.getCellHelper().restoreDataContext(fullName);
+			SaveAttrsUtility.refreshSheetCellFromContext(parent.getSerialWb().getIndexes(),
+					parent.getSerialDataContext().getDataContext(),
+					columnIndex, saveAttr, row, parent.getExpEngine());
+		}catch (Exception ex) {
+			LOG.log(Level.SEVERE, "refreshDataForCell with saveAttr ="+saveAttr+" error = " + ex.getMessage(), ex);			
 		}
 	}
 
@@ -535,7 +703,10 @@ public class WebSheetLoader implements Serializable {
 	public final void loadWorkSheet(final String tabName) {
 
 		prepareWorkShee(tabName);
-		parent.getValidationHandler().validateCurrentPage();
+		// lazy body rows are validated when assembled.
+		if (!parent.isLazyBodyRows()) {
+			parent.getValidationHandler().validateCurrentPage();
+		}
 		createDynamicColumns(tabName);
 		// reset datatable current page to 1
 		setDataTablePage(0);
@@ -570,10 +741,9 @@ public class WebSheetLoader implements Serializable {
 
 		// populate repeat rows before setup cell range map
 
-		Map<String, CellRangeAddress> cellRangeMap = ConfigurationUtility.indexMergedRegion(sheet1);
-		List<String> skippedRegionCells = ConfigurationUtility.skippedRegionCells(sheet1);
-		loadHeaderRows(sheetConfig, cellRangeMap, skippedRegionCells);
-		loadBodyRows(sheetConfig, cellRangeMap, skippedRegionCells);
+		MergedRegionIndex mergedRegions = parent.getSerialWb().getIndexes().getMergedRegions(sheet1);
+		loadHeaderRows(sheetConfig, mergedRegions);
+		loadBodyRows(sheetConfig, mergedRegions);
 	}	
 
 	/**
@@ -583,7 +753,7 @@ public class WebSheetLoader implements Serializable {
 	 *            the new data table page
 	 */
 	private void setDataTablePage(final int first) {
-		if (parent.getWebFormClientId() != null) {
+		if ((parent.getWebFormClientId() != null) && (FacesContext.getCurrentInstance() != null)) {
 			final DataTable d = (DataTable) FacesContext.getCurrentInstance().getViewRoot()
 					.findComponent(parent.getWebFormClientId());
 			if (d != null) {
@@ -631,7 +801,7 @@ public class WebSheetLoader implements Serializable {
 		if (row != null) {
 			facesRow.setRendered(!row.getZeroHeight());
 			facesRow.setRowheight(row.getHeight());
-			int rowNum = ConfigurationUtility.getOriginalRowNumInHiddenColumn(row);
+			int rowNum = ConfigurationUtility.getRowOriginIndex(parent.getSerialWb().getIndexes(), row);
 			facesRow.setOriginRowIndex(rowNum);
 		} else {
 			facesRow.setRendered(true);
@@ -646,13 +816,10 @@ public class WebSheetLoader implements Serializable {
 	 *
 	 * @param sheetConfig
 	 *            the sheet config
-	 * @param cellRangeMap
-	 *            the cell range map
-	 * @param skippedRegionCells
-	 *            the skipped region cells
+	 * @param mergedRegions
+	 *            the merged regions
 	 */
-	private void loadBodyRows(final SheetConfiguration sheetConfig, final Map<String, CellRangeAddress> cellRangeMap,
-			final List<String> skippedRegionCells) {
+	private void loadBodyRows(final SheetConfiguration sheetConfig, final MergedRegionIndex mergedRegions) {
 
 		int top = sheetConfig.getBodyCellRange().getTopRow();
 		int bottom = CellUtility.getBodyBottomFromConfig(sheetConfig);
@@ -665,17 +832,114 @@ public class WebSheetLoader implements Serializable {
 		parent.getBodyRows().clear();
 		clearCache();
 
-		for (int i = top; i <= bottom; i++) {
+		if (parent.isLazyBodyRows()) {
+			parent.setBodyRows(new LazyBodyRows(top, bottom - top + 1, parent.getMaxRowsPerPage(),
+					parent.getLazyPrefetchRows(),
+					new BodyRowAssembler(sheetConfig, sheet1)));
+		} else {
+			if (!(parent.getBodyRows() instanceof BlockBodyRows)
+					|| (((BlockBodyRows) parent.getBodyRows()).getTop() != top)) {
+				parent.setBodyRows(new BlockBodyRows(top));
+			}
+			for (int i = top; i <= bottom; i++) {
 
-			parent.getBodyRows()
-					.add(assembleFacesBodyRow(i, sheet1, left, right, sheetConfig, cellRangeMap, skippedRegionCells));
+				parent.getBodyRows().add(
+						assembleFacesBodyRow(i, sheet1, left, right, sheetConfig, mergedRegions));
 
+			}
 		}
 		sheetConfig.setBodyPopulated(true);
 		parent.getCurrent().setCurrentTopRow(top);
 		parent.getCurrent().setCurrentLeftColumn(left);
 	}
 
+	/**
+	 * Creates the body row assembler for tab. Used to re-attach lazy body
+	 * rows after deserialization.
+	 *
+	 * @param tabName
+	 *            the tab name
+	 * @return the row assembler
+	 */
+	public final LazyBodyRows.RowAssembler createBodyRowAssembler(final String tabName) {
+		SheetConfiguration sheetConfig = parent.getSheetConfigMap().get(tabName);
+		Sheet sheet1 = parent.getWb().getSheet(sheetConfig.getSheetName());
+		return new BodyRowAssembler(sheetConfig, sheet1);
+	}
+
+	/**
+	 * Assemble faces rows on demand for lazy body rows.
+	 */
+	private class BodyRowAssembler implements LazyBodyRows.RowAssembler {
+
+		/** the sheet config. */
+		private final SheetConfiguration sheetConfig;
+
+		/** the sheet. */
+		private final Sheet sheet1;
+
+		/**
+		 * Instantiates a new body row assembler.
+		 *
+		 * @param psheetConfig
+		 *            the sheet config
+		 * @param psheet1
+		 *            the sheet
+		 */
+		BodyRowAssembler(final SheetConfiguration psheetConfig, final Sheet psheet1) {
+			this.sheetConfig = psheetConfig;
+			this.sheet1 = psheet1;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.tiefaces.components.websheet.dataobjects.LazyBodyRows.
+		 * RowAssembler#assembleRow(int)
+		 */
+		@Override
+		public FacesRow assembleRow(final int rowIndex) {
+			// merged regions may change after rows added or deleted.
+			return assembleFacesBodyRow(rowIndex, sheet1, sheetConfig.getBodyCellRange().getLeftCol(),
+					sheetConfig.getBodyCellRange().getRightCol(), sheetConfig,
+					parent.getSerialWb().getIndexes().getMergedRegions(sheet1));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.tiefaces.components.websheet.dataobjects.LazyBodyRows.
+		 * RowAssembler#rowLoaded(org.tiefaces.components.websheet.
+		 * dataobjects.FacesRow)
+		 */
+		@Override
+		public void rowLoaded(final FacesRow row) {
+			parent.getValidationHandler().validateRowInCurrentPage(row.getRowIndex(), false);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.tiefaces.components.websheet.dataobjects.LazyBodyRows.
+		 * RowAssembler#releaseRow(org.tiefaces.components.websheet.
+		 * dataobjects.FacesRow)
+		 */
+		@Override
+		public void releaseRow(final FacesRow row) {
+			if (row.getCells() == null) {
+				return;
+			}
+			for (FacesCell fcell : row.getCells()) {
+				if (fcell != null) {
+					Cell cell = CellUtility.getPoiCellFromSheet(row.getRowIndex(), fcell.getColumnIndex(), sheet1);
+					if (cell != null) {
+						parent.getCachedCells().remove(cell);
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Assemble faces body row.
 	 *
@@ -689,24 +953,21 @@ public class WebSheetLoader implements Serializable {
 	 *            the right
 	 * @param sheetConfig
 	 *            the sheet config
-	 * @param cellRangeMap
-	 *            the cell range map
-	 * @param skippedRegionCells
-	 *            the skipped region cells
+	 * @param mergedRegions
+	 *            the merged regions
 	 * @return the faces row
 	 */
 	private FacesRow assembleFacesBodyRow(final int rowIndex, final Sheet sheet1, final int left, final int right,
-			final SheetConfiguration sheetConfig, final Map<String, CellRangeAddress> cellRangeMap,
-			final List<String> skippedRegionCells) {
+			final SheetConfiguration sheetConfig, final MergedRegionIndex mergedRegions) {
 
 		FacesRow facesRow = new FacesRow(rowIndex);
 		Row row = sheet1.getRow(rowIndex);
-		setupRowInfo(facesRow, sheet1, row, rowIndex, CommandUtility.isRowAllowAdd(row, sheetConfig));
-		String saveAttrList = SaveAttrsUtility.getSaveAttrListFromRow(row);
+		WorkbookIndexes indexes = parent.getSerialWb().getIndexes();
+		setupRowInfo(facesRow, sheet1, row, rowIndex, CommandUtility.isRowAllowAdd(indexes, row, sheetConfig));
+		RowMetadata rowMetadata = indexes.getRowMetadata(row);
 		List<FacesCell> bodycells = new ArrayList<>();
 		for (int cindex = left; cindex <= right; cindex++) {
-			String cellindex = CellUtility.getCellIndexNumberKey(cindex, rowIndex);
-			if (!skippedRegionCells.contains(cellindex) && !sheet1.isColumnHidden(cindex)) {
+			if (!mergedRegions.isSkipped(rowIndex, cindex) && !sheet1.isColumnHidden(cindex)) {
 				Cell cell = null;
 				if (row != null) {
 					cell = row.getCell(cindex, MissingCellPolicy.CREATE_NULL_AS_BLANK);
@@ -714,8 +975,8 @@ public class WebSheetLoader implements Serializable {
 				if (cell != null) {
 					FacesCell fcell = new FacesCell();
 
-					CellUtility.convertCell(sheetConfig, fcell, cell, cellRangeMap, facesRow.getOriginRowIndex(),
-							parent.getCellAttributesMap(), saveAttrList);
+					CellUtility.convertCell(sheetConfig, fcell, cell, mergedRegions, facesRow.getOriginRowIndex(),
+							parent.getCellAttributesMap(), rowMetadata);
 					parent.getPicHelper().setupFacesCellPictureCharts(sheet1, fcell, cell,
 							WebSheetUtility.getFullCellRefName(sheet1, cell));
 					CellStyleUtility.setupCellStyle(parent.getWb(), fcell, cell, row.getHeightInPoints());
@@ -793,10 +1054,11 @@ public class WebSheetLoader implements Serializable {
 	 */
 	private void processRefreshCell(final String tblName, final int i, final int index, final Cell cell,
 			final FacesCell fcell) {
-		String newValue = CellUtility.getCellValueWithFormat(cell, parent.getFormulaEvaluator(),
-				parent.getDataFormatter());
-		if (parent.getCachedCells().isValueChanged(cell, newValue)) {
+		// compare raw values first, only format the changed cell.
+		if (parent.getCachedCells().isValueChanged(cell)) {
 			if (fcell.isHasSaveAttr()) {
+				String newValue = CellUtility.getCellValueWithFormat(cell, parent.getFormulaEvaluator(),
+						parent.getDataFormatter());
 				parent.getCellHelper().saveDataInContext(cell, newValue);
 			}
 			RequestContext.getCurrentInstance().update(tblName + ":" + i + ":cocalc" + index);
@@ -832,26 +1094,32 @@ public class WebSheetLoader implements Serializable {
 	 *            the row index
 	 */
 	public final void addRepeatRow(final int rowIndex) {
+		addRepeatRows(rowIndex, 1);
+	}
+
+	/**
+	 * Adds repeat rows after the unit of the row. Rows are added, formulas
+	 * rebuilt and workbook recalculated once for all the rows.
+	 *
+	 * @param rowIndex
+	 *            the row index
+	 * @param count
+	 *            the number of rows to add
+	 */
+	public final void addRepeatRows(final int rowIndex, final int count) {
 
 		try {
 			SheetConfiguration sheetConfig = parent.getSheetConfigMap().get(parent.getCurrent().getCurrentTabName());
 			Sheet sheet = parent.getWb().getSheet(sheetConfig.getSheetName());
-			ConfigBuildRef configBuildRef = new ConfigBuildRef(parent.getWbWrapper(), sheet, parent.getExpEngine(),
-					parent.getCellHelper(), sheetConfig.getCachedCells(), parent.getCellAttributesMap(),
-					sheetConfig.getFinalCommentMap());
+			ConfigBuildRef configBuildRef = createConfigBuildRef(sheetConfig, sheet);
 			// set add mode
 			configBuildRef.setAddMode(true);
-			configBuildRef.setCollectionObjNameMap(sheetConfig.getCollectionObjNameMap());
-			configBuildRef.setCommandIndexMap(sheetConfig.getCommandIndexMap());
-			configBuildRef.setShiftMap(sheetConfig.getShiftMap());
-			configBuildRef.setWatchList(sheetConfig.getWatchList());
-			int length = CommandUtility.addRow(configBuildRef, rowIndex,
+			int length = CommandUtility.addRows(configBuildRef, rowIndex, count,
 					parent.getSerialDataContext().getDataContext());
 			refreshBodyRowsInRange(configBuildRef.getInsertPosition(), length, sheet, sheetConfig);
 			parent.getCellHelper().reCalc();
 		} catch (AddRowException e) {
-			FacesContext.getCurrentInstance().addMessage(null,
-					new FacesMessage(FacesMessage.SEVERITY_ERROR, "Add Row Error", e.getMessage()));
+			addErrorMessage("Add Row Error", e.getMessage());
 			LOG.log(Level.SEVERE, "Add row error = " + e.getLocalizedMessage(), e);
 
 		} catch (Exception ex) {
@@ -861,6 +1129,132 @@ public class WebSheetLoader implements Serializable {
 
 	}
 
+	/**
+	 * Paste lines into repeat rows. First line is pasted into the unit of
+	 * the row, and one new unit is added after it for each following line.
+	 * Values of a line are pasted from the column into the row at same
+	 * position in it's unit. Only input cells are pasted.
+	 *
+	 * @param rowIndex
+	 *            the row index
+	 * @param colIndex
+	 *            the column index of first value
+	 * @param lines
+	 *            the lines of values
+	 */
+	public final void pasteRepeatRows(final int rowIndex, final int colIndex, final List<List<String>> lines) {
+
+		if ((lines == null) || lines.isEmpty()) {
+			return;
+		}
+		try {
+			SheetConfiguration sheetConfig = parent.getSheetConfigMap().get(parent.getCurrent().getCurrentTabName());
+			Sheet sheet = parent.getWb().getSheet(sheetConfig.getSheetName());
+			FullNamePath fullName = ConfigurationUtility.getFullNamePathFromRow(parent.getSerialWb().getIndexes(),
+					sheet.getRow(rowIndex));
+			ConfigRangeAttrs attrs = null;
+			if (fullName != null) {
+				attrs = sheetConfig.getShiftMap().get(fullName);
+			}
+			if (attrs == null) {
+				throw new AddRowException("Cannot find paste range.");
+			}
+			int rowOffset = rowIndex - attrs.getFirstRowIndex();
+			if (lines.size() > 1) {
+				ConfigBuildRef configBuildRef = createConfigBuildRef(sheetConfig, sheet);
+				configBuildRef.setAddMode(true);
+				int length = CommandUtility.addRows(configBuildRef, rowIndex, lines.size() - 1,
+						parent.getSerialDataContext().getDataContext());
+				refreshBodyRowsInRange(configBuildRef.getInsertPosition(), length, sheet, sheetConfig);
+			}
+			List<Integer> pastedRows = new ArrayList<>(lines.size());
+			for (int i = 0; i < lines.size(); i++) {
+				ConfigRangeAttrs unitAttrs = sheetConfig.getShiftMap()
+						.get(fullName.withIndex(fullName.getIndex() + i));
+				if (unitAttrs == null) {
+					throw new AddRowException("Cannot find paste range.");
+				}
+				int pasteRow = unitAttrs.getFirstRowIndex() + rowOffset;
+				pasteLine(sheet, pasteRow, colIndex, lines.get(i));
+				pastedRows.add(pasteRow);
+			}
+			// recalc, refresh charts and validate once for all the lines.
+			parent.getCellHelper().reCalc();
+			if (!parent.getCharsData().getChartDataMap().isEmpty()) {
+				parent.getChartHelper().refreshCharts(null);
+			}
+			for (int pastedRow : pastedRows) {
+				parent.getValidationHandler().validateRowInCurrentPage(pastedRow, false);
+			}
+		} catch (AddRowException e) {
+			addErrorMessage("Paste Row Error", e.getMessage());
+			LOG.log(Level.SEVERE, "Paste row error = " + e.getLocalizedMessage(), e);
+
+		} catch (Exception ex) {
+			LOG.log(Level.SEVERE, "Paste row error = " + ex.getLocalizedMessage(), ex);
+
+		}
+
+	}
+
+	/**
+	 * Paste values into the row. Only input cells are written and saved into
+	 * context. Recalc and validation are left to caller.
+	 *
+	 * @param sheet
+	 *            the sheet
+	 * @param rowIndex
+	 *            the row index
+	 * @param colIndex
+	 *            the column index of first value
+	 * @param values
+	 *            the values
+	 */
+	private void pasteLine(final Sheet sheet, final int rowIndex, final int colIndex, final List<String> values) {
+		Row row = sheet.getRow(rowIndex);
+		if (row == null) {
+			return;
+		}
+		int top = parent.getCurrent().getCurrentTopRow();
+		int left = parent.getCurrent().getCurrentLeftColumn();
+		for (int i = 0; i < values.size(); i++) {
+			Cell cell = row.getCell(colIndex + i);
+			String value = values.get(i);
+			if ((cell == null) || (value == null)) {
+				continue;
+			}
+			FacesCell fcell = CellUtility.getFacesCellFromBodyRow(rowIndex, colIndex + i, parent.getBodyRows(), top,
+					left);
+			if ((fcell == null) || fcell.getInputType().isEmpty()) {
+				continue;
+			}
+			parent.getCellMap().writeCellValue(cell, fcell, value);
+		}
+	}
+
+	/**
+	 * Creates the config build ref for add or delete rows.
+	 *
+	 * @param sheetConfig
+	 *            the sheet config
+	 * @param sheet
+	 *            the sheet
+	 * @return the config build ref
+	 */
+	private ConfigBuildRef createConfigBuildRef(final SheetConfiguration sheetConfig, final Sheet sheet) {
+		ConfigBuildRef configBuildRef = new ConfigBuildRef(parent.getWbWrapper(), sheet, parent.getExpEngine(),
+				parent.getCellHelper(), sheetConfig.getCachedCells(), parent.getCellAttributesMap(),
+				sheetConfig.getFinalCommentMap());
+		configBuildRef.setCollectionObjNameMap(sheetConfig.getCollectionObjNameMap());
+		configBuildRef.setCommandIndexMap(sheetConfig.getCommandIndexMap());
+		configBuildRef.setShiftMap(sheetConfig.getShiftMap());
+		configBuildRef.setWatchList(sheetConfig.getWatchList());
+		configBuildRef.setCachedValues(parent.getCachedCells());
+		configBuildRef.setCellPlanTable(sheetConfig.getCellPlanTable());
+		configBuildRef.setWorkbookIndexes(parent.getSerialWb().getIndexes());
+		return configBuildRef;
+	}
+
 	/**
 	 * Refresh body rows in range.
 	 *
@@ -875,15 +1269,26 @@ public class WebSheetLoader implements Serializable {
 	 */
 	private void refreshBodyRowsInRange(final int insertPosition, final int length, final Sheet sheet,
 			final SheetConfiguration sheetConfig) {
-		Map<String, CellRangeAddress> cellRangeMap = ConfigurationUtility.indexMergedRegion(sheet);
-		List<String> skippedRegionCells = ConfigurationUtility.skippedRegionCells(sheet);
+		if (parent.getBodyRows() instanceof LazyBodyRows) {
+			// rows will be assembled with new row index when accessed.
+			((LazyBodyRows) parent.getBodyRows()).insertRows(
+					insertPosition - sheetConfig.getBodyCellRange().getTopRow(), length);
+			return;
+		}
+		MergedRegionIndex mergedRegions = parent.getSerialWb().getIndexes().getMergedRegions(sheet);
 		int top = sheetConfig.getBodyCellRange().getTopRow();
 		int left = sheetConfig.getBodyCellRange().getLeftCol();
 		int right = sheetConfig.getBodyCellRange().getRightCol();
+		List<FacesRow> insertRows = new ArrayList<>(length);
 		for (int irow = insertPosition; irow < (insertPosition + length); irow++) {
-			parent.getBodyRows().add(irow - top,
-					assembleFacesBodyRow(irow, sheet, left, right, sheetConfig, cellRangeMap, skippedRegionCells));
+			insertRows.add(assembleFacesBodyRow(irow, sheet, left, right, sheetConfig, mergedRegions));
+		}
+		if (parent.getBodyRows() instanceof BlockBodyRows) {
+			// only rows in the changed block are renumbered.
+			((BlockBodyRows) parent.getBodyRows()).insertRows(insertPosition - top, insertRows);
+			return;
 		}
+		parent.getBodyRows().addAll(insertPosition - top, insertRows);
 		for (int irow = insertPosition + length - top; irow < parent.getBodyRows().size(); irow++) {
 			FacesRow facesrow = parent.getBodyRows().get(irow);
 			facesrow.setRowIndex(facesrow.getRowIndex() + length);
@@ -897,23 +1302,26 @@ public class WebSheetLoader implements Serializable {
 	 *            the row index
 	 */
 	public final void deleteRepeatRow(final int rowIndex) {
+		deleteRepeatRows(Collections.singletonList(rowIndex));
+	}
+
+	/**
+	 * Delete units of the repeat rows. Formulas are rebuilt and workbook
+	 * recalculated once for all the rows.
+	 *
+	 * @param rowIndexes
+	 *            the row indexes
+	 */
+	public final void deleteRepeatRows(final List<Integer> rowIndexes) {
 		try {
 			SheetConfiguration sheetConfig = parent.getSheetConfigMap().get(parent.getCurrent().getCurrentTabName());
 			Sheet sheet = parent.getWb().getSheet(sheetConfig.getSheetName());
-			ConfigBuildRef configBuildRef = new ConfigBuildRef(parent.getWbWrapper(), sheet, parent.getExpEngine(),
-					parent.getCellHelper(), sheetConfig.getCachedCells(), parent.getCellAttributesMap(),
-					sheetConfig.getFinalCommentMap());
-			// set delete mode
-			configBuildRef.setCollectionObjNameMap(sheetConfig.getCollectionObjNameMap());
-			configBuildRef.setCommandIndexMap(sheetConfig.getCommandIndexMap());
-			configBuildRef.setShiftMap(sheetConfig.getShiftMap());
-			configBuildRef.setWatchList(sheetConfig.getWatchList());
-			CommandUtility.deleteRow(configBuildRef, rowIndex, parent.getSerialDataContext().getDataContext(),
+			ConfigBuildRef configBuildRef = createConfigBuildRef(sheetConfig, sheet);
+			CommandUtility.deleteRows(configBuildRef, rowIndexes, parent.getSerialDataContext().getDataContext(),
 					sheetConfig, parent.getBodyRows());
 			parent.getCellHelper().reCalc();
 		} catch (DeleteRowException e) {
-			FacesContext.getCurrentInstance().addMessage(null,
-					new FacesMessage(FacesMessage.SEVERITY_ERROR, "Delete row error", e.getMessage()));
+			addErrorMessage("Delete row error", e.getMessage());
 			LOG.log(Level.SEVERE, "Delete row error = " + e.getLocalizedMessage(), e);
 
 		} catch (Exception ex) {
@@ -941,12 +1349,32 @@ public class WebSheetLoader implements Serializable {
 
 	}
 
+	/**
+	 * Add error message to faces context. Skipped when no faces context, e.g.
+	 * workbook rebuilt outside of request.
+	 *
+	 * @param summary
+	 *            the summary
+	 * @param detail
+	 *            the detail
+	 */
+	private void addErrorMessage(final String summary, final String detail) {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (context != null) {
+			context.addMessage(null, new FacesMessage(
+					FacesMessage.SEVERITY_ERROR, summary, detail));
+		}
+	}
+
 	/**
 	 * Checks if is unsaved status.
 	 *
 	 * @return the boolean
 	 */
 	public final Boolean isUnsavedStatus() {
+		if (FacesContext.getCurrentInstance() == null) {
+			return false;
+		}
 		Map<String, Object> viewMap = FacesContext.getCurrentInstance().getViewRoot().getViewMap();
 		Boolean flag = (Boolean) viewMap.get(TieConstants.UNSAVEDSTATE);
 		if (flag == null) {
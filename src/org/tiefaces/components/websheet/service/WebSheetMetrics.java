@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+/**
+ * Instrumentation SPI of web sheet operations. Called from hot paths of all
+ * sessions, so implementation must be thread safe and cheap.
+ *
+ * Usage:
+ *
+ * <pre>
+ * WebSheetMetrics metrics = WebSheetInstrumentation.getMetrics();
+ * long start = metrics.start();
+ * ...
+ * metrics.stop(WebSheetMetrics.Operation.LOAD, start);
+ * </pre>
+ *
+ * @author Jason Jiang
+ *
+ */
+public interface WebSheetMetrics {
+
+	/**
+	 * Timed operations.
+	 */
+	enum Operation {
+		/** load workbook. */
+		LOAD,
+		/** build configuration from template. */
+		CONFIGURATION,
+		/** bind data context into configured template. */
+		BIND,
+		/** recalc formulas. */
+		RECALC,
+		/** render chart image. */
+		CHART_RENDER,
+		/** validate cells. */
+		VALIDATION,
+		/** refresh cached formula cells in page. */
+		CACHED_CELL_REFRESH,
+		/** refresh charts fed by edited cells in page. */
+		CHART_REFRESH,
+		/** export workbook. */
+		EXPORT
+	}
+
+	/**
+	 * Counted events.
+	 */
+	enum Counter {
+		/** cells built from template. */
+		CELLS_BUILT,
+		/** rows shifted by insert or delete. */
+		ROWS_SHIFTED,
+		/** formula cells evaluated by partial recalc. */
+		FORMULAS_EVALUATED
+	}
+
+	/**
+	 * Start timing.
+	 *
+	 * @return the start time passed to stop
+	 */
+	long start();
+
+	/**
+	 * Stop timing and record the operation.
+	 *
+	 * @param operation
+	 *            the operation
+	 * @param start
+	 *            the start time returned by start
+	 */
+	void stop(Operation operation, long start);
+
+	/**
+	 * Stop timing and record the operation, also by template. So slow
+	 * templates can be found.
+	 *
+	 * @param operation
+	 *            the operation
+	 * @param templateId
+	 *            the template id. only recorded by operation if null.
+	 * @param start
+	 *            the start time returned by start
+	 */
+	void stop(Operation operation, String templateId, long start);
+
+	/**
+	 * Add to counter.
+	 *
+	 * @param counter
+	 *            the counter
+	 * @param delta
+	 *            the delta
+	 */
+	void count(Counter counter, long delta);
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.service;
+
+import java.util.Map;
+
+/**
+ * Management interface of web sheet metrics. Maps are keyed by operation or
+ * counter name. Template maps are keyed by template id and operation name,
+ * e.g. pricelist|LOAD.
+ *
+ * @author Jason Jiang
+ *
+ */
+public interface WebSheetMetricsMXBean {
+
+	/**
+	 * Gets the operation counts.
+	 *
+	 * @return the operation counts
+	 */
+	Map<String, Long> getOperationCounts();
+
+	/**
+	 * Gets the operation total time in milliseconds.
+	 *
+	 * @return the operation total millis
+	 */
+	Map<String, Long> getOperationTotalMillis();
+
+	/**
+	 * Gets the operation max time in milliseconds.
+	 *
+	 * @return the operation max millis
+	 */
+	Map<String, Long> getOperationMaxMillis();
+
+	/**
+	 * Gets the counters.
+	 *
+	 * @return the counters
+	 */
+	Map<String, Long> getCounters();
+
+	/**
+	 * Gets the operation counts by template.
+	 *
+	 * @return the template operation counts
+	 */
+	Map<String, Long> getTemplateOperationCounts();
+
+	/**
+	 * Gets the operation total time by template in milliseconds.
+	 *
+	 * @return the template operation total millis
+	 */
+	Map<String, Long> getTemplateOperationTotalMillis();
+
+	/**
+	 * Gets the operation max time by template in milliseconds.
+	 *
+	 * @return the template operation max millis
+	 */
+	Map<String, Long> getTemplateOperationMaxMillis();
+
+	/**
+	 * Reset all the figures.
+	 */
+	void reset();
+
+}
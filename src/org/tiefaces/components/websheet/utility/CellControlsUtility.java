@@ -4,7 +4,6 @@
  */
 package org.tiefaces.components.websheet.utility;
 
-import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -163,7 +162,7 @@ public final class CellControlsUtility {
 		};
 
 		/** The clazz. */
-		private final Class clazz; // class name
+		private final Class<?> clazz; // class name
 
 		/**
 		 * Instantiates a new attributes type.
@@ -171,10 +170,19 @@ public final class CellControlsUtility {
 		 * @param pclazz
 		 *            the pclazz
 		 */
-		AttributesType(final Class pclazz) {
+		AttributesType(final Class<?> pclazz) {
 			this.clazz = pclazz;
 		}
 
+		/**
+		 * Gets the parameter class.
+		 *
+		 * @return the class
+		 */
+		public Class<?> getClazz() {
+			return clazz;
+		}
+
 		/**
 		 * Parses the value.
 		 *
@@ -252,32 +260,6 @@ public final class CellControlsUtility {
 
 	}
 
-	/**
-	 * match parameter of method.
-	 * 
-	 * @param obj
-	 *            object.
-	 * @param methodName
-	 *            method name.
-	 * @return index of paraMatchArray if mached. otherwise return -1.
-	 */
-	private static AttributesType matchParaMeterOfMethod(final Object obj,
-			final String methodName) {
-
-		for (AttributesType attr : AttributesType.values()) {
-			try {
-				obj.getClass().getMethod(methodName,
-						new Class[] { attr.clazz });
-				return attr;
-
-			} catch (Exception ex) {
-				LOG.log(Level.FINE, " error in matchParaMeterOfMethod = "
-						+ ex.getLocalizedMessage(), ex);
-			}
-		}
-		return null;
-	}
-
 	/**
 	 * convert object.
 	 *
@@ -294,7 +276,8 @@ public final class CellControlsUtility {
 	}
 
 	/**
-	 * set object property.
+	 * set object property. The setter and parameter converter are resolved
+	 * once per class by property accessor registry.
 	 * 
 	 * @param obj
 	 *            object.
@@ -310,18 +293,8 @@ public final class CellControlsUtility {
 			final String propertyName, final String propertyValue,
 			final boolean ignoreNonExisting) {
 		try {
-
-			String methodName = "set"
-					+ Character.toUpperCase(propertyName.charAt(0))
-					+ propertyName.substring(1);
-			AttributesType parameterType = matchParaMeterOfMethod(obj,
-					methodName);
-			if (parameterType != null) {
-				Method method = obj.getClass().getMethod(methodName,
-						new Class[] { parameterType.clazz });
-				method.invoke(obj,
-						convertToObject(parameterType, propertyValue));
-			}
+			PropertyAccessorRegistry.setProperty(obj, propertyName,
+					propertyValue);
 		} catch (Exception e) {
 			String msg = "failed to set property '" + propertyName
 					+ "' to value '" + propertyValue + "' for object "
@@ -349,11 +322,8 @@ public final class CellControlsUtility {
 	public static String getObjectPropertyValue(final Object obj,
 			final String propertyName, final boolean ignoreNonExisting) {
 		try {
-			Method method = obj.getClass()
-					.getMethod("get"
-							+ Character.toUpperCase(propertyName.charAt(0))
-							+ propertyName.substring(1));
-			return (String) method.invoke(obj);
+			return (String) PropertyAccessorRegistry.getProperty(obj,
+					propertyName);
 		} catch (Exception e) {
 			String msg = "failed to get property '" + propertyName
 					+ "' for object " + obj;
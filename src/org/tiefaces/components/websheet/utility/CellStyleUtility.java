@@ -5,6 +5,11 @@
 
 package org.tiefaces.components.websheet.utility;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
@@ -27,6 +32,97 @@ import org.tiefaces.components.websheet.dataobjects.FacesCell;
  */
 public final class CellStyleUtility {
 
+	/**
+	 * css strings cache per workbook. A workbook normally has only tens of
+	 * distinct cell styles, so cells share the same css instances.
+	 */
+	private static final Map<Workbook, Map<StyleKey, String[]>> STYLE_CACHE = Collections
+			.synchronizedMap(new WeakHashMap<Workbook, Map<StyleKey, String[]>>());
+
+	/**
+	 * Key of css strings. Contains everything the css depends on.
+	 */
+	private static final class StyleKey {
+
+		/** cell style index. */
+		private final short styleIndex;
+
+		/** input type. */
+		private final String inputType;
+
+		/** row height. */
+		private final float rowHeight;
+
+		/** whether rowspan is 1. */
+		private final boolean singleRow;
+
+		/** whether cell type is aligned right when general alignment. */
+		private final boolean alignRight;
+
+		/** whether cell contains picture or chart. */
+		private final boolean containGraph;
+
+		/**
+		 * Instantiates a new style key.
+		 *
+		 * @param fcell
+		 *            the fcell
+		 * @param poiCell
+		 *            the poi cell
+		 * @param cellStyle
+		 *            the cell style
+		 * @param prowHeight
+		 *            the row height
+		 */
+		StyleKey(final FacesCell fcell, final Cell poiCell,
+				final CellStyle cellStyle, final float prowHeight) {
+			this.styleIndex = cellStyle.getIndex();
+			this.inputType = fcell.getInputType();
+			this.rowHeight = prowHeight;
+			this.singleRow = fcell.getRowspan() == 1;
+			this.alignRight = !getAlignmentFromCellType(poiCell).isEmpty();
+			this.containGraph = fcell.isContainPic() || fcell.isContainChart();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			int result = styleIndex;
+			result = 31 * result + inputType.hashCode();
+			result = 31 * result + Float.floatToIntBits(rowHeight);
+			result = 31 * result + (singleRow ? 1 : 0);
+			result = 31 * result + (alignRight ? 1 : 0);
+			return 31 * result + (containGraph ? 1 : 0);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof StyleKey)) {
+				return false;
+			}
+			StyleKey other = (StyleKey) obj;
+			return (styleIndex == other.styleIndex)
+					&& inputType.equals(other.inputType)
+					&& (Float.floatToIntBits(rowHeight) == Float
+							.floatToIntBits(other.rowHeight))
+					&& (singleRow == other.singleRow)
+					&& (alignRight == other.alignRight)
+					&& (containGraph == other.containGraph);
+		}
+	}
+
 	/**
 	 * hide constructor.
 	 */
@@ -353,12 +449,62 @@ public final class CellStyleUtility {
 			setInputStyleBaseOnInputType(fcell, poiCell);
 
 		}
+		if (cellStyle == null) {
+			String[] css = buildCss(wb, fcell, poiCell, rowHeight);
+			fcell.setStyle(css[0]);
+			fcell.setColumnStyle(css[1]);
+			return;
+		}
+		Map<StyleKey, String[]> wbCache;
+		synchronized (STYLE_CACHE) {
+			wbCache = STYLE_CACHE.get(wb);
+			if (wbCache == null) {
+				wbCache = new ConcurrentHashMap<>();
+				STYLE_CACHE.put(wb, wbCache);
+			}
+		}
+		StyleKey key = new StyleKey(fcell, poiCell, cellStyle, rowHeight);
+		String[] css = wbCache.get(key);
+		if (css == null) {
+			css = buildCss(wb, fcell, poiCell, rowHeight);
+			wbCache.put(key, css);
+		}
+		fcell.setStyle(css[0]);
+		fcell.setColumnStyle(css[1]);
+	}
+
+	/**
+	 * Builds the style and column style css of the cell.
+	 *
+	 * @param wb
+	 *            the wb
+	 * @param fcell
+	 *            the fcell
+	 * @param poiCell
+	 *            the poi cell
+	 * @param rowHeight
+	 *            the row height
+	 * @return style and column style
+	 */
+	private static String[] buildCss(final Workbook wb, final FacesCell fcell,
+			final Cell poiCell, final float rowHeight) {
 		String webStyle = getCellStyle(wb, poiCell, fcell.getInputType())
 				+ getCellFontStyle(wb, poiCell)
 				+ getRowStyle(wb, poiCell, fcell.getInputType(), rowHeight,
 						fcell.getRowspan());
-		fcell.setStyle(webStyle);
-		fcell.setColumnStyle(getColumnStyle(wb, fcell, poiCell, rowHeight));
+		return new String[] { webStyle,
+				getColumnStyle(wb, fcell, poiCell, rowHeight) };
+	}
+
+	/**
+	 * Clear css cache of the workbook. Should be called if cell styles of the
+	 * workbook are changed.
+	 *
+	 * @param wb
+	 *            the wb
+	 */
+	public static void clearStyleCache(final Workbook wb) {
+		STYLE_CACHE.remove(wb);
 	}
 
 	/**
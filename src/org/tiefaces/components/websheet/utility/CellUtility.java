@@ -9,7 +9,6 @@ import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,7 +39,12 @@ import org.tiefaces.components.websheet.configuration.SheetConfiguration;
 import org.tiefaces.components.websheet.dataobjects.CellAttributesMap;
 import org.tiefaces.components.websheet.dataobjects.FacesCell;
 import org.tiefaces.components.websheet.dataobjects.FacesRow;
+import org.tiefaces.components.websheet.dataobjects.MergedRegionIndex;
+import org.tiefaces.components.websheet.dataobjects.RowMetadata;
 import org.tiefaces.components.websheet.dataobjects.TieCell;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
+import org.tiefaces.components.websheet.service.WebSheetInstrumentation;
+import org.tiefaces.components.websheet.service.WebSheetMetrics;
 
 import com.microsoft.schemas.office.excel.CTClientData;
 import com.microsoft.schemas.vml.CTShape;
@@ -275,6 +279,8 @@ public final class CellUtility {
 	/**
 	 * Copy rows.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param srcSheet
 	 *            the src sheet
 	 * @param destSheet
@@ -287,31 +293,84 @@ public final class CellUtility {
 	 *            the dest row
 	 * @param checkLock
 	 *            the check lock
-	 * @param setHiddenColumn
-	 *            the set hidden column
+	 * @param setRowMetadata
+	 *            whether to set the origin row index in row metadata
 	 */
-	public static void copyRows(final Sheet srcSheet, final Sheet destSheet, final int srcRowStart, final int srcRowEnd,
-			final int destRow, final boolean checkLock, final boolean setHiddenColumn) {
+	public static void copyRows(final WorkbookIndexes indexes, final Sheet srcSheet, final Sheet destSheet,
+			final int srcRowStart, final int srcRowEnd, final int destRow, final boolean checkLock,
+			final boolean setRowMetadata) {
+		copyRows(indexes, srcSheet, destSheet, srcRowStart, srcRowEnd, destRow, 1, checkLock, setRowMetadata);
+	}
+
+	/**
+	 * Copy rows repeatedly. Rows below destRow are shifted only once for all
+	 * the copies.
+	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
+	 * @param srcSheet
+	 *            the src sheet
+	 * @param destSheet
+	 *            the dest sheet
+	 * @param srcRowStart
+	 *            the src row start
+	 * @param srcRowEnd
+	 *            the src row end
+	 * @param destRow
+	 *            the dest row
+	 * @param copies
+	 *            the number of copies
+	 * @param checkLock
+	 *            the check lock
+	 * @param setRowMetadata
+	 *            whether to set the origin row index in row metadata
+	 */
+	public static void copyRows(final WorkbookIndexes indexes, final Sheet srcSheet, final Sheet destSheet,
+			final int srcRowStart, final int srcRowEnd, final int destRow, final int copies, final boolean checkLock,
+			final boolean setRowMetadata) {
 
 		int length = srcRowEnd - srcRowStart + 1;
-		if (length <= 0) {
+		if ((length <= 0) || (copies <= 0)) {
 			return;
 		}
-		destSheet.shiftRows(destRow, destSheet.getLastRowNum(), length, true, false);
-		for (int i = 0; i < length; i++) {
-			copySingleRow(srcSheet, destSheet, srcRowStart + i, destRow + i, checkLock, setHiddenColumn);
+		int totalLength = length * copies;
+		int lastRowNum = destSheet.getLastRowNum();
+		// new rows are blank after shift, so the copied regions cannot overlap
+		// others unless an existing region span across destRow. Such region
+		// is not moved by shift, so check it before shift with cached index.
+		boolean overlapFree = true;
+		for (CellRangeAddress caddress : indexes.getMergedRegions(destSheet).getRegionsCrossRows(destRow,
+				destRow)) {
+			if (caddress.getFirstRow() < destRow) {
+				overlapFree = false;
+				break;
+			}
+		}
+		indexes.shiftRows(destSheet, destRow, lastRowNum, totalLength, true, false);
+		if (lastRowNum >= destRow) {
+			WebSheetInstrumentation.getMetrics().count(WebSheetMetrics.Counter.ROWS_SHIFTED,
+					lastRowNum - destRow + 1L);
+		}
+		for (int c = 0; c < copies; c++) {
+			for (int i = 0; i < length; i++) {
+				copySingleRow(indexes, srcSheet, destSheet, srcRowStart + i, destRow + c * length + i,
+						checkLock, setRowMetadata);
+			}
 		}
 		// If there are are any merged regions in the source row, copy to new
 		// row
-		for (int i = 0; i < srcSheet.getNumMergedRegions(); i++) {
-			CellRangeAddress cellRangeAddress = srcSheet.getMergedRegion(i);
-			if ((cellRangeAddress.getFirstRow() >= srcRowStart) && (cellRangeAddress.getLastRow() <= srcRowEnd)) {
-				int targetRowFrom = cellRangeAddress.getFirstRow() - srcRowStart + destRow;
-				int targetRowTo = cellRangeAddress.getLastRow() - srcRowStart + destRow;
-
-				CellRangeAddress newCellRangeAddress = new CellRangeAddress(targetRowFrom, targetRowTo,
-						cellRangeAddress.getFirstColumn(), cellRangeAddress.getLastColumn());
-				destSheet.addMergedRegion(newCellRangeAddress);
+		List<CellRangeAddress> srcRegions = indexes.getMergedRegions(srcSheet).getRegionsWithinRows(srcRowStart,
+				srcRowEnd);
+		if (srcRegions.isEmpty()) {
+			return;
+		}
+		for (int c = 0; c < copies; c++) {
+			int shift = destRow + c * length - srcRowStart;
+			for (CellRangeAddress cellRangeAddress : srcRegions) {
+				CellRangeAddress newCellRangeAddress = new CellRangeAddress(cellRangeAddress.getFirstRow() + shift,
+						cellRangeAddress.getLastRow() + shift, cellRangeAddress.getFirstColumn(),
+						cellRangeAddress.getLastColumn());
+				indexes.addMergedRegion(destSheet, newCellRangeAddress, overlapFree);
 			}
 		}
 	}
@@ -319,6 +378,8 @@ public final class CellUtility {
 	/**
 	 * Copy single row.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param srcSheet
 	 *            the src sheet
 	 * @param destSheet
@@ -329,11 +390,12 @@ public final class CellUtility {
 	 *            the destination row num
 	 * @param checkLock
 	 *            the check lock
-	 * @param setHiddenColumn
-	 *            the set hidden column
+	 * @param setRowMetadata
+	 *            whether to set the origin row index in row metadata
 	 */
-	private static void copySingleRow(final Sheet srcSheet, final Sheet destSheet, final int sourceRowNum,
-			final int destinationRowNum, final boolean checkLock, final boolean setHiddenColumn) {
+	private static void copySingleRow(final WorkbookIndexes indexes, final Sheet srcSheet, final Sheet destSheet,
+			final int sourceRowNum, final int destinationRowNum, final boolean checkLock,
+			final boolean setRowMetadata) {
 		// Get the source / new row
 		Row newRow = destSheet.getRow(destinationRowNum);
 		Row sourceRow = srcSheet.getRow(sourceRowNum);
@@ -347,8 +409,11 @@ public final class CellUtility {
 			// Grab a copy of the old/new cell
 			copyCell(destSheet, sourceRow, newRow, i, checkLock);
 		}
-		if (setHiddenColumn) {
-			ConfigurationUtility.setOriginalRowNumInHiddenColumn(newRow, sourceRow.getRowNum());
+		RowMetadata sourceMetadata = indexes.getRowMetadata(sourceRow);
+		indexes.getRowMetadataTable(destSheet).set(destinationRowNum,
+				sourceMetadata == null ? null : new RowMetadata(sourceMetadata));
+		if (setRowMetadata) {
+			ConfigurationUtility.setRowOriginIndex(indexes, newRow, sourceRow.getRowNum());
 		}
 		return;
 
@@ -756,22 +821,21 @@ public final class CellUtility {
 	 *            the fcell
 	 * @param poiCell
 	 *            the poi cell
-	 * @param cellRangeMap
-	 *            the cell range map
+	 * @param mergedRegions
+	 *            the merged regions
 	 * @param originRowIndex
 	 *            the origin row index
 	 * @param cellAttributesMap
 	 *            the cell attributes map
-	 * @param saveAttrs
-	 *            the save attrs
+	 * @param rowMetadata
+	 *            the row metadata
 	 */
 	// set up facesCell's attribute from poiCell and others.
 	public static void convertCell(final SheetConfiguration sheetConfig, final FacesCell fcell, final Cell poiCell,
-			final Map<String, CellRangeAddress> cellRangeMap, final int originRowIndex,
-			final CellAttributesMap cellAttributesMap, final String saveAttrs) {
-		CellRangeAddress caddress;
-		String key = getCellIndexNumberKey(poiCell);
-		caddress = cellRangeMap.get(key);
+			final MergedRegionIndex mergedRegions, final int originRowIndex,
+			final CellAttributesMap cellAttributesMap, final RowMetadata rowMetadata) {
+		CellRangeAddress caddress = mergedRegions.getRegionStartAt(poiCell.getRowIndex(),
+				poiCell.getColumnIndex());
 		if (caddress != null) {
 			// has col or row span
 			fcell.setColspan(caddress.getLastColumn() - caddress.getFirstColumn() + 1);
@@ -779,7 +843,7 @@ public final class CellUtility {
 		}
 
 		CellControlsUtility.setupControlAttributes(originRowIndex, fcell, poiCell, sheetConfig, cellAttributesMap);
-		fcell.setHasSaveAttr(SaveAttrsUtility.isHasSaveAttr(poiCell, saveAttrs));
+		fcell.setHasSaveAttr(SaveAttrsUtility.isHasSaveAttr(poiCell, rowMetadata));
 
 	}
 
@@ -7,32 +7,44 @@ package org.tiefaces.components.websheet.utility;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
-import java.util.TreeMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
 
+import org.apache.commons.jexl2.JexlContext;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.tiefaces.common.TieConstants;
+import org.tiefaces.components.websheet.configuration.CellEvaluationPlan;
 import org.tiefaces.components.websheet.configuration.Command;
 import org.tiefaces.components.websheet.configuration.ConfigBuildRef;
 import org.tiefaces.components.websheet.configuration.ConfigRange;
 import org.tiefaces.components.websheet.configuration.ConfigRangeAttrs;
 import org.tiefaces.components.websheet.configuration.EachCommand;
 import org.tiefaces.components.websheet.configuration.ExpressionEngine;
+import org.tiefaces.components.websheet.configuration.FullNamePath;
 import org.tiefaces.components.websheet.configuration.RowsMapping;
 import org.tiefaces.components.websheet.configuration.SheetConfiguration;
+import org.tiefaces.components.websheet.dataobjects.BlockBodyRows;
 import org.tiefaces.components.websheet.dataobjects.CollectionObject;
 import org.tiefaces.components.websheet.dataobjects.FacesRow;
+import org.tiefaces.components.websheet.dataobjects.LazyBodyRows;
 import org.tiefaces.components.websheet.dataobjects.TieCell;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
+import org.tiefaces.components.websheet.service.WebSheetInstrumentation;
+import org.tiefaces.components.websheet.service.WebSheetMetrics;
 import org.tiefaces.exception.AddRowException;
 import org.tiefaces.exception.DeleteRowException;
 import org.tiefaces.exception.EvaluationException;
@@ -64,19 +76,44 @@ public final class CommandUtility {
 	 *            the data context
 	 * @return the int
 	 */
-	@SuppressWarnings({ "rawtypes" })
 	public static int addRow(final ConfigBuildRef configBuildRef,
 			final int rowIndex, final Map<String, Object> dataContext) {
+		return addRows(configBuildRef, rowIndex, 1, dataContext);
+	}
 
+	/**
+	 * Adds rows. The new units are inserted after the unit of the row.
+	 * Siblings after it are renumbered once for all the new units. When
+	 * template has no nested command, all the copies are inserted with one
+	 * shift.
+	 *
+	 * @param configBuildRef
+	 *            the config build ref
+	 * @param rowIndex
+	 *            the row index
+	 * @param count
+	 *            the number of units to add
+	 * @param dataContext
+	 *            the data context
+	 * @return the total length of added rows
+	 */
+	@SuppressWarnings({ "rawtypes" })
+	public static int addRows(final ConfigBuildRef configBuildRef,
+			final int rowIndex, final int count,
+			final Map<String, Object> dataContext) {
+
+		if (count < 1) {
+			return 0;
+		}
 		// replace the lastCollection.
-		// since here's add one row.
-		// Then we should insert one empty object in the list.
+		// since here's add rows.
+		// Then we should insert empty objects in the list.
 		// The collection must be a list to support add/delete function.
 		// and the object must support empty constructor.
 
-		String fullName = ConfigurationUtility.getFullNameFromRow(
+		FullNamePath fullName = ConfigurationUtility.getFullNamePathFromRow(
+				configBuildRef.getWorkbookIndexes(),
 				configBuildRef.getSheet().getRow(rowIndex));
-		String[] parts = fullName.split(":");
 		configBuildRef.getCellHelper().restoreDataContext(fullName);
 		CollectionObject collect = configBuildRef.getCellHelper()
 				.getLastCollect(fullName);
@@ -88,46 +125,75 @@ public final class CommandUtility {
 			// no each command in the loop.
 			throw new AddRowException("No each command found.");
 		}
-		String unitFullName = CommandUtility.insertEmptyObjectInContext(
-				fullName, lastCollection, eachCommand, lastCollectionIndex,
-				dataContext);
-		RowsMapping unitRowsMapping = new RowsMapping();
+		List insertObjs = CommandUtility.insertEmptyObjectsInContext(
+				lastCollection, lastCollectionIndex, count);
 		ConfigRangeAttrs savedRangeAttrs = configBuildRef.getShiftMap()
 				.get(fullName);
 		int insertPosition = savedRangeAttrs.getFirstRowRef().getRowIndex()
 				+ savedRangeAttrs.getFinalLength();
 		configBuildRef.setInsertPosition(insertPosition);
-		CommandUtility.insertEachTemplate(eachCommand.getConfigRange(),
-				configBuildRef, lastCollectionIndex + 1, insertPosition,
-				unitRowsMapping);
-		ConfigRange currentRange = ConfigurationUtility.buildCurrentRange(
-				eachCommand.getConfigRange(), configBuildRef.getSheet(),
-				insertPosition);
+		// renumber siblings after the unit before insert. row metadata is
+		// shifted with the rows.
+		ConfigurationUtility.changeRowIndexNumber(configBuildRef,
+				insertPosition, fullName, count);
+		ConfigurationUtility.changeIndexNumberInShiftMap(
+				configBuildRef.getShiftMap(), fullName, count);
 		List<RowsMapping> currentRowsMappingList = ConfigurationUtility
-				.findParentRowsMappingFromShiftMap(parts,
+				.findParentRowsMappingFromShiftMap(fullName.getParts(),
 						configBuildRef.getShiftMap());
-		currentRowsMappingList.add(unitRowsMapping);
-		currentRange.getAttrs().setAllowAdd(true);
+		ConfigRange sourceRange = eachCommand.getConfigRange();
+		// template without nested command always has same length, so
+		// insert all the copies at once.
+		boolean batchInsert = (count > 1)
+				&& sourceRange.getCommandList().isEmpty();
+		List<ConfigRange> batchRanges = new ArrayList<>();
+		if (batchInsert) {
+			CommandUtility.insertEachTemplates(sourceRange, configBuildRef,
+					insertPosition, count);
+		}
 		configBuildRef.setBodyAllowAdd(true);
-		// reverse order of changeMap.
-		Map<String, String> changeMap = new TreeMap<>(
-				Collections.reverseOrder());
-		ConfigurationUtility.changeIndexNumberInHiddenColumn(configBuildRef,
-				currentRange.getAttrs().getLastRowPlusRef().getRowIndex(),
-				fullName, changeMap, 1);
-		ConfigurationUtility.changeIndexNumberInShiftMap(
-				configBuildRef.getShiftMap(), changeMap);
-		configBuildRef.putShiftAttrs(unitFullName, currentRange.getAttrs(),
-				unitRowsMapping);
-		int length = currentRange.buildAt(unitFullName, configBuildRef,
-				insertPosition, dataContext, currentRowsMappingList);
-		currentRange.getAttrs().setFinalLength(length);
+		int position = insertPosition;
+		for (int i = 0; i < count; i++) {
+			int index = lastCollectionIndex + 1 + i;
+			RowsMapping unitRowsMapping = new RowsMapping();
+			if (batchInsert) {
+				CommandUtility.mapEachTemplateRows(sourceRange,
+						configBuildRef, position, unitRowsMapping);
+			} else {
+				CommandUtility.insertEachTemplate(sourceRange,
+						configBuildRef, index, position, unitRowsMapping);
+			}
+			ConfigRange currentRange = ConfigurationUtility
+					.buildCurrentRange(sourceRange,
+							configBuildRef.getSheet(), position);
+			batchRanges.add(currentRange);
+			currentRowsMappingList.add(unitRowsMapping);
+			currentRange.getAttrs().setAllowAdd(true);
+			FullNamePath unitFullName = fullName.withIndex(index);
+			dataContext.put(eachCommand.getVar(), insertObjs.get(i));
+			configBuildRef.putShiftAttrs(unitFullName,
+					currentRange.getAttrs(), unitRowsMapping);
+			int length = currentRange.buildAt(unitFullName, configBuildRef,
+					position, dataContext, currentRowsMappingList);
+			currentRange.getAttrs().setFinalLength(length);
+			currentRowsMappingList.remove(unitRowsMapping);
+			position += length;
+		}
+		if (batchInsert) {
+			// same as one by one insert, the last row plus of every unit
+			// end up at the row after all the units.
+			Cell lastRowPlusRef = batchRanges.get(batchRanges.size() - 1)
+					.getLastRowPlusRef();
+			for (ConfigRange range : batchRanges) {
+				range.getAttrs().setLastRowPlusRef(lastRowPlusRef);
+			}
+		}
+		int length = position - insertPosition;
 
 		ConfigurationUtility.reBuildUpperLevelFormula(configBuildRef,
 				fullName);
 		ConfigurationUtility.changeUpperLevelFinalLength(
 				configBuildRef.getShiftMap(), fullName, length);
-		currentRowsMappingList.remove(unitRowsMapping);
 		dataContext.remove(eachCommand.getVar());
 
 		return length;
@@ -151,71 +217,226 @@ public final class CommandUtility {
 	 * @throws DeleteRowException
 	 *             the delete row exception
 	 */
-	@SuppressWarnings({ "rawtypes" })
 	public static int deleteRow(final ConfigBuildRef configBuildRef,
 			final int rowIndex, final Map<String, Object> dataContext,
 			final SheetConfiguration sheetConfig,
 			final List<FacesRow> bodyRows) {
+		return deleteRows(configBuildRef,
+				Collections.singletonList(rowIndex), dataContext,
+				sheetConfig, bodyRows);
+	}
 
-		String fullName = ConfigurationUtility.getFullNameFromRow(
-				configBuildRef.getSheet().getRow(rowIndex));
+	/**
+	 * Delete units of the rows. Continuous sibling units are removed with
+	 * one shift, and upper level formula is rebuilt once for each group of
+	 * siblings.
+	 *
+	 * @param configBuildRef
+	 *            the config build ref
+	 * @param rowIndexes
+	 *            the row indexes
+	 * @param dataContext
+	 *            the data context
+	 * @param sheetConfig
+	 *            the sheet config
+	 * @param bodyRows
+	 *            the body rows
+	 * @return the total length of deleted rows
+	 * @throws DeleteRowException
+	 *             the delete row exception
+	 */
+	public static int deleteRows(final ConfigBuildRef configBuildRef,
+			final List<Integer> rowIndexes,
+			final Map<String, Object> dataContext,
+			final SheetConfiguration sheetConfig,
+			final List<FacesRow> bodyRows) {
+
+		Set<FullNamePath> units = new HashSet<>();
+		for (Integer rowIndex : rowIndexes) {
+			FullNamePath fullName = ConfigurationUtility
+					.getFullNamePathFromRow(configBuildRef.getWorkbookIndexes(),
+							configBuildRef.getSheet().getRow(rowIndex));
+			if (fullName == null) {
+				throw new DeleteRowException("Cannot find delete range.");
+			}
+			units.add(fullName);
+		}
+		// group by siblings. key is the unit without index.
+		Map<FullNamePath, NavigableSet<Integer>> groups = new HashMap<>();
+		for (FullNamePath unit : units) {
+			if (!isAncestorSelected(unit, units)) {
+				FullNamePath key = unit.withIndex(-1);
+				NavigableSet<Integer> indexes = groups.get(key);
+				if (indexes == null) {
+					indexes = new TreeSet<>();
+					groups.put(key, indexes);
+				}
+				indexes.add(unit.getIndex());
+			}
+		}
+		List<FullNamePath> keys = new ArrayList<>(groups.keySet());
+		// deeper units first. deleting them does not change upper units.
+		Collections.sort(keys, new Comparator<FullNamePath>() {
+			@Override
+			public int compare(final FullNamePath o1,
+					final FullNamePath o2) {
+				return Integer.compare(o2.getDepth(), o1.getDepth());
+			}
+		});
+		for (FullNamePath key : keys) {
+			checkDeleteCount(configBuildRef,
+					key.withIndex(groups.get(key).first()),
+					groups.get(key).size());
+		}
+		int length = 0;
+		for (FullNamePath key : keys) {
+			// from bottom to top, so indexes above are not changed.
+			Iterator<Integer> it = groups.get(key).descendingIterator();
+			int high = it.next();
+			int low = high;
+			while (low >= 0) {
+				int next = it.hasNext() ? it.next() : -1;
+				if ((next < 0) || (next != low - 1)) {
+					length += deleteUnits(configBuildRef, key.withIndex(low),
+							high - low + 1, dataContext, sheetConfig,
+							bodyRows);
+					high = next;
+				}
+				low = next;
+			}
+			ConfigurationUtility.reBuildUpperLevelFormula(configBuildRef,
+					key);
+		}
+		return length;
+
+	}
+
+	/**
+	 * Whether any ancestor of the unit is also selected.
+	 *
+	 * @param unit
+	 *            the unit
+	 * @param units
+	 *            the selected units
+	 * @return true, if ancestor selected
+	 */
+	private static boolean isAncestorSelected(final FullNamePath unit,
+			final Set<FullNamePath> units) {
+		for (FullNamePath path = unit.getParent(); path != null; path = path
+				.getParent()) {
+			if (units.contains(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
 
+	/**
+	 * Check the group still have record left after delete.
+	 *
+	 * @param configBuildRef
+	 *            the config build ref
+	 * @param fullName
+	 *            the full name of a unit in the group
+	 * @param count
+	 *            the number of units to delete
+	 * @throws DeleteRowException
+	 *             the delete row exception
+	 */
+	@SuppressWarnings({ "rawtypes" })
+	private static void checkDeleteCount(final ConfigBuildRef configBuildRef,
+			final FullNamePath fullName, final int count) {
 		configBuildRef.getCellHelper().restoreDataContext(fullName);
 		CollectionObject collect = configBuildRef.getCellHelper()
 				.getLastCollect(fullName);
-
 		Collection lastCollection = collect.getLastCollection();
-		int lastCollectionIndex = collect.getLastCollectionIndex();
-		EachCommand eachCommand = collect.getEachCommand();
-		if (lastCollectionIndex < 0) {
+		if (collect.getLastCollectionIndex() < 0) {
 			// no each command in the loop.
 			throw new DeleteRowException("No each command found.");
 		}
-		if (lastCollection.size() <= 1) {
+		if (lastCollection.size() <= count) {
 			// this is the last record and no parent left.
 			throw new DeleteRowException(
 					"Cannot delete the last record in the group.");
 		}
+	}
+
+	/**
+	 * Delete continuous sibling units.
+	 *
+	 * @param configBuildRef
+	 *            the config build ref
+	 * @param fullName
+	 *            the full name of first unit
+	 * @param count
+	 *            the number of units
+	 * @param dataContext
+	 *            the data context
+	 * @param sheetConfig
+	 *            the sheet config
+	 * @param bodyRows
+	 *            the body rows
+	 * @return the length of deleted rows
+	 * @throws DeleteRowException
+	 *             the delete row exception
+	 */
+	@SuppressWarnings({ "rawtypes" })
+	private static int deleteUnits(final ConfigBuildRef configBuildRef,
+			final FullNamePath fullName, final int count,
+			final Map<String, Object> dataContext,
+			final SheetConfiguration sheetConfig,
+			final List<FacesRow> bodyRows) {
 
-		CommandUtility.deleteObjectInContext(lastCollection, eachCommand,
-				lastCollectionIndex, dataContext);
+		checkDeleteCount(configBuildRef, fullName, count);
+		CollectionObject collect = configBuildRef.getCellHelper()
+				.getLastCollect(fullName);
+		Collection lastCollection = collect.getLastCollection();
+		int lastCollectionIndex = collect.getLastCollectionIndex();
+		EachCommand eachCommand = collect.getEachCommand();
 
 		// find range from shiftmap.
-		ConfigRangeAttrs currentRangeAttrs = configBuildRef.getShiftMap()
+		FullNamePath lastFullName = fullName
+				.withIndex(fullName.getIndex() + count - 1);
+		ConfigRangeAttrs firstRangeAttrs = configBuildRef.getShiftMap()
 				.get(fullName);
-		if (currentRangeAttrs == null) {
+		ConfigRangeAttrs lastRangeAttrs = configBuildRef.getShiftMap()
+				.get(lastFullName);
+		if ((firstRangeAttrs == null) || (lastRangeAttrs == null)) {
 			throw new DeleteRowException("Cannot find delete range.");
 
 		}
+		for (int i = 0; i < count; i++) {
+			CommandUtility.deleteObjectInContext(lastCollection, eachCommand,
+					lastCollectionIndex, dataContext);
+		}
 
 		// The lastRowRef is wrong in rangeAttrs. So use length to recalc it.
-		int startRow = currentRangeAttrs.getFirstRowIndex();
-		int length = currentRangeAttrs.getFinalLength();
-		int endRow = startRow + length - 1;
-
-		List<String> removeFullNameList = findRemoveFullNameList(
-				configBuildRef.getSheet(), startRow, endRow);
-		// remove range from shiftmap.
-		removeRangesFromShiftMap(configBuildRef.getShiftMap(),
-				removeFullNameList);
+		int startRow = firstRangeAttrs.getFirstRowIndex();
+		int endRow = lastRangeAttrs.getFirstRowIndex()
+				+ lastRangeAttrs.getFinalLength() - 1;
+		int length = endRow - startRow + 1;
+
+		// remove ranges (include children) from shiftmap.
+		for (int i = 0; i < count; i++) {
+			configBuildRef.getShiftMap()
+					.remove(fullName.withIndex(fullName.getIndex() + i));
+		}
 		// 1. remove ranged rows from sheet
 		String var = eachCommand.getVar();
-		CommandUtility.removeRowsInSheet(configBuildRef.getSheet(),
-				startRow, endRow, configBuildRef.getCachedCells());
+		shiftCachedValues(configBuildRef, endRow + 1, -length);
+		CommandUtility.removeRowsInSheet(configBuildRef.getWorkbookIndexes(),
+				configBuildRef.getSheet(), startRow, endRow,
+				configBuildRef.getCachedCells());
 		// 2. reset FacesRow row index.
 		CommandUtility.removeRowsInBody(sheetConfig, bodyRows, startRow,
 				endRow);
-		// 3. decrease index number in hidden column
-		Map<String, String> changeMap = new TreeMap<>();
-		ConfigurationUtility.changeIndexNumberInHiddenColumn(configBuildRef,
-				startRow, fullName, changeMap, -1);
+		// 3. decrease index number in row metadata
+		ConfigurationUtility.changeRowIndexNumber(configBuildRef,
+				startRow, fullName, -count);
 		// 4. decrease index number in shift map
 		ConfigurationUtility.changeIndexNumberInShiftMap(
-				configBuildRef.getShiftMap(), changeMap);
-		// 5. rebuild upper level formula
-		ConfigurationUtility.reBuildUpperLevelFormula(configBuildRef,
-				fullName);
-		// 6. decrease upper level final length
+				configBuildRef.getShiftMap(), lastFullName, -count);
+		// 5. decrease upper level final length
 		ConfigurationUtility.changeUpperLevelFinalLength(
 				configBuildRef.getShiftMap(), fullName, -length);
 
@@ -226,47 +447,22 @@ public final class CommandUtility {
 	}
 
 	/**
-	 * Removes the ranges from shift map.
-	 *
-	 * @param shiftMap
-	 *            the shift map
-	 * @param removeFullNameList
-	 *            the remove full name list
-	 */
-	private static void removeRangesFromShiftMap(
-			final NavigableMap<String, ConfigRangeAttrs> shiftMap,
-			final List<String> removeFullNameList) {
-		for (String fname : removeFullNameList) {
-			shiftMap.remove(fname);
-		}
-
-	}
-
-	/**
-	 * Find remove full name list.
+	 * Gets the each command of the unit path.
 	 *
-	 * @param sheet
-	 *            the sheet
-	 * @param startRow
-	 *            the start row
-	 * @param endRow
-	 *            the end row
-	 * @return the list
+	 * @param commandIndexMap
+	 *            the command index map
+	 * @param unitPath
+	 *            the unit path. e.g. F.f1:E.employee.0
+	 * @return the each command or null if not each unit
 	 */
-	private static List<String> findRemoveFullNameList(final Sheet sheet,
-			final int startRow, final int endRow) {
-
-		List<String> list = new ArrayList<>();
-
-		for (int rowIndex = startRow; rowIndex <= endRow; rowIndex++) {
-			String fullName = ConfigurationUtility
-					.getFullNameFromRow(sheet.getRow(rowIndex));
-			if (!list.contains(fullName)) {
-				list.add(fullName);
-			}
+	public static EachCommand getEachCommandFromPath(
+			final Map<String, Command> commandIndexMap,
+			final FullNamePath unitPath) {
+		if (unitPath.isEachUnit()) {
+			return (EachCommand) commandIndexMap
+					.get(unitPath.getCommandName());
 		}
-
-		return list;
+		return null;
 	}
 
 	/**
@@ -275,43 +471,53 @@ public final class CommandUtility {
 	 * @param commandIndexMap
 	 *            the command index map
 	 * @param varparts
-	 *            the varparts
+	 *            the varparts. e.g. {E, employee, 0}
 	 * @return the each command from parts name
+	 * @deprecated use {@link #getEachCommandFromPath(Map, FullNamePath)}
 	 */
+	@Deprecated
 	public static EachCommand getEachCommandFromPartsName(
 			final Map<String, Command> commandIndexMap,
 			final String[] varparts) {
-		if (varparts.length == TieConstants.DEFAULT_COMMAND_PART_LENGTH) {
-			return (EachCommand) commandIndexMap
-					.get(TieConstants.EACH_COMMAND_FULL_NAME_PREFIX
-							+ varparts[1]);
+		FullNamePath unitPath = getUnitPathFromParts(varparts);
+		if (unitPath == null) {
+			return null;
 		}
-		return null;
+		return getEachCommandFromPath(commandIndexMap, unitPath);
+	}
 
+	/**
+	 * Gets the unit path of each command from parts name.
+	 *
+	 * @param varparts
+	 *            the varparts. e.g. {E, employee, 0}
+	 * @return the unit path or null if parts is not each unit
+	 */
+	private static FullNamePath getUnitPathFromParts(final String[] varparts) {
+		if (varparts.length != TieConstants.DEFAULT_COMMAND_PART_LENGTH) {
+			return null;
+		}
+		return FullNamePath.parse(TieConstants.EACH_COMMAND_FULL_NAME_PREFIX
+				+ varparts[1] + "." + varparts[2]);
 	}
 
 	/**
-	 * Insert empty object in context.
+	 * Insert empty objects in context after the last collection index.
 	 *
-	 * @param fullName
-	 *            the full name
 	 * @param lastCollection
 	 *            the last collection
-	 * @param eachCommand
-	 *            the each command
 	 * @param lastCollectionIndex
 	 *            the last collection index
-	 * @param dataContext
-	 *            the data context
-	 * @return the string
+	 * @param count
+	 *            the number of objects
+	 * @return the inserted objects
 	 * @throws EvaluationException
 	 *             the evaluation exception
 	 */
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	private static String insertEmptyObjectInContext(final String fullName,
-			final Collection lastCollection, final EachCommand eachCommand,
-			final int lastCollectionIndex,
-			final Map<String, Object> dataContext) {
+	private static List insertEmptyObjectsInContext(
+			final Collection lastCollection, final int lastCollectionIndex,
+			final int count) {
 		if (!(lastCollection instanceof List)) {
 			throw new EvaluationException(
 					"Collection must be list in order to insert/delete.");
@@ -319,13 +525,13 @@ public final class CommandUtility {
 		List collectionList = (List) lastCollection;
 		// the object must support empty constructor.
 		Object currentObj = collectionList.get(lastCollectionIndex);
-		Object insertObj;
+		List insertObjs = new ArrayList();
 		try {
-			insertObj = currentObj.getClass().newInstance();
-			collectionList.add(lastCollectionIndex + 1, insertObj);
-			dataContext.put(eachCommand.getVar(), insertObj);
-			return fullName.substring(0, fullName.lastIndexOf('.') + 1)
-					+ (lastCollectionIndex + 1);
+			for (int i = 0; i < count; i++) {
+				insertObjs.add(currentObj.getClass().newInstance());
+			}
+			collectionList.addAll(lastCollectionIndex + 1, insertObjs);
+			return insertObjs;
 		} catch (InstantiationException | IllegalAccessException e) {
 			throw new EvaluationException(e);
 
@@ -365,30 +571,56 @@ public final class CommandUtility {
 	/**
 	 * Prepare collection data in context.
 	 *
-	 * @param varparts
-	 *            the varparts
+	 * @param unitPath
+	 *            the unit path. e.g. F.f1:E.employee.0
 	 * @param collection
 	 *            the collection
 	 * @param dataContext
 	 *            the data context
-	 * @return the int
+	 * @return the collection index or -1 if item not found
 	 */
 	@SuppressWarnings("rawtypes")
 	public static int prepareCollectionDataInContext(
-			final String[] varparts, final Collection collection,
+			final FullNamePath unitPath, final Collection collection,
 			final Map<String, Object> dataContext) {
-		if (varparts.length == TieConstants.DEFAULT_COMMAND_PART_LENGTH) {
-			int collectionIndex = Integer.parseInt(varparts[2]);
+		if (unitPath.isEachUnit()) {
+			int collectionIndex = unitPath.getIndex();
 			Object obj = ConfigurationUtility
 					.findItemInCollection(collection, collectionIndex);
 			if (obj != null) {
-				dataContext.put(varparts[1], obj);
+				dataContext.put(unitPath.getVarName(), obj);
 				return collectionIndex;
 			}
 		}
 		return -1;
 	}
 
+	/**
+	 * Prepare collection data in context.
+	 *
+	 * @param varparts
+	 *            the varparts. e.g. {E, employee, 0}
+	 * @param collection
+	 *            the collection
+	 * @param dataContext
+	 *            the data context
+	 * @return the collection index or -1 if item not found
+	 * @deprecated use
+	 *             {@link #prepareCollectionDataInContext(FullNamePath, Collection, Map)}
+	 */
+	@Deprecated
+	@SuppressWarnings("rawtypes")
+	public static int prepareCollectionDataInContext(
+			final String[] varparts, final Collection collection,
+			final Map<String, Object> dataContext) {
+		FullNamePath unitPath = getUnitPathFromParts(varparts);
+		if (unitPath == null) {
+			return -1;
+		}
+		return prepareCollectionDataInContext(unitPath, collection,
+				dataContext);
+	}
+
 	/**
 	 * Index command range.
 	 *
@@ -414,15 +646,18 @@ public final class CommandUtility {
 	/**
 	 * Checks if is row allow add.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param row
 	 *            the row
 	 * @param sheetConfig
 	 *            the sheet config
 	 * @return true, if is row allow add
 	 */
-	public static boolean isRowAllowAdd(final Row row,
-			final SheetConfiguration sheetConfig) {
-		String fullName = ConfigurationUtility.getFullNameFromRow(row);
+	public static boolean isRowAllowAdd(final WorkbookIndexes indexes,
+			final Row row, final SheetConfiguration sheetConfig) {
+		String fullName = ConfigurationUtility.getFullNameFromRow(indexes,
+				row);
 		if (fullName != null) {
 			ConfigRangeAttrs attrs = sheetConfig.getShiftMap()
 					.get(fullName);
@@ -434,6 +669,27 @@ public final class CommandUtility {
 		return false;
 	}
 
+	/**
+	 * Shift cached values of displayed cells along with sheet rows. All the
+	 * rows from start row are shifted, so values of removed rows are dropped
+	 * when shift up.
+	 *
+	 * @param configBuildRef
+	 *            the config build ref
+	 * @param startRow
+	 *            the start row
+	 * @param n
+	 *            the number of rows to shift. negative is shift up.
+	 */
+	private static void shiftCachedValues(
+			final ConfigBuildRef configBuildRef, final int startRow,
+			final int n) {
+		if (configBuildRef.getCachedValues() != null) {
+			configBuildRef.getCachedValues().shiftRows(startRow,
+					SpreadsheetVersion.EXCEL2007.getLastRowIndex(), n);
+		}
+	}
+
 	/**
 	 * Insert each template.
 	 *
@@ -452,6 +708,31 @@ public final class CommandUtility {
 			final ConfigRange sourceConfigRange,
 			final ConfigBuildRef configBuildRef, final int index,
 			final int insertPosition, final RowsMapping unitRowsMapping) {
+		if (index > 0) {
+			insertEachTemplates(sourceConfigRange, configBuildRef,
+					insertPosition, 1);
+		}
+		mapEachTemplateRows(sourceConfigRange, configBuildRef,
+				insertPosition, unitRowsMapping);
+	}
+
+	/**
+	 * Insert copies of each template at once. Rows below are shifted only
+	 * once for all the copies.
+	 *
+	 * @param sourceConfigRange
+	 *            the source config range
+	 * @param configBuildRef
+	 *            the config build ref
+	 * @param insertPosition
+	 *            the insert position
+	 * @param copies
+	 *            the number of copies
+	 */
+	public static void insertEachTemplates(
+			final ConfigRange sourceConfigRange,
+			final ConfigBuildRef configBuildRef, final int insertPosition,
+			final int copies) {
 		int srcStartRow = sourceConfigRange.getFirstRowAddr().getRow();
 		int srcEndRow = sourceConfigRange.getLastRowPlusAddr().getRow() - 1;
 
@@ -465,10 +746,33 @@ public final class CommandUtility {
 					TieConstants.EXCEL_SHEET_NAME_LIMIT);
 		}
 		Sheet srcSheet = wb.getSheet(copyName);
-		if (index > 0) {
-			CellUtility.copyRows(srcSheet, sheet, srcStartRow, srcEndRow,
-					insertPosition, false, true);
-		}
+		shiftCachedValues(configBuildRef, insertPosition,
+				(srcEndRow - srcStartRow + 1) * copies);
+		CellUtility.copyRows(configBuildRef.getWorkbookIndexes(), srcSheet,
+				sheet, srcStartRow, srcEndRow, insertPosition, copies, false,
+				true);
+	}
+
+	/**
+	 * Add static rows of each template inserted at the position into unit
+	 * rows mapping.
+	 *
+	 * @param sourceConfigRange
+	 *            the source config range
+	 * @param configBuildRef
+	 *            the config build ref
+	 * @param insertPosition
+	 *            the insert position
+	 * @param unitRowsMapping
+	 *            the unit rows mapping
+	 */
+	public static void mapEachTemplateRows(
+			final ConfigRange sourceConfigRange,
+			final ConfigBuildRef configBuildRef, final int insertPosition,
+			final RowsMapping unitRowsMapping) {
+		int srcStartRow = sourceConfigRange.getFirstRowAddr().getRow();
+		int srcEndRow = sourceConfigRange.getLastRowPlusAddr().getRow() - 1;
+		Sheet sheet = configBuildRef.getSheet();
 
 		for (int rowIndex = srcStartRow; rowIndex <= srcEndRow; rowIndex++) {
 			if (configBuildRef.getWatchList().contains(rowIndex)
@@ -483,6 +787,8 @@ public final class CommandUtility {
 	/**
 	 * Evaluate.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param context
 	 *            the context
 	 * @param cell
@@ -491,14 +797,15 @@ public final class CommandUtility {
 	 *            the engine
 	 */
 	@SuppressWarnings("deprecation")
-	public static void evaluate(final Map<String, Object> context,
-			final Cell cell, final ExpressionEngine engine) {
+	public static void evaluate(final WorkbookIndexes indexes,
+			final Map<String, Object> context, final Cell cell,
+			final ExpressionEngine engine) {
 		if ((cell != null) && (cell.getCellTypeEnum() == CellType.STRING)) {
 			String strValue = cell.getStringCellValue();
 			if (isUserFormula(strValue)) {
 				evaluateUserFormula(cell, strValue);
 			} else {
-				evaluateNormalCells(cell, strValue, context, engine);
+				evaluateNormalCells(indexes, cell, strValue, context, engine);
 			}
 		}
 	}
@@ -506,6 +813,8 @@ public final class CommandUtility {
 	/**
 	 * Evaluate normal cells.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param cell
 	 *            cell.
 	 * @param strValue
@@ -515,24 +824,80 @@ public final class CommandUtility {
 	 * @param engine
 	 *            engine.
 	 */
-	public static void evaluateNormalCells(final Cell cell,
-			final String strValue, final Map<String, Object> context,
-			final ExpressionEngine engine) {
+	public static void evaluateNormalCells(final WorkbookIndexes indexes,
+			final Cell cell, final String strValue,
+			final Map<String, Object> context, final ExpressionEngine engine) {
 		if (strValue.contains(TieConstants.METHOD_PREFIX)) {
 
 			Object evaluationResult = evaluate(strValue, context, engine);
-			if (evaluationResult == null) {
-				evaluationResult = "";
-			}
-			CellUtility.setCellValue(cell, evaluationResult.toString());
+			setEvaluationResult(indexes, cell, evaluationResult, context,
+					engine);
 
-			createTieCell(cell, context, engine);
+		}
+	}
 
+	/**
+	 * Evaluate the cell built from template. The plan of the template cell
+	 * is compiled once and kept in cell plan table of the build, and the jexl
+	 * context is reused for all cells built with same context.
+	 *
+	 * @param context
+	 *            the context
+	 * @param jexlContext
+	 *            the jexl context of the context
+	 * @param cell
+	 *            the cell
+	 * @param originRowIndex
+	 *            the origin row index of the cell in template. -1 if not
+	 *            copied from template.
+	 * @param configBuildRef
+	 *            the config build ref
+	 */
+	@SuppressWarnings("deprecation")
+	public static void evaluate(final Map<String, Object> context,
+			final JexlContext jexlContext, final Cell cell,
+			final int originRowIndex, final ConfigBuildRef configBuildRef) {
+		if ((cell == null) || (cell.getCellTypeEnum() != CellType.STRING)) {
+			return;
+		}
+		String strValue = cell.getStringCellValue();
+		if (isUserFormula(strValue)) {
+			evaluateUserFormula(cell, strValue);
+		} else if (strValue.contains(TieConstants.METHOD_PREFIX)) {
+			ExpressionEngine engine = configBuildRef.getEngine();
+			Object evaluationResult = configBuildRef.getCellPlanTable()
+					.get(engine.getJexlEngine(), originRowIndex,
+							cell.getColumnIndex(), strValue)
+					.evaluate(jexlContext);
+			setEvaluationResult(configBuildRef.getWorkbookIndexes(), cell,
+					evaluationResult, context, engine);
 		}
 	}
 
-	private static void createTieCell(final Cell cell, final Map<String, Object> context,
-	    final ExpressionEngine engine) {
+	/**
+	 * Sets the evaluation result into cell.
+	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
+	 * @param cell
+	 *            the cell
+	 * @param evaluationResult
+	 *            the evaluation result
+	 * @param context
+	 *            the context
+	 * @param engine
+	 *            the engine
+	 */
+	private static void setEvaluationResult(final WorkbookIndexes indexes,
+			final Cell cell, final Object evaluationResult,
+			final Map<String, Object> context, final ExpressionEngine engine) {
+		CellUtility.setCellValue(cell,
+				(evaluationResult == null) ? "" : evaluationResult.toString());
+		createTieCell(indexes, cell, context, engine);
+	}
+
+	private static void createTieCell(final WorkbookIndexes indexes, final Cell cell,
+	    final Map<String, Object> context, final ExpressionEngine engine) {
 
         	@SuppressWarnings("unchecked")
         	HashMap<String, TieCell> tieCells = (HashMap<String, TieCell>) context.get("tiecells");
@@ -541,13 +906,8 @@ public final class CommandUtility {
         	// true
         	if (tieCells != null) {
         
-        	    if (SaveAttrsUtility.isHasSaveAttr(cell)) {
-        
-        		String saveAttrList = SaveAttrsUtility.getSaveAttrListFromRow(cell.getRow());
-        
-        		if (saveAttrList != null) {
-        		    String saveAttr = SaveAttrsUtility.getSaveAttrFromList(cell.getColumnIndex(), saveAttrList);
-        		    if (saveAttr != null) {
+        	    String saveAttr = SaveAttrsUtility.getSaveAttrFromRow(indexes, cell);
+        	    if (saveAttr != null) {
         
         			int index = saveAttr.lastIndexOf('.');
         			if (index > 0) {
@@ -566,9 +926,6 @@ public final class CommandUtility {
         
         			}
         
-        		    }
-        		}
-        
         	    }
         
         	}
@@ -604,7 +961,7 @@ public final class CommandUtility {
 	}
 
 	/**
-	 * Evaluate.
+	 * Evaluate the string by compiling it into plan.
 	 *
 	 * @param strValue
 	 *            the str value
@@ -617,45 +974,8 @@ public final class CommandUtility {
 	public static Object evaluate(final String strValue,
 			final Map<String, Object> context,
 			final ExpressionEngine engine) {
-		StringBuffer sb = new StringBuffer();
-		int beginExpressionLength = TieConstants.METHOD_PREFIX.length();
-		int endExpressionLength = TieConstants.METHOD_END.length();
-		Matcher exprMatcher = TieConstants.EXPRESSION_NOTATION_PATTERN
-				.matcher(strValue);
-		String matchedString;
-		String expression;
-		Object lastMatchEvalResult = null;
-		int matchCount = 0;
-		int endOffset = 0;
-		while (exprMatcher.find()) {
-			endOffset = exprMatcher.end();
-			matchCount++;
-			matchedString = exprMatcher.group();
-			expression = matchedString.substring(beginExpressionLength,
-					matchedString.length() - endExpressionLength);
-			lastMatchEvalResult = engine.evaluate(expression, context);
-			exprMatcher.appendReplacement(sb,
-					Matcher.quoteReplacement(lastMatchEvalResult != null
-							? lastMatchEvalResult.toString() : ""));
-		}
-		String lastStringResult = lastMatchEvalResult != null
-				? lastMatchEvalResult.toString() : "";
-		boolean isAppendTail = matchCount == 1
-				&& endOffset < strValue.length();
-		Object evaluationResult = null;
-		if (matchCount > 1 || isAppendTail) {
-			exprMatcher.appendTail(sb);
-			evaluationResult = sb.toString();
-		} else if (matchCount == 1) {
-			if (sb.length() > lastStringResult.length()) {
-				evaluationResult = sb.toString();
-			} else {
-				evaluationResult = lastMatchEvalResult;
-			}
-		} else if (matchCount == 0) {
-			evaluationResult = strValue;
-		}
-		return evaluationResult;
+		return CellEvaluationPlan.of(engine.getJexlEngine(), strValue)
+				.evaluate(context);
 	}
 
 	/**
@@ -717,6 +1037,8 @@ public final class CommandUtility {
 	/**
 	 * Remove the rows.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param sheet
 	 *            the sheet
 	 * @param rowIndexStart
@@ -726,8 +1048,8 @@ public final class CommandUtility {
 	 * @param cachedMap
 	 *            the cached map
 	 */
-	public static void removeRowsInSheet(final Sheet sheet,
-			final int rowIndexStart, final int rowIndexEnd,
+	public static void removeRowsInSheet(final WorkbookIndexes indexes,
+			final Sheet sheet, final int rowIndexStart, final int rowIndexEnd,
 			final Map<Cell, String> cachedMap) {
 
 		for (int irow = rowIndexStart; irow <= rowIndexEnd; irow++) {
@@ -739,32 +1061,20 @@ public final class CommandUtility {
 		}
 		int lastRowNum = sheet.getLastRowNum();
 		if (rowIndexEnd < lastRowNum) {
-			sheet.shiftRows(rowIndexEnd + 1, lastRowNum, -irows);
+			indexes.shiftRows(sheet, rowIndexEnd + 1, lastRowNum, -irows,
+					false, false);
+			WebSheetInstrumentation.getMetrics().count(
+					WebSheetMetrics.Counter.ROWS_SHIFTED,
+					(long) lastRowNum - rowIndexEnd);
 		}
 		if (rowIndexEnd == lastRowNum) {
 			// reverse order to delete rows.
 			for (int i = rowIndexEnd; i >= rowIndexStart; i--) {
-				removeSingleRowInSheet(sheet, rowIndexStart);
+				indexes.removeRow(sheet, rowIndexStart);
 			}
 		}
 	}
 
-	/**
-	 * Removes the single row in sheet.
-	 *
-	 * @param sheet
-	 *            the sheet
-	 * @param rowIndexStart
-	 *            the row index start
-	 */
-	private static void removeSingleRowInSheet(final Sheet sheet,
-			final int rowIndexStart) {
-		Row removingRow = sheet.getRow(rowIndexStart);
-		if (removingRow != null) {
-			sheet.removeRow(removingRow);
-		}
-	}
-
 	/**
 	 * Removes the cached cell for row.
 	 *
@@ -808,6 +1118,16 @@ public final class CommandUtility {
 		}
 
 		int irows = rowIndexEnd - rowIndexStart + 1;
+		if (bodyRows instanceof LazyBodyRows) {
+			// rows will be assembled with new row index when accessed.
+			((LazyBodyRows) bodyRows).removeRows(rowIndexStart - top, irows);
+			return;
+		}
+		if (bodyRows instanceof BlockBodyRows) {
+			// only rows in the changed block are renumbered.
+			((BlockBodyRows) bodyRows).removeRows(rowIndexStart - top, irows);
+			return;
+		}
 		for (int rowIndex = rowIndexEnd; rowIndex >= rowIndexStart; rowIndex--) {
 			bodyRows.remove(rowIndex - top);
 		}
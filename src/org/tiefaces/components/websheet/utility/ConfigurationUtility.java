@@ -9,8 +9,6 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 
@@ -19,11 +17,8 @@ import org.apache.poi.ss.formula.FormulaRenderer;
 import org.apache.poi.ss.formula.FormulaType;
 import org.apache.poi.ss.formula.ptg.Ptg;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
 import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
 import org.tiefaces.common.TieConstants;
 import org.tiefaces.components.websheet.configuration.Command;
@@ -31,9 +26,15 @@ import org.tiefaces.components.websheet.configuration.ConfigBuildRef;
 import org.tiefaces.components.websheet.configuration.ConfigRange;
 import org.tiefaces.components.websheet.configuration.ConfigRangeAttrs;
 import org.tiefaces.components.websheet.configuration.ExpressionEngine;
+import org.tiefaces.components.websheet.configuration.FullNamePath;
 import org.tiefaces.components.websheet.configuration.RowsMapping;
 import org.tiefaces.components.websheet.configuration.ShiftFormulaRef;
+import org.tiefaces.components.websheet.configuration.ShiftMap;
+import org.tiefaces.components.websheet.dataobjects.MergedRegionIndex;
+import org.tiefaces.components.websheet.dataobjects.RowMetadata;
+import org.tiefaces.components.websheet.dataobjects.RowMetadataTable;
 import org.tiefaces.components.websheet.dataobjects.TieCommandAlias;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
 import org.tiefaces.exception.EvaluationException;
 
 /**
@@ -78,16 +79,35 @@ public final class ConfigurationUtility {
 	/**
 	 * Gets the full name from row.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param row
 	 *            the row
 	 * @return the full name from row
 	 */
-	public static String getFullNameFromRow(final Row row) {
-		if (row != null) {
-			Cell cell = row.getCell(TieConstants.HIDDEN_FULL_NAME_COLUMN);
-			if (cell != null) {
-				return cell.getStringCellValue();
-			}
+	public static String getFullNameFromRow(final WorkbookIndexes indexes,
+			final Row row) {
+		RowMetadata metadata = indexes.getRowMetadata(row);
+		if (metadata != null) {
+			return metadata.getFullName();
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the full name path from row.
+	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
+	 * @param row
+	 *            the row
+	 * @return the full name path from row
+	 */
+	public static FullNamePath getFullNamePathFromRow(
+			final WorkbookIndexes indexes, final Row row) {
+		RowMetadata metadata = indexes.getRowMetadata(row);
+		if (metadata != null) {
+			return metadata.getFullNamePath();
 		}
 		return null;
 	}
@@ -102,9 +122,9 @@ public final class ConfigurationUtility {
 	 */
 	public static void reBuildUpperLevelFormula(
 			final ConfigBuildRef configBuildRef,
-			final String actionFullName) {
+			final FullNamePath actionFullName) {
 		Map<Cell, String> cachedMap = configBuildRef.getCachedCells();
-		Map<String, List<RowsMapping>> rowsMap = new HashMap<>();
+		Map<FullNamePath, List<RowsMapping>> rowsMap = new HashMap<>();
 		for (Map.Entry<Cell, String> entry : cachedMap.entrySet()) {
 			Cell cell = entry.getKey();
 			String originFormula = entry.getValue();
@@ -131,12 +151,13 @@ public final class ConfigurationUtility {
 	 *            config build ref.
 	 */
 	private static void setupUpperLevelFormula(final Cell cell,
-			final String originFormula, final String actionFullName,
-			final Map<String, List<RowsMapping>> rowsMap,
+			final String originFormula, final FullNamePath actionFullName,
+			final Map<FullNamePath, List<RowsMapping>> rowsMap,
 			final ConfigBuildRef configBuildRef) {
-		String fullName = getFullNameFromRow(cell.getRow());
+		FullNamePath fullName = getFullNamePathFromRow(
+				configBuildRef.getWorkbookIndexes(), cell.getRow());
 		// check wither it's upper level
-		if (actionFullName.startsWith(fullName + ":")) {
+		if ((fullName != null) && fullName.isAncestorOf(actionFullName)) {
 			// get rows mapping for upper level row
 			List<RowsMapping> currentRowsMappingList = rowsMap
 					.get(fullName);
@@ -194,7 +215,7 @@ public final class ConfigurationUtility {
 	}
 
 	/**
-	 * Gather rows mapping by full name.
+	 * Gather rows mapping of the unit and all it's children.
 	 *
 	 * @param configBuildRef
 	 *            the config build ref
@@ -203,42 +224,42 @@ public final class ConfigurationUtility {
 	 * @return the list
 	 */
 	public static List<RowsMapping> gatherRowsMappingByFullName(
-			final ConfigBuildRef configBuildRef, final String fullName) {
-		List<RowsMapping> list = new ArrayList<>();
-		Map<String, ConfigRangeAttrs> shiftMap = configBuildRef
-				.getShiftMap();
-		for (Map.Entry<String, ConfigRangeAttrs> entry : shiftMap
-				.entrySet()) {
-			String fname = entry.getKey();
-			if (fname.startsWith(fullName + ":")
-					|| fname.equals(fullName)) {
-				ConfigRangeAttrs attrs = entry.getValue();
-				list.add(attrs.getUnitRowsMapping());
-			}
+			final ConfigBuildRef configBuildRef,
+			final FullNamePath fullName) {
+		return toRowsMappingList(
+				configBuildRef.getShiftMap().getDescendants(fullName, true));
+	}
+
+	/**
+	 * Collect rows mapping from attrs list.
+	 *
+	 * @param attrsList
+	 *            the attrs list
+	 * @return the list
+	 */
+	private static List<RowsMapping> toRowsMappingList(
+			final List<ConfigRangeAttrs> attrsList) {
+		List<RowsMapping> list = new ArrayList<>(attrsList.size());
+		for (ConfigRangeAttrs attrs : attrsList) {
+			list.add(attrs.getUnitRowsMapping());
 		}
 		return list;
 	}
 
 	/**
-	 * Increase index number in shift map.
+	 * Change index number of the sibling units after the full name in shift
+	 * map. Their children follow them.
 	 *
 	 * @param shiftMap
 	 *            the shift map
-	 * @param changeMap
-	 *            the change map
+	 * @param fullName
+	 *            the full name
+	 * @param steps
+	 *            the steps ( 1 add -1 delete ).
 	 */
-	public static void changeIndexNumberInShiftMap(
-			final Map<String, ConfigRangeAttrs> shiftMap,
-			final Map<String, String> changeMap) {
-		for (Map.Entry<String, String> entry : changeMap.entrySet()) {
-			String key = entry.getKey();
-			String newKey = entry.getValue();
-			ConfigRangeAttrs attrs = shiftMap.get(key);
-			if (attrs != null) {
-				shiftMap.remove(key);
-				shiftMap.put(newKey, attrs);
-			}
-		}
+	public static void changeIndexNumberInShiftMap(final ShiftMap shiftMap,
+			final FullNamePath fullName, final int steps) {
+		shiftMap.changeSiblingIndexes(fullName, steps);
 	}
 
 	/**
@@ -251,25 +272,18 @@ public final class ConfigurationUtility {
 	 * @param increasedLength
 	 *            the increased length
 	 */
-	public static void changeUpperLevelFinalLength(
-			final Map<String, ConfigRangeAttrs> shiftMap,
-			final String addedFullName, final int increasedLength) {
-		String[] parts = addedFullName.split(":");
-		StringBuilder fname = new StringBuilder();
-		for (int i = 0; i < (parts.length - 1); i++) {
-			if (i == 0) {
-				fname.append(parts[i]);
-			} else {
-				fname.append(":").append(parts[i]);
-			}
-			String sname = fname.toString();
-			shiftMap.get(sname).setFinalLength(
-					shiftMap.get(sname).getFinalLength() + increasedLength);
+	public static void changeUpperLevelFinalLength(final ShiftMap shiftMap,
+			final FullNamePath addedFullName, final int increasedLength) {
+		for (FullNamePath path = addedFullName.getParent(); path != null; path = path
+				.getParent()) {
+			ConfigRangeAttrs attrs = shiftMap.get(path);
+			attrs.setFinalLength(attrs.getFinalLength() + increasedLength);
 		}
 	}
 
 	/**
-	 * Change index number in hidden column.
+	 * Change index number in row metadata. Rows of the sibling units after
+	 * the full name (include their children) are re-indexed.
 	 *
 	 * @param configBuildRef
 	 *            the config build ref
@@ -277,48 +291,18 @@ public final class ConfigurationUtility {
 	 *            the start row index
 	 * @param fullName
 	 *            the full name
-	 * @param changeMap
-	 *            the change map
 	 * @param steps
 	 *            the steps ( 1 add -1 delete ).
 	 */
-	public static void changeIndexNumberInHiddenColumn(
+	public static void changeRowIndexNumber(
 			final ConfigBuildRef configBuildRef, final int startRowIndex,
-			final String fullName, final Map<String, String> changeMap,
-			final int steps) {
-		String searchName = fullName.substring(0,
-				fullName.lastIndexOf('.') + 1);
-		Sheet sheet = configBuildRef.getSheet();
-		for (int i = startRowIndex; i <= sheet.getLastRowNum(); i++) {
-			Row row = sheet.getRow(i);
-			String fname = getFullNameFromRow(row);
-			if ((fname != null) && (fname.indexOf(searchName) >= 0)) {
-				int sindex = fname.indexOf(searchName);
-				String snum = fname.substring(sindex + searchName.length());
-				int sufindex = snum.indexOf(':');
-				String suffix = "";
-				if (sufindex > 0) {
-					snum = snum.substring(0, sufindex);
-					suffix = ":";
-				}
-				int increaseNum = Integer.parseInt(snum) + steps;
-				String realFullName = fname.substring(sindex);
-				String changeName = fname.replace(
-						searchName + snum + suffix,
-						searchName + increaseNum + suffix);
-				if (changeMap.get(realFullName) == null) {
-					changeMap.put(realFullName,
-							changeName.substring(sindex));
-				}
-				setFullNameInHiddenColumn(row, changeName);
-			} else {
-				return;
-			}
-		}
+			final FullNamePath fullName, final int steps) {
+		changeIndexNumberInRows(configBuildRef, startRowIndex, fullName,
+				steps, true);
 	}
 
 	/**
-	 * Decrease index number in hidden column.
+	 * Decrease index number in row metadata.
 	 *
 	 * @param configBuildRef
 	 *            the config build ref
@@ -326,102 +310,112 @@ public final class ConfigurationUtility {
 	 *            the start row index
 	 * @param fullName
 	 *            the full name
-	 * @param changeMap
-	 *            the change map
 	 */
-	public static void decreaseIndexNumberInHiddenColumn(
+	public static void decreaseRowIndexNumber(
 			final ConfigBuildRef configBuildRef, final int startRowIndex,
-			final String fullName, final Map<String, String> changeMap) {
-		String searchName = fullName.substring(0,
-				fullName.lastIndexOf('.') + 1);
+			final FullNamePath fullName) {
+		changeIndexNumberInRows(configBuildRef, startRowIndex, fullName, -1,
+				false);
+	}
+
+	/**
+	 * Change index number of the unit level in row full names.
+	 *
+	 * @param configBuildRef
+	 *            the config build ref
+	 * @param startRowIndex
+	 *            the start row index
+	 * @param fullName
+	 *            the full name
+	 * @param steps
+	 *            the steps
+	 * @param stopAtOther
+	 *            whether stop at first row not belong to the siblings
+	 */
+	private static void changeIndexNumberInRows(
+			final ConfigBuildRef configBuildRef, final int startRowIndex,
+			final FullNamePath fullName, final int steps,
+			final boolean stopAtOther) {
+		int depth = fullName.getDepth();
 		Sheet sheet = configBuildRef.getSheet();
+		RowMetadataTable table = configBuildRef.getWorkbookIndexes()
+				.getRowMetadataTable(sheet);
 		for (int i = startRowIndex; i <= sheet.getLastRowNum(); i++) {
-			Row row = sheet.getRow(i);
-			String fname = getFullNameFromRow(row);
-			if ((fname != null) && (fname.indexOf(searchName) >= 0)) {
-				int sindex = fname.indexOf(searchName);
-				String snum = fname.substring(sindex + searchName.length());
-				int sufindex = snum.indexOf(':');
-				String suffix = "";
-				if (sufindex > 0) {
-					snum = snum.substring(0, sufindex);
-					suffix = ":";
-				}
-				int increaseNum = Integer.parseInt(snum) - 1;
-				String realFullName = fname.substring(sindex);
-				String changeName = fname.replace(
-						searchName + snum + suffix,
-						searchName + increaseNum + suffix);
-				if (changeMap.get(realFullName) == null) {
-					changeMap.put(realFullName,
-							changeName.substring(sindex));
-				}
-				setFullNameInHiddenColumn(row, changeName);
+			RowMetadata metadata = table.get(i);
+			FullNamePath fname = (metadata == null) ? null
+					: metadata.getFullNamePath();
+			FullNamePath unit = (fname == null) ? null
+					: fname.getAncestor(depth);
+			if ((unit != null) && fullName.isSiblingOf(unit)) {
+				metadata.setFullNamePath(fname.replaceAncestor(unit,
+						unit.withIndex(unit.getIndex() + steps)));
+			} else if (stopAtOther) {
+				return;
 			}
 		}
 	}
 
 	/**
-	 * Sets the full name in hidden column.
+	 * Sets the full name in row metadata.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param row
 	 *            the row
 	 * @param fullName
 	 *            the full name
 	 */
-	public static void setFullNameInHiddenColumn(final Row row,
-			final String fullName) {
-		Cell cell = row.getCell(TieConstants.HIDDEN_FULL_NAME_COLUMN,
-				MissingCellPolicy.CREATE_NULL_AS_BLANK);
-
-		cell.setCellValue(fullName);
+	public static void setRowFullName(final WorkbookIndexes indexes,
+			final Row row, final String fullName) {
+		indexes.getOrCreateRowMetadata(row).setFullName(fullName);
 	}
 
 	/**
-	 * Gets the original row num in hidden column.
+	 * Sets the full name path in row metadata.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param row
 	 *            the row
-	 * @return the original row num in hidden column
+	 * @param fullName
+	 *            the full name
 	 */
-	public static int getOriginalRowNumInHiddenColumn(final Row row) {
-		if (row != null) {
-			Cell cell = row.getCell(
-					TieConstants.HIDDEN_ORIGIN_ROW_NUMBER_COLUMN,
-					MissingCellPolicy.CREATE_NULL_AS_BLANK);
-			String rowNum = cell.getStringCellValue();
-			try {
-				if ((rowNum != null) && (!rowNum.isEmpty())
-						&& (WebSheetUtility.isNumeric(rowNum))) {
-					return Integer.parseInt(rowNum);
-				}
-
-			} catch (Exception ex) {
-				LOG.log(Level.SEVERE,
-						"getOriginalRowNumInHiddenColumn rowNum = " + rowNum
-								+ " error = " + ex.getLocalizedMessage(),
-						ex);
+	public static void setRowFullName(final WorkbookIndexes indexes,
+			final Row row, final FullNamePath fullName) {
+		indexes.getOrCreateRowMetadata(row).setFullNamePath(fullName);
+	}
 
-			}
+	/**
+	 * Gets the original row num in row metadata.
+	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
+	 * @param row
+	 *            the row
+	 * @return the original row num or -1 if not set
+	 */
+	public static int getRowOriginIndex(final WorkbookIndexes indexes,
+			final Row row) {
+		RowMetadata metadata = indexes.getRowMetadata(row);
+		if (metadata != null) {
+			return metadata.getOriginRowIndex();
 		}
 		return -1;
 	}
 
 	/**
-	 * Sets the original row num in hidden column.
+	 * Sets the original row num in row metadata.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param row
 	 *            the row.
 	 * @param rowNum
 	 *            row number.
 	 */
-	public static void setOriginalRowNumInHiddenColumn(final Row row,
-			final int rowNum) {
-		Cell cell = row.getCell(
-				TieConstants.HIDDEN_ORIGIN_ROW_NUMBER_COLUMN,
-				MissingCellPolicy.CREATE_NULL_AS_BLANK);
-		cell.setCellValue(Integer.toString(rowNum));
-		cell.setCellType(CellType.STRING);
+	public static void setRowOriginIndex(final WorkbookIndexes indexes,
+			final Row row, final int rowNum) {
+		indexes.getOrCreateRowMetadata(row).setOriginRowIndex(rowNum);
 	}
 
 	/**
@@ -434,8 +428,7 @@ public final class ConfigurationUtility {
 	 * @return the list
 	 */
 	public static List<RowsMapping> findParentRowsMappingFromShiftMap(
-			final String[] parts,
-			final Map<String, ConfigRangeAttrs> shiftMap) {
+			final String[] parts, final ShiftMap shiftMap) {
 
 		StringBuilder fullName = new StringBuilder();
 		List<RowsMapping> rowsMappingList = new ArrayList<>();
@@ -462,7 +455,7 @@ public final class ConfigurationUtility {
 	}
 
 	/**
-	 * Find child rows mapping from shift map.
+	 * Find child rows mapping (all levels) from shift map.
 	 *
 	 * @param fullName
 	 *            the full name
@@ -471,23 +464,8 @@ public final class ConfigurationUtility {
 	 * @return the list
 	 */
 	public static List<RowsMapping> findChildRowsMappingFromShiftMap(
-			final String fullName,
-			final NavigableMap<String, ConfigRangeAttrs> shiftMap) {
-
-		List<RowsMapping> rowsMappingList = new ArrayList<>();
-		NavigableMap<String, ConfigRangeAttrs> tailmap = shiftMap
-				.tailMap(fullName, false);
-		for (Map.Entry<String, ConfigRangeAttrs> entry : tailmap
-				.entrySet()) {
-			String key = entry.getKey();
-			// check it's children
-			if (key.startsWith(fullName)) {
-				rowsMappingList.add(entry.getValue().getUnitRowsMapping());
-			} else {
-				break;
-			}
-		}
-		return rowsMappingList;
+			final FullNamePath fullName, final ShiftMap shiftMap) {
+		return toRowsMappingList(shiftMap.getDescendants(fullName, false));
 	}
 
 	/**
@@ -683,72 +661,15 @@ public final class ConfigurationUtility {
 	}
 
 	/**
-	 * Index merged region.
-	 *
-	 * @param sheet1
-	 *            the sheet 1
-	 * @return the map
-	 */
-	public static Map<String, CellRangeAddress> indexMergedRegion(
-			final Sheet sheet1) {
-
-		int numRegions = sheet1.getNumMergedRegions();
-		Map<String, CellRangeAddress> cellRangeMap = new HashMap<>();
-		for (int i = 0; i < numRegions; i++) {
-
-			CellRangeAddress caddress = sheet1.getMergedRegion(i);
-			if (caddress != null) {
-				cellRangeMap.put(CellUtility.getCellIndexNumberKey(
-						caddress.getFirstColumn(), caddress.getFirstRow()),
-						caddress);
-			}
-		}
-		return cellRangeMap;
-	}
-
-	/**
-	 * Skipped region cells.
+	 * Index merged region. The index is not cached, use the one of workbook
+	 * holder when the sheet is loaded in web form.
 	 *
 	 * @param sheet1
 	 *            the sheet 1
-	 * @return the list
+	 * @return the merged region index
 	 */
-	public static List<String> skippedRegionCells(final Sheet sheet1) {
-		int numRegions = sheet1.getNumMergedRegions();
-		List<String> skipCellList = new ArrayList<>();
-		for (int i = 0; i < numRegions; i++) {
-
-			CellRangeAddress caddress = sheet1.getMergedRegion(i);
-			if (caddress != null) {
-				addSkipCellToListInTheRegion(skipCellList, caddress);
-			}
-		}
-		return skipCellList;
-	}
-
-	/**
-	 * Add skipped cell into the list of a region.
-	 * 
-	 * @param skipCellList
-	 *            list.
-	 * @param caddress
-	 *            region.
-	 */
-	private static void addSkipCellToListInTheRegion(
-			final List<String> skipCellList,
-			final CellRangeAddress caddress) {
-		for (int col = caddress.getFirstColumn(); col <= caddress
-				.getLastColumn(); col++) {
-			for (int row = caddress.getFirstRow(); row <= caddress
-					.getLastRow(); row++) {
-				if ((col == caddress.getFirstColumn())
-						&& (row == caddress.getFirstRow())) {
-					continue;
-				}
-				skipCellList
-						.add(CellUtility.getCellIndexNumberKey(col, row));
-			}
-		}
+	public static MergedRegionIndex indexMergedRegion(final Sheet sheet1) {
+		return new MergedRegionIndex(sheet1.getMergedRegions());
 	}
 
 	
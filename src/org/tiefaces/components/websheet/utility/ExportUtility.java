@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+
+package org.tiefaces.components.websheet.utility;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.tiefaces.common.TieConstants;
+
+/**
+ * Helpers for exporting workbook without keeping extra copies of the file in
+ * heap.
+ *
+ * @author Jason Jiang
+ *
+ */
+public final class ExportUtility {
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(ExportUtility.class.getName());
+
+	/** temp file prefix. */
+	private static final String TEMP_FILE_PREFIX = "tiefaces-export";
+
+	/** content type of download. */
+	public static final String DOWNLOAD_CONTENT_TYPE = "application/force-download";
+
+	/** hex digits for percent encoding. */
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF"
+			.toCharArray();
+
+	/** characters kept as is in RFC 5987 ext-value besides alpha digit. */
+	private static final String ATTR_CHARS = "!#$&+-.^_`|~";
+
+	/**
+	 * hide constructor.
+	 */
+	private ExportUtility() {
+		// not called
+	}
+
+	/**
+	 * Byte array output stream which hands over it's buffer to the input
+	 * stream instead of copy it.
+	 */
+	private static final class ExportByteArrayOutputStream
+			extends ByteArrayOutputStream {
+
+		/**
+		 * Instantiates a new export byte array output stream.
+		 */
+		ExportByteArrayOutputStream() {
+			super(TieConstants.DEFAULT_EXPORT_BUFFER_SIZE);
+		}
+
+		/**
+		 * Input stream reading the written bytes.
+		 *
+		 * @return the input stream
+		 */
+		InputStream toInputStream() {
+			return new ByteArrayInputStream(buf, 0, count);
+		}
+	}
+
+	/**
+	 * File input stream which delete the file when closed.
+	 */
+	private static final class TempFileInputStream extends FileInputStream {
+
+		/** the temp file. */
+		private final File file;
+
+		/**
+		 * Instantiates a new temp file input stream.
+		 *
+		 * @param pfile
+		 *            the file
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred.
+		 */
+		TempFileInputStream(final File pfile) throws IOException {
+			super(pfile);
+			this.file = pfile;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				if (!file.delete()) {
+					LOG.log(Level.FINE, "Cannot delete export temp file "
+							+ file.getAbsolutePath());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write workbook into memory. The written buffer is read directly by the
+	 * returned stream.
+	 *
+	 * @param wb
+	 *            the workbook
+	 * @return the input stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static InputStream writeToMemory(final Workbook wb)
+			throws IOException {
+		ExportByteArrayOutputStream out = new ExportByteArrayOutputStream();
+		wb.write(out);
+		return out.toInputStream();
+	}
+
+	/**
+	 * Write workbook into temp file. The file is deleted when the returned
+	 * stream closed, or right away if write failed.
+	 *
+	 * @param wb
+	 *            the workbook
+	 * @return the input stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static InputStream writeToTempFile(final Workbook wb)
+			throws IOException {
+		File file = File.createTempFile(TEMP_FILE_PREFIX,
+				"." + TieConstants.EXCEL_2007_TYPE);
+		try {
+			try (OutputStream out = new BufferedOutputStream(
+					new FileOutputStream(file))) {
+				wb.write(out);
+			}
+			return new TempFileInputStream(file);
+		} catch (IOException | RuntimeException e) {
+			if (!file.delete()) {
+				LOG.log(Level.WARNING, "Cannot delete export temp file "
+						+ file.getAbsolutePath());
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Write workbook directly into the response of current faces request and
+	 * complete the response.
+	 *
+	 * @param wb
+	 *            the workbook
+	 * @param fileName
+	 *            the download file name
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static void writeToResponse(final Workbook wb,
+			final String fileName) throws IOException {
+		FacesContext context = FacesContext.getCurrentInstance();
+		ExternalContext externalContext = context.getExternalContext();
+		externalContext.responseReset();
+		externalContext.setResponseContentType(DOWNLOAD_CONTENT_TYPE);
+		externalContext.setResponseHeader("Content-Disposition",
+				contentDisposition(fileName));
+		OutputStream out = new BufferedOutputStream(
+				externalContext.getResponseOutputStream());
+		wb.write(out);
+		out.flush();
+		context.responseComplete();
+	}
+
+	/**
+	 * Content disposition header of attachment. Plain filename holds the
+	 * name with quote and backslash escaped and non ascii characters
+	 * replaced, for old browsers. Full name is in RFC 5987 filename*.
+	 *
+	 * @param fileName
+	 *            the download file name
+	 * @return the header value
+	 */
+	public static String contentDisposition(final String fileName) {
+		StringBuilder plain = new StringBuilder(fileName.length());
+		for (int i = 0; i < fileName.length(); i++) {
+			char c = fileName.charAt(i);
+			if ((c < 0x20) || (c >= 0x7f)) {
+				plain.append('_');
+			} else {
+				if ((c == '"') || (c == '\\')) {
+					plain.append('\\');
+				}
+				plain.append(c);
+			}
+		}
+		return "attachment; filename=\"" + plain + "\"; filename*=UTF-8''"
+				+ encodeRfc5987(fileName);
+	}
+
+	/**
+	 * Percent encode UTF-8 bytes of the value as RFC 5987 ext-value.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the encoded value
+	 */
+	private static String encodeRfc5987(final String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		StringBuilder sb = new StringBuilder(bytes.length * 3);
+		for (byte b : bytes) {
+			char c = (char) (b & 0xff);
+			if (((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'))
+					|| ((c >= '0') && (c <= '9'))
+					|| (ATTR_CHARS.indexOf(c) >= 0)) {
+				sb.append(c);
+			} else {
+				sb.append('%').append(HEX_DIGITS[(b >> 4) & 0x0f])
+						.append(HEX_DIGITS[b & 0x0f]);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Close the export stream. Temp file of the stream is deleted. Used when
+	 * the export is replaced or abandoned before downloaded.
+	 *
+	 * @param stream
+	 *            the stream. may be null.
+	 */
+	public static void closeQuietly(final InputStream stream) {
+		if (stream == null) {
+			return;
+		}
+		try {
+			stream.close();
+		} catch (IOException e) {
+			LOG.log(Level.FINE, "Cannot close export stream : "
+					+ e.getLocalizedMessage(), e);
+		}
+	}
+
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2017 TieFaces.
+ * Licensed under MIT
+ */
+package org.tiefaces.components.websheet.utility;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.tiefaces.components.websheet.utility.CellControlsUtility.AttributesType;
+
+/**
+ * Per class registry of property accessors.
+ * 
+ * Getters and setters are looked up by reflection only once for each class
+ * and property, then kept as method handles together with the parameter
+ * converter. Missing accessors are remembered too, so populating component
+ * attributes or saving cells never repeats the lookup.
+ * 
+ * @author Jason Jiang
+ *
+ */
+public final class PropertyAccessorRegistry {
+
+	/** logger. */
+	private static final Logger LOG = Logger
+			.getLogger(PropertyAccessorRegistry.class.getName());
+
+	/** marker of missing accessor. */
+	private static final Object NOT_FOUND = new Object();
+
+	/** type of setter handles. (object, value) returns nothing. */
+	private static final MethodType SETTER_TYPE = MethodType
+			.methodType(void.class, Object.class, Object.class);
+
+	/** type of getter handles. (object) returns value. */
+	private static final MethodType GETTER_TYPE = MethodType
+			.methodType(Object.class, Object.class);
+
+	/** accessors of each class. */
+	private static final ClassValue<ClassAccessors> ACCESSORS = new ClassValue<ClassAccessors>() {
+		@Override
+		protected ClassAccessors computeValue(final Class<?> type) {
+			return new ClassAccessors(type);
+		}
+	};
+
+	/**
+	 * hide constructor.
+	 */
+	private PropertyAccessorRegistry() {
+		// not called
+	}
+
+	/**
+	 * Set property with value converted to the setter's parameter type. The
+	 * first setter matches the order of AttributesType is used.
+	 *
+	 * @param obj
+	 *            the object
+	 * @param propertyName
+	 *            the property name
+	 * @param propertyValue
+	 *            the property value
+	 * @return false if no such setter
+	 */
+	public static boolean setProperty(final Object obj,
+			final String propertyName, final String propertyValue) {
+		Object setter = ACCESSORS.get(obj.getClass())
+				.getConvertingSetter(propertyName);
+		if (setter == NOT_FOUND) {
+			return false;
+		}
+		ConvertingSetter converting = (ConvertingSetter) setter;
+		invokeSetter(converting.handle, obj,
+				CellControlsUtility.convertToObject(converting.type,
+						propertyValue));
+		return true;
+	}
+
+	/**
+	 * Set property with setter accepts string.
+	 *
+	 * @param obj
+	 *            the object
+	 * @param propertyName
+	 *            the property name
+	 * @param propertyValue
+	 *            the property value
+	 * @return false if no such setter
+	 */
+	public static boolean setStringProperty(final Object obj,
+			final String propertyName, final String propertyValue) {
+		Object setter = ACCESSORS.get(obj.getClass())
+				.getStringSetter(propertyName);
+		if (setter == NOT_FOUND) {
+			return false;
+		}
+		invokeSetter((MethodHandle) setter, obj, propertyValue);
+		return true;
+	}
+
+	/**
+	 * Get property value.
+	 *
+	 * @param obj
+	 *            the object
+	 * @param propertyName
+	 *            the property name
+	 * @return the value
+	 * @throws NoSuchMethodException
+	 *             if no such getter
+	 */
+	public static Object getProperty(final Object obj,
+			final String propertyName) throws NoSuchMethodException {
+		Object getter = ACCESSORS.get(obj.getClass())
+				.getGetter(propertyName);
+		if (getter == NOT_FOUND) {
+			throw new NoSuchMethodException(obj.getClass().getName() + "."
+					+ accessorName("get", propertyName) + "()");
+		}
+		try {
+			return ((MethodHandle) getter).invokeExact(obj);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Invoke setter handle.
+	 *
+	 * @param handle
+	 *            the handle
+	 * @param obj
+	 *            the object
+	 * @param value
+	 *            the value
+	 */
+	private static void invokeSetter(final MethodHandle handle,
+			final Object obj, final Object value) {
+		try {
+			handle.invokeExact(obj, value);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Accessor method name, e.g. setValue for property value.
+	 *
+	 * @param prefix
+	 *            get or set
+	 * @param propertyName
+	 *            the property name
+	 * @return the method name
+	 */
+	private static String accessorName(final String prefix,
+			final String propertyName) {
+		return prefix + Character.toUpperCase(propertyName.charAt(0))
+				+ propertyName.substring(1);
+	}
+
+	/**
+	 * Find public method and convert it to handle of the type.
+	 *
+	 * @param type
+	 *            the class
+	 * @param handleType
+	 *            the handle type
+	 * @param name
+	 *            the method name
+	 * @param parameterTypes
+	 *            the parameter types
+	 * @return the handle or NOT_FOUND
+	 */
+	private static Object findHandle(final Class<?> type,
+			final MethodType handleType, final String name,
+			final Class<?>... parameterTypes) {
+		try {
+			Method method = type.getMethod(name, parameterTypes);
+			return MethodHandles.publicLookup().unreflect(method)
+					.asType(handleType);
+		} catch (NoSuchMethodException e) {
+			return NOT_FOUND;
+		} catch (IllegalAccessException e) {
+			LOG.log(Level.FINE, "cannot access method " + name + " of "
+					+ type.getName(), e);
+			return NOT_FOUND;
+		}
+	}
+
+	/**
+	 * Setter with converter of the parameter.
+	 */
+	private static final class ConvertingSetter {
+
+		/** setter handle. */
+		private final MethodHandle handle;
+
+		/** parameter type. */
+		private final AttributesType type;
+
+		/**
+		 * Instantiates a new converting setter.
+		 *
+		 * @param phandle
+		 *            the handle
+		 * @param ptype
+		 *            the parameter type
+		 */
+		ConvertingSetter(final MethodHandle phandle,
+				final AttributesType ptype) {
+			this.handle = phandle;
+			this.type = ptype;
+		}
+	}
+
+	/**
+	 * Resolved accessors of one class. Value is handle, converting setter or
+	 * NOT_FOUND.
+	 */
+	private static final class ClassAccessors {
+
+		/** the class. */
+		private final Class<?> type;
+
+		/** setters with converter. key = property name. */
+		private final ConcurrentMap<String, Object> convertingSetters = new ConcurrentHashMap<>();
+
+		/** setters accept string. key = property name. */
+		private final ConcurrentMap<String, Object> stringSetters = new ConcurrentHashMap<>();
+
+		/** getters. key = property name. */
+		private final ConcurrentMap<String, Object> getters = new ConcurrentHashMap<>();
+
+		/**
+		 * Instantiates a new class accessors.
+		 *
+		 * @param ptype
+		 *            the class
+		 */
+		ClassAccessors(final Class<?> ptype) {
+			this.type = ptype;
+		}
+
+		/**
+		 * Gets the converting setter.
+		 *
+		 * @param propertyName
+		 *            the property name
+		 * @return the converting setter or NOT_FOUND
+		 */
+		Object getConvertingSetter(final String propertyName) {
+			Object setter = convertingSetters.get(propertyName);
+			if (setter == null) {
+				setter = NOT_FOUND;
+				String name = accessorName("set", propertyName);
+				for (AttributesType attr : AttributesType.values()) {
+					Object handle = findHandle(type, SETTER_TYPE, name,
+							attr.getClazz());
+					if (handle != NOT_FOUND) {
+						setter = new ConvertingSetter((MethodHandle) handle,
+								attr);
+						break;
+					}
+				}
+				convertingSetters.put(propertyName, setter);
+			}
+			return setter;
+		}
+
+		/**
+		 * Gets the string setter.
+		 *
+		 * @param propertyName
+		 *            the property name
+		 * @return the handle or NOT_FOUND
+		 */
+		Object getStringSetter(final String propertyName) {
+			Object setter = stringSetters.get(propertyName);
+			if (setter == null) {
+				setter = findHandle(type, SETTER_TYPE,
+						accessorName("set", propertyName), String.class);
+				stringSetters.put(propertyName, setter);
+			}
+			return setter;
+		}
+
+		/**
+		 * Gets the getter.
+		 *
+		 * @param propertyName
+		 *            the property name
+		 * @return the handle or NOT_FOUND
+		 */
+		Object getGetter(final String propertyName) {
+			Object getter = getters.get(propertyName);
+			if (getter == null) {
+				getter = findHandle(type, GETTER_TYPE,
+						accessorName("get", propertyName));
+				getters.put(propertyName, getter);
+			}
+			return getter;
+		}
+	}
+
+}
@@ -4,15 +4,19 @@
  */
 package org.tiefaces.components.websheet.utility;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.tiefaces.common.TieConstants;
 import org.tiefaces.components.websheet.configuration.ExpressionEngine;
+import org.tiefaces.components.websheet.configuration.FullNamePath;
+import org.tiefaces.components.websheet.dataobjects.RowMetadata;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
 import org.tiefaces.components.websheet.service.CellHelper;
 
 /**
@@ -37,6 +41,23 @@ public final class SaveAttrsUtility {
 	 * @return the string
 	 */
 	public static String parseSaveAttr(final Cell cell, final Map<String, String> saveCommentsMap) {
+		String saveAttr = parseSaveAttrValue(cell, saveCommentsMap);
+		if (saveAttr != null) {
+			return TieConstants.CELL_ADDR_PRE_FIX + cell.getColumnIndex() + "=" + saveAttr + ",";
+		}
+		return "";
+	}
+
+	/**
+	 * Parses the save attr without column prefix.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param saveCommentsMap
+	 *            the save comments map
+	 * @return the save attr or null if none
+	 */
+	private static String parseSaveAttrValue(final Cell cell, final Map<String, String> saveCommentsMap) {
 		if (cell != null) {
 			String key = cell.getSheet().getSheetName() + "!"
 					+ CellUtility.getCellIndexNumberKey(cell.getColumnIndex(), cell.getRowIndex());
@@ -48,10 +69,10 @@ public final class SaveAttrsUtility {
 				saveAttr = SaveAttrsUtility.parseSaveAttrString(cell.getStringCellValue());
 			}
 			if ((saveAttr != null) && (!saveAttr.isEmpty())) {
-				return TieConstants.CELL_ADDR_PRE_FIX + cell.getColumnIndex() + "=" + saveAttr + ",";
+				return saveAttr;
 			}
 		}
-		return "";
+		return null;
 	}
 
 	/**
@@ -82,6 +103,8 @@ public final class SaveAttrsUtility {
 	/**
 	 * reload the data from context to websheet row.
 	 * 
+	 * @param indexes
+	 *            indexes of sheets in the workbook.
 	 * @param context
 	 *            context.
 	 * @param fullSaveAttr
@@ -92,8 +115,8 @@ public final class SaveAttrsUtility {
 	 *            engine.
 	 */
 
-	public static void refreshSheetRowFromContext(final Map<String, Object> context, final String fullSaveAttr,
-			final Row row, final ExpressionEngine engine) {
+	public static void refreshSheetRowFromContext(final WorkbookIndexes indexes, final Map<String, Object> context,
+			final String fullSaveAttr, final Row row, final ExpressionEngine engine) {
 		if (!fullSaveAttr.startsWith(TieConstants.CELL_ADDR_PRE_FIX)) {
 			return;
 		}
@@ -101,11 +124,32 @@ public final class SaveAttrsUtility {
 		if (ipos > 0) {
 			String columnIndex = fullSaveAttr.substring(1, ipos);
 			String saveAttr = fullSaveAttr.substring(ipos + 1);
-			Cell cell = row.getCell(Integer.parseInt(columnIndex));
-			if (cell.getCellTypeEnum() != CellType.FORMULA) {
-				CommandUtility.evaluateNormalCells(cell,
-						TieConstants.METHOD_PREFIX + saveAttr + TieConstants.METHOD_END, context, engine);
-			}
+			refreshSheetCellFromContext(indexes, context, Integer.parseInt(columnIndex), saveAttr, row, engine);
+		}
+	}
+
+	/**
+	 * reload the data from context to websheet cell.
+	 * 
+	 * @param indexes
+	 *            indexes of sheets in the workbook.
+	 * @param context
+	 *            context.
+	 * @param columnIndex
+	 *            column index.
+	 * @param saveAttr
+	 *            saveattr.
+	 * @param row
+	 *            row.
+	 * @param engine
+	 *            engine.
+	 */
+	public static void refreshSheetCellFromContext(final WorkbookIndexes indexes, final Map<String, Object> context,
+			final int columnIndex, final String saveAttr, final Row row, final ExpressionEngine engine) {
+		Cell cell = row.getCell(columnIndex);
+		if (cell.getCellTypeEnum() != CellType.FORMULA) {
+			CommandUtility.evaluateNormalCells(indexes, cell,
+					TieConstants.METHOD_PREFIX + saveAttr + TieConstants.METHOD_END, context, engine);
 		}
 	}
 
@@ -131,19 +175,33 @@ public final class SaveAttrsUtility {
 	/**
 	 * Gets the save attr list from row.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param row
 	 *            the row
 	 * @return the save attr list from row
 	 */
-	public static String getSaveAttrListFromRow(final Row row) {
-		if (row != null) {
-			Cell cell = row.getCell(TieConstants.HIDDEN_SAVE_OBJECTS_COLUMN);
-			if (cell != null) {
-				String str = cell.getStringCellValue();
-				if ((str != null) && (!str.isEmpty())) {
-					return str;
-				}
-			}
+	public static String getSaveAttrListFromRow(final WorkbookIndexes indexes, final Row row) {
+		RowMetadata metadata = indexes.getRowMetadata(row);
+		if (metadata != null) {
+			return metadata.getSaveAttrList();
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the save attr of the cell from row metadata.
+	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
+	 * @param cell
+	 *            the cell
+	 * @return the save attr or null
+	 */
+	public static String getSaveAttrFromRow(final WorkbookIndexes indexes, final Cell cell) {
+		RowMetadata metadata = indexes.getRowMetadata(cell.getRow());
+		if (metadata != null) {
+			return metadata.getSaveAttr(cell.getColumnIndex());
 		}
 		return null;
 	}
@@ -196,16 +254,27 @@ public final class SaveAttrsUtility {
 	/**
 	 * Checks if is checks for save attr.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param cell
 	 *            the cell
 	 * @return true, if is checks for save attr
 	 */
-	public static boolean isHasSaveAttr(final Cell cell) {
-		Cell saveAttrCell = cell.getRow().getCell(TieConstants.HIDDEN_SAVE_OBJECTS_COLUMN);
-		if (saveAttrCell != null) {
-			return isHasSaveAttr(cell, saveAttrCell.getStringCellValue());
-		}
-		return false;
+	public static boolean isHasSaveAttr(final WorkbookIndexes indexes, final Cell cell) {
+		return getSaveAttrFromRow(indexes, cell) != null;
+	}
+
+	/**
+	 * Checks if is checks for save attr.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param metadata
+	 *            the row metadata
+	 * @return true, if is checks for save attr
+	 */
+	public static boolean isHasSaveAttr(final Cell cell, final RowMetadata metadata) {
+		return (cell != null) && (metadata != null) && (metadata.getSaveAttr(cell.getColumnIndex()) != null);
 	}
 
 	/**
@@ -230,22 +299,43 @@ public final class SaveAttrsUtility {
 	}
 
 	/**
-	 * Sets the save objects in hidden column.
+	 * Sets the save objects in row metadata.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param row
 	 *            the row
 	 * @param saveAttr
-	 *            the save attr
+	 *            the save attr list. e.g. $0=employee.name,$1=employee.age,
 	 */
-	public static void setSaveObjectsInHiddenColumn(final Row row, final String saveAttr) {
-		Cell cell = row.getCell(TieConstants.HIDDEN_SAVE_OBJECTS_COLUMN, MissingCellPolicy.CREATE_NULL_AS_BLANK);
-
-		cell.setCellValue(saveAttr);
+	public static void setRowSaveAttrs(final WorkbookIndexes indexes, final Row row, final String saveAttr) {
+		int maxColumn = -1;
+		List<Integer> columns = new ArrayList<>();
+		List<String> attrs = new ArrayList<>();
+		for (String fullSaveAttr : saveAttr.split(",")) {
+			String columnIndex = getColumnIndexFromSaveAttr(fullSaveAttr);
+			if ((columnIndex != null) && WebSheetUtility.isNumeric(columnIndex)) {
+				int column = Integer.parseInt(columnIndex);
+				columns.add(column);
+				attrs.add(fullSaveAttr.substring(fullSaveAttr.indexOf('=') + 1));
+				maxColumn = Math.max(maxColumn, column);
+			}
+		}
+		if (maxColumn < 0) {
+			return;
+		}
+		String[] saveAttrs = new String[maxColumn + 1];
+		for (int i = 0; i < columns.size(); i++) {
+			saveAttrs[columns.get(i)] = attrs.get(i);
+		}
+		indexes.getOrCreateRowMetadata(row).setSaveAttrs(saveAttrs);
 	}
 
 	/**
 	 * Sets the save attrs for sheet.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param sheet
 	 *            the sheet
 	 * @param minRowNum
@@ -255,13 +345,13 @@ public final class SaveAttrsUtility {
 	 * @param saveCommentsMap
 	 *            the save comments map
 	 */
-	public static void setSaveAttrsForSheet(final Sheet sheet, final int minRowNum, final int maxRowNum,
-			final Map<String, String> saveCommentsMap) {
+	public static void setSaveAttrsForSheet(final WorkbookIndexes indexes, final Sheet sheet, final int minRowNum,
+			final int maxRowNum, final Map<String, String> saveCommentsMap) {
 
 		for (Row row : sheet) {
 			int rowIndex = row.getRowNum();
 			if ((rowIndex >= minRowNum) && (rowIndex <= maxRowNum)) {
-				setSaveAttrsForRow(row, saveCommentsMap);
+				setSaveAttrsForRow(indexes, row, saveCommentsMap);
 			}
 		}
 	}
@@ -269,27 +359,35 @@ public final class SaveAttrsUtility {
 	/**
 	 * Sets the save attrs for row.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param row
 	 *            the row
 	 * @param saveCommentsMap
 	 *            the save comments map
 	 */
-	public static void setSaveAttrsForRow(final Row row, final Map<String, String> saveCommentsMap) {
-		StringBuilder saveAttr = new StringBuilder();
+	public static void setSaveAttrsForRow(final WorkbookIndexes indexes, final Row row,
+			final Map<String, String> saveCommentsMap) {
+		String[] saveAttrs = null;
 		for (Cell cell : row) {
-			String sAttr = parseSaveAttr(cell, saveCommentsMap);
-			if (!sAttr.isEmpty()) {
-				saveAttr.append(sAttr);
+			String sAttr = parseSaveAttrValue(cell, saveCommentsMap);
+			if (sAttr != null) {
+				if (saveAttrs == null) {
+					saveAttrs = new String[row.getLastCellNum()];
+				}
+				saveAttrs[cell.getColumnIndex()] = sAttr;
 			}
 		}
-		if (saveAttr.length() > 0) {
-			SaveAttrsUtility.setSaveObjectsInHiddenColumn(row, saveAttr.toString());
+		if (saveAttrs != null) {
+			indexes.getOrCreateRowMetadata(row).setSaveAttrs(saveAttrs);
 		}
 	}
 
 	/**
 	 * Prepare context and attrs for cell.
 	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
 	 * @param poiCell
 	 *            the poi cell
 	 * @param fullName
@@ -298,19 +396,16 @@ public final class SaveAttrsUtility {
 	 *            the cell helper
 	 * @return the string
 	 */
-	public static String prepareContextAndAttrsForCell(Cell poiCell, String fullName, CellHelper cellHelper) {
+	public static String prepareContextAndAttrsForCell(final WorkbookIndexes indexes, Cell poiCell,
+			FullNamePath fullName, CellHelper cellHelper) {
 
 		if (fullName == null) {
 			return null;
 		}
-		String saveAttrList = SaveAttrsUtility.getSaveAttrListFromRow(poiCell.getRow());
-		if (saveAttrList != null) {
-			String saveAttr = SaveAttrsUtility.getSaveAttrFromList(poiCell.getColumnIndex(), saveAttrList);
-			if (saveAttr != null) {
-				cellHelper.restoreDataContext(fullName);
-				return saveAttr;
-			}
-
+		String saveAttr = SaveAttrsUtility.getSaveAttrFromRow(indexes, poiCell);
+		if (saveAttr != null) {
+			cellHelper.restoreDataContext(fullName);
+			return saveAttr;
 		}
 		return null;
 	}
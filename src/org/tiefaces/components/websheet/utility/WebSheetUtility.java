@@ -16,7 +16,6 @@ import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTSheetDimension;
 import org.tiefaces.common.TieConstants;
 import org.tiefaces.components.websheet.configuration.ConfigRange;
 
-import java.lang.reflect.Method;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -587,11 +586,11 @@ public final class WebSheetUtility {
 			final String propertyName, final String propertyValue,
 			final boolean ignoreNonExisting) {
 		try {
-			Method method = obj.getClass().getMethod(
-					"set" + Character.toUpperCase(propertyName.charAt(0))
-							+ propertyName.substring(1),
-					new Class[] { String.class });
-			method.invoke(obj, propertyValue);
+			if (!PropertyAccessorRegistry.setStringProperty(obj,
+					propertyName, propertyValue)) {
+				throw new NoSuchMethodException("no string setter of "
+						+ propertyName);
+			}
 		} catch (Exception e) {
 			String msg = "failed to set property '" + propertyName
 					+ "' to value '" + propertyValue + "' for object "
@@ -675,7 +674,8 @@ public final class WebSheetUtility {
 	}
 
 	/**
-	 * Clear hidden columns.
+	 * Clear hidden columns left by old version which kept row metadata in
+	 * them.
 	 *
 	 * @param sheet
 	 *            the sheet
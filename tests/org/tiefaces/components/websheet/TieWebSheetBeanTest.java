@@ -5,10 +5,14 @@ package org.tiefaces.components.websheet;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Comment;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
@@ -17,7 +21,13 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.tiefaces.common.TieConstants;
 import org.tiefaces.components.websheet.chart.ChartData;
+import org.tiefaces.components.websheet.chart.ChartImageCache;
 import org.tiefaces.components.websheet.chart.ChartType;
+import org.tiefaces.components.websheet.chart.LazyChartImage;
+import org.tiefaces.components.websheet.configuration.FullNamePath;
+import org.tiefaces.components.websheet.configuration.SheetConfiguration;
+import org.tiefaces.components.websheet.dataobjects.ParsedCell;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
 import org.tiefaces.components.websheet.utility.CellUtility;
 import org.tiefaces.components.websheet.utility.ConfigurationUtility;
 import org.tiefaces.components.websheet.utility.SaveAttrsUtility;
@@ -26,6 +36,7 @@ import org.tiefaces.datademo.WebSheetDataDemo;
 import org.tiefaces.common.Item;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -130,8 +141,8 @@ public class TieWebSheetBeanTest {
                 assertEquals("2687.5", CellUtility.getCellValueWithoutFormat(sheet.getRow(33).getCell(6)));
                 assertEquals("10957.5", CellUtility.getCellValueWithoutFormat(sheet.getRow(34).getCell(6)));
                 assertEquals("31617.5", CellUtility.getCellValueWithoutFormat(sheet.getRow(35).getCell(6)));
-                assertEquals("F.departments:E.department.0:E.employee.0", ConfigurationUtility.getFullNameFromRow(sheet.getRow(7)));
-                assertEquals("$0=employee.name,$1=employee.birthDate,$2=employee.sex,$3=employee.worktime,$4=employee.payment,$5=employee.bonus,$6=employee.total,",SaveAttrsUtility.getSaveAttrListFromRow(sheet.getRow(7)));                
+                assertEquals("F.departments:E.department.0:E.employee.0", ConfigurationUtility.getFullNameFromRow(bean.getSerialWb().getIndexes(), sheet.getRow(7)));
+                assertEquals("$0=employee.name,$1=employee.birthDate,$2=employee.sex,$3=employee.worktime,$4=employee.payment,$5=employee.bonus,$6=employee.total,",SaveAttrsUtility.getSaveAttrListFromRow(bean.getSerialWb().getIndexes(), sheet.getRow(7)));                
                 assertEquals("10800.75", CellUtility.getCellValueWithoutFormat(sheet.getRow(12).getCell(7)));
                 assertEquals("1900.15", CellUtility.getCellValueWithoutFormat(sheet.getRow(22).getCell(7)));
 
@@ -173,16 +184,54 @@ public class TieWebSheetBeanTest {
 				this.getClass().getClassLoader().getResourceAsStream(
 						"resources/sheet/linecharts1.xlsx");
 		assertEquals(1, bean.loadWebSheet(stream));
-		assertTrue(bean.getCharsData().getChartsMap().size() > 0);
+		assertChartsRendered(bean);
 
 		Map<String, ChartData> map = bean.getCharsData().getChartDataMap();
 		for (Map.Entry<String, ChartData> entry : map.entrySet()) {
 			String type = entry.getValue().getType().toString();
 			assertTrue(type.toLowerCase().startsWith("line"));
+			byte[] png = bean.getChartHelper()
+					.prepareChartImage(entry.getKey()).getPngBytes();
+			assertTrue(png.length > 0);
+			// same content is served from cache
+			assertTrue(png == bean.getChartHelper()
+					.prepareChartImage(entry.getKey()).getPngBytes());
+			// only charts fed by the changed cell are refreshed
+			ParsedCell source = entry.getValue().getSeriesList().get(0)
+					.getValueList().get(0);
+			Cell cell = bean.getWb().getSheet(source.getSheetName())
+					.getRow(source.getRow()).getCell(source.getCol());
+			assertTrue(bean.getChartHelper()
+					.refreshCharts(Collections.singletonList(cell))
+					.contains(entry.getKey()));
+			assertEquals(1, bean.getCharsData()
+					.getChartVersion(entry.getKey()));
+			LazyChartImage chartImage = bean.getChartHelper()
+					.prepareChartImage(entry.getKey());
+			assertTrue(chartImage.getPngBytes().length > 0);
+			// rendered again when evicted from cache
+			ChartImageCache.getInstance().clear();
+			assertTrue(chartImage.getPngBytes().length > 0);
 		}
 
 	}
 
+	/**
+	 * Assert charts are found and rendered through lazy chart image.
+	 *
+	 * @param bean
+	 *            the bean
+	 */
+	private static void assertChartsRendered(final TieWebSheetBean bean) {
+		assertTrue(bean.getCharsData().getChartSizeMap().size() > 0);
+		for (String chartId : bean.getCharsData().getChartDataMap()
+				.keySet()) {
+			byte[] png = bean.getChartHelper().prepareChartImage(chartId)
+					.getPngBytes();
+			assertTrue(png.length > 0);
+		}
+	}
+
 	/**
 	 * Test charts area. .
 	 */
@@ -194,7 +243,7 @@ public class TieWebSheetBeanTest {
 				this.getClass().getClassLoader().getResourceAsStream(
 						"resources/sheet/chartareas.xlsx");
 		assertEquals(1, bean.loadWebSheet(stream));
-		assertTrue(bean.getCharsData().getChartsMap().size() > 0);
+		assertChartsRendered(bean);
 		Map<String, ChartData> map = bean.getCharsData().getChartDataMap();
 		for (Map.Entry<String, ChartData> entry : map.entrySet()) {
 			String type = entry.getValue().getType().toString();
@@ -213,7 +262,7 @@ public class TieWebSheetBeanTest {
 				this.getClass().getClassLoader().getResourceAsStream(
 						"resources/sheet/chartbars2d.xlsx");
 		assertEquals(1, bean.loadWebSheet(stream));
-		assertTrue(bean.getCharsData().getChartsMap().size() > 0);
+		assertChartsRendered(bean);
 		Map<String, ChartData> map = bean.getCharsData().getChartDataMap();
 		for (Map.Entry<String, ChartData> entry : map.entrySet()) {
 			String type = entry.getValue().getType().toString();
@@ -232,7 +281,7 @@ public class TieWebSheetBeanTest {
 				this.getClass().getClassLoader().getResourceAsStream(
 						"resources/sheet/chartbars3d.xlsx");
 		assertEquals(1, bean.loadWebSheet(stream));
-		assertTrue(bean.getCharsData().getChartsMap().size() > 0);
+		assertChartsRendered(bean);
 		Map<String, ChartData> map = bean.getCharsData().getChartDataMap();
 		for (Map.Entry<String, ChartData> entry : map.entrySet()) {
 			String type = entry.getValue().getType().toString();
@@ -251,7 +300,7 @@ public class TieWebSheetBeanTest {
 				this.getClass().getClassLoader().getResourceAsStream(
 						"resources/sheet/chartcolumns2d.xlsx");
 		assertEquals(1, bean.loadWebSheet(stream));
-		assertTrue(bean.getCharsData().getChartsMap().size() > 0);
+		assertChartsRendered(bean);
 		Map<String, ChartData> map = bean.getCharsData().getChartDataMap();
 		for (Map.Entry<String, ChartData> entry : map.entrySet()) {
 			String type = entry.getValue().getType().toString();
@@ -270,7 +319,7 @@ public class TieWebSheetBeanTest {
 				this.getClass().getClassLoader().getResourceAsStream(
 						"resources/sheet/chartcolumns3d.xlsx");
 		assertEquals(1, bean.loadWebSheet(stream));
-		assertTrue(bean.getCharsData().getChartsMap().size() > 0);
+		assertChartsRendered(bean);
 		Map<String, ChartData> map = bean.getCharsData().getChartDataMap();
 		for (Map.Entry<String, ChartData> entry : map.entrySet()) {
 			String type = entry.getValue().getType().toString();
@@ -289,7 +338,7 @@ public class TieWebSheetBeanTest {
 				this.getClass().getClassLoader().getResourceAsStream(
 						"resources/sheet/chartpie2d.xlsx");
 		assertEquals(1, bean.loadWebSheet(stream));
-		assertTrue(bean.getCharsData().getChartsMap().size() > 0);
+		assertChartsRendered(bean);
 		Map<String, ChartData> map = bean.getCharsData().getChartDataMap();
 		for (Map.Entry<String, ChartData> entry : map.entrySet()) {
 
@@ -308,7 +357,7 @@ public class TieWebSheetBeanTest {
 				this.getClass().getClassLoader().getResourceAsStream(
 						"resources/sheet/chartpie3d.xlsx");
 		assertEquals(1, bean.loadWebSheet(stream));
-		assertTrue(bean.getCharsData().getChartsMap().size() > 0);
+		assertChartsRendered(bean);
 
 		Map<String, ChartData> map = bean.getCharsData().getChartDataMap();
 		for (Map.Entry<String, ChartData> entry : map.entrySet()) {
@@ -403,6 +452,143 @@ public class TieWebSheetBeanTest {
 
 	}
 
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.TieWebSheetBean#addRepeatRows(int, int)}
+	 * .
+	 */
+	@Test
+	public final void testAddAndDeleteRepeatRows() throws Exception {
+
+		TieWebSheetBean bean = new TieWebSheetBean();
+		bean.init();
+		InputStream stream =
+				this.getClass().getClassLoader().getResourceAsStream(
+						"resources/sheet/PRICELISTINPUTVALIDATION.xlsx");
+		List<Item> itemList = new ArrayList<Item>();
+		itemList.add(new Item("a", "A", "", "1"));
+		HashMap<String, Object> context = new HashMap<String, Object>();
+		context.put("items", itemList);
+		assertEquals(1, bean.loadWebSheet(stream, context));
+		Sheet sheet = bean.getWb().getSheetAt(0);
+		SheetConfiguration sheetConfig = bean.getSheetConfigMap()
+				.get(bean.getCurrent().getCurrentTabName());
+		bean.addRepeatRows(4, 3);
+		assertEquals(4, itemList.size());
+		assertEquals("a", itemList.get(0).getCode());
+		// units at row 4 to 7, total moved to row 8.
+		assertUnitRows(bean.getSerialWb().getIndexes(), sheet, sheetConfig, 4, 4);
+		assertEquals("Total",
+				sheet.getRow(8).getCell(0).getStringCellValue());
+		itemList.get(3).setCode("d");
+
+		bean.deleteRepeatRows(Arrays.asList(5, 6));
+		assertEquals(2, itemList.size());
+		assertEquals("a", itemList.get(0).getCode());
+		assertEquals("d", itemList.get(1).getCode());
+		assertUnitRows(bean.getSerialWb().getIndexes(), sheet, sheetConfig, 4, 2);
+		FullNamePath unit = ConfigurationUtility
+				.getFullNamePathFromRow(bean.getSerialWb().getIndexes(),
+						sheet.getRow(4));
+		assertNull(sheetConfig.getShiftMap().get(unit.withIndex(2)));
+		assertEquals("Total",
+				sheet.getRow(6).getCell(0).getStringCellValue());
+
+		// one row added for second line. line number and amount are
+		// formulas, so not pasted.
+		List<List<String>> lines = new ArrayList<>();
+		lines.add(Arrays.asList("9", "x", "X", "2", "3", "99"));
+		lines.add(Arrays.asList("9", "y", "Y", "4", "5", "99"));
+		bean.pasteRepeatRows(4, 0, lines);
+		assertEquals(3, itemList.size());
+		assertEquals("x", itemList.get(0).getCode());
+		assertEquals("X", itemList.get(0).getName());
+		assertEquals(Double.valueOf(2), itemList.get(0).getPrice());
+		assertEquals(Double.valueOf(3), itemList.get(0).getQuantity());
+		assertEquals("y", itemList.get(1).getCode());
+		assertEquals(Double.valueOf(5), itemList.get(1).getQuantity());
+		assertEquals("d", itemList.get(2).getCode());
+		assertUnitRows(bean.getSerialWb().getIndexes(), sheet, sheetConfig, 4, 3);
+		assertEquals("x", sheet.getRow(4).getCell(1).getStringCellValue());
+		assertEquals("y", sheet.getRow(5).getCell(1).getStringCellValue());
+		assertEquals(CellType.FORMULA,
+				sheet.getRow(5).getCell(0).getCellTypeEnum());
+		assertEquals(CellType.FORMULA,
+				sheet.getRow(5).getCell(5).getCellTypeEnum());
+		// total formula is rebuilt for all the units.
+		assertEquals(26.0, bean.getFormulaEvaluator()
+				.evaluate(sheet.getRow(7).getCell(5)).getNumberValue(), 0);
+
+	}
+
+	/**
+	 * Assert each unit of items is at its own row, in both row metadata and
+	 * shift map.
+	 *
+	 * @param indexes
+	 *            the indexes of sheets in the workbook
+	 * @param sheet
+	 *            the sheet
+	 * @param sheetConfig
+	 *            the sheet config
+	 * @param firstRow
+	 *            the row of first unit
+	 * @param count
+	 *            the number of units
+	 */
+	private void assertUnitRows(final WorkbookIndexes indexes, final Sheet sheet,
+			final SheetConfiguration sheetConfig, final int firstRow,
+			final int count) {
+		for (int i = 0; i < count; i++) {
+			FullNamePath unit = ConfigurationUtility
+					.getFullNamePathFromRow(indexes, sheet.getRow(firstRow + i));
+			assertEquals(i, unit.getIndex());
+			assertEquals(firstRow + i, sheetConfig.getShiftMap().get(unit)
+					.getFirstRowIndex());
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.TieWebSheetBean#addRepeatRows(int, int)}
+	 * . Cached formula values move with the rows, so edit after insert is
+	 * compared with the value of the same cell.
+	 */
+	@Test
+	public final void testEditFormulaInputAfterAddRepeatRows()
+			throws Exception {
+
+		TieWebSheetBean bean = new TieWebSheetBean();
+		bean.init();
+		InputStream stream =
+				this.getClass().getClassLoader().getResourceAsStream(
+						"resources/sheet/PRICELISTINPUTVALIDATION.xlsx");
+		List<Item> itemList = new ArrayList<Item>();
+		itemList.add(new Item("1", "one", "", "1"));
+		itemList.add(new Item("2", "two", "", "1"));
+		itemList.get(0).setQuantity(2.0);
+		itemList.get(1).setQuantity(3.0);
+		HashMap<String, Object> context = new HashMap<String, Object>();
+		context.put("items", itemList);
+		assertEquals(1, bean.loadWebSheet(stream, context));
+		Sheet sheet = bean.getWb().getSheetAt(0);
+		// amount 3 of second item at row 5, total 5 at row 6.
+		assertFalse(bean.getCachedCells()
+				.isValueChanged(sheet.getRow(5).getCell(5)));
+		assertFalse(bean.getCachedCells()
+				.isValueChanged(sheet.getRow(6).getCell(5)));
+		bean.addRepeatRows(4, 1);
+		assertEquals(3, itemList.size());
+		// second item moved to row 6 with cached amount 3.
+		Cell amount = sheet.getRow(6).getCell(5);
+		assertFalse(bean.getCachedCells().isValueChanged(amount));
+		// amount becomes 5, same as the old total cached at row 6 before.
+		CellUtility.setCellValue(sheet.getRow(6).getCell(4), "5");
+		bean.getCellHelper().reCalc();
+		assertTrue(bean.getCachedCells().isValueChanged(amount));
+
+	}
+
 
 	/**
 	 * Test method for
@@ -0,0 +1,139 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.chart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+import org.tiefaces.common.TieConstants;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class ChartImageCacheTest {
+
+	/**
+	 * Restore cache.
+	 */
+	@After
+	public final void tearDown() {
+		ChartImageCache cache = ChartImageCache.getInstance();
+		cache.setMaxBytes(TieConstants.DEFAULT_CHART_IMAGE_CACHE_BYTES);
+		cache.clear();
+	}
+
+	/**
+	 * Key depends on content and size.
+	 */
+	@Test
+	public final void testBuildKey() {
+		String key = ChartImageCache.buildKey("LINE|title|1,2,3", 400, 300);
+		assertEquals(key,
+				ChartImageCache.buildKey("LINE|title|1,2,3", 400, 300));
+		assertNotEquals(key,
+				ChartImageCache.buildKey("LINE|title|1,2,4", 400, 300));
+		assertNotEquals(key,
+				ChartImageCache.buildKey("LINE|title|1,2,3", 400, 301));
+	}
+
+	/**
+	 * Least recently used images are evicted by total bytes.
+	 */
+	@Test
+	public final void testEvictByBytes() {
+		ChartImageCache cache = ChartImageCache.getInstance();
+		cache.clear();
+		cache.setMaxBytes(10);
+		byte[] a = new byte[4];
+		byte[] b = new byte[4];
+		cache.put("a", a);
+		cache.put("b", b);
+		assertSame(a, cache.get("a"));
+		cache.put("c", new byte[4]);
+		assertNull(cache.get("b"));
+		assertSame(a, cache.get("a"));
+		assertEquals(8, cache.getTotalBytes());
+		cache.put("big", new byte[11]);
+		assertNull(cache.get("big"));
+		assertEquals(2, cache.size());
+	}
+
+	/**
+	 * Image rendered in background is picked up by key, and the chart image
+	 * handed through session is serializable.
+	 */
+	@Test
+	public final void testSubmitRenderAndGetImage() throws Exception {
+		final ChartImageCache cache = ChartImageCache.getInstance();
+		cache.clear();
+		final byte[] png = new byte[] { 1, 2, 3 };
+		Callable<byte[]> render = new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				cache.put("k", png);
+				return png;
+			}
+		};
+		cache.submitRender("k", render);
+		LazyChartImage image = new LazyChartImage("chart1", "k", render);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(image);
+		}
+		assertSame(png, image.getPngBytes());
+		assertNull(cache.getImage("unknown", 1));
+		// rendered again after evicted
+		cache.clear();
+		assertSame(png, image.getPngBytes());
+		assertSame(png, cache.get("k"));
+	}
+
+	/**
+	 * Default render executor is shut down, and a new one is created on next
+	 * use.
+	 */
+	@Test
+	public final void testShutdown() {
+		ChartImageCache cache = ChartImageCache.getInstance();
+		ExecutorService executor = cache.getRenderExecutor();
+		cache.shutdown();
+		assertTrue(executor.isShutdown());
+		assertNotSame(executor, cache.getRenderExecutor());
+	}
+
+	/**
+	 * Default render executor is shut down when replaced.
+	 */
+	@Test
+	public final void testSetRenderExecutor() {
+		ChartImageCache cache = ChartImageCache.getInstance();
+		ExecutorService executor = cache.getRenderExecutor();
+		ExecutorService replacement = Executors.newSingleThreadExecutor();
+		try {
+			cache.setRenderExecutor(replacement);
+			assertTrue(executor.isShutdown());
+			assertSame(replacement, cache.getRenderExecutor());
+			// executor set from outside is not shut down
+			cache.shutdown();
+			assertFalse(replacement.isShutdown());
+		} finally {
+			replacement.shutdownNow();
+		}
+	}
+
+}
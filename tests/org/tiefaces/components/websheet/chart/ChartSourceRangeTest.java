@@ -0,0 +1,43 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.chart;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class ChartSourceRangeTest {
+
+	/**
+	 * Cell is source of chart only if in category or series ranges.
+	 */
+	@Test
+	public final void testIsSourceCell() {
+		ChartSourceRange range = new ChartSourceRange("Sheet1",
+				CellRangeAddress.valueOf("B2:B5"));
+		assertTrue(range.contains("Sheet1", 1, 1));
+		assertTrue(range.contains("Sheet1", 4, 1));
+		assertFalse(range.contains("Sheet1", 5, 1));
+		assertFalse(range.contains("Sheet2", 1, 1));
+
+		ChartSeries series = new ChartSeries();
+		series.getSourceRanges().add(range);
+		List<ChartSeries> seriesList = new ArrayList<>();
+		seriesList.add(series);
+		ChartData chartData = new ChartData();
+		chartData.setSeriesList(seriesList);
+		assertTrue(chartData.isSourceCell("Sheet1", 2, 1));
+		assertFalse(chartData.isSourceCell("Sheet1", 2, 2));
+	}
+
+}
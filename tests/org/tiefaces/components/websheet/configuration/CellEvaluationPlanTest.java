@@ -0,0 +1,70 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.jexl2.JexlEngine;
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class CellEvaluationPlanTest {
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.configuration.CellEvaluationPlan#evaluate(Map)}
+	 * .
+	 */
+	@Test
+	public final void testEvaluate() {
+		JexlEngine jexl = new JexlEngine();
+		Map<String, Object> context = new HashMap<>();
+		context.put("a", 2);
+		context.put("b", "x");
+
+		CellEvaluationPlan plan = CellEvaluationPlan.of(jexl, "${a}");
+		assertEquals(1, plan.getExpressionCount());
+		assertEquals(2, plan.evaluate(context));
+
+		assertEquals("total 3", CellEvaluationPlan.of(jexl, "total ${a + 1}")
+				.evaluate(context));
+		assertEquals("2 items", CellEvaluationPlan.of(jexl, "${a} items")
+				.evaluate(context));
+		assertEquals("2-x-", CellEvaluationPlan.of(jexl, "${a}-${b}-${c}")
+				.evaluate(context));
+		assertEquals("${a", CellEvaluationPlan.of(jexl, "${a")
+				.evaluate(context));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.configuration.CellEvaluationPlanTable#get(JexlEngine, int, int, String)}
+	 * .
+	 */
+	@Test
+	public final void testPlanTable() {
+		JexlEngine jexl = new JexlEngine();
+		CellEvaluationPlanTable table = new CellEvaluationPlanTable();
+		CellEvaluationPlan plan = table.get(jexl, 3, 1, "${a}");
+		// rows copied from same template row share the plan
+		assertSame(plan, table.get(jexl, 3, 1, "${a}"));
+		assertNotSame(plan, table.get(jexl, 4, 1, "${a}"));
+		// changed template cell is compiled again
+		CellEvaluationPlan changed = table.get(jexl, 3, 1, "${b}");
+		assertEquals("${b}", changed.getSource());
+		assertSame(changed, table.get(jexl, 3, 1, "${b}"));
+		// not kept if row is not copied from template
+		assertNotSame(table.get(jexl, -1, 1, "${a}"),
+				table.get(jexl, -1, 1, "${a}"));
+	}
+
+}
@@ -0,0 +1,59 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.jexl2.Expression;
+import org.apache.commons.jexl2.JexlEngine;
+import org.junit.Test;
+import org.tiefaces.common.TieConstants;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class ExpressionCacheTest {
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.configuration.ExpressionCache#get(JexlEngine, String)}
+	 * .
+	 */
+	@Test
+	public final void testGetAndEvict() {
+		ExpressionCache cache = ExpressionCache.getInstance();
+		cache.clear();
+		cache.setMaxEntries(2);
+		try {
+			JexlEngine jexl = new JexlEngine();
+			long misses = cache.getMisses();
+			long hits = cache.getHits();
+			long evictions = cache.getEvictions();
+			Expression exp = cache.get(jexl, "a + 1");
+			assertSame(exp, cache.get(jexl, "a + 1"));
+			cache.get(jexl, "a + 2");
+			cache.get(jexl, "a + 3");
+			assertEquals(2, cache.size());
+			assertEquals(misses + 3, cache.getMisses());
+			assertEquals(hits + 1, cache.getHits());
+			assertEquals(evictions + 1, cache.getEvictions());
+			// expressions of other engine are not shared
+			Expression other = cache.get(new JexlEngine(), "a + 3");
+			assertNotSame(other, cache.get(jexl, "a + 3"));
+
+			Map<String, Object> context = new HashMap<>();
+			context.put("a", 2);
+			assertEquals(4, new ExpressionEngine().evaluate("a + 2", context));
+		} finally {
+			cache.setMaxEntries(TieConstants.DEFAULT_EXPRESSION_CACHE_SIZE);
+		}
+	}
+
+}
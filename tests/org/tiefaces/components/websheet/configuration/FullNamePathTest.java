@@ -0,0 +1,106 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.configuration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class FullNamePathTest {
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.configuration.FullNamePath#parse(java.lang.String)}
+	 * .
+	 */
+	@Test
+	public final void testParse() {
+		FullNamePath path = FullNamePath
+				.parse("F.departments:E.department.1:E.employee.10");
+		assertEquals("F.departments:E.department.1:E.employee.10",
+				path.toString());
+		assertEquals(3, path.getDepth());
+		assertEquals("E.employee", path.getCommandName());
+		assertEquals("employee", path.getVarName());
+		assertEquals(10, path.getIndex());
+		assertArrayEquals(new int[] { -1, 1, 10 }, path.getIndexes());
+		assertArrayEquals(new String[] { "F.departments", "E.department.1",
+				"E.employee.10" }, path.getParts());
+		assertFalse(path.getAncestor(1).isEachUnit());
+		assertSame(FullNamePath.root("F.departments")
+				.child("E.department", 1).child("E.employee", 10), path);
+		assertNull(FullNamePath.parse(""));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.configuration.FullNamePath#isAncestorOf(org.tiefaces.components.websheet.configuration.FullNamePath)}
+	 * .
+	 */
+	@Test
+	public final void testAncestor() {
+		FullNamePath unit = FullNamePath.parse("F.f1:E.department.1");
+		FullNamePath child = FullNamePath
+				.parse("F.f1:E.department.1:E.employee.0");
+		assertTrue(unit.isAncestorOf(child));
+		assertFalse(child.isAncestorOf(unit));
+		assertFalse(unit.isAncestorOf(unit));
+		assertTrue(unit.isSelfOrAncestorOf(unit));
+		// string prefix but not ancestor.
+		assertFalse(unit.isSelfOrAncestorOf(
+				FullNamePath.parse("F.f1:E.department.10:E.employee.0")));
+		assertTrue(unit.isSiblingOf(FullNamePath.parse("F.f1:E.department.3")));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.configuration.FullNamePath#replaceAncestor(org.tiefaces.components.websheet.configuration.FullNamePath, org.tiefaces.components.websheet.configuration.FullNamePath)}
+	 * .
+	 */
+	@Test
+	public final void testReplaceAncestor() {
+		FullNamePath child = FullNamePath
+				.parse("F.f1:E.department.1:E.employee.0");
+		FullNamePath unit = child.getAncestor(2);
+		FullNamePath changed = child.replaceAncestor(unit,
+				unit.withIndex(unit.getIndex() + 1));
+		assertEquals("F.f1:E.department.2:E.employee.0", changed.toString());
+		assertSame(FullNamePath.parse("F.f1:E.department.2:E.employee.0"),
+				changed);
+	}
+
+	/**
+	 * Test serialization keeps interned instance.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public final void testSerialize() throws Exception {
+		FullNamePath path = FullNamePath.parse("F.f1:E.department.1");
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+			out.writeObject(path);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bos.toByteArray()))) {
+			assertSame(path, in.readObject());
+		}
+	}
+
+}
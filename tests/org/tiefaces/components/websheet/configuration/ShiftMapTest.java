@@ -0,0 +1,100 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class ShiftMapTest {
+
+	/**
+	 * Build shift map of F.f1 with department 0..2 and two employees in
+	 * each department.
+	 *
+	 * @return the shift map
+	 */
+	private ShiftMap buildShiftMap() {
+		ShiftMap shiftMap = new ShiftMap();
+		FullNamePath form = FullNamePath.root("F.f1");
+		shiftMap.put(form, new ConfigRangeAttrs(false));
+		for (int i = 0; i < 3; i++) {
+			FullNamePath department = form.child("E.department", i);
+			shiftMap.put(department, new ConfigRangeAttrs(false));
+			for (int j = 0; j < 2; j++) {
+				shiftMap.put(department.child("E.employee", j),
+						new ConfigRangeAttrs(false));
+			}
+		}
+		return shiftMap;
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.configuration.ShiftMap#getDescendants(org.tiefaces.components.websheet.configuration.FullNamePath, boolean)}
+	 * .
+	 */
+	@Test
+	public final void testGetDescendants() {
+		ShiftMap shiftMap = buildShiftMap();
+		assertEquals(10, shiftMap.size());
+		FullNamePath department = FullNamePath.parse("F.f1:E.department.1");
+		List<ConfigRangeAttrs> list = shiftMap.getDescendants(department,
+				true);
+		assertEquals(3, list.size());
+		assertSame(shiftMap.get(department), list.get(0));
+		assertEquals(2, shiftMap.getDescendants(department, false).size());
+		assertEquals(9, shiftMap
+				.getDescendants(FullNamePath.parse("F.f1"), false).size());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.configuration.ShiftMap#changeSiblingIndexes(org.tiefaces.components.websheet.configuration.FullNamePath, int)}
+	 * .
+	 */
+	@Test
+	public final void testChangeSiblingIndexes() {
+		ShiftMap shiftMap = buildShiftMap();
+		ConfigRangeAttrs last = shiftMap
+				.get("F.f1:E.department.2:E.employee.1");
+		FullNamePath department = FullNamePath.parse("F.f1:E.department.1");
+		// add after department 1
+		shiftMap.changeSiblingIndexes(department, 1);
+		assertNull(shiftMap.get("F.f1:E.department.2"));
+		assertSame(last, shiftMap.get("F.f1:E.department.3:E.employee.1"));
+		shiftMap.put(department.withIndex(2), new ConfigRangeAttrs(false));
+		assertEquals(11, shiftMap.size());
+		// delete department 2 again
+		shiftMap.remove(department.withIndex(2));
+		shiftMap.changeSiblingIndexes(department.withIndex(2), -1);
+		assertEquals(10, shiftMap.size());
+		assertSame(last, shiftMap.get("F.f1:E.department.2:E.employee.1"));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.configuration.ShiftMap#remove(org.tiefaces.components.websheet.configuration.FullNamePath)}
+	 * .
+	 */
+	@Test
+	public final void testRemove() {
+		ShiftMap shiftMap = buildShiftMap();
+		shiftMap.remove(FullNamePath.parse("F.f1:E.department.0"));
+		assertEquals(7, shiftMap.size());
+		assertNull(shiftMap.get("F.f1:E.department.0:E.employee.0"));
+		assertEquals(7, shiftMap.values().size());
+		assertTrue(shiftMap.toMap().containsKey("F.f1:E.department.1"));
+	}
+
+}
@@ -0,0 +1,125 @@
+/**
+ *
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class BlockBodyRowsTest {
+
+	/**
+	 * Build body rows with row index from top.
+	 *
+	 * @param top
+	 *            the top
+	 * @param size
+	 *            the size
+	 * @return the block body rows
+	 */
+	private BlockBodyRows buildRows(final int top, final int size) {
+		BlockBodyRows rows = new BlockBodyRows(top);
+		for (int i = 0; i < size; i++) {
+			rows.add(new FacesRow(top + i));
+		}
+		return rows;
+	}
+
+	/**
+	 * Check every row index match it's position.
+	 *
+	 * @param rows
+	 *            the rows
+	 */
+	private void assertRowIndexes(final BlockBodyRows rows) {
+		for (int i = 0; i < rows.size(); i++) {
+			assertEquals(rows.getTop() + i, rows.get(i).getRowIndex());
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.BlockBodyRows#insertRows(int, java.util.Collection)}
+	 * .
+	 */
+	@Test
+	public final void testInsertRows() {
+		BlockBodyRows rows = buildRows(3, 1000);
+		assertEquals(1000, rows.size());
+		assertTrue(rows.getBlockCount() > 1);
+		assertRowIndexes(rows);
+
+		FacesRow last = rows.get(999);
+		List<FacesRow> inserted = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			inserted.add(new FacesRow(13 + i));
+		}
+		rows.insertRows(10, inserted);
+		assertEquals(1300, rows.size());
+		assertSame(inserted.get(0), rows.get(10));
+		assertEquals(1302, last.getRowIndex());
+		assertRowIndexes(rows);
+
+		rows.add(rows.size(), new FacesRow(1303));
+		rows.add(0, new FacesRow(3));
+		assertEquals(1302, rows.size());
+		assertRowIndexes(rows);
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.BlockBodyRows#removeRows(int, int)}
+	 * .
+	 */
+	@Test
+	public final void testRemoveRows() {
+		BlockBodyRows rows = buildRows(3, 1000);
+		FacesRow last = rows.get(999);
+		FacesRow removed = rows.get(100);
+		// across blocks
+		rows.removeRows(100, 500);
+		assertEquals(500, rows.size());
+		assertEquals(502, last.getRowIndex());
+		// removed row keeps it's index
+		assertEquals(103, removed.getRowIndex());
+		assertRowIndexes(rows);
+
+		rows.remove(0);
+		rows.removeRows(rows.size() - 10, 10);
+		assertEquals(489, rows.size());
+		assertRowIndexes(rows);
+
+		rows.removeRows(0, rows.size());
+		assertEquals(0, rows.size());
+		rows.add(new FacesRow(3));
+		assertRowIndexes(rows);
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.BlockBodyRows#set(int, org.tiefaces.components.websheet.dataobjects.FacesRow)}
+	 * .
+	 */
+	@Test
+	public final void testSetRowIndex() {
+		BlockBodyRows rows = buildRows(0, 300);
+		FacesRow row = new FacesRow(0);
+		rows.set(200, row);
+		assertEquals(200, row.getRowIndex());
+		row.setRowIndex(250);
+		assertEquals(250, row.getRowIndex());
+		rows.removeRows(0, 100);
+		assertEquals(150, row.getRowIndex());
+	}
+
+}
@@ -0,0 +1,138 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class CellValueTableTest {
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.CellValueTable#isSameValue(long, byte, double, java.lang.String)}
+	 * .
+	 */
+	@Test
+	public final void testPutAndCompare() {
+		CellValueTable table = new CellValueTable();
+		long key = CellValueTable.cellKey(10, 3);
+		table.put(key, CellValueTable.TYPE_NUMERIC, 1.5, null);
+		table.put(CellValueTable.cellKey(10, 4),
+				CellValueTable.TYPE_STRING, 0, "abc");
+		assertEquals(2, table.size());
+		assertTrue(table.isSameValue(key, CellValueTable.TYPE_NUMERIC, 1.5,
+				null));
+		assertFalse(table.isSameValue(key, CellValueTable.TYPE_NUMERIC, 2.5,
+				null));
+		assertFalse(table.isSameValue(key, CellValueTable.TYPE_STRING, 0,
+				"1.5"));
+		assertTrue(table.isSameValue(CellValueTable.cellKey(10, 4),
+				CellValueTable.TYPE_STRING, 0, "abc"));
+		assertFalse(table.isSameValue(CellValueTable.cellKey(11, 3),
+				CellValueTable.TYPE_NUMERIC, 1.5, null));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.CellValueTable#remove(long)}
+	 * .
+	 */
+	@Test
+	public final void testGrowAndRemove() {
+		CellValueTable table = new CellValueTable();
+		for (int row = 0; row < 1000; row++) {
+			for (int col = 0; col < 10; col++) {
+				table.put(CellValueTable.cellKey(row, col),
+						CellValueTable.TYPE_NUMERIC, row * col, null);
+			}
+		}
+		assertEquals(10000, table.size());
+		for (int row = 0; row < 1000; row += 2) {
+			for (int col = 0; col < 10; col++) {
+				table.remove(CellValueTable.cellKey(row, col));
+			}
+		}
+		assertEquals(5000, table.size());
+		for (int row = 0; row < 1000; row++) {
+			assertEquals(row % 2 == 1,
+					table.containsKey(CellValueTable.cellKey(row, 5)));
+		}
+		assertEquals(999.0 * 5,
+				table.getNumber(CellValueTable.cellKey(999, 5)), 0);
+		table.clear();
+		assertEquals(0, table.size());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.CellValueTable#shiftRows(int, int, int)}
+	 * .
+	 */
+	@Test
+	public final void testShiftRows() {
+		CellValueTable table = new CellValueTable();
+		for (int row = 0; row < 10; row++) {
+			table.put(CellValueTable.cellKey(row, 2),
+					CellValueTable.TYPE_NUMERIC, row, null);
+		}
+		// insert 3 rows at row 4
+		table.shiftRows(4, 9, 3);
+		assertEquals(10, table.size());
+		for (int row = 4; row < 7; row++) {
+			assertFalse(table.containsKey(CellValueTable.cellKey(row, 2)));
+		}
+		assertEquals(3.0, table.getNumber(CellValueTable.cellKey(3, 2)), 0);
+		assertEquals(4.0, table.getNumber(CellValueTable.cellKey(7, 2)), 0);
+		assertEquals(9.0, table.getNumber(CellValueTable.cellKey(12, 2)),
+				0);
+		// delete rows 2 to 3, rows below overwrite them.
+		table.shiftRows(4, 12, -2);
+		assertEquals(8, table.size());
+		assertEquals(1.0, table.getNumber(CellValueTable.cellKey(1, 2)), 0);
+		assertFalse(table.containsKey(CellValueTable.cellKey(2, 2)));
+		assertEquals(4.0, table.getNumber(CellValueTable.cellKey(5, 2)), 0);
+		assertEquals(9.0, table.getNumber(CellValueTable.cellKey(10, 2)),
+				0);
+		assertFalse(table.containsKey(CellValueTable.cellKey(11, 2)));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.CellValueTable#shiftRows(int, int, int)}
+	 * with rows out of the shifted range.
+	 */
+	@Test
+	public final void testShiftRowsKeepOtherRows() {
+		CellValueTable table = new CellValueTable();
+		for (int row = 0; row < 1000; row++) {
+			for (int col = 0; col < 3; col++) {
+				table.put(CellValueTable.cellKey(row, col),
+						CellValueTable.TYPE_STRING, 0, row + ":" + col);
+			}
+		}
+		// shift rows 900 to 999 up to 0, rows 0 to 99 are overwritten.
+		table.shiftRows(900, 999, -900);
+		assertEquals(2700, table.size());
+		assertEquals("900:1",
+				table.getString(CellValueTable.cellKey(0, 1)));
+		assertEquals("500:2",
+				table.getString(CellValueTable.cellKey(500, 2)));
+		assertFalse(table.containsKey(CellValueTable.cellKey(900, 0)));
+		// rows shifted above row 0 are dropped.
+		table.shiftRows(0, 9, -5);
+		assertEquals("905:0",
+				table.getString(CellValueTable.cellKey(0, 0)));
+		assertFalse(table.containsKey(CellValueTable.cellKey(9, 0)));
+		assertEquals("910:0",
+				table.getString(CellValueTable.cellKey(10, 0)));
+	}
+
+}
@@ -0,0 +1,121 @@
+/**
+ *
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class LazyBodyRowsTest {
+
+	/**
+	 * Stub assembler record assembled and released rows.
+	 */
+	private static class StubAssembler implements LazyBodyRows.RowAssembler {
+
+		/** assembled row indexes. */
+		private final List<Integer> assembled = new ArrayList<>();
+		/** released rows count. */
+		private int released = 0;
+
+		@Override
+		public FacesRow assembleRow(final int rowIndex) {
+			assembled.add(rowIndex);
+			return new FacesRow(rowIndex);
+		}
+
+		@Override
+		public void rowLoaded(final FacesRow row) {
+		}
+
+		@Override
+		public void releaseRow(final FacesRow row) {
+			released++;
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.LazyBodyRows#get(int)}
+	 * .
+	 */
+	@Test
+	public final void testGet() {
+		StubAssembler assembler = new StubAssembler();
+		LazyBodyRows rows = new LazyBodyRows(5, 20000, 10, 2, assembler);
+		assertEquals(20000, rows.size());
+		assertEquals(0, rows.getAssembledCount());
+
+		assertEquals(5, rows.get(0).getRowIndex());
+		// first page plus prefetch
+		assertEquals(12, assembler.assembled.size());
+		// already prefetched
+		assertEquals(15, rows.get(10).getRowIndex());
+		assertEquals(12, assembler.assembled.size());
+
+		rows.get(15000);
+		rows.get(16000);
+		// window keep 3 pages plus prefetch
+		assertTrue(rows.getAssembledCount() <= 32);
+		assertTrue(assembler.released > 0);
+		assertEquals(16005, rows.get(16000).getRowIndex());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.LazyBodyRows#insertRows(int, int)}
+	 * .
+	 */
+	@Test
+	public final void testInsertAndRemoveRows() {
+		StubAssembler assembler = new StubAssembler();
+		LazyBodyRows rows = new LazyBodyRows(0, 100, 10, 0, assembler);
+		rows.get(50);
+		rows.insertRows(50, 3);
+		assertEquals(103, rows.size());
+		assertEquals(0, rows.getAssembledCount());
+		assertEquals(102, rows.get(102).getRowIndex());
+		rows.removeRows(10, 5);
+		assertEquals(98, rows.size());
+		rows.remove(0);
+		assertEquals(97, rows.size());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.LazyBodyRows#remove(int)}
+	 * .
+	 */
+	@Test
+	public final void testRemoveOutsideWindow() {
+		StubAssembler assembler = new StubAssembler();
+		LazyBodyRows rows = new LazyBodyRows(5, 100, 10, 0, assembler);
+		rows.get(0);
+		int assembled = assembler.assembled.size();
+		int released = assembler.released;
+
+		// row not assembled yet
+		FacesRow removed = rows.remove(50);
+		assertNotNull(removed);
+		assertEquals(55, removed.getRowIndex());
+		assertEquals(assembled + 1, assembler.assembled.size());
+		assertEquals(99, rows.size());
+		// detached row and the dropped window are released
+		assertEquals(released + 1 + assembled, assembler.released);
+
+		// row in window
+		rows.get(0);
+		assertEquals(5, rows.remove(0).getRowIndex());
+	}
+
+}
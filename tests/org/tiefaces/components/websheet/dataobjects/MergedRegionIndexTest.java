@@ -0,0 +1,82 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class MergedRegionIndexTest {
+
+	/**
+	 * Build index with regions A1:B2, D1:D3 and B5:E5.
+	 *
+	 * @return the merged region index
+	 */
+	private MergedRegionIndex buildIndex() {
+		List<CellRangeAddress> regions = new ArrayList<>();
+		regions.add(new CellRangeAddress(4, 4, 1, 4));
+		regions.add(new CellRangeAddress(0, 1, 0, 1));
+		regions.add(new CellRangeAddress(0, 2, 3, 3));
+		return new MergedRegionIndex(regions);
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.MergedRegionIndex#isSkipped(int, int)}
+	 * .
+	 */
+	@Test
+	public final void testLookup() {
+		MergedRegionIndex index = buildIndex();
+		assertEquals(3, index.size());
+		assertFalse(index.isSkipped(0, 0));
+		assertTrue(index.isSkipped(0, 1));
+		assertTrue(index.isSkipped(1, 0));
+		assertTrue(index.isSkipped(1, 1));
+		assertFalse(index.isSkipped(1, 2));
+		assertTrue(index.isSkipped(2, 3));
+		assertFalse(index.isSkipped(3, 3));
+		assertTrue(index.isSkipped(4, 4));
+		assertFalse(index.isSkipped(4, 5));
+
+		assertEquals(1, index.getRegionStartAt(0, 0).getLastColumn());
+		assertNull(index.getRegionStartAt(0, 1));
+		assertEquals(3, index.getRegion(2, 3).getFirstColumn());
+		assertNull(index.getRegion(3, 0));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.MergedRegionIndex#getRegionsWithinRows(int, int)}
+	 * .
+	 */
+	@Test
+	public final void testGetRegionsWithinRows() {
+		MergedRegionIndex index = buildIndex();
+		assertEquals(1, index.getRegionsWithinRows(0, 1).size());
+		assertEquals(2, index.getRegionsWithinRows(0, 2).size());
+		assertEquals(1, index.getRegionsWithinRows(3, 6).size());
+		assertEquals(0, index.getRegionsWithinRows(1, 3).size());
+		assertEquals(2, index.getRegionsCrossRows(1, 3).size());
+		assertEquals(0, index.getRegionsCrossRows(3, 3).size());
+		List<CellRangeAddress> cross = index.getRegionsCrossRows(2, 4);
+		assertEquals(2, cross.size());
+		assertEquals(3, cross.get(0).getFirstColumn());
+		assertEquals(4, cross.get(1).getFirstRow());
+		assertEquals(3, index.getRegionsCrossRows(0, 10).size());
+	}
+
+}
@@ -0,0 +1,90 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class RowMetadataTableTest {
+
+	/**
+	 * Build table with origin row index same as row index for rows 0 - 9.
+	 *
+	 * @return the row metadata table
+	 */
+	private RowMetadataTable buildTable() {
+		RowMetadataTable table = new RowMetadataTable();
+		for (int i = 0; i < 10; i++) {
+			table.getOrCreate(i).setOriginRowIndex(i);
+		}
+		return table;
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.RowMetadataTable#shiftRows(int, int, int)}
+	 * .
+	 */
+	@Test
+	public final void testShiftRowsDown() {
+		RowMetadataTable table = buildTable();
+		table.shiftRows(3, 9, 2);
+		assertEquals(2, table.get(2).getOriginRowIndex());
+		assertNull(table.get(3));
+		assertNull(table.get(4));
+		assertEquals(3, table.get(5).getOriginRowIndex());
+		assertEquals(9, table.get(11).getOriginRowIndex());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.RowMetadataTable#shiftRows(int, int, int)}
+	 * .
+	 */
+	@Test
+	public final void testShiftRowsUp() {
+		RowMetadataTable table = buildTable();
+		table.shiftRows(5, 9, -3);
+		assertEquals(1, table.get(1).getOriginRowIndex());
+		assertEquals(5, table.get(2).getOriginRowIndex());
+		assertEquals(9, table.get(6).getOriginRowIndex());
+		assertNull(table.get(7));
+		assertNull(table.get(9));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.RowMetadataTable#copy()}
+	 * .
+	 */
+	@Test
+	public final void testCopy() {
+		RowMetadataTable table = buildTable();
+		String[] saveAttrs = new String[] { "employee.name", null,
+				"employee.age" };
+		table.get(4).setSaveAttrs(saveAttrs);
+		table.get(4).setFullName("F.employees:E.employee.0");
+		RowMetadataTable copy = table.copy();
+		assertNotSame(table.get(4), copy.get(4));
+		assertSame(saveAttrs, copy.get(4).getSaveAttrs());
+		assertSame(table.get(4).getFullNamePath(),
+				copy.get(4).getFullNamePath());
+		assertEquals("F.employees:E.employee.0", copy.get(4).getFullName());
+		copy.get(4).setOriginRowIndex(20);
+		assertEquals(4, table.get(4).getOriginRowIndex());
+		assertEquals("$0=employee.name,$2=employee.age,",
+				copy.get(4).getSaveAttrList());
+		assertNull(copy.get(4).getSaveAttr(1));
+		assertNull(copy.get(4).getSaveAttr(5));
+	}
+
+}
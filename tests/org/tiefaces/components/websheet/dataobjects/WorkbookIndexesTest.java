@@ -0,0 +1,87 @@
+/**
+ *
+ */
+package org.tiefaces.components.websheet.dataobjects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class WorkbookIndexesTest {
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.WorkbookIndexes#getMergedRegions(org.apache.poi.ss.usermodel.Sheet)}
+	 * .
+	 */
+	@Test
+	public final void testMergedRegions() throws Exception {
+		try (XSSFWorkbook wb = new XSSFWorkbook()) {
+			Sheet sheet = wb.createSheet("s1");
+			sheet.addMergedRegion(new CellRangeAddress(0, 1, 0, 1));
+			WorkbookIndexes indexes = new WorkbookIndexes();
+			MergedRegionIndex index = indexes.getMergedRegions(sheet);
+			assertSame(index, indexes.getMergedRegions(sheet));
+
+			indexes.addMergedRegion(sheet, new CellRangeAddress(3, 3, 0, 2),
+					false);
+			assertNotSame(index, indexes.getMergedRegions(sheet));
+			assertEquals(2, indexes.getMergedRegions(sheet).size());
+
+			index = indexes.getMergedRegions(sheet);
+			indexes.shiftRows(sheet, 2, 3, 2, false, false);
+			assertNotSame(index, indexes.getMergedRegions(sheet));
+			assertTrue(indexes.getMergedRegions(sheet).isSkipped(5, 1));
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.dataobjects.WorkbookIndexes#shiftRows(org.apache.poi.ss.usermodel.Sheet, int, int, int, boolean, boolean)}
+	 * and
+	 * {@link org.tiefaces.components.websheet.dataobjects.WorkbookIndexes#removeRow(org.apache.poi.ss.usermodel.Sheet, int)}
+	 * with row metadata.
+	 */
+	@Test
+	public final void testRowMetadata() throws Exception {
+		try (XSSFWorkbook wb = new XSSFWorkbook()) {
+			Sheet sheet = wb.createSheet("s1");
+			WorkbookIndexes indexes = new WorkbookIndexes();
+			for (int i = 0; i < 4; i++) {
+				indexes.getOrCreateRowMetadata(sheet.createRow(i))
+						.setOriginRowIndex(i);
+			}
+			assertNull(new WorkbookIndexes().getRowMetadata(sheet.getRow(0)));
+
+			indexes.shiftRows(sheet, 2, 3, 2, false, false);
+			assertNull(indexes.getRowMetadataTable(sheet).get(2));
+			assertEquals(2, indexes.getRowMetadata(sheet.getRow(4))
+					.getOriginRowIndex());
+			assertEquals(3, indexes.getRowMetadata(sheet.getRow(5))
+					.getOriginRowIndex());
+
+			indexes.removeRow(sheet, 1);
+			assertNull(sheet.getRow(1));
+			assertNull(indexes.getRowMetadataTable(sheet).get(1));
+
+			Sheet copy = wb.cloneSheet(0);
+			indexes.copySheet(sheet, copy);
+			assertEquals(2, indexes.getRowMetadata(copy.getRow(4))
+					.getOriginRowIndex());
+			assertNotSame(indexes.getRowMetadata(sheet.getRow(4)),
+					indexes.getRowMetadata(copy.getRow(4)));
+		}
+	}
+
+}
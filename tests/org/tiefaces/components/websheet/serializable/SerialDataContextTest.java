@@ -0,0 +1,113 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.serializable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.SerializationException;
+import org.apache.commons.lang.SerializationUtils;
+import org.junit.Test;
+import org.tiefaces.common.Item;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class SerialDataContextTest {
+
+	/**
+	 * Serializable objects keep their types after restore.
+	 */
+	@Test
+	public final void testSerialDataContextKeepTypes() {
+		Date date = new Date();
+		List<String> list = new ArrayList<>();
+		list.add("a");
+		Map<String, Object> context = new HashMap<>();
+		context.put("date", date);
+		context.put("count", Integer.valueOf(3));
+		context.put("list", list);
+
+		SerialDataContext serialContext = new SerialDataContext();
+		serialContext.setDataContext(context);
+		SerialDataContext copy = (SerialDataContext) SerializationUtils
+				.clone(serialContext);
+
+		assertEquals(date, copy.getDataContext().get("date"));
+		assertEquals(Integer.valueOf(3), copy.getDataContext().get("count"));
+		assertEquals(list, copy.getDataContext().get("list"));
+	}
+
+	/**
+	 * Not serializable objects fall back to json.
+	 */
+	@Test
+	public final void testSerialDataContextNotSerializable() {
+		Item item = new Item();
+		item.setCode("A1");
+		Map<String, Object> context = new HashMap<>();
+		context.put("item", item);
+
+		SerialDataContext serialContext = new SerialDataContext();
+		serialContext.setDataContext(context);
+		SerialDataContext copy = (SerialDataContext) SerializationUtils
+				.clone(serialContext);
+
+		Object restored = copy.getDataContext().get("item");
+		assertTrue(restored instanceof Map);
+		assertEquals("A1", ((Map<?, ?>) restored).get("code"));
+	}
+
+	/**
+	 * Saved data is read with the serializer which saved it.
+	 */
+	@Test
+	public final void testChangeSerializer() {
+		Map<String, Object> context = new HashMap<>();
+		context.put("name", "test");
+		SerialDataContext serialContext = new SerialDataContext();
+		serialContext.setDataContext(context);
+
+		DataContextSerializer original = SerialDataContext.getSerializer();
+		try {
+			SerialDataContext.setSerializer(new GsonDataContextSerializer());
+			byte[] data = SerializationUtils.serialize(serialContext);
+			SerialDataContext.setSerializer(original);
+			SerialDataContext copy = (SerialDataContext) SerializationUtils
+					.deserialize(data);
+			assertEquals("test", copy.getDataContext().get("name"));
+		} finally {
+			SerialDataContext.setSerializer(original);
+		}
+	}
+
+	/**
+	 * Serializer name from stream is not instantiated unless registered.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test(expected = SerializationException.class)
+	public final void testUnregisteredSerializer() throws Exception {
+		Map<String, Object> context = new HashMap<>();
+		context.put("name", "test");
+		SerialDataContext serialContext = new SerialDataContext();
+		serialContext.setDataContext(context);
+
+		byte[] data = SerializationUtils.serialize(serialContext);
+		// same length name, so the stream is still well formed.
+		String name = SerialDataContext.getSerializer().getClass().getName();
+		String unknown = name.substring(0, name.length() - 1) + "X";
+		String stream = new String(data, "ISO-8859-1").replace(name, unknown);
+		SerializationUtils.deserialize(stream.getBytes("ISO-8859-1"));
+	}
+
+}
@@ -4,16 +4,30 @@
 package org.tiefaces.components.websheet.serializable;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import org.apache.commons.lang.SerializationUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.Test;
+import org.tiefaces.common.Item;
 import org.tiefaces.components.websheet.TieWebSheetBean;
 import org.tiefaces.components.websheet.configuration.SheetConfiguration;
 import org.tiefaces.components.websheet.serializable.SerialWorkbook;
+import org.tiefaces.components.websheet.service.TemplateCache;
+import org.tiefaces.components.websheet.utility.ConfigurationUtility;
 
 /**
  * @author Jason Jiang
@@ -55,4 +69,111 @@ public class SerialWorkbookTest {
 
 	}
 
+	@Test
+	public final void testDeltaSerialWorkbook() throws Exception {
+
+		XSSFWorkbook wb = new XSSFWorkbook();
+		Sheet sheet = wb.createSheet("items");
+		Cell cell = sheet.createRow(3).createCell(2);
+		cell.setCellValue("edited");
+
+		SerialWorkbook swb = new SerialWorkbook();
+		swb.setWb(wb);
+		swb.setTemplate("items.xlsx", "items.xlsx|key", true);
+		swb.recordCellEdit(cell);
+
+		SerialWorkbook copy =
+				(SerialWorkbook) SerializationUtils.clone(swb);
+		assertTrue(copy.isDeltaPending());
+		assertNull(copy.getWb());
+		assertEquals("items.xlsx|key", copy.getTemplateKey());
+
+		// saving again before rebuilt keeps the edits
+		copy = (SerialWorkbook) SerializationUtils.clone(copy);
+		assertTrue(copy.isDeltaPending());
+
+		// rebuilt from template
+		XSSFWorkbook rebuilt = new XSSFWorkbook();
+		rebuilt.createSheet("items");
+		copy.setWb(rebuilt);
+		copy.applyCellEdits();
+		assertEquals("edited", rebuilt.getSheet("items").getRow(3)
+				.getCell(2).getStringCellValue());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public final void testDeltaRoundTripKeepsSaving() throws Exception {
+
+		TemplateCache.getInstance().clear();
+		TieWebSheetBean bean = new TieWebSheetBean();
+		bean.init();
+		bean.setDeltaSerialization(true);
+		InputStream stream =
+				this.getClass().getClassLoader().getResourceAsStream(
+						"resources/sheet/PRICELISTINPUTVALIDATION.xlsx");
+		List<Item> itemList = new ArrayList<Item>();
+		itemList.add(new Item());
+		HashMap<String, Object> context = new HashMap<String, Object>();
+		context.put("items", itemList);
+		assertEquals(1, bean.loadWebSheet(stream, context, "pricelist"));
+		bean.getCellsMap().put("4:1", "A1");
+
+		// session saved and restored in delta mode
+		SerialWorkbook swb =
+				(SerialWorkbook) SerializationUtils.clone(bean.getSerialWb());
+		assertTrue(swb.isDeltaPending());
+		SerialDataContext serialContext = (SerialDataContext) SerializationUtils
+				.clone(bean.getSerialDataContext());
+		TieWebSheetBean restored = new TieWebSheetBean();
+		restored.init();
+		restored.setDeltaSerialization(true);
+		restored.setSerialWb(swb);
+		restored.setSerialDataContext(serialContext);
+		restored.getCurrent()
+				.setCurrentTabName(bean.getCurrent().getCurrentTabName());
+		assertEquals(1, restored.getWebSheetLoader().restoreFromDelta());
+		assertFalse(swb.isDeltaPending());
+		assertEquals("A1", restored.getCellsMap().get("4:1"));
+		Row row = restored.getWb().getSheetAt(0).getRow(4);
+		assertTrue(ConfigurationUtility.getRowOriginIndex(
+				restored.getSerialWb().getIndexes(), row) >= 0);
+
+		// edits after restore are still saved into data context
+		restored.getCellsMap().put("4:2", "new name");
+		List<Object> items = (List<Object>) restored.getSerialDataContext()
+				.getDataContext().get("items");
+		assertEquals("new name",
+				((Map<String, Object>) items.get(0)).get("name"));
+
+		TemplateCache.getInstance().invalidate("pricelist");
+	}
+
+	@Test
+	public final void testSetWbKeepsIndexes() throws Exception {
+
+		XSSFWorkbook wb = new XSSFWorkbook();
+		Row row = wb.createSheet("items").createRow(0);
+		SerialWorkbook swb = new SerialWorkbook();
+		swb.setWb(wb);
+		swb.getIndexes().getOrCreateRowMetadata(row).setOriginRowIndex(2);
+
+		// same workbook keeps row metadata
+		swb.setWb(wb);
+		assertEquals(2, swb.getIndexes().getRowMetadata(row)
+				.getOriginRowIndex());
+
+		// indexes set together with workbook
+		SerialWorkbook target = new SerialWorkbook();
+		target.setWb(new XSSFWorkbook());
+		target.setWb(wb, swb.getIndexes());
+		assertSame(swb.getIndexes(), target.getIndexes());
+		assertEquals(2, target.getIndexes().getRowMetadata(row)
+				.getOriginRowIndex());
+
+		// another workbook drops them
+		swb.setWb(new XSSFWorkbook());
+		assertNull(swb.getIndexes().getRowMetadata(row));
+	}
+
 }
@@ -0,0 +1,149 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+import org.tiefaces.common.Item;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class BatchReportEngineTest {
+
+	/**
+	 * Create engine with price list template.
+	 *
+	 * @return the batch report engine
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private BatchReportEngine createEngine() throws IOException {
+		InputStream stream =
+				this.getClass().getClassLoader().getResourceAsStream(
+						"resources/sheet/PRICELISTINPUTVALIDATION.xlsx");
+		return new BatchReportEngine(stream, null);
+	}
+
+	/**
+	 * Create data context with items.
+	 *
+	 * @param codes
+	 *            the item codes
+	 * @return the data context
+	 */
+	private Map<String, Object> createContext(final String... codes) {
+		List<Item> itemList = new ArrayList<Item>();
+		for (String code : codes) {
+			itemList.add(new Item(code, code, "", "1"));
+		}
+		Map<String, Object> context = new HashMap<String, Object>();
+		context.put("items", itemList);
+		return context;
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.service.BatchReportEngine#generate(Map, OutputStream)}
+	 * .
+	 */
+	@Test
+	public final void testGenerate() throws Exception {
+		BatchReportEngine engine = createEngine();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		engine.generate(createContext("a", "b"), out);
+		try (XSSFWorkbook wb = new XSSFWorkbook(
+				new ByteArrayInputStream(out.toByteArray()))) {
+			Sheet sheet = wb.getSheetAt(0);
+			assertEquals("a",
+					sheet.getRow(4).getCell(1).getStringCellValue());
+			assertEquals("b",
+					sheet.getRow(5).getCell(1).getStringCellValue());
+			assertEquals("Total",
+					sheet.getRow(6).getCell(0).getStringCellValue());
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.service.BatchReportEngine#generateAll(java.util.Iterator, ReportOutput, ExecutorService)}
+	 * . Failed report is passed to output, and its permit is given back, so
+	 * following reports still run with only one pending report allowed.
+	 */
+	@Test
+	public final void testGenerateAll() throws Exception {
+		BatchReportEngine engine = createEngine();
+		engine.setMaxPending(1);
+		List<Map<String, Object>> contexts = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			contexts.add(createContext("item" + i));
+		}
+		final Map<Integer, byte[]> reports = new ConcurrentHashMap<>();
+		final Map<Integer, Exception> failures = new ConcurrentHashMap<>();
+		ReportOutput output = new ReportOutput() {
+			@Override
+			public OutputStream open(final int index,
+					final Map<String, Object> dataContext)
+					throws IOException {
+				if (index == 3) {
+					throw new IOException("cannot open report 3");
+				}
+				return new ByteArrayOutputStream() {
+					@Override
+					public void close() throws IOException {
+						super.close();
+						reports.put(index, toByteArray());
+					}
+				};
+			}
+
+			@Override
+			public void failed(final int index,
+					final Map<String, Object> dataContext,
+					final Exception ex) {
+				failures.put(index, ex);
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			assertEquals(4, engine.generateAll(contexts.iterator(), output,
+					executor));
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(4, reports.size());
+		assertEquals(Collections.singleton(3), failures.keySet());
+		assertTrue(reports.get(4).length > 0);
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.service.BatchReportEngine#setMaxPending(int)}
+	 * .
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testSetMaxPendingBelowOne() throws Exception {
+		createEngine().setMaxPending(0);
+	}
+
+}
@@ -0,0 +1,68 @@
+/**
+ *
+ */
+package org.tiefaces.components.websheet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class FormulaDependencyGraphTest {
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.service.FormulaDependencyGraph#getDependentCells(Cell)}
+	 * .
+	 */
+	@Test
+	public final void testGetDependentCells() throws Exception {
+
+		XSSFWorkbook wb = new XSSFWorkbook();
+		Sheet sheet = wb.createSheet("sheet1");
+		Row row = sheet.createRow(0);
+		Cell a1 = row.createCell(0);
+		a1.setCellValue(1);
+		row.createCell(1).setCellFormula("A1*2");
+		row.createCell(2).setCellFormula("SUM(B1:B3)");
+		Cell d1 = row.createCell(3);
+		d1.setCellValue(5);
+		row.createCell(4).setCellFormula("D1+1");
+		Sheet sheet2 = wb.createSheet("sheet2");
+		sheet2.createRow(0).createCell(0).setCellFormula("sheet1!C1");
+
+		FormulaDependencyGraph graph = new FormulaDependencyGraph(wb,
+				XSSFEvaluationWorkbook.create(wb));
+		assertEquals(4, graph.getFormulaCount());
+
+		List<Cell> list = graph.getDependentCells(a1);
+		assertEquals(3, list.size());
+		assertEquals(1, list.get(0).getColumnIndex());
+		assertEquals(2, list.get(1).getColumnIndex());
+		assertEquals("sheet2", list.get(2).getSheet().getSheetName());
+
+		list = graph.getDependentCells(d1);
+		assertEquals(1, list.size());
+		assertEquals(4, list.get(0).getColumnIndex());
+
+		sheet.createRow(5).createCell(5).setCellFormula("NOW()");
+		graph = new FormulaDependencyGraph(wb,
+				XSSFEvaluationWorkbook.create(wb));
+		list = graph.getDependentCells(d1);
+		assertEquals(2, list.size());
+		assertTrue(list.get(1).getCellFormula().startsWith("NOW"));
+		wb.close();
+	}
+
+}
@@ -0,0 +1,77 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class JmxWebSheetMetricsTest {
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.service.JmxWebSheetMetrics#stop(WebSheetMetrics.Operation, long)}
+	 * .
+	 */
+	@Test
+	public final void testStopAndCount() {
+		JmxWebSheetMetrics metrics = new JmxWebSheetMetrics();
+		long start = metrics.start();
+		metrics.stop(WebSheetMetrics.Operation.LOAD, start);
+		metrics.stop(WebSheetMetrics.Operation.LOAD, start);
+		metrics.count(WebSheetMetrics.Counter.CELLS_BUILT, 5);
+		metrics.count(WebSheetMetrics.Counter.CELLS_BUILT, 3);
+		assertEquals(Long.valueOf(2),
+				metrics.getOperationCounts().get("LOAD"));
+		assertEquals(Long.valueOf(0),
+				metrics.getOperationCounts().get("EXPORT"));
+		assertEquals(Long.valueOf(8),
+				metrics.getCounters().get("CELLS_BUILT"));
+		assertTrue(metrics.getOperationMaxMillis().get("LOAD") <= metrics
+				.getOperationTotalMillis().get("LOAD"));
+		metrics.stop(WebSheetMetrics.Operation.LOAD, "pricelist", start);
+		metrics.stop(WebSheetMetrics.Operation.LOAD, null, start);
+		assertEquals(Long.valueOf(4),
+				metrics.getOperationCounts().get("LOAD"));
+		assertEquals(1, metrics.getTemplateOperationCounts().size());
+		assertEquals(Long.valueOf(1),
+				metrics.getTemplateOperationCounts().get("pricelist|LOAD"));
+		metrics.reset();
+		assertTrue(metrics.getTemplateOperationCounts().isEmpty());
+		assertEquals(Long.valueOf(0),
+				metrics.getOperationCounts().get("LOAD"));
+		assertEquals(Long.valueOf(0),
+				metrics.getCounters().get("CELLS_BUILT"));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.service.JmxWebSheetMetrics#install()}
+	 * .
+	 */
+	@Test
+	public final void testInstall() throws Exception {
+		JmxWebSheetMetrics metrics = JmxWebSheetMetrics.install();
+		try {
+			assertSame(metrics, WebSheetInstrumentation.getMetrics());
+			assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(
+					new ObjectName(JmxWebSheetMetrics.OBJECT_NAME)));
+		} finally {
+			JmxWebSheetMetrics.uninstall();
+		}
+		assertSame(NoOpWebSheetMetrics.INSTANCE,
+				WebSheetInstrumentation.getMetrics());
+	}
+
+}
@@ -0,0 +1,130 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Test;
+import org.tiefaces.common.TieConstants;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class PictureStoreTest {
+
+	/**
+	 * Restore store.
+	 */
+	@After
+	public final void tearDown() {
+		PictureStore store = PictureStore.getInstance();
+		store.setMaxBytes(TieConstants.DEFAULT_PICTURE_STORE_BYTES);
+		store.clear();
+	}
+
+	/**
+	 * Create png picture with random pixels.
+	 *
+	 * @param width
+	 *            the width
+	 * @param height
+	 *            the height
+	 * @return the png content
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static byte[] createPng(final int width, final int height)
+			throws IOException {
+		BufferedImage img = new BufferedImage(width, height,
+				BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				img.setRGB(x, y, (x * 31 + y * 17) * 65599);
+			}
+		}
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ImageIO.write(img, "png", os);
+		return os.toByteArray();
+	}
+
+	/**
+	 * Same content is stored once.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public final void testRegisterByContent() throws IOException {
+		PictureStore store = PictureStore.getInstance();
+		store.clear();
+		byte[] data = createPng(20, 10);
+		String key = store.register(data, "image/png", 0, 0);
+		assertEquals(key, store.register(data.clone(), "image/png", 0, 0));
+		assertEquals(1, store.size());
+		StoredPicture picture = store.get(key);
+		assertSame(data, picture.getData());
+		assertEquals("\"" + key + "\"", picture.getEtag());
+		assertNotEquals(key,
+				store.register(createPng(21, 10), "image/png", 0, 0));
+	}
+
+	/**
+	 * Picture larger than anchor is downscaled.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public final void testDownscale() throws IOException {
+		PictureStore store = PictureStore.getInstance();
+		store.clear();
+		byte[] data = createPng(400, 200);
+		String key = store.register(data, "image/png", 100, 100);
+		BufferedImage img = ImageIO.read(
+				new ByteArrayInputStream(store.get(key).getData()));
+		assertEquals(100, img.getWidth());
+		assertEquals(50, img.getHeight());
+		// already small enough, original kept.
+		byte[] small = createPng(40, 20);
+		assertSame(small,
+				store.get(store.register(small, "image/png", 100, 100))
+						.getData());
+	}
+
+	/**
+	 * Least recently used pictures are evicted by total bytes.
+	 */
+	@Test
+	public final void testEvictByBytes() {
+		PictureStore store = PictureStore.getInstance();
+		store.clear();
+		store.setMaxBytes(10);
+		String a = store.register(new byte[] { 1, 1, 1, 1 }, "image/png",
+				0, 0);
+		String b = store.register(new byte[] { 2, 2, 2, 2 }, "image/png",
+				0, 0);
+		assertTrue(store.contains(a));
+		store.register(new byte[] { 3, 3, 3, 3 }, "image/png", 0, 0);
+		assertFalse(store.contains(b));
+		assertTrue(store.contains(a));
+		assertEquals(8, store.getTotalBytes());
+		assertNull(store.get(store.register(new byte[11], "image/png", 0,
+				0)));
+	}
+
+}
@@ -0,0 +1,128 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.junit.Test;
+import org.tiefaces.common.Item;
+import org.tiefaces.components.websheet.TieWebSheetBean;
+import org.tiefaces.components.websheet.dataobjects.CellFormAttributes;
+import org.tiefaces.components.websheet.dataobjects.WorkbookIndexes;
+import org.tiefaces.components.websheet.utility.ConfigurationUtility;
+import org.tiefaces.components.websheet.utility.SaveAttrsUtility;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class TemplateCacheTest {
+
+	/**
+	 * Load template with template id.
+	 *
+	 * @return the bean
+	 */
+	private TieWebSheetBean loadBean() {
+		TieWebSheetBean bean = new TieWebSheetBean();
+		bean.init();
+		InputStream stream =
+				this.getClass().getClassLoader().getResourceAsStream(
+						"resources/sheet/PRICELISTINPUTVALIDATION.xlsx");
+		List<Item> itemList = new ArrayList<Item>();
+		itemList.add(new Item());
+		HashMap<String, Object> context = new HashMap<String, Object>();
+		context.put("items", itemList);
+		assertEquals(1, bean.loadWebSheet(stream, context, "pricelist"));
+		return bean;
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.TieWebSheetBean#loadWebSheet(InputStream, java.util.Map, String)}
+	 * .
+	 */
+	@Test
+	public final void testLoadFromTemplateCache() throws Exception {
+		TemplateCache.getInstance().clear();
+		TieWebSheetBean bean1 = loadBean();
+		assertEquals(1, TemplateCache.getInstance().size());
+		TieWebSheetBean bean2 = loadBean();
+		assertEquals(1, TemplateCache.getInstance().size());
+
+		assertNotSame(bean1.getWb(), bean2.getWb());
+		assertEquals(bean1.getWb().getNumberOfSheets(),
+				bean2.getWb().getNumberOfSheets());
+		assertEquals(bean1.getSheetConfigMap().keySet(),
+				bean2.getSheetConfigMap().keySet());
+		assertEquals(bean1.getBodyRows().size(), bean2.getBodyRows().size());
+		assertEquals(bean1.getCellAttributesMap().getCellValidateAttributes()
+				.size(), bean2.getCellAttributesMap()
+						.getCellValidateAttributes().size());
+
+		// shared attributes cannot be changed at any level.
+		List<CellFormAttributes> attrs = bean2.getCellAttributesMap()
+				.getCellValidateAttributes().values().iterator().next();
+		try {
+			attrs.clear();
+			fail("shared attributes changed");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+
+		// data binding in one session not affect the other.
+		bean2.addRepeatRow(4);
+		assertNotEquals(bean1.getBodyRows().size(),
+				bean2.getBodyRows().size());
+
+		TemplateCache.getInstance().invalidate("pricelist");
+		assertEquals(0, TemplateCache.getInstance().size());
+	}
+
+	/**
+	 * Bean loaded from template cache keeps origin rows and save attrs of
+	 * the template, so edits are saved into data context.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public final void testRowsLoadedFromTemplateCache() throws Exception {
+		TemplateCache.getInstance().clear();
+		TieWebSheetBean bean1 = loadBean();
+		TieWebSheetBean bean2 = loadBean();
+		assertEquals(1, TemplateCache.getInstance().size());
+
+		WorkbookIndexes indexes1 = bean1.getSerialWb().getIndexes();
+		WorkbookIndexes indexes2 = bean2.getSerialWb().getIndexes();
+		Row row1 = bean1.getWb().getSheetAt(0).getRow(4);
+		Row row2 = bean2.getWb().getSheetAt(0).getRow(4);
+		int origin = ConfigurationUtility.getRowOriginIndex(indexes1, row1);
+		assertTrue(origin >= 0);
+		assertEquals(origin,
+				ConfigurationUtility.getRowOriginIndex(indexes2, row2));
+		String saveAttrs = SaveAttrsUtility.getSaveAttrListFromRow(indexes1,
+				row1);
+		assertNotNull(saveAttrs);
+		assertEquals(saveAttrs,
+				SaveAttrsUtility.getSaveAttrListFromRow(indexes2, row2));
+
+		bean2.getCellsMap().put("4:1", "test item");
+		List<Item> items = (List<Item>) bean2.getSerialDataContext()
+				.getDataContext().get("items");
+		assertEquals("test item", items.get(0).getCode());
+
+		TemplateCache.getInstance().invalidate("pricelist");
+	}
+
+}
@@ -5,6 +5,7 @@ package org.tiefaces.components.websheet.service;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
@@ -19,6 +20,7 @@ import org.tiefaces.common.Item;
 import org.tiefaces.common.TieConstants;
 import org.tiefaces.components.websheet.TieWebSheetBean;
 import org.tiefaces.components.websheet.dataobjects.FacesCell;
+import org.tiefaces.components.websheet.dataobjects.LazyBodyRows;
 
 /**
  * @author Jason Jiang
@@ -107,6 +109,40 @@ public class ValidationHandlerTest {
 	}
 
 
+	/**
+	 * Test validation error is kept when lazy body rows are released and
+	 * assembled again.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public final void testValidationKeptInLazyBodyRows() throws Exception {
+
+		TieWebSheetBean bean = new TieWebSheetBean();
+		bean.init();
+		bean.setLazyBodyRows(true);
+		InputStream stream =
+				this.getClass().getClassLoader().getResourceAsStream(
+						"resources/sheet/PRICELISTINPUTVALIDATION.xlsx");
+		List<Item> itemList = new ArrayList<Item>();
+		itemList.add(new Item());
+		HashMap<String, Object> context = new HashMap<String, Object>();
+		context.put("items", itemList);
+		assertEquals(1, bean.loadWebSheet(stream, context));
+
+		bean.getCellsMap().put("4:3", "-1");
+		bean.getValidationHandler().validateWithRowColInCurrentPage(4, 3, false);
+		FacesCell fcell = bean.getBodyRows().get(4).getCells().get(3);
+		assertTrue(fcell.isInvalid());
+
+		LazyBodyRows rows = (LazyBodyRows) bean.getBodyRows();
+		rows.invalidate();
+		assertEquals(0, rows.getAssembledCount());
+		FacesCell reassembled = rows.get(4).getCells().get(3);
+		assertNotSame(fcell, reassembled);
+		assertTrue(reassembled.isInvalid());
+		assertTrue(reassembled.getValidStyle().contains(TieConstants.CELL_INVALID_STYLE));
+	}
+
 	@Test
 	public void testPreValidation() throws Exception {
 		TieWebSheetBean bean = new TieWebSheetBean();
@@ -8,6 +8,7 @@ import org.tiefaces.components.websheet.utility.CellControlsUtility;
 import org.tiefaces.components.websheet.utility.CellControlsUtility.AttributesType;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * @author JASON
@@ -17,7 +18,7 @@ public class CellControlsUtilityTest {
 
 	/**
 	 * Test method for
-	 * {@link org.tiefaces.components.websheet.utility.CellControlsUtility#convertToObject(java.lang.Class, java.lang.String)}.
+	 * {@link org.tiefaces.components.websheet.utility.CellControlsUtility#convertToObject(org.tiefaces.components.websheet.utility.CellControlsUtility.AttributesType, java.lang.String)}.
 	 * private static Class[] paraMatchArray = { String.class, boolean.class,
 	 * Boolean.class, int.class, Integer.class, long.class, Long.class,
 	 * float.class, Float.class, double.class, Double.class, byte.class,
@@ -64,7 +65,58 @@ public class CellControlsUtilityTest {
 	 */
 	@Test
 	public void testSetObjectProperty() throws Exception {
+		TestBean bean = new TestBean();
+		CellControlsUtility.setObjectProperty(bean, "count", "42", true);
+		assertEquals(42, bean.getCount());
+		CellControlsUtility.setObjectProperty(bean, "label", "abc", true);
+		assertEquals("abc", CellControlsUtility.getObjectPropertyValue(bean,
+				"label", true));
+		// non existing property is ignored
+		CellControlsUtility.setObjectProperty(bean, "missing", "1", true);
+		assertNull(CellControlsUtility.getObjectPropertyValue(bean,
+				"missing", true));
+		WebSheetUtility.setObjectProperty(bean, "label", "def", true);
+		assertEquals("def", bean.getLabel());
+	}
+
+	/**
+	 * Bean for property tests.
+	 */
+	public static class TestBean {
+
+		/** count. */
+		private int count;
+
+		/** label. */
+		private String label;
+
+		/**
+		 * @return count.
+		 */
+		public int getCount() {
+			return count;
+		}
 
+		/**
+		 * @param pcount count.
+		 */
+		public void setCount(final int pcount) {
+			this.count = pcount;
+		}
+
+		/**
+		 * @return label.
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * @param plabel label.
+		 */
+		public void setLabel(final String plabel) {
+			this.label = plabel;
+		}
 	}
 
 	/**
@@ -175,7 +175,7 @@ public class CellUtilityTest {
 
 	/**
 	 * Test method for
-	 * {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#skippedRegionCells(org.apache.poi.ss.usermodel.Sheet)}.
+	 * {@link org.tiefaces.components.websheet.dataobjects.MergedRegionIndex#isSkipped(int, int)}.
 	 */
 	@Test
 	public void testSkippedRegionCells() throws Exception {
@@ -184,7 +184,7 @@ public class CellUtilityTest {
 
 	/**
 	 * Test method for
-	 * {@link org.tiefaces.components.websheet.utility.CellUtility#convertCell(org.tiefaces.components.websheet.configuration.SheetConfiguration, org.tiefaces.components.websheet.dataobjects.FacesCell, org.apache.poi.ss.usermodel.Cell, java.util.Map, int, org.tiefaces.components.websheet.dataobjects.CellAttributesMap, java.lang.String)}.
+	 * {@link org.tiefaces.components.websheet.utility.CellUtility#convertCell(org.tiefaces.components.websheet.configuration.SheetConfiguration, org.tiefaces.components.websheet.dataobjects.FacesCell, org.apache.poi.ss.usermodel.Cell, org.tiefaces.components.websheet.dataobjects.MergedRegionIndex, int, org.tiefaces.components.websheet.dataobjects.CellAttributesMap, org.tiefaces.components.websheet.dataobjects.RowMetadata)}.
 	 */
 	@Test
 	public void testConvertCell() throws Exception {
@@ -57,7 +57,7 @@ public class ConfigurationUtilityTest {
     }
 
     /**
-	     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#changeIndexNumberInShiftMap(java.util.Map, java.util.Map)}.
+	     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#changeIndexNumberInShiftMap(org.tiefaces.components.websheet.configuration.ShiftMap, org.tiefaces.components.websheet.configuration.FullNamePath, int)}.
 	     */
 	    @Test
 	    public void testChangeIndexNumberInShiftMap() throws Exception {
@@ -73,39 +73,39 @@ public class ConfigurationUtilityTest {
     }
 
     /**
-     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#increaseIndexNumberInHiddenColumn(org.tiefaces.components.websheet.configuration.ConfigBuildRef, int, java.lang.String, java.util.Map)}.
+     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#changeRowIndexNumber(org.tiefaces.components.websheet.configuration.ConfigBuildRef, int, org.tiefaces.components.websheet.configuration.FullNamePath, int)}.
      */
     @Test
-    public void testIncreaseIndexNumberInHiddenColumn() throws Exception {
+    public void testChangeRowIndexNumber() throws Exception {
         
     }
 
     /**
-     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#setFullNameInHiddenColumn(org.apache.poi.ss.usermodel.Row, java.lang.String)}.
+     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#setRowFullName(org.apache.poi.ss.usermodel.Row, java.lang.String)}.
      */
     @Test
-    public void testSetFullNameInHiddenColumn() throws Exception {
+    public void testSetRowFullName() throws Exception {
         
     }
 
     /**
-     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#getOriginalRowNumInHiddenColumn(org.apache.poi.ss.usermodel.Row)}.
+     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#getRowOriginIndex(org.apache.poi.ss.usermodel.Row)}.
      */
     @Test
-    public void testGetOriginalRowNumInHiddenColumn() throws Exception {
+    public void testGetRowOriginIndex() throws Exception {
         
     }
 
     /**
-     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#setOriginalRowNumInHiddenColumn(org.apache.poi.ss.usermodel.Row, int)}.
+     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#setRowOriginIndex(org.apache.poi.ss.usermodel.Row, int)}.
      */
     @Test
-    public void testSetOriginalRowNumInHiddenColumn() throws Exception {
+    public void testSetRowOriginIndex() throws Exception {
         
     }
 
     /**
-     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#findParentRowsMappingFromShiftMap(java.lang.String[], java.util.Map)}.
+     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#findParentRowsMappingFromShiftMap(java.lang.String[], org.tiefaces.components.websheet.configuration.ShiftMap)}.
      */
     @Test
     public void testFindParentRowsMappingFromShiftMap() throws Exception {
@@ -113,7 +113,7 @@ public class ConfigurationUtilityTest {
     }
 
     /**
-     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#findChildRowsMappingFromShiftMap(java.lang.String, java.util.NavigableMap)}.
+     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#findChildRowsMappingFromShiftMap(org.tiefaces.components.websheet.configuration.FullNamePath, org.tiefaces.components.websheet.configuration.ShiftMap)}.
      */
     @Test
     public void testFindChildRowsMappingFromShiftMap() throws Exception {
@@ -177,7 +177,7 @@ public class ConfigurationUtilityTest {
     }
 
     /**
-     * Test method for {@link org.tiefaces.components.websheet.utility.ConfigurationUtility#skippedRegionCells(org.apache.poi.ss.usermodel.Sheet)}.
+     * Test method for {@link org.tiefaces.components.websheet.dataobjects.MergedRegionIndex#isSkipped(int, int)}.
      */
     @Test
     public void testSkippedRegionCells() throws Exception {
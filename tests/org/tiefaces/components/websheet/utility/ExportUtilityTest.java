@@ -0,0 +1,95 @@
+/**
+ * 
+ */
+package org.tiefaces.components.websheet.utility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.InputStream;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+/**
+ * @author Jason Jiang
+ *
+ */
+public class ExportUtilityTest {
+
+	/**
+	 * Count export temp files in temp directory.
+	 *
+	 * @return the count
+	 */
+	private static int countTempFiles() {
+		String[] names = new File(System.getProperty("java.io.tmpdir"))
+				.list(new FilenameFilter() {
+					@Override
+					public boolean accept(final File dir, final String name) {
+						return name.startsWith("tiefaces-export");
+					}
+				});
+		return (names == null) ? 0 : names.length;
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.utility.ExportUtility#contentDisposition(java.lang.String)}.
+	 */
+	@Test
+	public void testContentDisposition() throws Exception {
+		assertEquals(
+				"attachment; filename=\"report.xlsx\"; filename*=UTF-8''report.xlsx",
+				ExportUtility.contentDisposition("report.xlsx"));
+		assertEquals(
+				"attachment; filename=\"a\\\"b\\\\c_.xlsx\"; filename*=UTF-8''a%22b%5Cc%0D.xlsx",
+				ExportUtility.contentDisposition("a\"b\\c\r.xlsx"));
+		assertEquals(
+				"attachment; filename=\"__ 1.xlsx\"; filename*=UTF-8''%E6%8A%A5%E8%A1%A8%201.xlsx",
+				ExportUtility.contentDisposition("\u62a5\u8868 1.xlsx"));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.utility.ExportUtility#writeToTempFile(org.apache.poi.ss.usermodel.Workbook)}.
+	 */
+	@Test
+	public void testWriteToTempFile() throws Exception {
+		try (XSSFWorkbook wb = new XSSFWorkbook()) {
+			wb.createSheet("s1").createRow(0).createCell(0)
+					.setCellValue("value");
+			int before = countTempFiles();
+			InputStream in = ExportUtility.writeToTempFile(wb);
+			assertEquals(before + 1, countTempFiles());
+			try (Workbook read = WorkbookFactory.create(in)) {
+				assertEquals("value", read.getSheet("s1").getRow(0)
+						.getCell(0).getStringCellValue());
+			}
+			ExportUtility.closeQuietly(in);
+			assertEquals(before, countTempFiles());
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.tiefaces.components.websheet.utility.ExportUtility#closeQuietly(java.io.InputStream)}
+	 * with abandoned export.
+	 */
+	@Test
+	public void testCloseAbandonedExport() throws Exception {
+		try (XSSFWorkbook wb = new XSSFWorkbook()) {
+			wb.createSheet("s1");
+			int before = countTempFiles();
+			ExportUtility.closeQuietly(ExportUtility.writeToTempFile(wb));
+			assertEquals(before, countTempFiles());
+			ExportUtility.closeQuietly(null);
+			assertTrue(ExportUtility.writeToMemory(wb).available() > 0);
+		}
+	}
+
+}
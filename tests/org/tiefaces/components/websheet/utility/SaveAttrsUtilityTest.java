@@ -81,10 +81,10 @@ public class SaveAttrsUtilityTest {
 	}
 
 	/**
-	 * Test method for {@link org.tiefaces.components.websheet.utility.SaveAttrsUtility#setSaveObjectsInHiddenColumn(org.apache.poi.ss.usermodel.Row, java.lang.String)}.
+	 * Test method for {@link org.tiefaces.components.websheet.utility.SaveAttrsUtility#setRowSaveAttrs(org.apache.poi.ss.usermodel.Row, java.lang.String)}.
 	 */
 	@Test
-	public void testSetSaveObjectsInHiddenColumn() throws Exception {
+	public void testSetRowSaveAttrs() throws Exception {
 		
 	}
 